@@ -11,4 +11,606 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Timeline timeline = new Timeline();
+
+    private final Counters counters = new Counters();
+
+    private final FollowGraph followGraph = new FollowGraph();
+
+    private final Suggestions suggestions = new Suggestions();
+
+    private final PublicationCounters publicationCounters = new PublicationCounters();
+
+    private final RepublishRoots republishRoots = new RepublishRoots();
+
+    private final TrendingTags trendingTags = new TrendingTags();
+
+    private final TrendSketch trendSketch = new TrendSketch();
+
+    private final Typeahead typeahead = new Typeahead();
+
+    private final Search search = new Search();
+
+    private final LocalFeed localFeed = new LocalFeed();
+
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    public Counters getCounters() {
+        return counters;
+    }
+
+    public FollowGraph getFollowGraph() {
+        return followGraph;
+    }
+
+    public Suggestions getSuggestions() {
+        return suggestions;
+    }
+
+    public PublicationCounters getPublicationCounters() {
+        return publicationCounters;
+    }
+
+    public RepublishRoots getRepublishRoots() {
+        return republishRoots;
+    }
+
+    public TrendingTags getTrendingTags() {
+        return trendingTags;
+    }
+
+    public TrendSketch getTrendSketch() {
+        return trendSketch;
+    }
+
+    public Typeahead getTypeahead() {
+        return typeahead;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public LocalFeed getLocalFeed() {
+        return localFeed;
+    }
+
+    public static class IdGenerator {
+
+        /**
+         * Id of this node in the generated entity ids, unique among the nodes sharing the database (0 to 31).
+         */
+        private int nodeId = 0;
+
+        public int getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(int nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+
+    public static class BulkImport {
+
+        /**
+         * Number of imported lines resolved and written together, in one transaction.
+         */
+        private int chunkSize = 1000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Timeline {
+
+        /**
+         * Number of recent publication ids kept in memory per active publisher.
+         */
+        private int bufferCapacity = 64;
+
+        /**
+         * Memory budget of the recent publication buffers, in bytes.
+         */
+        private long bufferMemory = 32 * 1024 * 1024;
+
+        /**
+         * Maximum number of buffers loaded from the database while assembling one timeline page; a page missing
+         * more buffers is read from the database instead.
+         */
+        private int bufferLoadsPerRequest = 4;
+
+        /**
+         * Maximum number of recent publications of a followed publisher added to the home timeline of a new
+         * follower.
+         */
+        private int backfillSize = 100;
+
+        /**
+         * Maximum number of rows removed from a home timeline per statement, when unfollowing publishers.
+         */
+        private int pruneChunkSize = 1000;
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public void setBufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+        }
+
+        public long getBufferMemory() {
+            return bufferMemory;
+        }
+
+        public void setBufferMemory(long bufferMemory) {
+            this.bufferMemory = bufferMemory;
+        }
+
+        public int getBufferLoadsPerRequest() {
+            return bufferLoadsPerRequest;
+        }
+
+        public void setBufferLoadsPerRequest(int bufferLoadsPerRequest) {
+            this.bufferLoadsPerRequest = bufferLoadsPerRequest;
+        }
+
+        public int getBackfillSize() {
+            return backfillSize;
+        }
+
+        public void setBackfillSize(int backfillSize) {
+            this.backfillSize = backfillSize;
+        }
+
+        public int getPruneChunkSize() {
+            return pruneChunkSize;
+        }
+
+        public void setPruneChunkSize(int pruneChunkSize) {
+            this.pruneChunkSize = pruneChunkSize;
+        }
+    }
+
+    public static class Counters {
+
+        /**
+         * Number of publishers whose counters are recomputed together, in one transaction.
+         */
+        private int reconciliationChunkSize = 1000;
+
+        public int getReconciliationChunkSize() {
+            return reconciliationChunkSize;
+        }
+
+        public void setReconciliationChunkSize(int reconciliationChunkSize) {
+            this.reconciliationChunkSize = reconciliationChunkSize;
+        }
+    }
+
+    public static class FollowGraph {
+
+        /**
+         * Whether the follows are loaded in memory at startup; when disabled, they are read from the database.
+         */
+        private boolean enabled = true;
+
+        /**
+         * File of the snapshots of the in-memory follows, read at startup instead of the database when up to
+         * date; no snapshot is written when empty.
+         */
+        private String snapshotFile;
+
+        /**
+         * Delay between the end of a snapshot and the start of the next one, in milliseconds.
+         */
+        private long snapshotDelay = 600_000;
+
+        /**
+         * Number of follows read from the database per query, when loading them.
+         */
+        private int loadChunkSize = 100_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSnapshotFile() {
+            return snapshotFile;
+        }
+
+        public void setSnapshotFile(String snapshotFile) {
+            this.snapshotFile = snapshotFile;
+        }
+
+        public long getSnapshotDelay() {
+            return snapshotDelay;
+        }
+
+        public void setSnapshotDelay(long snapshotDelay) {
+            this.snapshotDelay = snapshotDelay;
+        }
+
+        public int getLoadChunkSize() {
+            return loadChunkSize;
+        }
+
+        public void setLoadChunkSize(int loadChunkSize) {
+            this.loadChunkSize = loadChunkSize;
+        }
+    }
+
+    public static class Suggestions {
+
+        /**
+         * Number of suggestions ranked and cached per publisher.
+         */
+        private int limit = 100;
+
+        /**
+         * Time the suggestions of a publisher are cached, in seconds.
+         */
+        private long timeToLiveSeconds = 300;
+
+        /**
+         * Number of publishers whose suggestions are cached.
+         */
+        private long maxEntries = 10_000;
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class PublicationCounters {
+
+        /**
+         * Delay between the end of a flush of the publication counters and the start of the next one, in
+         * milliseconds.
+         */
+        private long flushDelay = 1000;
+
+        public long getFlushDelay() {
+            return flushDelay;
+        }
+
+        public void setFlushDelay(long flushDelay) {
+            this.flushDelay = flushDelay;
+        }
+    }
+
+    public static class RepublishRoots {
+
+        /**
+         * Time the row of a republished publication is cached, in seconds; its republish counter is as old.
+         */
+        private long timeToLiveSeconds = 60;
+
+        /**
+         * Number of republished publications whose rows are cached.
+         */
+        private long maxEntries = 10_000;
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class TrendingTags {
+
+        /**
+         * Whether to load the uses of the window from the database when the application starts.
+         */
+        private boolean loadOnStartup = true;
+
+        /**
+         * Number of days during which the uses of the tags are counted, by hour.
+         */
+        private int windowDays = 30;
+
+        /**
+         * Number of trending tags ranked and kept per window.
+         */
+        private int limit = 100;
+
+        /**
+         * Time a ranking is kept before being computed again, in milliseconds.
+         */
+        private long rankingMaxAge = 1000;
+
+        public boolean isLoadOnStartup() {
+            return loadOnStartup;
+        }
+
+        public void setLoadOnStartup(boolean loadOnStartup) {
+            this.loadOnStartup = loadOnStartup;
+        }
+
+        public int getWindowDays() {
+            return windowDays;
+        }
+
+        public void setWindowDays(int windowDays) {
+            this.windowDays = windowDays;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public long getRankingMaxAge() {
+            return rankingMaxAge;
+        }
+
+        public void setRankingMaxAge(long rankingMaxAge) {
+            this.rankingMaxAge = rankingMaxAge;
+        }
+    }
+
+    public static class TrendSketch {
+
+        /**
+         * Number of tags, and of mentioned logins, monitored with their counts.
+         */
+        private int capacity = 1000;
+
+        /**
+         * Error of the estimated counts, relative to the total of the counts.
+         */
+        private double epsilon = 0.001;
+
+        /**
+         * Probability for an estimated count to exceed the error.
+         */
+        private double delta = 0.001;
+
+        /**
+         * Time after which the counts are halved, in milliseconds.
+         */
+        private long halfLife = 3_600_000;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getEpsilon() {
+            return epsilon;
+        }
+
+        public void setEpsilon(double epsilon) {
+            this.epsilon = epsilon;
+        }
+
+        public double getDelta() {
+            return delta;
+        }
+
+        public void setDelta(double delta) {
+            this.delta = delta;
+        }
+
+        public long getHalfLife() {
+            return halfLife;
+        }
+
+        public void setHalfLife(long halfLife) {
+            this.halfLife = halfLife;
+        }
+    }
+
+    public static class Typeahead {
+
+        /**
+         * Whether to load the tag names and the logins from the database when the application starts.
+         */
+        private boolean loadOnStartup = true;
+
+        /**
+         * Number of suggestions kept for every prefix, and maximum number of suggestions of a request.
+         */
+        private int limit = 10;
+
+        /**
+         * Time after which the usage scores are halved, in milliseconds.
+         */
+        private long halfLife = 86400000;
+
+        /**
+         * Number of days since the last use of a tag for its publications to score it when loading.
+         */
+        private int recentDays = 30;
+
+        public boolean isLoadOnStartup() {
+            return loadOnStartup;
+        }
+
+        public void setLoadOnStartup(boolean loadOnStartup) {
+            this.loadOnStartup = loadOnStartup;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public long getHalfLife() {
+            return halfLife;
+        }
+
+        public void setHalfLife(long halfLife) {
+            this.halfLife = halfLife;
+        }
+
+        public int getRecentDays() {
+            return recentDays;
+        }
+
+        public void setRecentDays(int recentDays) {
+            this.recentDays = recentDays;
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Directory of the full-text index of the publications; the index is kept in memory when empty.
+         */
+        private String directory;
+
+        /**
+         * Whether the index is rebuilt from the database at startup when it is empty.
+         */
+        private boolean rebuildOnStartup = true;
+
+        /**
+         * Number of publications read from the database per batch, when rebuilding the index.
+         */
+        private int rebuildBatchSize = 1000;
+
+        /**
+         * Number of threads indexing the batches, when rebuilding the index.
+         */
+        private int rebuildThreads = 4;
+
+        /**
+         * Delay between the refreshes of the searched index, in milliseconds: the indexed changes are
+         * searchable after at most this delay.
+         */
+        private long refreshDelay = 1000;
+
+        /**
+         * Delay between the commits of the index to its directory, in milliseconds.
+         */
+        private long commitDelay = 60_000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public boolean isRebuildOnStartup() {
+            return rebuildOnStartup;
+        }
+
+        public void setRebuildOnStartup(boolean rebuildOnStartup) {
+            this.rebuildOnStartup = rebuildOnStartup;
+        }
+
+        public int getRebuildBatchSize() {
+            return rebuildBatchSize;
+        }
+
+        public void setRebuildBatchSize(int rebuildBatchSize) {
+            this.rebuildBatchSize = rebuildBatchSize;
+        }
+
+        public int getRebuildThreads() {
+            return rebuildThreads;
+        }
+
+        public void setRebuildThreads(int rebuildThreads) {
+            this.rebuildThreads = rebuildThreads;
+        }
+
+        public long getRefreshDelay() {
+            return refreshDelay;
+        }
+
+        public void setRefreshDelay(long refreshDelay) {
+            this.refreshDelay = refreshDelay;
+        }
+
+        public long getCommitDelay() {
+            return commitDelay;
+        }
+
+        public void setCommitDelay(long commitDelay) {
+            this.commitDelay = commitDelay;
+        }
+    }
+
+    public static class LocalFeed {
+
+        /**
+         * Number of publications of a region read per query, when ranking its top publications.
+         */
+        private int rankingChunkSize = 1000;
+
+        public int getRankingChunkSize() {
+            return rankingChunkSize;
+        }
+
+        public void setRankingChunkSize(int rankingChunkSize) {
+            this.rankingChunkSize = rankingChunkSize;
+        }
+    }
 }
@@ -17,7 +17,11 @@ public class CacheConfiguration {
 
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    private final javax.cache.configuration.Configuration<Object, Object> suggestionsConfiguration;
+
+    private final javax.cache.configuration.Configuration<Object, Object> republishRootsConfiguration;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache =
             jHipsterProperties.getCache().getEhcache();
 
@@ -26,6 +30,20 @@ public class CacheConfiguration {
                 ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
                 .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
                 .build());
+
+        ApplicationProperties.Suggestions suggestions = applicationProperties.getSuggestions();
+        suggestionsConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(suggestions.getMaxEntries()))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(suggestions.getTimeToLiveSeconds())))
+                .build());
+
+        ApplicationProperties.RepublishRoots republishRoots = applicationProperties.getRepublishRoots();
+        republishRootsConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(republishRoots.getMaxEntries()))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(republishRoots.getTimeToLiveSeconds())))
+                .build());
     }
 
     @Bean
@@ -33,6 +51,10 @@ public class CacheConfiguration {
         return cm -> {
             cm.createCache(ar.edu.um.isa.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
             cm.createCache(ar.edu.um.isa.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
+            cm.createCache(ar.edu.um.isa.repository.TagRepository.TAG_ID_BY_NAME_CACHE, jcacheConfiguration);
+            cm.createCache(ar.edu.um.isa.repository.RegionRepository.REGION_ID_BY_CODE_CACHE, jcacheConfiguration);
+            cm.createCache(ar.edu.um.isa.service.FollowSuggestionService.SUGGESTIONS_CACHE, suggestionsConfiguration);
+            cm.createCache(ar.edu.um.isa.service.PublicationService.REPUBLISH_ROOTS_CACHE, republishRootsConfiguration);
             // jhipster-needle-ehcache-add-entry
         };
     }
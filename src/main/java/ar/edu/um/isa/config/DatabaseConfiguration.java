@@ -1,8 +1,12 @@
 package ar.edu.um.isa.config;
 
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.domain.util.SnowflakeIdentifierGenerator;
+
 import io.github.jhipster.config.JHipsterConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -20,5 +24,22 @@ public class DatabaseConfiguration {
 
     private final Logger log = LoggerFactory.getLogger(DatabaseConfiguration.class);
 
+    /**
+     * The generator of the entity ids of this node, also used by the services and the tests that build ids.
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(ApplicationProperties applicationProperties) {
+        int nodeId = applicationProperties.getIdGenerator().getNodeId();
+        log.debug("Configuring the entity id generator for node {}", nodeId);
+        return new SnowflakeIdGenerator(nodeId);
+    }
+
+    /**
+     * Hand the id generator to the {@link SnowflakeIdentifierGenerator} of the entities.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer snowflakeIdGeneratorCustomizer(SnowflakeIdGenerator snowflakeIdGenerator) {
+        return properties -> properties.put(SnowflakeIdentifierGenerator.ID_GENERATOR_SETTING, snowflakeIdGenerator);
+    }
 
 }
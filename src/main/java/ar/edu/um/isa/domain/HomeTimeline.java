@@ -0,0 +1,114 @@
+package ar.edu.um.isa.domain;
+
+import javax.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A HomeTimeline row: a publication shown in the home timeline of a publisher.
+ * <p>
+ * Rows only hold ids, they are written in bulk when a publication is created and read as ranges of
+ * publication ids, so no association is mapped.
+ */
+@Entity
+@Table(name = "home_timeline")
+@IdClass(HomeTimeline.HomeTimelineId.class)
+public class HomeTimeline implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    @Id
+    @Column(name = "publication_id")
+    private Long publicationId;
+
+    public HomeTimeline() {
+    }
+
+    public HomeTimeline(Long ownerId, Long publicationId) {
+        this.ownerId = ownerId;
+        this.publicationId = publicationId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Long getPublicationId() {
+        return publicationId;
+    }
+
+    public void setPublicationId(Long publicationId) {
+        this.publicationId = publicationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HomeTimeline homeTimeline = (HomeTimeline) o;
+        return Objects.equals(ownerId, homeTimeline.ownerId) && Objects.equals(publicationId, homeTimeline.publicationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ownerId, publicationId);
+    }
+
+    @Override
+    public String toString() {
+        return "HomeTimeline{" +
+            "ownerId=" + getOwnerId() +
+            ", publicationId=" + getPublicationId() +
+            "}";
+    }
+
+    /**
+     * The primary key of a HomeTimeline row.
+     */
+    public static class HomeTimelineId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long ownerId;
+
+        private Long publicationId;
+
+        public HomeTimelineId() {
+        }
+
+        public HomeTimelineId(Long ownerId, Long publicationId) {
+            this.ownerId = ownerId;
+            this.publicationId = publicationId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            HomeTimelineId id = (HomeTimelineId) o;
+            return Objects.equals(ownerId, id.ownerId) && Objects.equals(publicationId, id.publicationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ownerId, publicationId);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package ar.edu.um.isa.domain;
 
+import ar.edu.um.isa.domain.util.ContentTokenizer;
+import ar.edu.um.isa.domain.util.SnowflakeIdentifierGenerator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 
 import java.io.Serializable;
@@ -19,7 +25,8 @@ public class Publication implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
     @Column(name = "jhi_date")
@@ -37,8 +44,18 @@ public class Publication implements Serializable {
     @Column(name = "city")
     private String city;
 
-    @OneToOne
-    @JoinColumn(unique = true)
+    /**
+     * The id of the {@link Region} of the country and the city, set from them by {@code PublicationService}.
+     */
+    @Column(name = "region_id")
+    private Integer regionId;
+
+    /**
+     * The republished publication. Republishing a republish links to its root, so the root is never itself a
+     * republish, and it is embedded one level deep.
+     */
+    @ManyToOne
+    @JsonIgnoreProperties("republish")
     private Publication republish;
 
     @ManyToMany
@@ -47,13 +64,29 @@ public class Publication implements Serializable {
                inverseJoinColumns = @JoinColumn(name = "mentions_id", referencedColumnName = "id"))
     private Set<Publisher> mentions = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER,cascade = CascadeType.ALL)
+    /**
+     * The counters are added to by the periodic flushes of {@code PublicationCounters}, never by the entity.
+     */
+    @Column(name = "fave_count", insertable = false, updatable = false)
+    private Long faveCount;
+
+    @Column(name = "like_count", insertable = false, updatable = false)
+    private Long likeCount;
+
+    @Column(name = "republish_count", insertable = false, updatable = false)
+    private Long republishCount;
+
+    @ManyToMany
+    @JsonIgnore
+    @BatchSize(size = 100)
     @JoinTable(name = "publication_faved_by",
                joinColumns = @JoinColumn(name = "publications_id", referencedColumnName = "id"),
                inverseJoinColumns = @JoinColumn(name = "faved_bies_id", referencedColumnName = "id"))
     private Set<Publisher> favedBies = new HashSet<>();
 
     @ManyToMany
+    @JsonIgnore
+    @BatchSize(size = 100)
     @JoinTable(name = "publication_liked_by",
                joinColumns = @JoinColumn(name = "publications_id", referencedColumnName = "id"),
                inverseJoinColumns = @JoinColumn(name = "liked_bies_id", referencedColumnName = "id"))
@@ -144,6 +177,14 @@ public class Publication implements Serializable {
         this.city = city;
     }
 
+    public Integer getRegionId() {
+        return regionId;
+    }
+
+    public void setRegionId(Integer regionId) {
+        this.regionId = regionId;
+    }
+
     public Publication getRepublish() {
         return republish;
     }
@@ -157,6 +198,18 @@ public class Publication implements Serializable {
         this.republish = publication;
     }
 
+    public Long getFaveCount() {
+        return faveCount;
+    }
+
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public Long getRepublishCount() {
+        return republishCount;
+    }
+
     public Set<Publisher> getMentions() {
         return mentions;
     }
@@ -268,39 +321,11 @@ public class Publication implements Serializable {
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here, do not remove
 
     public List<String> analizeMentions(){
-        List<String> mentionNames = new ArrayList<String>();
-        for (int i = 0; i < content.length(); i++)
-            if (content.charAt(i) == '@') {
-                int j = i + 1;
-                String mentionName = "";
-                while (content.charAt(j) != ' ') {
-                    mentionName += content.charAt(j);
-                    if (j == (content.length() - 1)) {
-                        break;
-                    }
-                    j++;
-                }
-                mentionNames.add(mentionName);
-            }
-        return  mentionNames;
+        return ContentTokenizer.tokenize(content).getMentions();
     }
 
     public List<String> analizeTags(){
-        List<String> tagNames = new ArrayList<String>();
-        for (int i = 0; i < content.length(); i++)
-            if (content.charAt(i) == '#') {
-                int j = i + 1;
-                String tagName = "";
-                while (content.charAt(j) != ' ') {
-                    tagName += content.charAt(j);
-                    if (j == (content.length() - 1)) {
-                        break;
-                    }
-                    j++;
-                }
-                tagNames.add(tagName);
-            }
-        return  tagNames;
+        return ContentTokenizer.tokenize(content).getTags();
     }
 
     @Override
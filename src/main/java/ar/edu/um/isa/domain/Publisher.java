@@ -1,6 +1,9 @@
 package ar.edu.um.isa.domain;
 
+import ar.edu.um.isa.domain.util.SnowflakeIdentifierGenerator;
 import com.fasterxml.jackson.annotation.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
@@ -10,8 +13,6 @@ import java.util.List;
 import java.util.Set;
 import java.util.Objects;
 
-import static javax.persistence.FetchType.EAGER;
-
 /**
  * A Publisher.
  */
@@ -23,29 +24,46 @@ public class Publisher implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
     @OneToOne
     @JoinColumn(unique = true)
     private User user;
 
+    /**
+     * The counters are only changed by the statements changing the follows and the publications. They start at 0,
+     * the defaults of the columns, so that a created publisher has its counters without being read back.
+     */
+    @Column(name = "follower_count", insertable = false, updatable = false)
+    private Long followerCount = 0L;
+
+    @Column(name = "following_count", insertable = false, updatable = false)
+    private Long followingCount = 0L;
+
+    @Column(name = "publication_count", insertable = false, updatable = false)
+    private Long publicationCount = 0L;
+
     @OneToMany(mappedBy = "publisher")
     private Set<Publication> publications = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToMany
     @JsonIgnore
+    @BatchSize(size = 100)
     @JoinTable(name = "publisher_follow",
                joinColumns = @JoinColumn(name = "publishers_id", referencedColumnName = "id"),
                inverseJoinColumns = @JoinColumn(name = "follows_id", referencedColumnName = "id"))
     private Set<Publisher> follows = new HashSet<>();
 
-    @ManyToMany(mappedBy = "favedBies" , fetch = FetchType.EAGER,cascade = CascadeType.ALL)
+    @ManyToMany(mappedBy = "favedBies")
     @JsonIgnore
+    @BatchSize(size = 100)
     private Set<Publication> favourites = new HashSet<>();
 
-    @ManyToMany(mappedBy = "follows", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToMany(mappedBy = "follows")
     @JsonIgnore
+    @BatchSize(size = 100)
     private Set<Publisher> followers = new HashSet<>();
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
@@ -70,6 +88,18 @@ public class Publisher implements Serializable {
         this.user = user;
     }
 
+    public Long getFollowerCount() {
+        return followerCount;
+    }
+
+    public Long getFollowingCount() {
+        return followingCount;
+    }
+
+    public Long getPublicationCount() {
+        return publicationCount;
+    }
+
     public Set<Publication> getPublications() {
         return publications;
     }
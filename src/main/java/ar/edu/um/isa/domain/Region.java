@@ -0,0 +1,126 @@
+package ar.edu.um.isa.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.*;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A Region: a country and a city of publications, encoded as a small integer id.
+ * <p>
+ * Regions are created when a publication names a new one. The same country and city, whatever their case, are
+ * the same region, found by its {@link #codeOf code}; the names are those of the first publication.
+ */
+@Entity
+@Table(name = "region")
+public class Region implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @JsonIgnore
+    @Column(name = "code", nullable = false, unique = true, length = 511)
+    private String code;
+
+    @Column(name = "country")
+    private String country;
+
+    @Column(name = "city")
+    private String city;
+
+    /**
+     * @param country the country, may be null
+     * @param city the city, may be null
+     * @return the code of the region of a country and a city, or null if both are blank
+     */
+    public static String codeOf(String country, String city) {
+        String code = normalize(country) + "|" + normalize(city);
+        return code.length() > 1 ? code : null;
+    }
+
+    private static String normalize(String name) {
+        return name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Region code(String code) {
+        this.code = code;
+        return this;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public Region country(String country) {
+        this.country = country;
+        return this;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public Region city(String city) {
+        this.city = city;
+        return this;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Region region = (Region) o;
+        if (region.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), region.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "Region{" +
+            "id=" + getId() +
+            ", country='" + getCountry() + "'" +
+            ", city='" + getCity() + "'" +
+            "}";
+    }
+}
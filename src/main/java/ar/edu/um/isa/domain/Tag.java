@@ -1,7 +1,10 @@
 package ar.edu.um.isa.domain;
 
+import ar.edu.um.isa.domain.util.SnowflakeIdentifierGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 
 import java.io.Serializable;
@@ -20,16 +23,23 @@ public class Tag implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdentifierGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdentifierGenerator.NAME, strategy = SnowflakeIdentifierGenerator.STRATEGY)
     private Long id;
 
-    @Column(name = "name")
+    @Column(name = "name", unique = true)
     private String name;
 
     @Column(name = "last_use")
     private LocalDate lastUse;
 
-    @ManyToMany(mappedBy = "tags", fetch = FetchType.EAGER,cascade = CascadeType.ALL)
+    /**
+     * The counter is maintained with the {@code publication_tag} rows, never by the entity.
+     */
+    @Column(name = "publication_count", insertable = false, updatable = false)
+    private Long publicationCount;
+
+    @ManyToMany(mappedBy = "tags")
     @JsonIgnore
     private Set<Publication> publications = new HashSet<>();
 
@@ -68,6 +78,10 @@ public class Tag implements Serializable {
         this.lastUse = lastUse;
     }
 
+    public Long getPublicationCount() {
+        return publicationCount;
+    }
+
     public Set<Publication> getPublications() {
         return publications;
     }
@@ -120,7 +134,7 @@ public class Tag implements Serializable {
             "id=" + getId() +
             ", name='" + getName() + "'" +
             ", lastUse='" + getLastUse() + "'" +
-            ", publications='" + getPublications() + "'" +
+            ", publicationCount=" + getPublicationCount() +
             "}"
             ;
     }
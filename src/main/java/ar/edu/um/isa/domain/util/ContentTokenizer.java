@@ -0,0 +1,192 @@
+package ar.edu.um.isa.domain.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Utility class for extracting mentions ({@code @login}) and tags ({@code #name}) from a publication content.
+ * <p>
+ * The content is scanned once, and each token is materialized with a single {@link String#substring} call,
+ * so the cost is linear in the content length whatever the number or length of the tokens.
+ * <p>
+ * A sigil only starts a token at the beginning of the content or after a character that cannot be part of a
+ * token, so e-mail addresses like {@code john@example.com} are not reported as mentions. A token is made of
+ * letters, digits and {@code _}; {@code .} and {@code -} are accepted inside a token (logins may contain them)
+ * but never at its end, so trailing punctuation is dropped. A sigil with no token after it is ignored.
+ */
+public final class ContentTokenizer {
+
+    public static final char MENTION_SIGIL = '@';
+
+    public static final char TAG_SIGIL = '#';
+
+    private ContentTokenizer() {
+    }
+
+    /**
+     * Tokenize a publication content.
+     *
+     * @param content the content to scan, may be null
+     * @return the mentions and tags found, in order of appearance
+     */
+    public static ContentTokens tokenize(CharSequence content) {
+        if (content == null || content.length() < 2) {
+            return ContentTokens.EMPTY;
+        }
+        List<Token> tokens = null;
+        String source = content.toString();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if ((c == MENTION_SIGIL || c == TAG_SIGIL) && (i == 0 || !isTokenChar(source.charAt(i - 1)))) {
+                int start = i + 1;
+                int end = scanToken(source, start, length);
+                if (end > start) {
+                    if (tokens == null) {
+                        tokens = new ArrayList<>();
+                    }
+                    Token.Type type = c == MENTION_SIGIL ? Token.Type.MENTION : Token.Type.TAG;
+                    tokens.add(new Token(type, source.substring(start, end), i, end));
+                }
+                i = Math.max(end, start);
+            } else {
+                i++;
+            }
+        }
+        return tokens == null ? ContentTokens.EMPTY : new ContentTokens(tokens);
+    }
+
+    /**
+     * Returns the exclusive end of the token body starting at {@code start}.
+     */
+    private static int scanToken(String source, int start, int length) {
+        int end = start;
+        int i = start;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (isTokenChar(c)) {
+                end = ++i;
+            } else if (isInnerTokenChar(c) && end > start) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isInnerTokenChar(char c) {
+        return c == '.' || c == '-';
+    }
+
+    /**
+     * A mention or a tag, with its position in the content.
+     */
+    public static final class Token {
+
+        public enum Type {
+            MENTION, TAG
+        }
+
+        private final Type type;
+
+        private final String text;
+
+        private final int start;
+
+        private final int end;
+
+        Token(Type type, String text, int start, int end) {
+            this.type = type;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the token without its sigil
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the offset of the sigil in the content
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return the exclusive end offset of the token in the content
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return "Token{" +
+                "type=" + type +
+                ", text='" + text + "'" +
+                ", start=" + start +
+                ", end=" + end +
+                "}";
+        }
+    }
+
+    /**
+     * The result of {@link #tokenize(CharSequence)}.
+     */
+    public static final class ContentTokens {
+
+        static final ContentTokens EMPTY = new ContentTokens(Collections.emptyList());
+
+        private final List<Token> tokens;
+
+        ContentTokens(List<Token> tokens) {
+            this.tokens = Collections.unmodifiableList(tokens);
+        }
+
+        /**
+         * @return all the tokens, in order of appearance
+         */
+        public List<Token> getTokens() {
+            return tokens;
+        }
+
+        /**
+         * @return the mentioned logins, in order of appearance, duplicates included
+         */
+        public List<String> getMentions() {
+            return texts(Token.Type.MENTION);
+        }
+
+        /**
+         * @return the tag names, in order of appearance, duplicates included
+         */
+        public List<String> getTags() {
+            return texts(Token.Type.TAG);
+        }
+
+        private List<String> texts(Token.Type type) {
+            List<String> texts = new ArrayList<>(tokens.size());
+            for (Token token : tokens) {
+                if (token.getType() == type) {
+                    texts.add(token.getText());
+                }
+            }
+            return texts;
+        }
+    }
+}
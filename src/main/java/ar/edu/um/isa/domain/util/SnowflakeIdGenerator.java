@@ -0,0 +1,99 @@
+package ar.edu.um.isa.domain.util;
+
+import java.time.Instant;
+
+/**
+ * Generator of time-ordered 64-bit ids, in the spirit of Twitter's Snowflake.
+ * <p>
+ * An id is made of the milliseconds elapsed since {@link #EPOCH} (41 bits), the node id (5 bits) and a per
+ * millisecond sequence (7 bits). Ids generated later are greater, on every node, as long as the clocks are in
+ * sync, so an id is also a keyset cursor: "older than id X" and "posted after instant T" are both simple
+ * range conditions on the primary key.
+ * <p>
+ * The layout stays under 2^53 so that ids are exact when handled as JavaScript numbers by the web client. It
+ * allows 32 nodes generating up to 128 ids per millisecond each, until 2087.
+ * <p>
+ * The generator of a node is a bean of {@code DatabaseConfiguration}, handed to the entities by
+ * {@link SnowflakeIdentifierGenerator}.
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 2018-01-01T00:00:00Z, the custom epoch of the timestamp part.
+     */
+    public static final long EPOCH = 1514764800000L;
+
+    static final int NODE_BITS = 5;
+
+    static final int SEQUENCE_BITS = 7;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    private final long node;
+
+    private long lastTimestamp = -1L;
+
+    private int sequence;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("The node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * @return a new id, greater than the ones previously returned by this generator
+     */
+    public synchronized long nextId() {
+        long timestamp = currentTimeMillis();
+        if (timestamp < lastTimestamp) {
+            // the clock moved backwards: keep counting on the last timestamp rather than reuse ids
+            timestamp = lastTimestamp;
+        }
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                timestamp = waitNextMillis(lastTimestamp);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT) | node | sequence;
+    }
+
+    private long waitNextMillis(long timestamp) {
+        long next = currentTimeMillis();
+        while (next <= timestamp) {
+            Thread.yield();
+            next = currentTimeMillis();
+        }
+        return next;
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @param id an id built by a generator
+     * @return the instant the id was generated at, to the millisecond
+     */
+    public static Instant instantOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH);
+    }
+
+    /**
+     * @param instant an instant after {@link #EPOCH}
+     * @return the smallest id that can be generated at the given instant, so that
+     * {@code id >= lowerBoundOf(instant)} selects the ids generated since then
+     */
+    public static long lowerBoundOf(Instant instant) {
+        return Math.max(0L, instant.toEpochMilli() - EPOCH) << TIMESTAMP_SHIFT;
+    }
+}
@@ -0,0 +1,47 @@
+package ar.edu.um.isa.domain.util;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate identifier generator assigning {@link SnowflakeIdGenerator} ids.
+ * <p>
+ * Unlike {@code GenerationType.IDENTITY}, the id is known before the insert, so Hibernate can batch the inserts.
+ * Hibernate instantiates this class itself, so the {@link SnowflakeIdGenerator} is passed in the
+ * {@link #ID_GENERATOR_SETTING} setting of the session factory.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator, Configurable {
+
+    public static final String NAME = "snowflake";
+
+    public static final String STRATEGY = "ar.edu.um.isa.domain.util.SnowflakeIdentifierGenerator";
+
+    /**
+     * The Hibernate setting holding the {@link SnowflakeIdGenerator} of the node.
+     */
+    public static final String ID_GENERATOR_SETTING = "ar.edu.um.isa.id_generator";
+
+    private SnowflakeIdGenerator idGenerator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ID_GENERATOR_SETTING);
+        if (!(setting instanceof SnowflakeIdGenerator)) {
+            throw new MappingException("The " + ID_GENERATOR_SETTING + " setting must be a SnowflakeIdGenerator: " + setting);
+        }
+        this.idGenerator = (SnowflakeIdGenerator) setting;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return idGenerator.nextId();
+    }
+}
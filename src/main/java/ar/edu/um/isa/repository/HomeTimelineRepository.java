@@ -0,0 +1,88 @@
+package ar.edu.um.isa.repository;
+
+import ar.edu.um.isa.domain.HomeTimeline;
+import ar.edu.um.isa.domain.HomeTimeline.HomeTimelineId;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data  repository for the HomeTimeline entity.
+ */
+@Repository
+public interface HomeTimelineRepository extends JpaRepository<HomeTimeline, HomeTimelineId> {
+
+    /**
+     * Add a publication to the home timelines of its author and of the author's followers, in one statement.
+     *
+     * @param publicationId the id of the new publication
+     * @return the number of timelines the publication was added to
+     */
+    @Modifying
+    @Query(value = "insert into home_timeline (owner_id, publication_id)" +
+        " select follow.publishers_id, publication.id from publication" +
+        " join publisher_follow follow on follow.follows_id = publication.publisher_id" +
+        " where publication.id = :publicationId and follow.publishers_id <> publication.publisher_id" +
+        " union all select publication.publisher_id, publication.id from publication" +
+        " where publication.id = :publicationId and publication.publisher_id is not null", nativeQuery = true)
+    int fanOut(@Param("publicationId") Long publicationId);
+
+    /**
+     * Add the recent publications of a publisher to a home timeline, in one statement. The publications are
+     * read from {@code idx_publication_publisher_id_id}, and the ones already in the timeline are skipped.
+     *
+     * @param ownerId the id of the publisher owning the timeline
+     * @param publisherId the id of the followed publisher
+     * @param limit the maximum number of recent publications
+     * @return the number of publications added
+     */
+    @Modifying
+    @Query(value = "insert into home_timeline (owner_id, publication_id)" +
+        " select :ownerId, recent.id from (select id from publication where publisher_id = :publisherId" +
+        " order by id desc limit :limit) recent" +
+        " where not exists (select 1 from home_timeline timeline" +
+        " where timeline.owner_id = :ownerId and timeline.publication_id = recent.id)", nativeQuery = true)
+    int backfill(@Param("ownerId") Long ownerId, @Param("publisherId") Long publisherId, @Param("limit") int limit);
+
+    /**
+     * @param ownerId the id of the publisher owning the timeline
+     * @param publisherIds the ids of the publishers
+     * @param pageable the number of ids, the sort is ignored
+     * @return the ids of the publications of the publishers in the timeline
+     */
+    @Query("select homeTimeline.publicationId from HomeTimeline homeTimeline, Publication publication" +
+        " where homeTimeline.ownerId = :ownerId and publication.id = homeTimeline.publicationId" +
+        " and publication.publisher.id in :publisherIds")
+    List<Long> findPublicationIdsByPublisherIdIn(@Param("ownerId") Long ownerId,
+                                                 @Param("publisherIds") Collection<Long> publisherIds, Pageable pageable);
+
+    /**
+     * Remove publications from a home timeline.
+     *
+     * @param ownerId the id of the publisher owning the timeline
+     * @param publicationIds the ids of the publications
+     * @return the number of publications removed
+     */
+    @Modifying
+    @Query("delete from HomeTimeline homeTimeline where homeTimeline.ownerId = :ownerId" +
+        " and homeTimeline.publicationId in :publicationIds")
+    int deletePublications(@Param("ownerId") Long ownerId, @Param("publicationIds") Collection<Long> publicationIds);
+
+    /**
+     * @param ownerId the id of the publisher owning the timeline
+     * @param before the exclusive upper bound of the publication ids
+     * @param pageable the page size, the sort is ignored
+     * @return the publication ids of the timeline below the bound, newest first
+     */
+    @Query("select homeTimeline.publicationId from HomeTimeline homeTimeline" +
+        " where homeTimeline.ownerId = :ownerId and homeTimeline.publicationId < :before" +
+        " order by homeTimeline.publicationId desc")
+    List<Long> findPublicationIds(@Param("ownerId") Long ownerId, @Param("before") Long before, Pageable pageable);
+}
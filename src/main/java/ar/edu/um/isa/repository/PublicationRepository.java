@@ -1,6 +1,7 @@
 package ar.edu.um.isa.repository;
 
 import ar.edu.um.isa.domain.*;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
 import ar.edu.um.isa.web.rest.PublicationResource;
 import ar.edu.um.isa.web.rest.PublisherResource;
 import org.hibernate.jpamodelgen.JPAMetaModelEntityProcessor;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -24,22 +26,176 @@ import java.util.Optional;
 @Repository
 public interface PublicationRepository extends JpaRepository<Publication, Long> {
 
-    @Query(value = "select distinct publication from Publication publication left join fetch publication.mentions left join fetch publication.favedBies left join fetch publication.likedBies left join fetch publication.tags",
+    /**
+     * The newest publication ids of the publishers followed by a publisher, below a cursor.
+     * <p>
+     * Both sides are read from an index: the primary key of {@code publisher_follow} and
+     * {@code idx_publication_publisher_id_id}.
+     */
+    String FOLLOWED_PUBLICATION_IDS_QUERY = "select publication.id from publisher_follow follow" +
+        " join publication on publication.publisher_id = follow.follows_id" +
+        " where follow.publishers_id = :followerId and publication.id < :before" +
+        " order by publication.id desc limit :limit";
+
+    @Query(value = "select distinct publication from Publication publication left join fetch publication.mentions left join fetch publication.tags",
         countQuery = "select count(distinct publication) from Publication publication")
     Page<Publication> findAllWithEagerRelationships(Pageable pageable);
 
-    @Query(value = "select distinct publication from Publication publication left join fetch publication.mentions left join fetch publication.favedBies left join fetch publication.likedBies left join fetch publication.tags")
+    @Query(value = "select distinct publication from Publication publication left join fetch publication.mentions left join fetch publication.tags")
     List<Publication> findAllWithEagerRelationships();
 
-    @Query("select publication from Publication publication left join fetch publication.mentions left join fetch publication.favedBies left join fetch publication.likedBies left join fetch publication.tags where publication.id =:id")
+    @Query("select publication from Publication publication left join fetch publication.mentions left join fetch publication.tags where publication.id =:id")
     Optional<Publication> findOneWithEagerRelationships(@Param("id") Long id);
 
     List<Publication> findPublicationsByPublisher(Publisher publisher);
 
-    List<Publication> findPublicationsByTags(Tag tag);
+    /**
+     * @return the newest publication ids of a tag below a cursor, read from
+     * {@code idx_publication_tag_tags_id_publications_id}; their numeric type depends on the database driver
+     */
+    @Query(value = "select publications_id from publication_tag where tags_id = :tagId and publications_id < :before" +
+        " order by publications_id desc limit :limit", nativeQuery = true)
+    List<Number> findIdsByTagId(@Param("tagId") Long tagId, @Param("before") Long before, @Param("limit") int limit);
+
+    /**
+     * @return the newest publication ids of a region below a cursor, read from
+     * {@code idx_publication_region_id_id}; their numeric type depends on the database driver
+     */
+    @Query(value = "select id from publication where region_id = :regionId and id < :before" +
+        " order by id desc limit :limit", nativeQuery = true)
+    List<Number> findIdsByRegionId(@Param("regionId") Integer regionId, @Param("before") Long before, @Param("limit") int limit);
 
+    /**
+     * @param regionId the id of a region
+     * @param after the exclusive lower bound of the publication ids
+     * @param limit the maximum number of publications
+     * @return the ids of the next publications of the region after a publication id, by ascending id, with their
+     * numbers of faves, likes and republishes, from a range of {@code idx_publication_region_id_id}; their numeric
+     * types depend on the database driver
+     */
+    @Query(value = "select id, fave_count + like_count + republish_count from publication" +
+        " where region_id = :regionId and id > :after order by id limit :limit", nativeQuery = true)
+    List<Object[]> findEngagementsByRegionIdAfter(@Param("regionId") Integer regionId, @Param("after") long after,
+                                                  @Param("limit") int limit);
 
     List<Publication> findPublicationsByMentions(Publisher publisher);
 
+    @Query("select publication.id from Publication publication where publication.publisher.id = :publisherId order by publication.id desc")
+    List<Long> findIdsByPublisherId(@Param("publisherId") Long publisherId, Pageable pageable);
+
+    /**
+     * @return the ids, whose numeric type depends on the database driver
+     */
+    @Query(value = FOLLOWED_PUBLICATION_IDS_QUERY, nativeQuery = true)
+    List<Number> findFollowedPublicationIds(@Param("followerId") Long followerId, @Param("before") Long before,
+                                          @Param("limit") int limit);
+
+    /**
+     * Record that a publisher faved a publication, unless it already did.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the number of favourites inserted: 0 if it already faved the publication or either does not exist
+     */
+    @Modifying
+    @Query(value = "insert into publication_faved_by (publications_id, faved_bies_id)" +
+        " select publication.id, publisher.id from publication join publisher on publisher.id = :publisherId" +
+        " where publication.id = :publicationId and not exists (select 1 from publication_faved_by faved" +
+        " where faved.publications_id = :publicationId and faved.faved_bies_id = :publisherId)", nativeQuery = true)
+    int insertFave(@Param("publicationId") Long publicationId, @Param("publisherId") Long publisherId);
+
+    @Modifying
+    @Query(value = "delete from publication_faved_by where publications_id = :publicationId and faved_bies_id = :publisherId", nativeQuery = true)
+    int deleteFave(@Param("publicationId") Long publicationId, @Param("publisherId") Long publisherId);
+
+    /**
+     * Record that a publisher liked a publication, unless it already did.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the number of likes inserted: 0 if it already liked the publication or either does not exist
+     */
+    @Modifying
+    @Query(value = "insert into publication_liked_by (publications_id, liked_bies_id)" +
+        " select publication.id, publisher.id from publication join publisher on publisher.id = :publisherId" +
+        " where publication.id = :publicationId and not exists (select 1 from publication_liked_by liked" +
+        " where liked.publications_id = :publicationId and liked.liked_bies_id = :publisherId)", nativeQuery = true)
+    int insertLike(@Param("publicationId") Long publicationId, @Param("publisherId") Long publisherId);
+
+    @Modifying
+    @Query(value = "delete from publication_liked_by where publications_id = :publicationId and liked_bies_id = :publisherId", nativeQuery = true)
+    int deleteLike(@Param("publicationId") Long publicationId, @Param("publisherId") Long publisherId);
+
+    /**
+     * @param publisherId the id of the viewing publisher
+     * @param publicationIds the ids of publications
+     * @return the ids of the given publications liked by the publisher; their numeric type depends on the
+     * database driver
+     */
+    @Query(value = "select liked.publications_id from publication_liked_by liked" +
+        " where liked.liked_bies_id = :publisherId and liked.publications_id in (:publicationIds)", nativeQuery = true)
+    List<Number> findLikedIdsIn(@Param("publisherId") Long publisherId, @Param("publicationIds") Collection<Long> publicationIds);
+
+    /**
+     * @param publisherId the id of the viewing publisher
+     * @param publicationIds the ids of publications
+     * @return the ids of the given publications faved by the publisher; their numeric type depends on the
+     * database driver
+     */
+    @Query(value = "select faved.publications_id from publication_faved_by faved" +
+        " where faved.faved_bies_id = :publisherId and faved.publications_id in (:publicationIds)", nativeQuery = true)
+    List<Number> findFavedIdsIn(@Param("publisherId") Long publisherId, @Param("publicationIds") Collection<Long> publicationIds);
+
+    /**
+     * @param publisherId the id of the viewing publisher
+     * @param publicationIds the ids of publications
+     * @return the ids of the given publications republished by the publisher; their numeric type depends on the
+     * database driver
+     */
+    @Query(value = "select publication.republish_id from publication" +
+        " where publication.republish_id in (:publicationIds) and publication.publisher_id = :publisherId", nativeQuery = true)
+    List<Number> findRepublishedIdsIn(@Param("publisherId") Long publisherId, @Param("publicationIds") Collection<Long> publicationIds);
+
+    @Query("select new ar.edu.um.isa.service.dto.PublicationRowDTO(publication.id, publication.publisher.id, publication.date," +
+        " publication.content, publication.republish.id, publication.republishCount)" +
+        " from Publication publication where publication.id in :ids order by publication.id desc")
+    List<PublicationRowDTO> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * @param id the id of a publication
+     * @return whether publications republish it
+     */
+    boolean existsByRepublishId(Long id);
+
+    /**
+     * @return the publication ids above a cursor, in ascending order, read from the primary key; their numeric
+     * type depends on the database driver
+     */
+    @Query(value = "select id from publication where id > :after order by id limit :limit", nativeQuery = true)
+    List<Number> findIdsAfter(@Param("after") long after, @Param("limit") int limit);
+
+    @Query("select publication.id as id, publication.publisher.id as publisherId, publication.date as date," +
+        " publication.content as content from Publication publication where publication.id in :ids")
+    List<PublicationDocument> findDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * @param ids the ids of publications
+     * @return the publication ids and the ids of their tags; their numeric types depend on the database driver
+     */
+    @Query(value = "select publications_id, tags_id from publication_tag where publications_id in (:ids)", nativeQuery = true)
+    List<Object[]> findTagLinksByPublicationIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The values of a publication indexed for the full-text search.
+     */
+    interface PublicationDocument {
+
+        Long getId();
+
+        Long getPublisherId();
+
+        LocalDate getDate();
 
+        String getContent();
+    }
 }
@@ -1,12 +1,14 @@
 package ar.edu.um.isa.repository;
 
 import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,27 @@ import java.util.Optional;
 @Repository
 public interface PublisherRepository extends JpaRepository<Publisher, Long> {
 
+    /**
+     * Select clause of the publisher summaries, for a query joining the summarized {@code publisher} to its
+     * {@code user}. The sizes are read from the counters of the publisher, without touching the associations.
+     */
+    String SUMMARY_SELECT = "select new ar.edu.um.isa.service.dto.PublisherSummaryDTO(publisher.id, user.login," +
+        " publisher.followerCount, publisher.followingCount, publisher.publicationCount)";
+
+    /**
+     * Make a publisher follow other publishers, in one statement, with the parameters {@code followerId} and
+     * {@code followedIds}. Follows that already exist, unknown publishers and the follower itself are
+     * skipped, so the statement is idempotent; the primary key of {@code publisher_follow} rejects the
+     * duplicates a concurrent statement could still insert.
+     * <p>
+     * It is run through JDBC rather than as a query method, so that a rejected statement does not mark the
+     * transaction for rollback and can be run again.
+     */
+    String INSERT_FOLLOWS_STATEMENT = "insert into publisher_follow (publishers_id, follows_id)" +
+        " select follower.id, followed.id from publisher follower join publisher followed on followed.id in (:followedIds)" +
+        " where follower.id = :followerId and followed.id <> follower.id and not exists" +
+        " (select 1 from publisher_follow follow where follow.publishers_id = follower.id and follow.follows_id = followed.id)";
+
     @Query(value = "select distinct publisher from Publisher publisher left join fetch publisher.follows",
         countQuery = "select count(distinct publisher) from Publisher publisher")
     Page<Publisher> findAllWithEagerRelationships(Pageable pageable);
@@ -28,4 +51,186 @@ public interface PublisherRepository extends JpaRepository<Publisher, Long> {
     Optional<Publisher> findOneWithEagerRelationships(@Param("id") Long id);
 
     Publisher findByUser_Id(Long id);
+
+    @Query(SUMMARY_SELECT + " from Publisher publisher left join publisher.user user order by publisher.id")
+    List<PublisherSummaryDTO> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + " from Publisher publisher left join publisher.user user where publisher.id = :id")
+    Optional<PublisherSummaryDTO> findSummaryById(@Param("id") Long id);
+
+    /**
+     * @param id the id of the followed publisher
+     * @param before the exclusive upper bound of the follower ids
+     * @param pageable the page size, the sort is ignored
+     * @return the summaries of the followers below the bound, by descending id
+     */
+    @Query(SUMMARY_SELECT + " from Publisher followed join followed.followers publisher left join publisher.user user" +
+        " where followed.id = :id and publisher.id < :before order by publisher.id desc")
+    List<PublisherSummaryDTO> findFollowerSummaries(@Param("id") Long id, @Param("before") Long before, Pageable pageable);
+
+    /**
+     * @param id the id of the following publisher
+     * @param before the exclusive upper bound of the followed publisher ids
+     * @param pageable the page size, the sort is ignored
+     * @return the summaries of the followed publishers below the bound, by descending id
+     */
+    @Query(SUMMARY_SELECT + " from Publisher follower join follower.follows publisher left join publisher.user user" +
+        " where follower.id = :id and publisher.id < :before order by publisher.id desc")
+    List<PublisherSummaryDTO> findFollowSummaries(@Param("id") Long id, @Param("before") Long before, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " from Publisher publisher left join publisher.user user where publisher.id in :ids")
+    List<PublisherSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select publisher from Publisher publisher join fetch publisher.user user where user.login in :logins")
+    List<Publisher> findAllByUserLoginIn(@Param("logins") Collection<String> logins);
+
+    @Query("select user.login as login, publisher.id as id from Publisher publisher join publisher.user user where user.login in :logins")
+    List<PublisherIdAndLogin> findIdsByUserLoginIn(@Param("logins") Collection<String> logins);
+
+    /**
+     * @param publisherId the id of the following publisher
+     * @return the ids of the followed publishers, read from the primary key of the follows; their numeric
+     * type depends on the database driver
+     */
+    @Query(value = "select follow.follows_id from publisher_follow follow where follow.publishers_id = :publisherId", nativeQuery = true)
+    List<Number> findFollowIds(@Param("publisherId") Long publisherId);
+
+    /**
+     * @param followerId the id of the following publisher
+     * @param followedId the id of the followed publisher
+     * @return the number of follows deleted, 0 if the publisher was not followed
+     */
+    @Modifying
+    @Query(value = "delete from publisher_follow where publishers_id = :followerId and follows_id = :followedId", nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    /**
+     * @param followerId the id of the following publisher
+     * @param followedIds the ids of publishers
+     * @return the ids of the given publishers already followed; their numeric type depends on the database
+     * driver
+     */
+    @Query(value = "select follow.follows_id from publisher_follow follow" +
+        " where follow.publishers_id = :followerId and follow.follows_id in (:followedIds)", nativeQuery = true)
+    List<Number> findFollowIdsIn(@Param("followerId") Long followerId, @Param("followedIds") Collection<Long> followedIds);
+
+    /**
+     * @param id the id of a publisher
+     * @param otherIds the ids of other publishers
+     * @return the follower and followed ids of the follows between the publisher and the others, in either
+     * direction; their numeric type depends on the database driver
+     */
+    @Query(value = "select follow.publishers_id, follow.follows_id from publisher_follow follow" +
+        " where (follow.publishers_id = :id and follow.follows_id in (:otherIds))" +
+        " or (follow.follows_id = :id and follow.publishers_id in (:otherIds))", nativeQuery = true)
+    List<Object[]> findFollowsBetween(@Param("id") Long id, @Param("otherIds") Collection<Long> otherIds);
+
+    /**
+     * Change the counters of a follower and of the publishers it started or stopped following, in one
+     * statement.
+     *
+     * @param followerId the id of the following publisher
+     * @param followedIds the ids of the publishers followed or unfollowed
+     * @param followingDelta the change of the following counter of the follower
+     * @param followerDelta the change of the follower counter of each followed publisher
+     * @return the number of publishers updated
+     */
+    @Modifying
+    @Query(value = "update publisher set" +
+        " following_count = following_count + case when id = :followerId then :followingDelta else 0 end," +
+        " follower_count = follower_count + case when id = :followerId then 0 else :followerDelta end" +
+        " where id = :followerId or id in (:followedIds)", nativeQuery = true)
+    int updateFollowCounters(@Param("followerId") Long followerId, @Param("followedIds") Collection<Long> followedIds,
+                             @Param("followingDelta") long followingDelta, @Param("followerDelta") long followerDelta);
+
+    /**
+     * @param id the id of the publisher
+     * @param delta the change of its publication counter
+     * @return the number of publishers updated
+     */
+    @Modifying
+    @Query(value = "update publisher set publication_count = publication_count + :delta where id = :id", nativeQuery = true)
+    int updatePublicationCounter(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * @param after the exclusive lower bound of the ids
+     * @param pageable the number of ids, the sort is ignored
+     * @return the publisher ids above the bound, in ascending order
+     */
+    @Query("select publisher.id from Publisher publisher where publisher.id > :after order by publisher.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    /**
+     * Recompute the counters of a range of publishers from the follows and the publications.
+     *
+     * @param after the exclusive lower bound of the ids
+     * @param upTo the inclusive upper bound of the ids
+     * @return the number of publishers updated
+     */
+    @Modifying
+    @Query(value = "update publisher set" +
+        " follower_count = (select count(*) from publisher_follow follow where follow.follows_id = publisher.id)," +
+        " following_count = (select count(*) from publisher_follow follow where follow.publishers_id = publisher.id)," +
+        " publication_count = (select count(*) from publication where publication.publisher_id = publisher.id)" +
+        " where id > :after and id <= :upTo", nativeQuery = true)
+    int reconcileCounters(@Param("after") Long after, @Param("upTo") Long upTo);
+
+    /**
+     * Read a chunk of the follows, in primary key order.
+     *
+     * @param followerId the follower id of the last follow of the previous chunk
+     * @param followedId the followed id of the last follow of the previous chunk
+     * @param limit the maximum number of follows
+     * @return the follower and followed ids of the follows after the given one; their numeric type depends on
+     * the database driver
+     */
+    @Query(value = "select follow.publishers_id, follow.follows_id from publisher_follow follow" +
+        " where follow.publishers_id > :followerId or (follow.publishers_id = :followerId and follow.follows_id > :followedId)" +
+        " order by follow.publishers_id, follow.follows_id limit :limit", nativeQuery = true)
+    List<Object[]> findFollowsAfter(@Param("followerId") Long followerId, @Param("followedId") Long followedId, @Param("limit") int limit);
+
+    /**
+     * @return the number of follows and a checksum of their ids, computed like
+     * {@code FollowGraphIndex.checksumOf}, to tell whether a copy of the follows is up to date
+     */
+    @Query(value = "select count(*) as edges, coalesce(sum(mod(follow.publishers_id, 65521) * 65536 + mod(follow.follows_id, 65521)), 0) as checksum" +
+        " from publisher_follow follow", nativeQuery = true)
+    FollowFingerprint findFollowFingerprint();
+
+    /**
+     * Rank the publishers followed by the follows of a publisher, by the number of its follows following them.
+     *
+     * @param id the id of the publisher
+     * @param limit the maximum number of candidates
+     * @return the ids of the candidates and their numbers of mutual follows, except the publisher itself and the
+     * publishers it already follows, by descending number then by ascending id; their numeric type depends on the
+     * database driver
+     */
+    @Query(value = "select candidate.follows_id, count(*) from publisher_follow follow" +
+        " join publisher_follow candidate on candidate.publishers_id = follow.follows_id" +
+        " where follow.publishers_id = :id and candidate.follows_id <> :id" +
+        " and not exists (select 1 from publisher_follow followed" +
+        " where followed.publishers_id = :id and followed.follows_id = candidate.follows_id)" +
+        " group by candidate.follows_id order by count(*) desc, candidate.follows_id limit :limit", nativeQuery = true)
+    List<Object[]> findMutualFollowCounts(@Param("id") Long id, @Param("limit") int limit);
+
+    /**
+     * Projection of a publisher on its id and login, so that resolving logins does not load the publishers.
+     */
+    interface PublisherIdAndLogin {
+
+        Long getId();
+
+        String getLogin();
+    }
+
+    /**
+     * Projection of the follows on their number and checksum.
+     */
+    interface FollowFingerprint {
+
+        Number getEdges();
+
+        Number getChecksum();
+    }
 }
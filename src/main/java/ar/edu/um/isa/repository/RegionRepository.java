@@ -0,0 +1,20 @@
+package ar.edu.um.isa.repository;
+
+import ar.edu.um.isa.domain.Region;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+
+/**
+ * Spring Data  repository for the Region entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RegionRepository extends JpaRepository<Region, Integer> {
+
+    String REGION_ID_BY_CODE_CACHE = "regionIdByCode";
+
+    Optional<Region> findOneByCode(String code);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,101 @@ import java.util.Optional;
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
 
+    String TAG_ID_BY_NAME_CACHE = "tagIdByName";
+
     List<Tag> findAllByLastUseIsAfter(LocalDate date);
     Tag findByName(String name);
+
+    @Query("select tag.id as id, tag.name as name from Tag tag where tag.name in :names")
+    List<TagIdAndName> findByNameIn(@Param("names") Collection<String> names);
+
+    @Query("select tag.id as id, tag.name as name from Tag tag where tag.id in :ids")
+    List<TagIdAndName> findByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select tag.name as name, tag.publicationCount as publicationCount, tag.lastUse as lastUse from Tag tag" +
+        " where tag.name is not null")
+    List<TagUsage> findAllUsages();
+
+    /**
+     * Count the uses of the tags by the publications of an id range, read from the primary key of
+     * {@code publication_tag}.
+     *
+     * @param fromPublicationId the inclusive lower bound of the publication ids
+     * @param toPublicationId the exclusive upper bound of the publication ids
+     * @return the tag ids and their numbers of uses; their numeric types depend on the database driver
+     */
+    @Query(value = "select tags_id, count(*) from publication_tag" +
+        " where publications_id >= :fromPublicationId and publications_id < :toPublicationId group by tags_id", nativeQuery = true)
+    List<Object[]> countUsesBetween(@Param("fromPublicationId") long fromPublicationId, @Param("toPublicationId") long toPublicationId);
+
+    /**
+     * @param regionId the id of a region
+     * @param fromPublicationId the inclusive lower bound of the publication ids
+     * @return the tag ids and their numbers of uses by the publications of the region, read from a range of
+     * {@code idx_publication_region_id_id}; their numeric types depend on the database driver
+     */
+    @Query(value = "select publication_tag.tags_id, count(*) from publication" +
+        " join publication_tag on publication_tag.publications_id = publication.id" +
+        " where publication.region_id = :regionId and publication.id >= :fromPublicationId" +
+        " group by publication_tag.tags_id", nativeQuery = true)
+    List<Object[]> countUsesByRegionIdSince(@Param("regionId") Integer regionId, @Param("fromPublicationId") long fromPublicationId);
+
+    @Modifying
+    @Query("update Tag tag set tag.lastUse = :lastUse where tag.id in :ids and (tag.lastUse is null or tag.lastUse < :lastUse)")
+    int updateLastUse(@Param("ids") Collection<Long> ids, @Param("lastUse") LocalDate lastUse);
+
+    /**
+     * Add to the publication counters of tags.
+     *
+     * @param ids the ids of the tags
+     * @param delta the number of publications to add, negative to remove
+     * @return the number of tags updated
+     */
+    @Modifying
+    @Query(value = "update tag set publication_count = publication_count + :delta where id in (:ids)", nativeQuery = true)
+    int updatePublicationCount(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    /**
+     * Add to the publication counters of the tags of a publication, read from {@code publication_tag}.
+     *
+     * @param publicationId the id of the publication
+     * @param delta the number of publications to add, negative to remove
+     * @return the number of tags updated
+     */
+    @Modifying
+    @Query(value = "update tag set publication_count = publication_count + :delta" +
+        " where id in (select tags_id from publication_tag where publications_id = :publicationId)", nativeQuery = true)
+    int updatePublicationCountByPublicationId(@Param("publicationId") Long publicationId, @Param("delta") long delta);
+
+    /**
+     * Unlink a tag from its publications, which are kept.
+     *
+     * @param id the id of the tag
+     * @return the number of publications unlinked
+     */
+    @Modifying
+    @Query(value = "delete from publication_tag where tags_id = :id", nativeQuery = true)
+    int deletePublicationLinks(@Param("id") Long id);
+
+    /**
+     * Projection of a tag on its key columns, so that resolving names does not load the tag publications.
+     */
+    interface TagIdAndName {
+
+        Long getId();
+
+        String getName();
+    }
+
+    /**
+     * Projection of a tag on its name and its uses.
+     */
+    interface TagUsage {
+
+        String getName();
+
+        Long getPublicationCount();
+
+        LocalDate getLastUse();
+    }
 }
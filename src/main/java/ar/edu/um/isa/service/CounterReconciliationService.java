@@ -0,0 +1,70 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublisherRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Service class repairing the counters of the publishers.
+ * <p>
+ * The counters are changed by the statements changing the follows and the publications, but changes made
+ * outside of them, like a publication moved to another publisher, make them drift. The reconciliation
+ * recomputes them from the follows and the publications, by chunks of publishers in their own transactions,
+ * so that the locks are held briefly.
+ */
+@Service
+public class CounterReconciliationService {
+
+    private final Logger log = LoggerFactory.getLogger(CounterReconciliationService.class);
+
+    private final PublisherRepository publisherRepository;
+
+    private final TransactionTemplate transaction;
+
+    private final int chunkSize;
+
+    public CounterReconciliationService(PublisherRepository publisherRepository, PlatformTransactionManager transactionManager,
+                                        ApplicationProperties applicationProperties) {
+        this.publisherRepository = publisherRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = applicationProperties.getCounters().getReconciliationChunkSize();
+    }
+
+    /**
+     * Recompute the counters of all the publishers.
+     * <p>
+     * This is scheduled to get fired everyday, at 03:00 (am).
+     *
+     * @return the number of publishers reconciled
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public long reconcileCounters() {
+        long reconciled = 0;
+        List<Long> chunk = reconcileChunk(Long.MIN_VALUE);
+        while (!chunk.isEmpty()) {
+            reconciled += chunk.size();
+            chunk = reconcileChunk(chunk.get(chunk.size() - 1));
+        }
+        log.info("Reconciled the counters of {} publishers", reconciled);
+        return reconciled;
+    }
+
+    private List<Long> reconcileChunk(Long after) {
+        return transaction.execute(status -> {
+            List<Long> ids = publisherRepository.findIdsAfter(after, PageRequest.of(0, chunkSize));
+            if (!ids.isEmpty()) {
+                publisherRepository.reconcileCounters(after, ids.get(ids.size() - 1));
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,528 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.PublisherRepository.FollowFingerprint;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+import ar.edu.um.isa.service.util.CsrAdjacency;
+import ar.edu.um.isa.service.util.LongMergeUtil;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * In-memory index of the follows, to answer graph questions without querying {@code publisher_follow}.
+ * <p>
+ * Both directions are held as {@link CsrAdjacency} arrays of primitive ids. The changes since the last
+ * compaction are kept aside per row, as the sorted ids added to and removed from the row, and merged into the row
+ * when it is read and when the index is compacted: a change only copies these deltas, however many followers the
+ * followed publisher has, and only the changes of the same rows wait for each other. The index is loaded at startup, from the snapshot file when it is still up to date, or else from the database in chunks; it
+ * is then updated by the committed {@link FollowsChangedEvent}s, and periodically compacted, checked against the
+ * database and written to the snapshot file through a memory mapping.
+ * <p>
+ * Only the follows changed through {@link PublisherService} on this node are seen as they happen. Other changes
+ * are caught by the periodic check, which reloads the index when the follows in the database differ.
+ */
+@Service
+public class FollowGraphIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x46474931;
+
+    private static final int SNAPSHOT_HEADER_BYTES = Integer.BYTES + 2 * Long.BYTES;
+
+    private static final long CHECKSUM_MODULUS = 65521;
+
+    private final Logger log = LoggerFactory.getLogger(FollowGraphIndex.class);
+
+    private final PublisherRepository publisherRepository;
+
+    private final boolean enabled;
+
+    private final Path snapshotFile;
+
+    private final int loadChunkSize;
+
+    private final Timer loadTimer;
+
+    /**
+     * Held shared to change the deltas, and exclusively to replace the graph.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Graph graph = new Graph(CsrAdjacency.empty(), CsrAdjacency.empty());
+
+    /**
+     * The changes of the rows since the graph was built, by publisher id.
+     */
+    private final ConcurrentMap<Long, RowDelta> followsDeltas = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, RowDelta> followersDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * The changes committed while the index loads, replayed once it is loaded; null when not loading.
+     */
+    private volatile Queue<FollowsChangedEvent> pendingChanges;
+
+    private volatile boolean loaded;
+
+    private final AtomicLong edges = new AtomicLong();
+
+    private final AtomicLong checksum = new AtomicLong();
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The version of the last snapshot written; read and written under the exclusive lock.
+     */
+    private long snapshotVersion = -1;
+
+    public FollowGraphIndex(PublisherRepository publisherRepository, ApplicationProperties applicationProperties,
+                            MetricRegistry metricRegistry) {
+        ApplicationProperties.FollowGraph properties = applicationProperties.getFollowGraph();
+        this.publisherRepository = publisherRepository;
+        this.enabled = properties.isEnabled();
+        this.snapshotFile = properties.getSnapshotFile() == null || properties.getSnapshotFile().isEmpty()
+            ? null : Paths.get(properties.getSnapshotFile());
+        this.loadChunkSize = properties.getLoadChunkSize();
+
+        this.loadTimer = metricRegistry.timer(name(FollowGraphIndex.class, "load"));
+        metricRegistry.register(name(FollowGraphIndex.class, "follows"), (Gauge<Long>) this::edgeCount);
+        metricRegistry.register(name(FollowGraphIndex.class, "memory"), (Gauge<Long>) this::memoryUsage);
+    }
+
+    /**
+     * Load the index once the application is started, without delaying the startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * @return whether the index is loaded; until then, the callers must read the follows from the database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param followerId the id of the following publisher
+     * @return the ids of the publishers it follows, in ascending order
+     */
+    public long[] getFollows(long followerId) {
+        // the delta is read first: applied again to a compacted row, it leaves the row unchanged
+        RowDelta delta = followsDeltas.get(followerId);
+        long[] row = graph.follows.targetsOf(followerId);
+        return delta != null ? delta.applyTo(row) : row;
+    }
+
+    /**
+     * @param followedId the id of the followed publisher
+     * @return the ids of its followers, in ascending order
+     */
+    public long[] getFollowers(long followedId) {
+        RowDelta delta = followersDeltas.get(followedId);
+        long[] row = graph.followers.targetsOf(followedId);
+        return delta != null ? delta.applyTo(row) : row;
+    }
+
+    /**
+     * @param followerId the id of the following publisher
+     * @param followedId the id of the followed publisher
+     * @return whether the first publisher follows the second one
+     */
+    public boolean isFollowing(long followerId, long followedId) {
+        RowDelta delta = followsDeltas.get(followerId);
+        boolean present = graph.follows.contains(followerId, followedId);
+        return delta != null ? delta.contains(followedId, present) : present;
+    }
+
+    /**
+     * @param firstId the id of a publisher
+     * @param secondId the id of another publisher
+     * @return the ids of the publishers followed by both, in ascending order
+     */
+    public long[] getCommonFollows(long firstId, long secondId) {
+        return LongMergeUtil.intersectAscending(getFollows(firstId), getFollows(secondId));
+    }
+
+    /**
+     * Apply committed follows or unfollows to the index.
+     *
+     * @param event the change of the follows
+     */
+    @TransactionalEventListener
+    public void onFollowsChanged(FollowsChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            Queue<FollowsChangedEvent> pending = pendingChanges;
+            if (pending != null) {
+                pending.add(event);
+            }
+            if (loaded) {
+                apply(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Change the deltas of the rows of the follower and of the followed publishers, under the shared lock.
+     * <p>
+     * The row of the follower stays locked by its map while the rows of the followed publishers change, so that
+     * the changes of the same follower are applied to both directions in the same order.
+     */
+    private void apply(FollowsChangedEvent event) {
+        long followerId = event.getFollowerId();
+        boolean followed = event.isFollowed();
+        CsrAdjacency follows = graph.follows;
+        followsDeltas.compute(followerId, (id, delta) -> {
+            RowDelta current = delta != null ? delta : RowDelta.EMPTY;
+            long[] changedIds = new long[event.getFollowedIds().length];
+            int changed = 0;
+            for (long followedId : sorted(event.getFollowedIds())) {
+                boolean present = current.contains(followedId, follows.contains(followerId, followedId));
+                if (present != followed && (changed == 0 || changedIds[changed - 1] != followedId)) {
+                    changedIds[changed++] = followedId;
+                }
+            }
+            if (changed == 0) {
+                return delta;
+            }
+            changedIds = Arrays.copyOf(changedIds, changed);
+            long sign = followed ? 1 : -1;
+            for (long followedId : changedIds) {
+                followersDeltas.compute(followedId, (key, followers) ->
+                    (followers != null ? followers : RowDelta.EMPTY).change(followed, followerId).orNull());
+                edges.addAndGet(sign);
+                checksum.addAndGet(sign * checksumOf(followerId, followedId));
+            }
+            version.incrementAndGet();
+            return current.change(followed, changedIds).orNull();
+        });
+    }
+
+    /**
+     * Load the index from the snapshot file when it is up to date, or else from the database.
+     */
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ConcurrentLinkedQueue<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try (Timer.Context ignored = loadTimer.time()) {
+            FollowFingerprint fingerprint = publisherRepository.findFollowFingerprint();
+            long databaseEdges = fingerprint.getEdges().longValue();
+            long databaseChecksum = fingerprint.getChecksum().longValue();
+            CsrAdjacency follows = readSnapshot(databaseEdges, databaseChecksum);
+            if (follows != null) {
+                install(follows, databaseChecksum);
+            } else {
+                scan();
+            }
+        } finally {
+            pendingChanges = null;
+        }
+        log.info("Loaded {} follows in the follow graph index", edgeCount());
+    }
+
+    /**
+     * Compact the changed rows, check the index against the database and write a snapshot if it changed.
+     * <p>
+     * This is scheduled to get fired with a fixed delay, 10 minutes by default.
+     */
+    @Scheduled(initialDelayString = "${application.follow-graph.snapshot-delay:600000}",
+        fixedDelayString = "${application.follow-graph.snapshot-delay:600000}")
+    public void snapshot() {
+        if (!loaded) {
+            return;
+        }
+        FollowFingerprint fingerprint = publisherRepository.findFollowFingerprint();
+        boolean differs;
+        lock.writeLock().lock();
+        try {
+            differs = fingerprint.getEdges().longValue() != edges.get()
+                || fingerprint.getChecksum().longValue() != checksum.get();
+            if (!differs) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (differs) {
+            log.info("The follow graph index differs from the database, reloading it");
+            load();
+        }
+        writeSnapshot();
+    }
+
+    private void install(CsrAdjacency follows, long followsChecksum) {
+        CsrAdjacency followers = follows.transpose();
+        lock.writeLock().lock();
+        try {
+            graph = new Graph(follows, followers);
+            followsDeltas.clear();
+            followersDeltas.clear();
+            edges.set(follows.edgeCount());
+            checksum.set(followsChecksum);
+            version.incrementAndGet();
+            loaded = true;
+            Queue<FollowsChangedEvent> changes = pendingChanges;
+            pendingChanges = null;
+            // the changes committed during the load may or may not be in the loaded follows, replaying them is idempotent
+            if (changes != null) {
+                changes.forEach(this::apply);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the deltas into the rows of a new graph, under the exclusive lock.
+     */
+    private void compact() {
+        if (followsDeltas.isEmpty()) {
+            return;
+        }
+        graph = new Graph(graph.follows.withRows(mergedRows(graph.follows, followsDeltas)),
+            graph.followers.withRows(mergedRows(graph.followers, followersDeltas)));
+        followsDeltas.clear();
+        followersDeltas.clear();
+    }
+
+    private static SortedMap<Long, long[]> mergedRows(CsrAdjacency adjacency, Map<Long, RowDelta> deltas) {
+        SortedMap<Long, long[]> rows = new TreeMap<>();
+        deltas.forEach((source, delta) -> rows.put(source, delta.applyTo(adjacency.targetsOf(source))));
+        return rows;
+    }
+
+    private void scan() {
+        CsrAdjacency.Builder builder = new CsrAdjacency.Builder(loadChunkSize);
+        long scannedChecksum = 0;
+        long lastFollower = Long.MIN_VALUE;
+        long lastFollowed = Long.MIN_VALUE;
+        List<Object[]> chunk;
+        do {
+            chunk = publisherRepository.findFollowsAfter(lastFollower, lastFollowed, loadChunkSize);
+            for (Object[] row : chunk) {
+                lastFollower = ((Number) row[0]).longValue();
+                lastFollowed = ((Number) row[1]).longValue();
+                builder.add(lastFollower, lastFollowed);
+                scannedChecksum += checksumOf(lastFollower, lastFollowed);
+            }
+        } while (chunk.size() == loadChunkSize);
+        install(builder.build(), scannedChecksum);
+    }
+
+    private CsrAdjacency readSnapshot(long databaseEdges, long databaseChecksum) {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                log.warn("Ignoring {}, which is not a follow graph snapshot", snapshotFile);
+                return null;
+            }
+            if (buffer.getLong() != databaseEdges || buffer.getLong() != databaseChecksum) {
+                log.info("Ignoring the follow graph snapshot {}, the follows changed since", snapshotFile);
+                return null;
+            }
+            return CsrAdjacency.readFrom(buffer);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read the follow graph snapshot {}: {}", snapshotFile, e.toString());
+            return null;
+        }
+    }
+
+    private void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        CsrAdjacency follows;
+        long snapshotEdges;
+        long snapshotChecksum;
+        long snapshotOf;
+        lock.writeLock().lock();
+        try {
+            compact();
+            if (version.get() == snapshotVersion) {
+                return;
+            }
+            follows = graph.follows;
+            snapshotEdges = edges.get();
+            snapshotChecksum = checksum.get();
+            snapshotOf = version.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long size = SNAPSHOT_HEADER_BYTES + follows.byteSize();
+        if (size > Integer.MAX_VALUE) {
+            log.warn("The follow graph is too large for a snapshot: {} bytes", size);
+            return;
+        }
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try {
+            if (snapshotFile.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.nativeOrder());
+                buffer.putInt(SNAPSHOT_MAGIC);
+                buffer.putLong(snapshotEdges);
+                buffer.putLong(snapshotChecksum);
+                follows.writeTo(buffer);
+                buffer.force();
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lock.writeLock().lock();
+            try {
+                snapshotVersion = snapshotOf;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Wrote a snapshot of {} follows to {}", snapshotEdges, snapshotFile);
+        } catch (IOException e) {
+            log.warn("Could not write the follow graph snapshot {}: {}", snapshotFile, e.toString());
+        }
+    }
+
+    public long edgeCount() {
+        return edges.get();
+    }
+
+    /**
+     * @return the estimated size of the arrays of the index, in bytes
+     */
+    public long memoryUsage() {
+        Graph current = graph;
+        long usage = current.follows.memoryUsage() + current.followers.memoryUsage();
+        for (RowDelta delta : followsDeltas.values()) {
+            usage += delta.memoryUsage();
+        }
+        for (RowDelta delta : followersDeltas.values()) {
+            usage += delta.memoryUsage();
+        }
+        return usage;
+    }
+
+    /**
+     * The checksum of a follow, summed over the follows like {@link PublisherRepository#findFollowFingerprint()}
+     * does in the database.
+     */
+    static long checksumOf(long followerId, long followedId) {
+        return followerId % CHECKSUM_MODULUS * 65536 + followedId % CHECKSUM_MODULUS;
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * The changes of a row since the graph was built: the sorted ids added to the row, which were not in it, and
+     * the sorted ids removed from it, which were.
+     */
+    private static final class RowDelta {
+
+        private static final RowDelta EMPTY = new RowDelta(CsrAdjacency.EMPTY, CsrAdjacency.EMPTY);
+
+        private final long[] added;
+
+        private final long[] removed;
+
+        RowDelta(long[] added, long[] removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * @param id an id
+         * @param inRow whether the id is in the row of the graph
+         * @return whether the id is in the changed row
+         */
+        boolean contains(long id, boolean inRow) {
+            return inRow ? Arrays.binarySearch(removed, id) < 0 : Arrays.binarySearch(added, id) >= 0;
+        }
+
+        /**
+         * @param add whether the ids are added to the changed row, or removed from it
+         * @param ids the sorted ids, none of them in the changed row when added, all of them when removed
+         * @return the delta with the change
+         */
+        RowDelta change(boolean add, long... ids) {
+            return add
+                ? new RowDelta(LongMergeUtil.addAscending(added, LongMergeUtil.removeAscending(ids, removed)),
+                    LongMergeUtil.removeAscending(removed, ids))
+                : new RowDelta(LongMergeUtil.removeAscending(added, ids),
+                    LongMergeUtil.addAscending(removed, LongMergeUtil.removeAscending(ids, added)));
+        }
+
+        /**
+         * @param row the sorted row of the graph, or the row already changed by this delta
+         * @return the changed row
+         */
+        long[] applyTo(long[] row) {
+            return LongMergeUtil.addAscending(LongMergeUtil.removeAscending(row, removed), added);
+        }
+
+        RowDelta orNull() {
+            return added.length == 0 && removed.length == 0 ? null : this;
+        }
+
+        long memoryUsage() {
+            return (long) (added.length + removed.length) * Long.BYTES;
+        }
+    }
+
+    private static final class Graph {
+
+        private final CsrAdjacency follows;
+
+        private final CsrAdjacency followers;
+
+        Graph(CsrAdjacency follows, CsrAdjacency followers) {
+            this.follows = follows;
+            this.followers = followers;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublisherSuggestionDTO;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+import ar.edu.um.isa.service.util.MutualFollowCounter;
+import ar.edu.um.isa.service.util.MutualFollowCounter.Ranking;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Service class suggesting publishers to follow: the friends of friends, ranked by the number of follows of the
+ * viewer following them.
+ * <p>
+ * Once the {@link FollowGraphIndex} is loaded, the ranking is computed in memory by {@link MutualFollowCounter}, on
+ * the common fork/join pool; until then, it is computed by a single aggregate query. The ranking of a publisher is
+ * cached for a few minutes, and evicted when its follows change on this node.
+ */
+@Service
+@Transactional(readOnly = true)
+public class FollowSuggestionService {
+
+    public static final String SUGGESTIONS_CACHE = "followSuggestions";
+
+    private final Logger log = LoggerFactory.getLogger(FollowSuggestionService.class);
+
+    private final PublisherRepository publisherRepository;
+
+    private final FollowGraphIndex followGraphIndex;
+
+    private final CacheManager cacheManager;
+
+    private final int limit;
+
+    public FollowSuggestionService(PublisherRepository publisherRepository, FollowGraphIndex followGraphIndex,
+                                   CacheManager cacheManager, ApplicationProperties applicationProperties) {
+        this.publisherRepository = publisherRepository;
+        this.followGraphIndex = followGraphIndex;
+        this.cacheManager = cacheManager;
+        this.limit = applicationProperties.getSuggestions().getLimit();
+    }
+
+    /**
+     * @param id the id of the publisher
+     * @param size the maximum number of suggestions
+     * @return the summaries of the suggested publishers, best first, or empty if the publisher does not exist
+     */
+    public Optional<List<PublisherSuggestionDTO>> findSuggestions(Long id, int size) {
+        Ranking ranking = Objects.requireNonNull(suggestionsCache().get(id, () -> rank(id)));
+        if (ranking.size() == 0) {
+            return publisherRepository.existsById(id) ? Optional.of(Collections.emptyList()) : Optional.empty();
+        }
+        int count = Math.min(size, ranking.size());
+        List<Long> ids = new ArrayList<>(count);
+        for (int rank = 0; rank < count; rank++) {
+            ids.add(ranking.getId(rank));
+        }
+        Map<Long, PublisherSummaryDTO> summaries = new HashMap<>();
+        for (PublisherSummaryDTO summary : publisherRepository.findSummariesByIdIn(ids)) {
+            summaries.put(summary.getId(), summary);
+        }
+        List<PublisherSuggestionDTO> suggestions = new ArrayList<>(count);
+        for (int rank = 0; rank < count; rank++) {
+            // a publisher deleted since the ranking was cached is skipped
+            PublisherSummaryDTO summary = summaries.get(ranking.getId(rank));
+            if (summary != null) {
+                suggestions.add(new PublisherSuggestionDTO(summary, ranking.getMutualCount(rank)));
+            }
+        }
+        return Optional.of(suggestions);
+    }
+
+    /**
+     * Evict the cached suggestions of a publisher whose follows changed.
+     *
+     * @param event the change of the follows
+     */
+    @TransactionalEventListener
+    public void onFollowsChanged(FollowsChangedEvent event) {
+        suggestionsCache().evict(event.getFollowerId());
+    }
+
+    private Ranking rank(Long id) {
+        if (followGraphIndex.isLoaded()) {
+            return MutualFollowCounter.rank(ForkJoinPool.commonPool(), id, followGraphIndex.getFollows(id),
+                followGraphIndex::getFollows, limit);
+        }
+        log.debug("Ranking the suggestions of publisher {} from the database", id);
+        List<Object[]> rows = publisherRepository.findMutualFollowCounts(id, limit);
+        long[] ids = new long[rows.size()];
+        int[] mutualCounts = new int[rows.size()];
+        for (int rank = 0; rank < rows.size(); rank++) {
+            ids[rank] = ((Number) rows.get(rank)[0]).longValue();
+            mutualCounts[rank] = ((Number) rows.get(rank)[1]).intValue();
+        }
+        return new Ranking(ids, mutualCounts);
+    }
+
+    private Cache suggestionsCache() {
+        return Objects.requireNonNull(cacheManager.getCache(SUGGESTIONS_CACHE));
+    }
+}
@@ -0,0 +1,164 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.TagRepository.TagIdAndName;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.service.dto.TrendingTagDTO;
+import ar.edu.um.isa.service.util.SlidingWindowCounter.Ranking;
+import ar.edu.um.isa.service.util.TopK;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the publications and the tags of a region.
+ * <p>
+ * The publications of a region are read by descending id from {@code idx_publication_region_id_id}. The ids grow
+ * with time, so the publications of the last days are one range of the index: the rankings read it once, by chunks
+ * of ids for the publications, and keep the best entries in a {@link TopK}, then load only the rows or the names
+ * they return.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LocalFeedService {
+
+    private final Logger log = LoggerFactory.getLogger(LocalFeedService.class);
+
+    private final PublicationRepository publicationRepository;
+
+    private final TagRepository tagRepository;
+
+    private final PublicationService publicationService;
+
+    private final RegionService regionService;
+
+    private final int rankingChunkSize;
+
+    public LocalFeedService(PublicationRepository publicationRepository, TagRepository tagRepository,
+                            PublicationService publicationService, RegionService regionService,
+                            ApplicationProperties applicationProperties) {
+        this.publicationRepository = publicationRepository;
+        this.tagRepository = tagRepository;
+        this.publicationService = publicationService;
+        this.regionService = regionService;
+        this.rankingChunkSize = applicationProperties.getLocalFeed().getRankingChunkSize();
+    }
+
+    /**
+     * Get a page of the publications of a region, with their republished publications.
+     *
+     * @param regionId the id of the region
+     * @param before the exclusive upper bound of the publication ids, null for the first page
+     * @param size the page size
+     * @return the publication rows, newest first, or empty if the region does not exist
+     */
+    public Optional<List<PublicationRowDTO>> findRegionPublications(Integer regionId, Long before, int size) {
+        log.debug("Request to get the publications of region {}", regionId);
+        List<Long> ids = publicationRepository.findIdsByRegionId(regionId, before != null ? before : Long.MAX_VALUE, size)
+            .stream().map(Number::longValue).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return emptyIfExists(regionId);
+        }
+        return Optional.of(publicationService.hydrateRepublishes(publicationRepository.findRowsByIdIn(ids)));
+    }
+
+    /**
+     * Get the publications of a region with the most faves, likes and republishes during the last days.
+     *
+     * @param regionId the id of the region
+     * @param days the number of days
+     * @param size the maximum number of publications
+     * @return the publication rows, most engaging first, then newest first, or empty if the region does not exist
+     */
+    public Optional<List<PublicationRowDTO>> findTopPublications(Integer regionId, int days, int size) {
+        log.debug("Request to get the top publications of region {} during the last {} days", regionId, days);
+        TopK top = new TopK(size);
+        long after = since(days) - 1;
+        List<Object[]> chunk;
+        do {
+            chunk = publicationRepository.findEngagementsByRegionIdAfter(regionId, after, rankingChunkSize);
+            for (Object[] row : chunk) {
+                after = ((Number) row[0]).longValue();
+                // the newest publication wins a tie, so the keys are the negated ids
+                top.offer(-after, ((Number) row[1]).longValue());
+            }
+        } while (chunk.size() == rankingChunkSize);
+        Ranking ranking = top.rank();
+        if (ranking.size() == 0) {
+            return emptyIfExists(regionId);
+        }
+        List<Long> ids = new ArrayList<>(ranking.size());
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            ids.add(-ranking.getKey(rank));
+        }
+        Map<Long, PublicationRowDTO> rows = new HashMap<>();
+        for (PublicationRowDTO row : publicationRepository.findRowsByIdIn(ids)) {
+            rows.put(row.getId(), row);
+        }
+        List<PublicationRowDTO> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PublicationRowDTO row = rows.get(id);
+            if (row != null) {
+                ranked.add(row);
+            }
+        }
+        return Optional.of(publicationService.hydrateRepublishes(ranked));
+    }
+
+    /**
+     * Get the tags used the most by the publications of a region during the last days.
+     *
+     * @param regionId the id of the region
+     * @param days the number of days
+     * @param size the maximum number of tags
+     * @return the tags, by descending number of uses, or empty if the region does not exist
+     */
+    public Optional<List<TrendingTagDTO>> findTrendingTags(Integer regionId, int days, int size) {
+        log.debug("Request to get the trending tags of region {} during the last {} days", regionId, days);
+        TopK top = new TopK(size);
+        for (Object[] row : tagRepository.countUsesByRegionIdSince(regionId, since(days))) {
+            top.offer(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        Ranking ranking = top.rank();
+        if (ranking.size() == 0) {
+            return emptyIfExists(regionId);
+        }
+        List<Long> ids = new ArrayList<>(ranking.size());
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            ids.add(ranking.getKey(rank));
+        }
+        Map<Long, String> names = new HashMap<>();
+        for (TagIdAndName tag : tagRepository.findByIdIn(ids)) {
+            names.put(tag.getId(), tag.getName());
+        }
+        List<TrendingTagDTO> tags = new ArrayList<>(ranking.size());
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            tags.add(new TrendingTagDTO(ranking.getKey(rank), names.get(ranking.getKey(rank)), ranking.getCount(rank)));
+        }
+        return Optional.of(tags);
+    }
+
+    /**
+     * @return the lowest publication id created during the last days
+     */
+    private static long since(int days) {
+        return SnowflakeIdGenerator.lowerBoundOf(Instant.now().minus(days, ChronoUnit.DAYS));
+    }
+
+    /**
+     * The region is looked up only when it has nothing to show.
+     */
+    private <T> Optional<List<T>> emptyIfExists(Integer regionId) {
+        return regionService.exists(regionId) ? Optional.of(Collections.emptyList()) : Optional.empty();
+    }
+}
@@ -0,0 +1,235 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.service.event.PublicationCountersChangedEvent;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Write-behind counters of the favourites, the likes and the republishes of the publications.
+ * <p>
+ * Faving or liking a publication only inserts a row in its join table, and republishing it only links the
+ * republish to it; the change of the counter is added to a striped {@link LongAdder} of the publication once the
+ * transaction commits, so that the requests on a popular publication neither wait for each other nor lock its row.
+ * The sums are periodically added to the counter columns, in JDBC batches. The adders are never reset: each flush
+ * writes the difference with the sum written by the previous one, so the changes made during a flush are written
+ * by the next one.
+ * <p>
+ * The adders of a publication left unchanged for {@link #IDLE_FLUSHES} flushes are dropped, and still flushed
+ * for as many flushes, in case a request got them just before.
+ */
+@Service
+public class PublicationCounters {
+
+    static final String FLUSH_STATEMENT =
+        "update publication set fave_count = fave_count + ?, like_count = like_count + ?, republish_count = republish_count + ?" +
+        " where id = ?";
+
+    /**
+     * Number of flushes without change after which the adders of a publication are dropped.
+     */
+    static final int IDLE_FLUSHES = 60;
+
+    /**
+     * Number of publications whose counters are written together, in one transaction.
+     */
+    static final int FLUSH_CHUNK_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PublicationCounters.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transaction;
+
+    private final Map<Long, Adders> adders = new ConcurrentHashMap<>();
+
+    /**
+     * The adders dropped from the map, flushed until they are forgotten; guarded by this.
+     */
+    private final List<Adders> droppedAdders = new ArrayList<>();
+
+    private final Timer flushTimer;
+
+    public PublicationCounters(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               MetricRegistry metricRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+
+        this.flushTimer = metricRegistry.timer(name(PublicationCounters.class, "flush"));
+        metricRegistry.register(name(PublicationCounters.class, "publications"), (Gauge<Integer>) adders::size);
+    }
+
+    /**
+     * Add to the counters of a publication, to be written by the next flush.
+     *
+     * @param publicationId the id of the publication
+     * @param faveDelta the change of its favourite counter
+     * @param likeDelta the change of its like counter
+     * @param republishDelta the change of its republish counter
+     */
+    public void add(long publicationId, int faveDelta, int likeDelta, int republishDelta) {
+        Adders publicationAdders = adders.computeIfAbsent(publicationId, Adders::new);
+        if (faveDelta != 0) {
+            publicationAdders.faves.add(faveDelta);
+        }
+        if (likeDelta != 0) {
+            publicationAdders.likes.add(likeDelta);
+        }
+        if (republishDelta != 0) {
+            publicationAdders.republishes.add(republishDelta);
+        }
+    }
+
+    /**
+     * Add the committed changes of the counters of a publication.
+     *
+     * @param event the change of the counters
+     */
+    @TransactionalEventListener
+    public void onCountersChanged(PublicationCountersChangedEvent event) {
+        add(event.getPublicationId(), event.getFaveDelta(), event.getLikeDelta(), event.getRepublishDelta());
+    }
+
+    /**
+     * Add the changes of the counters since the previous flush to the counter columns.
+     * <p>
+     * This is scheduled to get fired with a fixed delay, every second by default, and when the application stops.
+     * The changes of a chunk that cannot be written are kept for the next flush.
+     *
+     * @return the number of publications whose counters were written
+     */
+    @PreDestroy
+    @Scheduled(initialDelayString = "${application.publication-counters.flush-delay:1000}",
+        fixedDelayString = "${application.publication-counters.flush-delay:1000}")
+    public synchronized int flush() {
+        List<Flush> flushes = new ArrayList<>();
+        for (Adders publicationAdders : adders.values()) {
+            if (!publicationAdders.collect(flushes) && publicationAdders.idleFlushes == IDLE_FLUSHES) {
+                adders.remove(publicationAdders.publicationId, publicationAdders);
+                droppedAdders.add(publicationAdders);
+            }
+        }
+        for (Iterator<Adders> iterator = droppedAdders.iterator(); iterator.hasNext(); ) {
+            Adders publicationAdders = iterator.next();
+            if (!publicationAdders.collect(flushes) && publicationAdders.idleFlushes == 2 * IDLE_FLUSHES) {
+                iterator.remove();
+            }
+        }
+        if (flushes.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        try (Timer.Context ignored = flushTimer.time()) {
+            for (int from = 0; from < flushes.size(); from += FLUSH_CHUNK_SIZE) {
+                List<Flush> chunk = flushes.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, flushes.size()));
+                write(chunk);
+                chunk.forEach(Flush::written);
+                written += chunk.size();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not write the counters of {} publications, keeping them for the next flush: {}",
+                flushes.size() - written, e.toString());
+        }
+        log.debug("Wrote the counters of {} publications", written);
+        return written;
+    }
+
+    private void write(List<Flush> chunk) {
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (Flush flush : chunk) {
+            rows.add(new Object[]{flush.faves - flush.adders.writtenFaves, flush.likes - flush.adders.writtenLikes,
+                flush.republishes - flush.adders.writtenRepublishes, flush.adders.publicationId});
+        }
+        transaction.execute(status -> jdbcTemplate.batchUpdate(FLUSH_STATEMENT, rows));
+    }
+
+    /**
+     * The adders of a publication, and the sums written by the previous flushes.
+     */
+    private static final class Adders {
+
+        private final long publicationId;
+
+        private final LongAdder faves = new LongAdder();
+
+        private final LongAdder likes = new LongAdder();
+
+        private final LongAdder republishes = new LongAdder();
+
+        private long writtenFaves;
+
+        private long writtenLikes;
+
+        private long writtenRepublishes;
+
+        private int idleFlushes;
+
+        Adders(long publicationId) {
+            this.publicationId = publicationId;
+        }
+
+        /**
+         * @return whether the sums changed since the previous flush, in which case they are added to the flushes
+         */
+        boolean collect(List<Flush> flushes) {
+            long faveSum = faves.sum();
+            long likeSum = likes.sum();
+            long republishSum = republishes.sum();
+            if (faveSum == writtenFaves && likeSum == writtenLikes && republishSum == writtenRepublishes) {
+                idleFlushes++;
+                return false;
+            }
+            idleFlushes = 0;
+            flushes.add(new Flush(this, faveSum, likeSum, republishSum));
+            return true;
+        }
+    }
+
+    /**
+     * The sums of the adders of a publication, read by a flush.
+     */
+    private static final class Flush {
+
+        private final Adders adders;
+
+        private final long faves;
+
+        private final long likes;
+
+        private final long republishes;
+
+        Flush(Adders adders, long faves, long likes, long republishes) {
+            this.adders = adders;
+            this.faves = faves;
+            this.likes = likes;
+            this.republishes = republishes;
+        }
+
+        void written() {
+            adders.writtenFaves = faves;
+            adders.writtenLikes = likes;
+            adders.writtenRepublishes = republishes;
+        }
+    }
+}
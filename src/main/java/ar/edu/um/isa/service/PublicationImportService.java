@@ -0,0 +1,356 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.Region;
+import ar.edu.um.isa.domain.util.ContentTokenizer;
+import ar.edu.um.isa.domain.util.ContentTokenizer.ContentTokens;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.PublisherRepository.PublisherIdAndLogin;
+import ar.edu.um.isa.service.dto.PublicationImportDTO;
+import ar.edu.um.isa.service.dto.PublicationImportEventDTO;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Service class for importing publications in bulk, from newline-delimited JSON.
+ * <p>
+ * Lines are read and written in chunks, so the payload is never held in memory. For each chunk, the
+ * publishers and the mentions are resolved with one query, the tags with {@link TagService#resolveTagIds} and the
+ * regions with {@link RegionService#resolveRegionId}, and the rows are written through a {@link StatelessSession}
+ * with JDBC batching, in one transaction, with the publication counters of the publishers and of the tags.
+ * Unlike {@link PublicationService#createPublication}, no per-publication side effect is triggered; the written
+ * publications are only indexed for the search, a chunk at a time.
+ */
+@Service
+public class PublicationImportService {
+
+    static final int MAX_CONTENT_LENGTH = 255;
+
+    private static final String INSERT_MENTION = "insert into publication_mention (publications_id, mentions_id) values (?, ?)";
+
+    private static final String INSERT_TAG = "insert into publication_tag (publications_id, tags_id) values (?, ?)";
+
+    private static final String UPDATE_PUBLICATION_COUNTER = "update publisher set publication_count = publication_count + ? where id = ?";
+
+    private static final String UPDATE_TAG_COUNTER = "update tag set publication_count = publication_count + ? where id = ?";
+
+    private final Logger log = LoggerFactory.getLogger(PublicationImportService.class);
+
+    private final PublisherRepository publisherRepository;
+
+    private final TagService tagService;
+
+    private final RegionService regionService;
+
+    private final PublicationSearchService publicationSearchService;
+
+    private final SessionFactory sessionFactory;
+
+    private final ObjectReader lineReader;
+
+    private final ObjectWriter eventWriter;
+
+    private final int chunkSize;
+
+    public PublicationImportService(PublisherRepository publisherRepository, TagService tagService,
+                                    RegionService regionService, PublicationSearchService publicationSearchService,
+                                    EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper,
+                                    ApplicationProperties applicationProperties) {
+        this.publisherRepository = publisherRepository;
+        this.tagService = tagService;
+        this.regionService = regionService;
+        this.publicationSearchService = publicationSearchService;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.lineReader = objectMapper.readerFor(PublicationImportDTO.class);
+        this.eventWriter = objectMapper.writerFor(PublicationImportEventDTO.class);
+        this.chunkSize = applicationProperties.getBulkImport().getChunkSize();
+    }
+
+    /**
+     * Import the publications read from a stream of newline-delimited JSON objects.
+     * <p>
+     * The report is written as newline-delimited JSON too: one event per failed line, one progress event
+     * per chunk, and a final summary event.
+     *
+     * @param input the publications, one {@link PublicationImportDTO} per line; blank lines are skipped
+     * @param report where to write the report events
+     * @return the summary event
+     * @throws IOException if the input cannot be read or the report cannot be written
+     */
+    public PublicationImportEventDTO importPublications(InputStream input, OutputStream report) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(report, StandardCharsets.UTF_8));
+        Progress progress = new Progress(writer);
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+        String text;
+        while ((text = reader.readLine()) != null) {
+            progress.lines++;
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                PublicationImportDTO publication = lineReader.readValue(text);
+                if (publication != null) {
+                    chunk.add(new ImportLine(progress.lines, publication));
+                } else {
+                    progress.error(progress.lines, "Invalid JSON: expected an object");
+                }
+            } catch (JsonProcessingException e) {
+                progress.error(progress.lines, "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+        PublicationImportEventDTO summary = progress.event(PublicationImportEventDTO.SUMMARY);
+        progress.write(summary);
+        log.info("Imported {} publications, {} lines failed", progress.imported, progress.failed);
+        return summary;
+    }
+
+    private void importChunk(List<ImportLine> chunk, Progress progress) throws IOException {
+        Set<String> logins = new HashSet<>();
+        for (ImportLine line : chunk) {
+            if (line.publication.getLogin() != null) {
+                logins.add(line.publication.getLogin().toLowerCase());
+            }
+            line.tokens = ContentTokenizer.tokenize(line.publication.getContent());
+            for (String mention : line.tokens.getMentions()) {
+                logins.add(mention.toLowerCase());
+            }
+        }
+        Map<String, Long> publisherIds = new HashMap<>();
+        if (!logins.isEmpty()) {
+            for (PublisherIdAndLogin publisher : publisherRepository.findIdsByUserLoginIn(logins)) {
+                publisherIds.put(publisher.getLogin(), publisher.getId());
+            }
+        }
+
+        List<ImportLine> valid = new ArrayList<>(chunk.size());
+        // only the tags of the valid lines are created
+        List<String> tagNames = new ArrayList<>();
+        LocalDate lastUse = null;
+        for (ImportLine line : chunk) {
+            String error = validate(line.publication, publisherIds);
+            if (error == null) {
+                valid.add(line);
+                tagNames.addAll(line.tokens.getTags());
+                LocalDate date = line.publication.getDate();
+                if (date != null && (lastUse == null || date.isAfter(lastUse))) {
+                    lastUse = date;
+                }
+            } else {
+                progress.error(line.number, error);
+            }
+        }
+        if (!valid.isEmpty()) {
+            List<Long> ids = Collections.emptyList();
+            try {
+                Map<String, Long> tagIds = tagService.resolveTagIds(tagNames, lastUse);
+                ids = write(valid, publisherIds, tagIds, resolveRegionIds(valid));
+                progress.imported += valid.size();
+            } catch (RuntimeException e) {
+                log.warn("Could not import lines {} to {}: {}", valid.get(0).number, valid.get(valid.size() - 1).number, e.toString());
+                for (ImportLine line : valid) {
+                    progress.error(line.number, "Chunk rejected by the database: " + e.getMessage());
+                }
+            }
+            try {
+                publicationSearchService.index(ids);
+            } catch (RuntimeException e) {
+                // the imported publications stay searchable after a rebuild of the index
+                log.warn("Could not index the publications of lines {} to {}: {}", valid.get(0).number, valid.get(valid.size() - 1).number, e.toString());
+            }
+        }
+        progress.write(progress.event(PublicationImportEventDTO.PROGRESS));
+    }
+
+    private String validate(PublicationImportDTO publication, Map<String, Long> publisherIds) {
+        if (publication.getLogin() == null) {
+            return "Missing login";
+        }
+        if (!publisherIds.containsKey(publication.getLogin().toLowerCase())) {
+            return "Unknown publisher: " + publication.getLogin();
+        }
+        if (publication.getContent() != null && publication.getContent().length() > MAX_CONTENT_LENGTH) {
+            return "Content longer than " + MAX_CONTENT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    /**
+     * @return the ids of the regions of the lines, by region code, from the cache once known
+     */
+    private Map<String, Integer> resolveRegionIds(List<ImportLine> lines) {
+        Map<String, Integer> regionIds = new HashMap<>();
+        for (ImportLine line : lines) {
+            PublicationImportDTO dto = line.publication;
+            String code = Region.codeOf(dto.getCountry(), dto.getCity());
+            if (code != null && !regionIds.containsKey(code)) {
+                regionIds.put(code, regionService.resolveRegionId(dto.getCountry(), dto.getCity()));
+            }
+        }
+        return regionIds;
+    }
+
+    /**
+     * @return the ids of the written publications
+     */
+    private List<Long> write(List<ImportLine> lines, Map<String, Long> publisherIds, Map<String, Long> tagIds,
+                             Map<String, Integer> regionIds) {
+        List<Long> ids = new ArrayList<>(lines.size());
+        List<long[]> mentionRows = new ArrayList<>();
+        List<long[]> tagRows = new ArrayList<>();
+        Map<Long, Long> publicationCounts = new HashMap<>();
+        StatelessSession session = sessionFactory.openStatelessSession();
+        SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+        JdbcCoordinator jdbc = implementor.getJdbcCoordinator();
+        Transaction transaction = session.beginTransaction();
+        try {
+            for (ImportLine line : lines) {
+                PublicationImportDTO dto = line.publication;
+                Publisher publisher = new Publisher();
+                publisher.setId(publisherIds.get(dto.getLogin().toLowerCase()));
+                Publication publication = new Publication()
+                    .date(dto.getDate())
+                    .content(dto.getContent())
+                    .visible(dto.getVisible())
+                    .country(dto.getCountry())
+                    .city(dto.getCity())
+                    .publisher(publisher);
+                publication.setRegionId(regionIds.get(Region.codeOf(dto.getCountry(), dto.getCity())));
+                Long id = (Long) session.insert(publication);
+                ids.add(id);
+                publicationCounts.merge(publisher.getId(), 1L, Long::sum);
+                addRows(mentionRows, id, line.tokens.getMentions(), publisherIds);
+                addRows(tagRows, id, line.tokens.getTags(), tagIds);
+            }
+            // the join rows reference the publications, which are still waiting in the JDBC batch
+            jdbc.executeBatch();
+            Connection connection = jdbc.getLogicalConnection().getPhysicalConnection();
+            try {
+                executeBatch(connection, INSERT_MENTION, mentionRows);
+                executeBatch(connection, INSERT_TAG, tagRows);
+                List<long[]> counterRows = new ArrayList<>(publicationCounts.size());
+                publicationCounts.forEach((publisherId, count) -> counterRows.add(new long[]{count, publisherId}));
+                executeBatch(connection, UPDATE_PUBLICATION_COUNTER, counterRows);
+                executeBatch(connection, UPDATE_TAG_COUNTER, tagCounterRows(tagRows));
+            } catch (SQLException e) {
+                throw implementor.getFactory().getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "Could not write the join rows and the counters");
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+        return ids;
+    }
+
+    private static void addRows(List<long[]> rows, long publicationId, List<String> names, Map<String, Long> ids) {
+        Set<Long> linked = new HashSet<>();
+        for (String name : names) {
+            Long id = ids.get(name.toLowerCase());
+            if (id != null && linked.add(id)) {
+                rows.add(new long[]{publicationId, id});
+            }
+        }
+    }
+
+    private static List<long[]> tagCounterRows(List<long[]> tagRows) {
+        Map<Long, Long> tagCounts = new HashMap<>();
+        for (long[] row : tagRows) {
+            tagCounts.merge(row[1], 1L, Long::sum);
+        }
+        List<long[]> rows = new ArrayList<>(tagCounts.size());
+        tagCounts.forEach((tagId, count) -> rows.add(new long[]{count, tagId}));
+        return rows;
+    }
+
+    private static void executeBatch(Connection connection, String sql, List<long[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (long[] row : rows) {
+                statement.setLong(1, row[0]);
+                statement.setLong(2, row[1]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static class ImportLine {
+
+        private final long number;
+
+        private final PublicationImportDTO publication;
+
+        private ContentTokens tokens;
+
+        ImportLine(long number, PublicationImportDTO publication) {
+            this.number = number;
+            this.publication = publication;
+        }
+    }
+
+    private class Progress {
+
+        private final Writer writer;
+
+        private long lines;
+
+        private long imported;
+
+        private long failed;
+
+        Progress(Writer writer) {
+            this.writer = writer;
+        }
+
+        void error(long line, String message) throws IOException {
+            failed++;
+            writer.write(eventWriter.writeValueAsString(PublicationImportEventDTO.error(line, message)));
+            writer.write('\n');
+        }
+
+        PublicationImportEventDTO event(String type) {
+            return PublicationImportEventDTO.counts(type, lines, imported, failed);
+        }
+
+        void write(PublicationImportEventDTO event) throws IOException {
+            writer.write(eventWriter.writeValueAsString(event));
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publication_;
+import ar.edu.um.isa.domain.Publisher_;
+import ar.edu.um.isa.domain.Tag_;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.service.dto.PublicationCriteria;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+
+import io.github.jhipster.service.QueryService;
+import io.github.jhipster.service.filter.LocalDateFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for executing complex queries for {@link Publication} entities in the database.
+ * The main input is a {@link PublicationCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ * <p>
+ * The filters select a page of ids, by descending id below a cursor, which is then loaded as rows. Each equality
+ * filter has an index on its column and the id, whose range for a value is read by descending id without sorting.
+ * The date filter is a range of the primary key instead: the ids are time-ordered, so the publications created on
+ * a day are those whose ids are between the lower bounds of the day and of the next one.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PublicationQueryService extends QueryService<Publication> {
+
+    private final Logger log = LoggerFactory.getLogger(PublicationQueryService.class);
+
+    private final PublicationRepository publicationRepository;
+
+    private final PublicationService publicationService;
+
+    private final EntityManager entityManager;
+
+    public PublicationQueryService(PublicationRepository publicationRepository, PublicationService publicationService,
+                                   EntityManager entityManager) {
+        this.publicationRepository = publicationRepository;
+        this.publicationService = publicationService;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Return a page of the publications which match the criteria, with their republished publications.
+     *
+     * @param criteria the criteria which the requested publications should match
+     * @param before the exclusive upper bound of the publication ids, null for the first page
+     * @param size the page size
+     * @return the publication rows, newest first
+     */
+    public List<PublicationRowDTO> findByCriteria(PublicationCriteria criteria, Long before, int size) {
+        log.debug("find by criteria : {}, before : {}", criteria, before);
+        List<Long> ids = findIdsByCriteria(criteria, before != null ? before : Long.MAX_VALUE, size);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return publicationService.hydrateRepublishes(publicationRepository.findRowsByIdIn(ids));
+    }
+
+    private List<Long> findIdsByCriteria(PublicationCriteria criteria, long before, int size) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<Publication> root = query.from(Publication.class);
+        Predicate predicate = builder.lessThan(root.get(Publication_.id), before);
+        Predicate filters = createSpecification(criteria).toPredicate(root, query, builder);
+        if (filters != null) {
+            predicate = builder.and(predicate, filters);
+        }
+        // a publication joins one row per tag or mention in the filter
+        boolean joined = criteria.getTagsId() != null || criteria.getMentionsId() != null;
+        query.select(root.get(Publication_.id))
+            .distinct(joined)
+            .where(predicate)
+            .orderBy(builder.desc(root.get(Publication_.id)));
+        return entityManager.createQuery(query).setMaxResults(size).getResultList();
+    }
+
+    /**
+     * Function to convert PublicationCriteria to a {@link Specification}
+     */
+    private Specification<Publication> createSpecification(PublicationCriteria criteria) {
+        Specification<Publication> specification = Specification.where(null);
+        if (criteria.getPublisherId() != null) {
+            specification = specification.and(buildReferringEntitySpecification(criteria.getPublisherId(),
+                Publication_.publisher, Publisher_.id));
+        }
+        if (criteria.getTagsId() != null) {
+            specification = specification.and(buildReferringEntitySpecification(criteria.getTagsId(),
+                Publication_.tags, Tag_.id));
+        }
+        if (criteria.getMentionsId() != null) {
+            specification = specification.and(buildReferringEntitySpecification(criteria.getMentionsId(),
+                Publication_.mentions, Publisher_.id));
+        }
+        if (criteria.getVisible() != null) {
+            specification = specification.and(buildSpecification(criteria.getVisible(), Publication_.visible));
+        }
+        if (criteria.getCountry() != null) {
+            // equals and in only, a like could not use the index
+            specification = specification.and(buildSpecification(criteria.getCountry(), Publication_.country));
+        }
+        if (criteria.getDate() != null) {
+            specification = specification.and(buildCreationDaySpecification(criteria.getDate()));
+        }
+        return specification;
+    }
+
+    /**
+     * Convert a filter of days into ranges of the ids of the publications created on these days, in UTC.
+     */
+    private static Specification<Publication> buildCreationDaySpecification(LocalDateFilter filter) {
+        return (root, query, builder) -> {
+            Path<Long> id = root.get(Publication_.id);
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getEquals() != null) {
+                predicates.add(createdOn(builder, id, filter.getEquals()));
+            }
+            if (filter.getIn() != null) {
+                predicates.add(builder.or(filter.getIn().stream()
+                    .map(day -> createdOn(builder, id, day))
+                    .toArray(Predicate[]::new)));
+            }
+            if (filter.getGreaterThan() != null) {
+                predicates.add(builder.ge(id, lowerBoundOf(filter.getGreaterThan().plusDays(1))));
+            }
+            if (filter.getGreaterOrEqualThan() != null) {
+                predicates.add(builder.ge(id, lowerBoundOf(filter.getGreaterOrEqualThan())));
+            }
+            if (filter.getLessThan() != null) {
+                predicates.add(builder.lt(id, lowerBoundOf(filter.getLessThan())));
+            }
+            if (filter.getLessOrEqualThan() != null) {
+                predicates.add(builder.lt(id, lowerBoundOf(filter.getLessOrEqualThan().plusDays(1))));
+            }
+            if (Boolean.FALSE.equals(filter.getSpecified())) {
+                // every publication has a creation day
+                predicates.add(builder.disjunction());
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Predicate createdOn(CriteriaBuilder builder, Path<Long> id, LocalDate day) {
+        return builder.and(builder.ge(id, lowerBoundOf(day)), builder.lt(id, lowerBoundOf(day.plusDays(1))));
+    }
+
+    private static long lowerBoundOf(LocalDate day) {
+        return SnowflakeIdGenerator.lowerBoundOf(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+}
@@ -0,0 +1,509 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublicationRepository.PublicationDocument;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Service class searching the content of the publications in an embedded Lucene index.
+ * <p>
+ * A document holds the analyzed content of a publication, and its id, publisher, tags and date for the filters.
+ * The index is sorted by descending publication id, so that a search collects the newest matches of each segment
+ * and stops, whatever the number of matches; the rows of the results are then read by their primary key. The
+ * documents are updated once the publications are committed, the changes become searchable when the index is
+ * refreshed, and are committed to the directory periodically. The index can be rebuilt from the database, in
+ * batches of ids indexed by parallel threads; the bulk imports index the publications they write.
+ * <p>
+ * A rebuild replaces the documents in place, and only removes the documents it did not replace once it
+ * completes, so that the index keeps serving, and keeps its documents when the rebuild fails. An index which
+ * missed a change is marked stale until the next rebuild.
+ */
+@Service
+public class PublicationSearchService {
+
+    static final String ID = "id";
+
+    static final String CONTENT = "content";
+
+    static final String PUBLISHER_ID = "publisherId";
+
+    static final String TAG_ID = "tagId";
+
+    static final String DATE = "date";
+
+    static final String GENERATION = "generation";
+
+    private static final Sort NEWEST_FIRST = new Sort(new SortField(ID, SortField.Type.LONG, true));
+
+    private final Logger log = LoggerFactory.getLogger(PublicationSearchService.class);
+
+    private final PublicationRepository publicationRepository;
+
+    private final PublicationService publicationService;
+
+    private final TagService tagService;
+
+    private final Analyzer analyzer = new StandardAnalyzer(CharArraySet.EMPTY_SET);
+
+    private final Directory directory;
+
+    private final IndexWriter indexWriter;
+
+    private final SearcherManager searcherManager;
+
+    private final boolean rebuildOnStartup;
+
+    private final int rebuildBatchSize;
+
+    private final int rebuildThreads;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    /**
+     * The generation of the indexed documents, incremented by each rebuild; guarded by the write lock of
+     * {@link #generationLock}, and read under its read lock by the threads writing documents.
+     */
+    private long generation;
+
+    private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+
+    private final TaskExecutor taskExecutor;
+
+    private final Timer searchTimer;
+
+    private final Timer rebuildTimer;
+
+    public PublicationSearchService(PublicationRepository publicationRepository, PublicationService publicationService,
+                                    TagService tagService, ApplicationProperties applicationProperties,
+                                    MetricRegistry metricRegistry, TaskExecutor taskExecutor) {
+        ApplicationProperties.Search properties = applicationProperties.getSearch();
+        this.publicationRepository = publicationRepository;
+        this.publicationService = publicationService;
+        this.tagService = tagService;
+        this.rebuildOnStartup = properties.isRebuildOnStartup();
+        this.rebuildBatchSize = properties.getRebuildBatchSize();
+        this.rebuildThreads = properties.getRebuildThreads();
+        this.taskExecutor = taskExecutor;
+        // a rebuild after a restart removes the documents of any previous run
+        this.generation = System.currentTimeMillis();
+        try {
+            this.directory = properties.getDirectory() == null || properties.getDirectory().isEmpty()
+                ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(properties.getDirectory()));
+            this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setIndexSort(NEWEST_FIRST));
+            this.searcherManager = new SearcherManager(indexWriter, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the publication index", e);
+        }
+
+        this.searchTimer = metricRegistry.timer(name(PublicationSearchService.class, "search"));
+        this.rebuildTimer = metricRegistry.timer(name(PublicationSearchService.class, "rebuild"));
+        metricRegistry.register(name(PublicationSearchService.class, "documents"),
+            (Gauge<Integer>) () -> indexWriter.getDocStats().numDocs);
+        metricRegistry.register(name(PublicationSearchService.class, "stale"), (Gauge<Boolean>) stale::get);
+    }
+
+    /**
+     * Rebuild an empty index once the application is started, without delaying the startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildOnStartup && indexWriter.getDocStats().numDocs == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Index a committed publication. The index is marked stale if it cannot be written, the publication being
+     * committed anyway.
+     *
+     * @param event the creation of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        if (event.getPublicationId() != null) {
+            indexCommitted(event.getPublicationId());
+        }
+    }
+
+    /**
+     * Index a committed publication again, or remove it from the index. The index is marked stale if it
+     * cannot be written, the change being committed anyway.
+     *
+     * @param event the update or the deletion of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationChanged(PublicationChangedEvent event) {
+        if (!event.isDeleted()) {
+            indexCommitted(event.getPublicationId());
+            return;
+        }
+        try {
+            indexWriter.deleteDocuments(idTerm(event.getPublicationId()));
+        } catch (IOException e) {
+            markStale("remove publication " + event.getPublicationId(), e);
+        }
+    }
+
+    private void indexCommitted(Long id) {
+        try {
+            index(Collections.singletonList(id));
+        } catch (UncheckedIOException e) {
+            markStale("index publication " + id, e.getCause());
+        }
+    }
+
+    private void markStale(String change, IOException e) {
+        stale.set(true);
+        log.error("Could not {}, the search index is stale until it is rebuilt: {}", change, e.toString());
+    }
+
+    /**
+     * @return whether the index missed changes since the last rebuild
+     */
+    public boolean isStale() {
+        return stale.get();
+    }
+
+    /**
+     * Index publications as they are in the database, replacing their documents. The publications which no
+     * longer exist are removed from the index.
+     *
+     * @param ids the ids of the publications
+     * @return the number of publications indexed
+     */
+    public int index(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<Long, List<Long>> tagIds = new HashMap<>();
+        for (Object[] link : publicationRepository.findTagLinksByPublicationIdIn(ids)) {
+            tagIds.computeIfAbsent(((Number) link[0]).longValue(), id -> new ArrayList<>()).add(((Number) link[1]).longValue());
+        }
+        List<PublicationDocument> publications = publicationRepository.findDocumentsByIdIn(ids);
+        Set<Long> missingIds = new HashSet<>(ids);
+        // a rebuild cannot start a generation while documents of the previous one are written
+        generationLock.readLock().lock();
+        try {
+            for (PublicationDocument publication : publications) {
+                missingIds.remove(publication.getId());
+                indexWriter.updateDocument(idTerm(publication.getId()),
+                    toDocument(publication, tagIds.getOrDefault(publication.getId(), Collections.emptyList()), generation));
+            }
+            for (Long id : missingIds) {
+                indexWriter.deleteDocuments(idTerm(id));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index the publications", e);
+        } finally {
+            generationLock.readLock().unlock();
+        }
+        return ids.size() - missingIds.size();
+    }
+
+    /**
+     * Start rebuilding the index on the task executor, unless a rebuild is already running.
+     *
+     * @return whether the rebuild was started
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuildStarted();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebuild the publication index", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a rebuild is running
+     */
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Replace the whole index by the publications of the database. The ids are read in batches by this thread
+     * and indexed by a pool of threads; the publications changed during the rebuild are indexed by their events.
+     * The documents of the publications that no longer exist are removed once the rebuild completes; on
+     * failure, the index keeps them. Only one rebuild runs at a time.
+     *
+     * @return the number of publications indexed, or empty if a rebuild is already running
+     */
+    public OptionalLong rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(rebuildStarted());
+    }
+
+    private long rebuildStarted() {
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        long indexed = 0;
+        boolean rebuilt = false;
+        try (Timer.Context ignored = rebuildTimer.time()) {
+            long rebuiltGeneration = nextGeneration();
+            // the batches waiting for a thread are bounded, so that the ids of the whole table are never held
+            Deque<Future<Integer>> batches = new ArrayDeque<>();
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> ids = publicationRepository.findIdsAfter(after, rebuildBatchSize)
+                    .stream().map(Number::longValue).collect(Collectors.toList());
+                if (ids.isEmpty()) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+                if (batches.size() == 2 * rebuildThreads) {
+                    indexed += batches.removeFirst().get();
+                }
+                batches.addLast(executor.submit(() -> index(ids)));
+            }
+            while (!batches.isEmpty()) {
+                indexed += batches.removeFirst().get();
+            }
+            // the documents not written since the rebuild started are of publications deleted before
+            indexWriter.deleteDocuments(LongPoint.newRangeQuery(GENERATION, Long.MIN_VALUE, rebuiltGeneration - 1));
+            indexWriter.commit();
+            searcherManager.maybeRefreshBlocking();
+            rebuilt = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rebuild the publication index", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not rebuild the publication index", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding the publication index", e);
+        } finally {
+            executor.shutdownNow();
+            if (!rebuilt) {
+                // the documents of the publications deleted before the rebuild may be left
+                stale.set(true);
+            }
+            rebuilding.set(false);
+        }
+        log.info("Rebuilt the publication index with {} publications", indexed);
+        return indexed;
+    }
+
+    /**
+     * Start a generation of documents, which are not stale anymore.
+     *
+     * @return the generation
+     */
+    private long nextGeneration() {
+        generationLock.writeLock().lock();
+        try {
+            stale.set(false);
+            return ++generation;
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Make the indexed changes searchable.
+     * <p>
+     * This is scheduled to get fired at a fixed delay, every second by default.
+     */
+    @Scheduled(initialDelayString = "${application.search.refresh-delay:1000}",
+        fixedDelayString = "${application.search.refresh-delay:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not refresh the publication index", e);
+        }
+    }
+
+    /**
+     * Commit the indexed changes to the directory, so that a restart does not lose them.
+     * <p>
+     * This is scheduled to get fired at a fixed delay, every minute by default.
+     */
+    @Scheduled(initialDelayString = "${application.search.commit-delay:60000}",
+        fixedDelayString = "${application.search.commit-delay:60000}")
+    public void commit() {
+        if (!indexWriter.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            indexWriter.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not commit the publication index", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    /**
+     * Search the publications whose content matches a query, newest first.
+     * <p>
+     * The query is made of words, all required by default; it supports "quoted phrases", prefix* words,
+     * alternatives with "|" and exclusions with "-".
+     *
+     * @param query the query, blank to match any content
+     * @param tag the name of a tag of the publications, whatever its case, null for any tag
+     * @param publisherId the id of the publisher of the publications, null for any publisher
+     * @param from the first date of the publications, null for no lower bound
+     * @param to the last date of the publications, null for no upper bound
+     * @param before the exclusive upper bound of the publication ids, null for the first page
+     * @param size the page size
+     * @return the rows of the matching publications, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<PublicationRowDTO> search(String query, String tag, Long publisherId, LocalDate from, LocalDate to,
+                                          Long before, int size) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (query != null && !query.trim().isEmpty()) {
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer, CONTENT);
+            parser.setDefaultOperator(BooleanClause.Occur.MUST);
+            Query contentQuery = parser.parse(query);
+            if (contentQuery == null) {
+                // the query has no word
+                return Collections.emptyList();
+            }
+            builder.add(contentQuery, BooleanClause.Occur.MUST);
+        } else {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        if (tag != null) {
+            Optional<Long> tagId = tagService.findTagId(tag);
+            if (!tagId.isPresent()) {
+                return Collections.emptyList();
+            }
+            builder.add(LongPoint.newExactQuery(TAG_ID, tagId.get()), BooleanClause.Occur.FILTER);
+        }
+        if (publisherId != null) {
+            builder.add(LongPoint.newExactQuery(PUBLISHER_ID, publisherId), BooleanClause.Occur.FILTER);
+        }
+        if (from != null || to != null) {
+            builder.add(LongPoint.newRangeQuery(DATE, from != null ? from.toEpochDay() : Long.MIN_VALUE,
+                to != null ? to.toEpochDay() : Long.MAX_VALUE), BooleanClause.Occur.FILTER);
+        }
+        if (before != null) {
+            if (before == Long.MIN_VALUE) {
+                return Collections.emptyList();
+            }
+            builder.add(LongPoint.newRangeQuery(ID, Long.MIN_VALUE, before - 1), BooleanClause.Occur.FILTER);
+        }
+
+        List<Long> ids = new ArrayList<>(size);
+        try (Timer.Context ignored = searchTimer.time()) {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // the total number of matches is not counted, so that each segment stops at its newest matches
+                TopFieldCollector collector = TopFieldCollector.create(NEWEST_FIRST, size, null, true, false, false, false);
+                searcher.search(builder.build(), collector);
+                for (ScoreDoc match : collector.topDocs().scoreDocs) {
+                    ids.add((Long) ((FieldDoc) match).fields[0]);
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not search the publication index", e);
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // a publication deleted since its match was found is skipped
+        return publicationService.hydrateRepublishes(publicationRepository.findRowsByIdIn(ids));
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, Long.toString(id));
+    }
+
+    private static Document toDocument(PublicationDocument publication, List<Long> tagIds, long generation) {
+        Document document = new Document();
+        long id = publication.getId();
+        // the id is a term for the updates, a point for the cursors and a doc value for the index sort
+        document.add(new StringField(ID, Long.toString(id), Field.Store.NO));
+        document.add(new LongPoint(ID, id));
+        document.add(new NumericDocValuesField(ID, id));
+        if (publication.getContent() != null) {
+            document.add(new TextField(CONTENT, publication.getContent(), Field.Store.NO));
+        }
+        if (publication.getPublisherId() != null) {
+            document.add(new LongPoint(PUBLISHER_ID, publication.getPublisherId()));
+        }
+        for (Long tagId : tagIds) {
+            document.add(new LongPoint(TAG_ID, tagId));
+        }
+        if (publication.getDate() != null) {
+            document.add(new LongPoint(DATE, publication.getDate().toEpochDay()));
+        }
+        document.add(new LongPoint(GENERATION, generation));
+        return document;
+    }
+}
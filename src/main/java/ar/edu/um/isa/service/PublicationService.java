@@ -0,0 +1,496 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.util.ContentTokenizer;
+import ar.edu.um.isa.domain.util.ContentTokenizer.ContentTokens;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCountersChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for managing publications.
+ * <p>
+ * Favourites and likes are recorded with single statements on their join tables, without loading the
+ * publication or the publisher; their counters are changed by {@link PublicationCounters} after the commit.
+ * <p>
+ * A republish links to the root publication, never to another republish, so that the republishes of a
+ * publication are counted on it and a feed embeds at most one level of republished publication. The rows of the
+ * republished publications are cached, shared by all the feeds showing their republishes.
+ */
+@Service
+@Transactional
+public class PublicationService {
+
+    /**
+     * Viewer state bit set when the viewer liked the publication.
+     */
+    public static final int LIKED = 1;
+
+    /**
+     * Viewer state bit set when the viewer faved the publication.
+     */
+    public static final int FAVED = 2;
+
+    /**
+     * Viewer state bit set when the viewer republished the publication.
+     */
+    public static final int REPUBLISHED = 4;
+
+    public static final String REPUBLISH_ROOTS_CACHE = "republishRoots";
+
+    private static final String ENTITY_NAME = "publication";
+
+    private final Logger log = LoggerFactory.getLogger(PublicationService.class);
+
+    private final PublicationRepository publicationRepository;
+
+    private final PublisherRepository publisherRepository;
+
+    private final TagService tagService;
+
+    private final RegionService regionService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CacheManager cacheManager;
+
+    public PublicationService(PublicationRepository publicationRepository, PublisherRepository publisherRepository,
+                              TagService tagService, RegionService regionService, ApplicationEventPublisher eventPublisher,
+                              CacheManager cacheManager) {
+        this.publicationRepository = publicationRepository;
+        this.publisherRepository = publisherRepository;
+        this.tagService = tagService;
+        this.regionService = regionService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Save a new publication, linking the publishers it mentions and the tags it contains, and increment the
+     * publication counter of its publisher. A republish is linked to the root of the republished publication.
+     * <p>
+     * A {@link PublicationCreatedEvent} is published, for the listeners to run after the commit.
+     *
+     * @param publication the publication to create
+     * @return the persisted publication
+     */
+    public Publication createPublication(Publication publication) {
+        ContentTokens tokens = ContentTokenizer.tokenize(publication.getContent());
+        resolveMentions(tokens.getMentions()).forEach(publication::addMention);
+
+        // the tags are referenced without initializing their publications
+        publication.getTags().addAll(tagService.resolveTags(tokens.getTags(), publication.getDate()));
+        publication.setRegionId(regionService.resolveRegionId(publication.getCountry(), publication.getCity()));
+        if (publication.getRepublish() != null && publication.getRepublish().getId() != null) {
+            publicationRepository.findById(publication.getRepublish().getId())
+                .map(PublicationService::rootOf)
+                .ifPresent(publication::setRepublish);
+        }
+
+        Publication result = publicationRepository.save(publication);
+        Long publisherId = result.getPublisher() != null ? result.getPublisher().getId() : null;
+        if (publisherId != null) {
+            publisherRepository.updatePublicationCounter(publisherId, 1);
+        }
+        if (result.getRepublish() != null) {
+            countRepublish(result.getRepublish(), 1);
+        }
+        // the ids of the tag references are read without initializing them
+        long[] tagIds = result.getTags().stream().mapToLong(Tag::getId).toArray();
+        tagService.countPublications(Arrays.stream(tagIds).boxed().collect(Collectors.toList()), 1);
+        eventPublisher.publishEvent(new PublicationCreatedEvent(result.getId(), publisherId, result.getDate(), tagIds,
+            tokens.getTags(), tokens.getMentions()));
+        return result;
+    }
+
+    /**
+     * Update a publication, with the region of its country and city, and evict its cached row.
+     * <p>
+     * A change of the republished publication is checked and linked to the root like {@link #republish}, and
+     * moves the republish from the counter of the previous root to the counter of the new one. The tags added
+     * and removed are counted on their publication counters.
+     * <p>
+     * A {@link PublicationChangedEvent} is published, for the listeners to run after the commit.
+     *
+     * @param publication the publication to update
+     * @return the persisted publication
+     * @throws BadRequestAlertException if the publication would republish itself, an unknown publication, or
+     * if it is republished
+     */
+    public Publication update(Publication publication) {
+        publication.setRegionId(regionService.resolveRegionId(publication.getCountry(), publication.getCity()));
+        Optional<Publication> existing = publicationRepository.findById(publication.getId());
+        Publication previous = existing.map(Publication::getRepublish).orElse(null);
+        Set<Long> previousTagIds = existing.map(PublicationService::tagIdsOf).orElse(Collections.emptySet());
+        Publication republish = publication.getRepublish() != null && publication.getRepublish().getId() != null
+            ? republishedRoot(publication.getId(), publication.getRepublish().getId(), previous) : null;
+        publication.setRepublish(republish);
+
+        Publication result = publicationRepository.save(publication);
+        if (!Objects.equals(previous, republish)) {
+            if (previous != null) {
+                countRepublish(previous, -1);
+            }
+            if (republish != null) {
+                countRepublish(republish, 1);
+            }
+        }
+        Set<Long> tagIds = tagIdsOf(result);
+        Set<Long> addedTagIds = difference(tagIds, previousTagIds);
+        Set<Long> removedTagIds = difference(previousTagIds, tagIds);
+        tagService.countPublications(addedTagIds, 1);
+        tagService.countPublications(removedTagIds, -1);
+        republishRootsCache().evict(result.getId());
+        Long publisherId = result.getPublisher() != null ? result.getPublisher().getId() : null;
+        eventPublisher.publishEvent(new PublicationChangedEvent(result.getId(), publisherId, false,
+            toArray(addedTagIds), toArray(removedTagIds)));
+        return result;
+    }
+
+    /**
+     * Delete a publication, and decrement the publication counters of its publisher and of its tags, and the
+     * republish counter of the publication it republishes.
+     * <p>
+     * A {@link PublicationChangedEvent} is published, for the listeners to run after the commit.
+     *
+     * @param id the id of the publication to delete
+     */
+    public void delete(Long id) {
+        publicationRepository.findById(id).ifPresent(publication -> {
+            // the tags are counted from their links, which the delete removes
+            tagService.countPublications(id, -1);
+            long[] tagIds = toArray(tagIdsOf(publication));
+            publicationRepository.delete(publication);
+            Long publisherId = publication.getPublisher() != null ? publication.getPublisher().getId() : null;
+            if (publisherId != null) {
+                publisherRepository.updatePublicationCounter(publisherId, -1);
+            }
+            if (publication.getRepublish() != null) {
+                countRepublish(publication.getRepublish(), -1);
+            }
+            republishRootsCache().evict(id);
+            eventPublisher.publishEvent(new PublicationChangedEvent(id, publisherId, true, new long[0], tagIds));
+        });
+    }
+
+    /**
+     * Make a publication republish another one. When the other one is itself a republish, the publication
+     * republishes its root instead.
+     *
+     * @param publicationId the id of the republishing publication
+     * @param republishedId the id of the republished publication
+     * @return the republishing publication, or empty if either does not exist
+     * @throws BadRequestAlertException if the publication would republish itself, or if it is republished
+     */
+    public Optional<Publication> republish(Long publicationId, Long republishedId) {
+        Optional<Publication> publication = publicationRepository.findById(publicationId);
+        if (!publication.isPresent() || !publicationRepository.existsById(republishedId)) {
+            return Optional.empty();
+        }
+        Publication previous = publication.get().getRepublish();
+        Publication root = republishedRoot(publicationId, republishedId, previous);
+        if (root.equals(previous)) {
+            return publication;
+        }
+        if (previous != null) {
+            countRepublish(previous, -1);
+        }
+        publication.get().setRepublish(root);
+        countRepublish(root, 1);
+        log.debug("Publication {} republishes publication {}", publicationId, root.getId());
+        return publication;
+    }
+
+    /**
+     * Find the root publication that a publication republishes, when it is made to republish another one.
+     *
+     * @param publicationId the id of the republishing publication
+     * @param republishedId the id of the republished publication
+     * @param previous the publication currently republished, or null
+     * @return the root of the republished publication
+     * @throws BadRequestAlertException if the publication would republish itself or an unknown publication, or
+     * if it is republished
+     */
+    private Publication republishedRoot(Long publicationId, Long republishedId, Publication previous) {
+        if (previous != null && previous.getId().equals(republishedId)) {
+            return previous;
+        }
+        Publication root = publicationRepository.findById(republishedId)
+            .map(PublicationService::rootOf)
+            .orElseThrow(() -> new BadRequestAlertException("The republished publication does not exist", ENTITY_NAME, "idnotfound"));
+        if (root.getId().equals(publicationId)) {
+            throw new BadRequestAlertException("A publication cannot republish itself", ENTITY_NAME, "idincompatible");
+        }
+        if (!root.equals(previous) && publicationRepository.existsByRepublishId(publicationId)) {
+            throw new BadRequestAlertException("A republished publication cannot republish another one", ENTITY_NAME, "republished");
+        }
+        return root;
+    }
+
+    /**
+     * Get a page of the publications of a tag, with their republished publications. The page is read from the
+     * tag links by descending publication id, so its cost does not depend on the number of publications of the
+     * tag.
+     *
+     * @param tagId the id of the tag
+     * @param before the exclusive upper bound of the publication ids, null for the first page
+     * @param size the page size
+     * @return the publication rows, newest first, or empty if the tag does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<PublicationRowDTO>> findTagPublications(Long tagId, Long before, int size) {
+        List<Long> ids = publicationRepository.findIdsByTagId(tagId, before != null ? before : Long.MAX_VALUE, size)
+            .stream().map(Number::longValue).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            // the tag is looked up only when it has no publication to show
+            return tagService.exists(tagId) ? Optional.of(Collections.emptyList()) : Optional.empty();
+        }
+        return Optional.of(hydrateRepublishes(publicationRepository.findRowsByIdIn(ids)));
+    }
+
+    /**
+     * Set the row of the republished publication of each republish of a page, from the cache. The rows missing
+     * from the cache are read with a single query, so the cost of a page does not depend on how often its
+     * publications were republished.
+     *
+     * @param rows the rows of the page
+     * @return the rows
+     */
+    @Transactional(readOnly = true)
+    public List<PublicationRowDTO> hydrateRepublishes(List<PublicationRowDTO> rows) {
+        Cache cache = republishRootsCache();
+        Map<Long, PublicationRowDTO> roots = new HashMap<>();
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (PublicationRowDTO row : rows) {
+            Long rootId = row.getRepublishId();
+            if (rootId != null && !roots.containsKey(rootId) && !missingIds.contains(rootId)) {
+                PublicationRowDTO root = cache.get(rootId, PublicationRowDTO.class);
+                if (root != null) {
+                    roots.put(rootId, root);
+                } else {
+                    missingIds.add(rootId);
+                }
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (PublicationRowDTO root : publicationRepository.findRowsByIdIn(missingIds)) {
+                cache.put(root.getId(), root);
+                roots.put(root.getId(), root);
+            }
+        }
+        for (PublicationRowDTO row : rows) {
+            if (row.getRepublishId() != null) {
+                row.setRepublish(roots.get(row.getRepublishId()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the publication republished by a republish, which is never a republish itself, or else the
+     * publication
+     */
+    private static Publication rootOf(Publication publication) {
+        return publication.getRepublish() != null ? publication.getRepublish() : publication;
+    }
+
+    private static Set<Long> tagIdsOf(Publication publication) {
+        Set<Long> tagIds = new HashSet<>();
+        for (Tag tag : publication.getTags()) {
+            if (tag.getId() != null) {
+                tagIds.add(tag.getId());
+            }
+        }
+        return tagIds;
+    }
+
+    private static Set<Long> difference(Set<Long> ids, Set<Long> removedIds) {
+        Set<Long> difference = new HashSet<>(ids);
+        difference.removeAll(removedIds);
+        return difference;
+    }
+
+    private static long[] toArray(Set<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void countRepublish(Publication root, int delta) {
+        eventPublisher.publishEvent(new PublicationCountersChangedEvent(root.getId(), 0, 0, delta));
+    }
+
+    /**
+     * Make a publisher fave a publication, unless it already did.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the publication, or empty if either does not exist
+     */
+    public Optional<Publication> fave(Long publicationId, Long publisherId) {
+        int inserted = insertReaction(() -> publicationRepository.insertFave(publicationId, publisherId), "fave", publicationId, publisherId);
+        return reacted(publicationId, publisherId, inserted, inserted, 0);
+    }
+
+    /**
+     * Make a publisher stop faving a publication.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the publication, or empty if either does not exist
+     */
+    public Optional<Publication> unfave(Long publicationId, Long publisherId) {
+        int deleted = publicationRepository.deleteFave(publicationId, publisherId);
+        return reacted(publicationId, publisherId, deleted, -deleted, 0);
+    }
+
+    /**
+     * Make a publisher like a publication, unless it already did.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the publication, or empty if either does not exist
+     */
+    public Optional<Publication> like(Long publicationId, Long publisherId) {
+        int inserted = insertReaction(() -> publicationRepository.insertLike(publicationId, publisherId), "like", publicationId, publisherId);
+        return reacted(publicationId, publisherId, inserted, 0, inserted);
+    }
+
+    /**
+     * Make a publisher stop liking a publication.
+     *
+     * @param publicationId the id of the publication
+     * @param publisherId the id of the publisher
+     * @return the publication, or empty if either does not exist
+     */
+    public Optional<Publication> unlike(Long publicationId, Long publisherId) {
+        int deleted = publicationRepository.deleteLike(publicationId, publisherId);
+        return reacted(publicationId, publisherId, deleted, 0, -deleted);
+    }
+
+    /**
+     * Read the state of many publications for a viewer, with one query per relation: whether it liked, faved
+     * or republished each of them. The sets of the publications are never loaded.
+     *
+     * @param viewerId the id of the viewing publisher
+     * @param publicationIds the ids of the publications
+     * @return the state of each publication, a combination of {@link #LIKED}, {@link #FAVED} and
+     * {@link #REPUBLISHED} that is 0 when none applies, by publication id in the given order
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> findViewerStates(Long viewerId, Collection<Long> publicationIds) {
+        Map<Long, Integer> states = new LinkedHashMap<>();
+        for (Long publicationId : publicationIds) {
+            states.put(publicationId, 0);
+        }
+        if (!states.isEmpty()) {
+            addViewerState(states, publicationRepository.findLikedIdsIn(viewerId, states.keySet()), LIKED);
+            addViewerState(states, publicationRepository.findFavedIdsIn(viewerId, states.keySet()), FAVED);
+            addViewerState(states, publicationRepository.findRepublishedIdsIn(viewerId, states.keySet()), REPUBLISHED);
+        }
+        return states;
+    }
+
+    /**
+     * Set the viewer state of each row of a page, like {@link #findViewerStates(Long, Collection)}.
+     *
+     * @param viewerId the id of the viewing publisher
+     * @param rows the rows of the page
+     * @return the rows
+     */
+    @Transactional(readOnly = true)
+    public List<PublicationRowDTO> hydrateViewerStates(Long viewerId, List<PublicationRowDTO> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (PublicationRowDTO row : rows) {
+            ids.add(row.getId());
+        }
+        Map<Long, Integer> states = findViewerStates(viewerId, ids);
+        for (PublicationRowDTO row : rows) {
+            row.setViewerState(states.get(row.getId()));
+        }
+        return rows;
+    }
+
+    private static void addViewerState(Map<Long, Integer> states, List<Number> publicationIds, int bit) {
+        for (Number publicationId : publicationIds) {
+            states.merge(publicationId.longValue(), bit, (state, added) -> state | added);
+        }
+    }
+
+    /**
+     * Run the insert of a favourite or a like. The insert skips the existing row, so only a concurrent request
+     * for the same row can make the primary key reject it; that request won, and this one is reported as a
+     * concurrency failure.
+     */
+    private int insertReaction(IntSupplier insert, String reaction, Long publicationId, Long publisherId) {
+        try {
+            return insert.getAsInt();
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcurrencyFailureException("Concurrent " + reaction + " of " + publicationId + " by " + publisherId, e);
+        }
+    }
+
+    private Optional<Publication> reacted(Long publicationId, Long publisherId, int changed, int faveDelta, int likeDelta) {
+        if (changed > 0) {
+            log.debug("Publisher {} changed its reactions to publication {}", publisherId, publicationId);
+            eventPublisher.publishEvent(new PublicationCountersChangedEvent(publicationId, faveDelta, likeDelta, 0));
+        } else if (!publisherRepository.existsById(publisherId)) {
+            return Optional.empty();
+        }
+        return publicationRepository.findById(publicationId);
+    }
+
+    /**
+     * Resolve mentioned logins to their publishers with a single query.
+     *
+     * @param logins the mentioned logins, duplicates allowed
+     * @return the publishers of the existing logins
+     */
+    @Transactional(readOnly = true)
+    public List<Publisher> resolveMentions(Collection<String> logins) {
+        Set<String> distinctLogins = new LinkedHashSet<>();
+        for (String login : logins) {
+            distinctLogins.add(login.toLowerCase());
+        }
+        if (distinctLogins.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Publisher> publishers = publisherRepository.findAllByUserLoginIn(distinctLogins);
+        log.debug("Resolved {} mentions to {} publishers", distinctLogins.size(), publishers.size());
+        return publishers;
+    }
+
+    private Cache republishRootsCache() {
+        return Objects.requireNonNull(cacheManager.getCache(REPUBLISH_ROOTS_CACHE));
+    }
+}
@@ -0,0 +1,275 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for managing publishers.
+ * <p>
+ * The associations of a publisher are lazy: each use case reads the summaries it needs. The follows are
+ * changed with single statements on the join table, without loading either publisher, and published as
+ * {@link FollowsChangedEvent}s for the {@link FollowGraphIndex}.
+ */
+@Service
+@Transactional
+public class PublisherService {
+
+    /**
+     * Relationship bit set when the viewer follows the publisher.
+     */
+    public static final int FOLLOWING = 1;
+
+    /**
+     * Relationship bit set when the publisher follows the viewer.
+     */
+    public static final int FOLLOWED_BY = 2;
+
+    /**
+     * Relationship of publishers following each other.
+     */
+    public static final int MUTUAL = FOLLOWING | FOLLOWED_BY;
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(PublisherService.class);
+
+    private final PublisherRepository publisherRepository;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PublisherService(PublisherRepository publisherRepository, NamedParameterJdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.publisherRepository = publisherRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Update the user of a publisher, when one is given. The follows and the counters are left as they are:
+     * the follows only change through {@link #follow}, {@link #followAll} and {@link #unfollow}, which also
+     * update the counters and publish the {@link FollowsChangedEvent}s.
+     *
+     * @param publisher the publisher to update, with its id
+     * @return the summary of the updated publisher, or empty if it does not exist
+     */
+    public Optional<PublisherSummaryDTO> update(Publisher publisher) {
+        Optional<Publisher> existing = publisherRepository.findById(publisher.getId());
+        if (!existing.isPresent()) {
+            return Optional.empty();
+        }
+        if (publisher.getUser() != null) {
+            existing.get().setUser(publisher.getUser());
+            publisherRepository.flush();
+        }
+        return publisherRepository.findSummaryById(publisher.getId());
+    }
+
+    /**
+     * @return the summaries of all the publishers
+     */
+    @Transactional(readOnly = true)
+    public List<PublisherSummaryDTO> findAllSummaries() {
+        return publisherRepository.findAllSummaries();
+    }
+
+    /**
+     * @param id the id of the publisher
+     * @return the summary of the publisher, if it exists
+     */
+    @Transactional(readOnly = true)
+    public Optional<PublisherSummaryDTO> findSummary(Long id) {
+        return publisherRepository.findSummaryById(id);
+    }
+
+    /**
+     * @param id the id of the publisher
+     * @param before the exclusive upper bound of the follower ids, null for the first page
+     * @param size the page size
+     * @return a page of the summaries of its followers, by descending id, or empty if the publisher does not
+     * exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<PublisherSummaryDTO>> findFollowerSummaries(Long id, Long before, int size) {
+        List<PublisherSummaryDTO> page = publisherRepository.findFollowerSummaries(id,
+            before != null ? before : Long.MAX_VALUE, PageRequest.of(0, size));
+        return page.isEmpty() && !publisherRepository.existsById(id) ? Optional.empty() : Optional.of(page);
+    }
+
+    /**
+     * @param id the id of the publisher
+     * @param before the exclusive upper bound of the followed publisher ids, null for the first page
+     * @param size the page size
+     * @return a page of the summaries of the publishers it follows, by descending id, or empty if the
+     * publisher does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<PublisherSummaryDTO>> findFollowSummaries(Long id, Long before, int size) {
+        List<PublisherSummaryDTO> page = publisherRepository.findFollowSummaries(id,
+            before != null ? before : Long.MAX_VALUE, PageRequest.of(0, size));
+        return page.isEmpty() && !publisherRepository.existsById(id) ? Optional.empty() : Optional.of(page);
+    }
+
+    /**
+     * Read the relationships of a viewer with many publishers, from the follows between them in either
+     * direction, with a single query.
+     *
+     * @param id the id of the viewer
+     * @param publisherIds the ids of the publishers
+     * @return the relationship with each publisher, a combination of {@link #FOLLOWING} and {@link #FOLLOWED_BY}
+     * that is 0 without follows, by publisher id in the given order, or empty if the viewer does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<Long, Integer>> findRelationships(Long id, Collection<Long> publisherIds) {
+        Map<Long, Integer> relationships = new LinkedHashMap<>();
+        for (Long publisherId : publisherIds) {
+            relationships.put(publisherId, 0);
+        }
+        List<Object[]> follows = relationships.isEmpty()
+            ? Collections.emptyList() : publisherRepository.findFollowsBetween(id, relationships.keySet());
+        for (Object[] follow : follows) {
+            long followerId = ((Number) follow[0]).longValue();
+            long followedId = ((Number) follow[1]).longValue();
+            // a publisher does not follow itself, so the viewer is on one side only
+            if (followerId == id) {
+                relationships.merge(followedId, FOLLOWING, (relationship, bit) -> relationship | bit);
+            } else {
+                relationships.merge(followerId, FOLLOWED_BY, (relationship, bit) -> relationship | bit);
+            }
+        }
+        return follows.isEmpty() && !publisherRepository.existsById(id) ? Optional.empty() : Optional.of(relationships);
+    }
+
+    /**
+     * Make a publisher follow another one, with a single insert that does nothing when the follow exists,
+     * and a single update of the counters of both publishers.
+     *
+     * @param followerId the id of the following publisher
+     * @param followedId the id of the followed publisher
+     * @return the summary of the follower, or empty if either publisher does not exist
+     */
+    public Optional<PublisherSummaryDTO> follow(Long followerId, Long followedId) {
+        if (insertFollows(followerId, Collections.singleton(followedId)) > 0) {
+            log.debug("Publisher {} follows {}", followerId, followedId);
+        } else if (!publisherRepository.existsById(followedId)) {
+            return Optional.empty();
+        }
+        return publisherRepository.findSummaryById(followerId);
+    }
+
+    /**
+     * Make a publisher follow many others, with a single multi-row insert. The publishers already
+     * followed, the unknown ones and the follower itself are skipped.
+     *
+     * @param followerId the id of the following publisher
+     * @param followedIds the ids of the publishers to follow
+     * @return the summary of the follower, or empty if the follower does not exist
+     */
+    public Optional<PublisherSummaryDTO> followAll(Long followerId, Collection<Long> followedIds) {
+        Set<Long> newIds = new HashSet<>(followedIds);
+        newIds.remove(followerId);
+        if (!newIds.isEmpty()) {
+            // the follower counters are only incremented on the publishers not followed yet
+            for (Number followedId : publisherRepository.findFollowIdsIn(followerId, newIds)) {
+                newIds.remove(followedId.longValue());
+            }
+        }
+        if (!newIds.isEmpty()) {
+            int inserted = insertFollows(followerId, newIds);
+            log.debug("Publisher {} follows {} more publishers", followerId, inserted);
+        }
+        return publisherRepository.findSummaryById(followerId);
+    }
+
+    /**
+     * Make a publisher stop following another one, with a single delete and a single update of the
+     * counters of both publishers.
+     *
+     * @param followerId the id of the following publisher
+     * @param followedId the id of the followed publisher
+     * @return the summary of the follower, or empty if the follower does not exist
+     */
+    public Optional<PublisherSummaryDTO> unfollow(Long followerId, Long followedId) {
+        if (publisherRepository.deleteFollow(followerId, followedId) > 0) {
+            publisherRepository.updateFollowCounters(followerId, Collections.singleton(followedId), -1, -1);
+            eventPublisher.publishEvent(new FollowsChangedEvent(followerId, new long[]{followedId}, false));
+            log.debug("Publisher {} unfollows {}", followerId, followedId);
+        }
+        return publisherRepository.findSummaryById(followerId);
+    }
+
+    /**
+     * Insert the follows of publishers not followed yet, and update the counters by the follows actually
+     * inserted.
+     * <p>
+     * The insert skips the existing follows, so only a concurrent request for the same follows can make the
+     * primary key reject it: that request won, and the insert is run again, now skipping its follows. A
+     * concurrent request can also have followed some of the publishers before the insert, which skips them.
+     * The follows inserted are then read again: on the consistent snapshot of MySQL, where the given
+     * publishers were not followed, only the follows of this transaction are new.
+     *
+     * @param followerId the id of the following publisher
+     * @param followedIds the ids of the publishers to follow, not followed yet
+     * @return the number of follows inserted
+     */
+    private int insertFollows(Long followerId, Collection<Long> followedIds) {
+        // the statement does not flush the persistence context, unlike the query methods
+        publisherRepository.flush();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("followerId", followerId)
+            .addValue("followedIds", followedIds);
+        int inserted;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                inserted = jdbcTemplate.update(PublisherRepository.INSERT_FOLLOWS_STATEMENT, parameters);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_INSERT_ATTEMPTS) {
+                    throw new ConcurrencyFailureException("Concurrent follow of " + followedIds + " by " + followerId, e);
+                }
+                log.debug("Concurrent follow of {} by {}, attempt {}", followedIds, followerId, attempt);
+            }
+        }
+        if (inserted == 0) {
+            return 0;
+        }
+        // unless some of the given publishers do not exist or were followed concurrently, they all are now
+        long[] insertedIds = inserted == followedIds.size()
+            ? followedIds.stream().mapToLong(Long::longValue).toArray()
+            : publisherRepository.findFollowIdsIn(followerId, followedIds).stream().mapToLong(Number::longValue).toArray();
+        if (insertedIds.length != inserted) {
+            // the concurrent follows are visible under the read committed isolation level
+            throw new ConcurrencyFailureException("Concurrent follow of " + followedIds + " by " + followerId);
+        }
+        List<Long> counted = Arrays.stream(insertedIds).boxed().collect(Collectors.toList());
+        if (publisherRepository.updateFollowCounters(followerId, counted, inserted, 1) != inserted + 1) {
+            throw new ConcurrencyFailureException("Concurrent delete of a publisher followed by " + followerId);
+        }
+        eventPublisher.publishEvent(new FollowsChangedEvent(followerId, insertedIds, true));
+        return inserted;
+    }
+}
@@ -0,0 +1,314 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.service.util.LongMergeUtil;
+import ar.edu.um.isa.service.util.LongRingBuffer;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * In-memory buffers of the recent publication ids of the active publishers, to assemble timelines without
+ * reading the publications table.
+ * <p>
+ * Each buffer is a ring of primitive longs, loaded from the database on first use and then kept up to date
+ * by the created and deleted publications. The buffers are evicted in least recently used order when their estimated
+ * size exceeds the memory budget. A page is merged from the buffers of the followed publishers; when a
+ * buffer does not reach back far enough, the caller falls back to the database.
+ */
+@Service
+public class RecentPublicationBuffers {
+
+    /**
+     * Estimated size of a buffer besides its ids: map entry, buffer objects and array header.
+     */
+    static final int BUFFER_OVERHEAD_BYTES = 128;
+
+    private final Logger log = LoggerFactory.getLogger(RecentPublicationBuffers.class);
+
+    private final PublicationRepository publicationRepository;
+
+    private final int capacity;
+
+    private final int loadsPerRequest;
+
+    private final long bytesPerBuffer;
+
+    /**
+     * The buffers by publisher id, in access order; guarded by itself.
+     */
+    private final LinkedHashMap<Long, AuthorBuffer> buffers;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Timer mergeTimer;
+
+    public RecentPublicationBuffers(PublicationRepository publicationRepository, ApplicationProperties applicationProperties,
+                                    MetricRegistry metricRegistry) {
+        ApplicationProperties.Timeline properties = applicationProperties.getTimeline();
+        this.publicationRepository = publicationRepository;
+        this.capacity = properties.getBufferCapacity();
+        this.loadsPerRequest = properties.getBufferLoadsPerRequest();
+        this.bytesPerBuffer = (long) capacity * Long.BYTES + BUFFER_OVERHEAD_BYTES;
+        long maxBuffers = Math.max(1, properties.getBufferMemory() / bytesPerBuffer);
+        this.buffers = new LinkedHashMap<Long, AuthorBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AuthorBuffer> eldest) {
+                return size() > maxBuffers;
+            }
+        };
+
+        this.hits = metricRegistry.counter(name(RecentPublicationBuffers.class, "hits"));
+        this.misses = metricRegistry.counter(name(RecentPublicationBuffers.class, "misses"));
+        this.mergeTimer = metricRegistry.timer(name(RecentPublicationBuffers.class, "merge"));
+        metricRegistry.register(name(RecentPublicationBuffers.class, "hit-ratio"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+            }
+        });
+        metricRegistry.register(name(RecentPublicationBuffers.class, "buffers"), (Gauge<Integer>) this::size);
+        metricRegistry.register(name(RecentPublicationBuffers.class, "memory"), (Gauge<Long>) this::memoryUsage);
+    }
+
+    /**
+     * Add a committed publication to the buffer of its author, if the author is active.
+     *
+     * @param event the creation of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        if (event.getPublisherId() == null) {
+            return;
+        }
+        AuthorBuffer buffer;
+        synchronized (buffers) {
+            buffer = buffers.get(event.getPublisherId());
+        }
+        if (buffer != null) {
+            buffer.add(event.getPublicationId());
+        }
+    }
+
+    /**
+     * Remove a deleted publication from the buffer of its author, if the author is active.
+     *
+     * @param event the update or the deletion of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationChanged(PublicationChangedEvent event) {
+        if (!event.isDeleted() || event.getPublisherId() == null) {
+            return;
+        }
+        AuthorBuffer buffer;
+        synchronized (buffers) {
+            buffer = buffers.get(event.getPublisherId());
+        }
+        if (buffer != null) {
+            buffer.remove(event.getPublicationId());
+        }
+    }
+
+    /**
+     * Assemble a page of the publications of some publishers, newest first, from their buffers.
+     * <p>
+     * At most a few missing buffers are loaded from the database per call. When more are missing, nothing is
+     * loaded and the caller reads the page from the database at once, rather than paying for both.
+     *
+     * @param publisherIds the ids of the publishers
+     * @param before the exclusive upper bound of the publication ids
+     * @param limit the maximum number of ids
+     * @return the publication ids, newest first, or null when the buffers cannot answer
+     */
+    public long[] assemble(Collection<Long> publisherIds, long before, int limit) {
+        List<AuthorBuffer> found = new ArrayList<>(publisherIds.size());
+        List<Long> missing = new ArrayList<>();
+        synchronized (buffers) {
+            for (Long publisherId : publisherIds) {
+                AuthorBuffer buffer = buffers.get(publisherId);
+                if (buffer != null) {
+                    found.add(buffer);
+                } else {
+                    missing.add(publisherId);
+                }
+            }
+        }
+        hits.inc(found.size());
+        misses.inc(missing.size());
+        if (missing.size() > loadsPerRequest) {
+            log.debug("{} recent publication buffers are missing, falling back to the database", missing.size());
+            return null;
+        }
+        for (Long publisherId : missing) {
+            found.add(load(publisherId));
+        }
+
+        try (Timer.Context ignored = mergeTimer.time()) {
+            List<long[]> snapshots = new ArrayList<>(found.size());
+            long floor = Long.MIN_VALUE;
+            for (AuthorBuffer buffer : found) {
+                long[] ids = buffer.snapshot();
+                if (ids == null) {
+                    // still loading in another request
+                    return null;
+                }
+                if (!buffer.isComplete()) {
+                    // older publications of this author are not buffered: nothing older than its oldest id is reliable
+                    floor = Math.max(floor, ids[ids.length - 1]);
+                }
+                snapshots.add(ids);
+            }
+            long[] ids = LongMergeUtil.mergeDescending(snapshots, before, floor, limit);
+            return ids.length < limit && floor != Long.MIN_VALUE ? null : ids;
+        }
+    }
+
+    private AuthorBuffer load(Long publisherId) {
+        AuthorBuffer buffer = new AuthorBuffer(capacity);
+        synchronized (buffers) {
+            AuthorBuffer existing = buffers.putIfAbsent(publisherId, buffer);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        try {
+            buffer.fill(publicationRepository.findIdsByPublisherId(publisherId, PageRequest.of(0, capacity)));
+            return buffer;
+        } catch (RuntimeException e) {
+            synchronized (buffers) {
+                buffers.remove(publisherId, buffer);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop all the buffers.
+     */
+    public void clear() {
+        synchronized (buffers) {
+            buffers.clear();
+        }
+    }
+
+    int size() {
+        synchronized (buffers) {
+            return buffers.size();
+        }
+    }
+
+    long memoryUsage() {
+        return size() * bytesPerBuffer;
+    }
+
+    /**
+     * The recent publication ids of a publisher.
+     */
+    private static class AuthorBuffer {
+
+        private final LongRingBuffer ids;
+
+        /**
+         * The ids added while the buffer was loading.
+         */
+        private List<Long> pending = new ArrayList<>();
+
+        /**
+         * The ids removed while the buffer was loading, which the load may have read before their deletion.
+         */
+        private List<Long> pendingRemovals = new ArrayList<>();
+
+        private boolean complete;
+
+        AuthorBuffer(int capacity) {
+            this.ids = new LongRingBuffer(capacity);
+        }
+
+        synchronized void add(long id) {
+            if (pending != null) {
+                pending.add(id);
+            } else if (ids.add(id)) {
+                complete = false;
+            }
+        }
+
+        synchronized void remove(long id) {
+            if (pending != null) {
+                pending.remove(Long.valueOf(id));
+                pendingRemovals.add(id);
+            } else {
+                ids.remove(id);
+            }
+        }
+
+        /**
+         * @param newestFirst the newest publication ids of the publisher, at most the capacity of the buffer
+         */
+        synchronized void fill(List<Long> newestFirst) {
+            // fewer ids than the capacity: the publisher has no older publication
+            complete = newestFirst.size() < ids.capacity();
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                ids.add(newestFirst.get(i));
+            }
+            long newest = newestFirst.isEmpty() ? Long.MIN_VALUE : newestFirst.get(0);
+            for (Long id : pending) {
+                if (id > newest && ids.add(id)) {
+                    complete = false;
+                }
+            }
+            for (Long id : pendingRemovals) {
+                ids.remove(id);
+            }
+            pending = null;
+            pendingRemovals = null;
+        }
+
+        /**
+         * @return the ids, newest first, or null while loading
+         */
+        synchronized long[] snapshot() {
+            if (pending != null) {
+                return null;
+            }
+            long[] snapshot = ids.toArrayNewestFirst();
+            for (int i = 1; i < snapshot.length; i++) {
+                if (snapshot[i] > snapshot[i - 1]) {
+                    // publications committed out of id order
+                    Arrays.sort(snapshot);
+                    reverse(snapshot);
+                    break;
+                }
+            }
+            return snapshot;
+        }
+
+        synchronized boolean isComplete() {
+            return complete;
+        }
+
+        private static void reverse(long[] array) {
+            for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+                long swap = array[i];
+                array[i] = array[j];
+                array[j] = swap;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.domain.Region;
+import ar.edu.um.isa.repository.RegionRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Service class for the dictionary of the regions of the publications.
+ * <p>
+ * A region id is looked up by the code of its country and city in a cache, then in the database, and a missing
+ * region is inserted in its own transaction. When a concurrent publication inserted the same region first, the
+ * unique constraint on the code rejects the insert and the winner's row is used instead.
+ */
+@Service
+@Transactional
+public class RegionService {
+
+    private final Logger log = LoggerFactory.getLogger(RegionService.class);
+
+    private final RegionRepository regionRepository;
+
+    private final CacheManager cacheManager;
+
+    private final TransactionTemplate newTransaction;
+
+    public RegionService(RegionRepository regionRepository, CacheManager cacheManager, PlatformTransactionManager transactionManager) {
+        this.regionRepository = regionRepository;
+        this.cacheManager = cacheManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Find or create the region of a country and a city.
+     *
+     * @param country the country, may be null
+     * @param city the city, may be null
+     * @return the id of the region, or null if both the country and the city are blank
+     */
+    public Integer resolveRegionId(String country, String city) {
+        String code = Region.codeOf(country, city);
+        if (code == null) {
+            return null;
+        }
+        Cache cache = regionIdByCodeCache();
+        Integer id = cache.get(code, Integer.class);
+        if (id == null) {
+            id = regionRepository.findOneByCode(code).map(Region::getId)
+                .orElseGet(() -> insertRegion(code, country, city));
+            cache.put(code, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param country the country, may be null
+     * @param city the city, may be null
+     * @return the region of a country and a city, whatever their case, if a publication named it
+     */
+    @Transactional(readOnly = true)
+    public Optional<Region> findRegion(String country, String city) {
+        String code = Region.codeOf(country, city);
+        return code != null ? regionRepository.findOneByCode(code) : Optional.empty();
+    }
+
+    /**
+     * @param id the id of a region
+     * @return whether the region exists, without loading it
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(Integer id) {
+        return regionRepository.existsById(id);
+    }
+
+    private Integer insertRegion(String code, String country, String city) {
+        try {
+            return newTransaction.execute(status -> {
+                Region region = regionRepository.saveAndFlush(new Region().code(code).country(trim(country)).city(trim(city)));
+                log.debug("New region created: {}", region);
+                return region.getId();
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Concurrent insert of region {}", code);
+            return newTransaction.execute(status -> regionRepository.findOneByCode(code).map(Region::getId)
+                .orElseThrow(() -> e));
+        }
+    }
+
+    private static String trim(String name) {
+        return name != null ? name.trim() : null;
+    }
+
+    private Cache regionIdByCodeCache() {
+        return Objects.requireNonNull(cacheManager.getCache(RegionRepository.REGION_ID_BY_CODE_CACHE));
+    }
+}
@@ -0,0 +1,261 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.TagRepository.TagIdAndName;
+import ar.edu.um.isa.service.event.TagRenamedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Service class for managing tags.
+ */
+@Service
+@Transactional
+public class TagService {
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(TagService.class);
+
+    private final TagRepository tagRepository;
+
+    private final CacheManager cacheManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate newTransaction;
+
+    public TagService(TagRepository tagRepository, CacheManager cacheManager, ApplicationEventPublisher eventPublisher,
+                      PlatformTransactionManager transactionManager) {
+        this.tagRepository = tagRepository;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Find or create the tags with the given names, and mark them as used on the given date.
+     * <p>
+     * Known names are answered from the name to id cache, the others are looked up with a single query,
+     * and the missing ones are inserted together in their own transaction. When a concurrent publication
+     * inserted the same tag first, the unique constraint on the name rejects the insert and the winner's
+     * row is used instead.
+     *
+     * @param names the tag names, duplicates allowed
+     * @param lastUse the date of the publication using the tags, may be null
+     * @return references to the tags, which do not load their publications
+     */
+    public Set<Tag> resolveTags(Collection<String> names, LocalDate lastUse) {
+        Map<String, Long> ids = resolveTagIds(names, lastUse);
+        Set<Tag> tags = new LinkedHashSet<>();
+        for (String name : names) {
+            tags.add(tagRepository.getOne(ids.get(name.toLowerCase())));
+        }
+        return tags;
+    }
+
+    /**
+     * Find or create the tags with the given names, like {@link #resolveTags(Collection, LocalDate)}.
+     *
+     * @param names the tag names, duplicates allowed
+     * @param lastUse the date of the last publication using the tags, may be null
+     * @return the ids of the tags, by lower-cased name
+     */
+    public Map<String, Long> resolveTagIds(Collection<String> names, LocalDate lastUse) {
+        Set<String> distinctNames = new LinkedHashSet<>();
+        for (String name : names) {
+            distinctNames.add(name.toLowerCase());
+        }
+        if (distinctNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Cache cache = tagIdByNameCache();
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String name : distinctNames) {
+            Long id = cache.get(name, Long.class);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                uncached.add(name);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            Map<String, Long> found = findIds(uncached);
+            uncached.removeAll(found.keySet());
+            ids.putAll(found);
+            if (!uncached.isEmpty()) {
+                ids.putAll(insertMissingTags(uncached, lastUse));
+            }
+        }
+
+        if (lastUse != null) {
+            tagRepository.updateLastUse(ids.values(), lastUse);
+        }
+        return ids;
+    }
+
+    /**
+     * Insert the tags with the given names, retrying when some of them were inserted concurrently.
+     *
+     * @param names the names of the tags to insert
+     * @param lastUse the last use of the new tags
+     * @return the ids of the tags, by name
+     */
+    Map<String, Long> insertMissingTags(Set<String> names, LocalDate lastUse) {
+        Map<String, Long> ids = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>(names);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ids.putAll(newTransaction.execute(status -> insertTags(missing, lastUse)));
+                return ids;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt == MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Concurrent insert of tags {}, attempt {}", missing, attempt);
+                Map<String, Long> found = newTransaction.execute(status -> findIds(missing));
+                missing.removeAll(found.keySet());
+                ids.putAll(found);
+                if (missing.isEmpty()) {
+                    return ids;
+                }
+            }
+        }
+    }
+
+    private Map<String, Long> insertTags(Set<String> names, LocalDate lastUse) {
+        List<Tag> newTags = new ArrayList<>(names.size());
+        for (String name : names) {
+            newTags.add(new Tag().name(name).lastUse(lastUse));
+        }
+        tagRepository.saveAll(newTags);
+        tagRepository.flush();
+        log.debug("New tags created: {}", names);
+        Map<String, Long> ids = new HashMap<>();
+        Cache cache = tagIdByNameCache();
+        for (Tag tag : newTags) {
+            ids.put(tag.getName(), tag.getId());
+            cache.put(tag.getName(), tag.getId());
+            eventPublisher.publishEvent(new TagRenamedEvent(null, tag.getName()));
+        }
+        return ids;
+    }
+
+    private Map<String, Long> findIds(Collection<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        Cache cache = tagIdByNameCache();
+        for (TagIdAndName tag : tagRepository.findByNameIn(names)) {
+            // a case insensitive collation may return a differently cased name
+            String name = tag.getName().toLowerCase();
+            ids.put(name, tag.getId());
+            cache.put(name, tag.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Save a tag, with its name lower-cased like the names of the tags of the publications.
+     *
+     * @param tag the tag to save
+     * @return the persisted tag
+     */
+    public Tag save(Tag tag) {
+        if (tag.getName() != null) {
+            tag.setName(tag.getName().toLowerCase());
+        }
+        String previousName = null;
+        if (tag.getId() != null) {
+            Optional<Tag> previous = tagRepository.findById(tag.getId());
+            previous.ifPresent(this::clearTagCaches);
+            previousName = previous.map(Tag::getName).orElse(null);
+        }
+        Tag result = tagRepository.save(tag);
+        if (!Objects.equals(previousName, result.getName())) {
+            eventPublisher.publishEvent(new TagRenamedEvent(previousName, result.getName()));
+        }
+        return result;
+    }
+
+    /**
+     * @param name the name of a tag, whatever its case
+     * @return the id of the tag, from the cache once known, or empty if no tag has the name
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findTagId(String name) {
+        String key = name.toLowerCase();
+        Long id = tagIdByNameCache().get(key, Long.class);
+        return id != null ? Optional.of(id) : Optional.ofNullable(findIds(Collections.singleton(key)).get(key));
+    }
+
+    /**
+     * @param id the id of a tag
+     * @return whether the tag exists, without loading it
+     */
+    @Transactional(readOnly = true)
+    public boolean exists(Long id) {
+        return tagRepository.existsById(id);
+    }
+
+    /**
+     * Add to the publication counters of tags.
+     *
+     * @param ids the ids of the tags, possibly none
+     * @param delta the number of publications to add, negative to remove
+     */
+    public void countPublications(Collection<Long> ids, long delta) {
+        if (!ids.isEmpty()) {
+            tagRepository.updatePublicationCount(ids, delta);
+        }
+    }
+
+    /**
+     * Add to the publication counters of the tags of a publication, before its tags are unlinked.
+     *
+     * @param publicationId the id of the publication
+     * @param delta the number of publications to add, negative to remove
+     */
+    public void countPublications(Long publicationId, long delta) {
+        tagRepository.updatePublicationCountByPublicationId(publicationId, delta);
+    }
+
+    /**
+     * Delete a tag. Its publications are kept, without the tag.
+     *
+     * @param id the id of the tag to delete
+     */
+    public void delete(Long id) {
+        tagRepository.findById(id).ifPresent(tag -> {
+            tagRepository.deletePublicationLinks(id);
+            tagRepository.delete(tag);
+            clearTagCaches(tag);
+            eventPublisher.publishEvent(new TagRenamedEvent(tag.getName(), null));
+        });
+    }
+
+    private void clearTagCaches(Tag tag) {
+        if (tag.getName() != null) {
+            tagIdByNameCache().evict(tag.getName().toLowerCase());
+        }
+    }
+
+    private Cache tagIdByNameCache() {
+        return Objects.requireNonNull(cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE));
+    }
+}
@@ -0,0 +1,204 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.HomeTimelineRepository;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for the home timelines.
+ * <p>
+ * Timelines are materialized on write: once a publication is committed, a worker adds it to the
+ * {@code home_timeline} rows of its author and of the author's followers. Reading a page of a timeline is
+ * then a range scan of the owner's rows, whatever the number of followed publishers. Once a follow is committed,
+ * the recent publications of the followed publisher are added to the timeline of the follower, up to the
+ * backfill size; once an unfollow is committed, the publications of the unfollowed publisher are removed from it.
+ * <p>
+ * The lighter feed of the followed publishers is computed on read instead: merged in memory from the
+ * {@link RecentPublicationBuffers} of the followed publishers when they are active, or else read from the follow
+ * and publication indexes. The followed publishers are taken from the {@link FollowGraphIndex} once it is loaded.
+ */
+@Service
+@Transactional
+public class TimelineService {
+
+    private final Logger log = LoggerFactory.getLogger(TimelineService.class);
+
+    private final HomeTimelineRepository homeTimelineRepository;
+
+    private final PublicationRepository publicationRepository;
+
+    private final PublisherRepository publisherRepository;
+
+    private final RecentPublicationBuffers recentPublicationBuffers;
+
+    private final FollowGraphIndex followGraphIndex;
+
+    private final int backfillSize;
+
+    private final int pruneChunkSize;
+
+    public TimelineService(HomeTimelineRepository homeTimelineRepository, PublicationRepository publicationRepository,
+                           PublisherRepository publisherRepository, RecentPublicationBuffers recentPublicationBuffers,
+                           FollowGraphIndex followGraphIndex, ApplicationProperties applicationProperties) {
+        this.homeTimelineRepository = homeTimelineRepository;
+        this.publicationRepository = publicationRepository;
+        this.publisherRepository = publisherRepository;
+        this.recentPublicationBuffers = recentPublicationBuffers;
+        this.followGraphIndex = followGraphIndex;
+        this.backfillSize = applicationProperties.getTimeline().getBackfillSize();
+        this.pruneChunkSize = applicationProperties.getTimeline().getPruneChunkSize();
+    }
+
+    /**
+     * Add a committed publication to the home timelines, asynchronously.
+     *
+     * @param event the creation of the publication
+     */
+    @Async
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        if (event.getPublisherId() != null) {
+            fanOut(event.getPublicationId());
+        }
+    }
+
+    /**
+     * Add a publication to the home timelines of its author and of the author's followers.
+     *
+     * @param publicationId the id of the publication
+     * @return the number of timelines the publication was added to
+     */
+    public int fanOut(Long publicationId) {
+        int timelines = homeTimelineRepository.fanOut(publicationId);
+        log.debug("Added publication {} to {} home timelines", publicationId, timelines);
+        return timelines;
+    }
+
+    /**
+     * Add the recent publications of the newly followed publishers to the home timeline of the follower, or
+     * remove the publications of the unfollowed ones from it, asynchronously.
+     *
+     * @param event the committed change of the follows
+     */
+    @Async
+    @TransactionalEventListener
+    public void onFollowsChanged(FollowsChangedEvent event) {
+        List<Long> followedIds = Arrays.stream(event.getFollowedIds()).boxed().collect(Collectors.toList());
+        if (event.isFollowed()) {
+            backfill(event.getFollowerId(), followedIds);
+        } else {
+            prune(event.getFollowerId(), followedIds);
+        }
+    }
+
+    /**
+     * Add the recent publications of publishers to a home timeline, at most the backfill size per publisher.
+     *
+     * @param ownerId the id of the publisher owning the timeline
+     * @param publisherIds the ids of the followed publishers
+     * @return the number of publications added
+     */
+    public int backfill(Long ownerId, Collection<Long> publisherIds) {
+        int added = 0;
+        for (Long publisherId : publisherIds) {
+            added += homeTimelineRepository.backfill(ownerId, publisherId, backfillSize);
+        }
+        log.debug("Added {} publications of {} publishers to the home timeline of {}", added, publisherIds.size(), ownerId);
+        return added;
+    }
+
+    /**
+     * Remove the publications of publishers from a home timeline, by chunks.
+     *
+     * @param ownerId the id of the publisher owning the timeline
+     * @param publisherIds the ids of the unfollowed publishers
+     * @return the number of publications removed
+     */
+    public int prune(Long ownerId, Collection<Long> publisherIds) {
+        int removed = 0;
+        while (true) {
+            List<Long> publicationIds = homeTimelineRepository.findPublicationIdsByPublisherIdIn(ownerId, publisherIds,
+                PageRequest.of(0, pruneChunkSize));
+            if (publicationIds.isEmpty()) {
+                break;
+            }
+            removed += homeTimelineRepository.deletePublications(ownerId, publicationIds);
+            if (publicationIds.size() < pruneChunkSize) {
+                break;
+            }
+        }
+        log.debug("Removed {} publications of {} publishers from the home timeline of {}", removed, publisherIds.size(), ownerId);
+        return removed;
+    }
+
+    /**
+     * Get a page of the ids of the publications of a home timeline.
+     *
+     * @param ownerId the id of the publisher owning the timeline
+     * @param before the exclusive upper bound of the publication ids, null for the newest publications
+     * @param size the maximum number of publications
+     * @return the publication ids, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getTimelineIds(Long ownerId, Long before, int size) {
+        return homeTimelineRepository.findPublicationIds(ownerId, before != null ? before : Long.MAX_VALUE,
+            PageRequest.of(0, size));
+    }
+
+    /**
+     * Get a page of the ids of the publications of the publishers followed by a publisher, computed on read.
+     *
+     * @param followerId the id of the following publisher
+     * @param before the exclusive upper bound of the publication ids, null for the newest publications
+     * @param size the maximum number of publications
+     * @return the publication ids, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<Long> getFollowedPublicationIds(Long followerId, Long before, int size) {
+        long upperBound = before != null ? before : Long.MAX_VALUE;
+        List<Long> followIds = followGraphIndex.isLoaded()
+            ? Arrays.stream(followGraphIndex.getFollows(followerId)).boxed().collect(Collectors.toList())
+            : toLongs(publisherRepository.findFollowIds(followerId));
+        long[] buffered = recentPublicationBuffers.assemble(followIds, upperBound, size);
+        if (buffered != null) {
+            return Arrays.stream(buffered).boxed().collect(Collectors.toList());
+        }
+        return toLongs(publicationRepository.findFollowedPublicationIds(followerId, upperBound, size));
+    }
+
+    /**
+     * Get the rows of a page of publications.
+     *
+     * @param ids the ids of the publications, newest first
+     * @return the rows of the publications which still exist, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<PublicationRowDTO> getPublicationRows(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return publicationRepository.findRowsByIdIn(ids);
+    }
+
+    private static List<Long> toLongs(List<Number> numbers) {
+        return numbers.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+}
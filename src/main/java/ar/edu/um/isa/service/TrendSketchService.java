@@ -0,0 +1,101 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.service.dto.TrendDTO;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.service.util.HeavyHitters;
+import ar.edu.um.isa.service.util.HeavyHitters.Estimate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service class estimating the trending tags and the most mentioned logins, in a fixed memory.
+ * <p>
+ * Unlike the exact counts of {@link TrendingTagService}, whose memory grows with the number of distinct tags, the
+ * tags and the mentions of the committed publications are counted by {@link HeavyHitters}: a count-min sketch
+ * and a Space-Saving summary of the most frequent keys. A publication counts each of its tags and mentions once.
+ * The counts are halved periodically, so that the estimates follow the recent uses.
+ */
+@Service
+public class TrendSketchService {
+
+    private final Logger log = LoggerFactory.getLogger(TrendSketchService.class);
+
+    private final HeavyHitters tags;
+
+    private final HeavyHitters mentions;
+
+    public TrendSketchService(ApplicationProperties applicationProperties) {
+        ApplicationProperties.TrendSketch properties = applicationProperties.getTrendSketch();
+        this.tags = new HeavyHitters(properties.getCapacity(), properties.getEpsilon(), properties.getDelta());
+        this.mentions = new HeavyHitters(properties.getCapacity(), properties.getEpsilon(), properties.getDelta());
+    }
+
+    /**
+     * Count the tags and the mentions of a committed publication.
+     *
+     * @param event the creation of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        add(tags, event.getTags());
+        add(mentions, event.getMentions());
+    }
+
+    /**
+     * Halve the counts.
+     * <p>
+     * This is scheduled to get fired at a fixed rate, every hour by default.
+     */
+    @Scheduled(initialDelayString = "${application.trend-sketch.half-life:3600000}",
+        fixedRateString = "${application.trend-sketch.half-life:3600000}")
+    public void decay() {
+        tags.halve();
+        mentions.halve();
+        log.debug("Halved the trend counts, {} tag uses and {} mentions remain", tags.getTotal(), mentions.getTotal());
+    }
+
+    /**
+     * @param size the maximum number of tags
+     * @return the most used lower-cased tags, by descending estimated count
+     */
+    public List<TrendDTO> findTrendingTags(int size) {
+        return toTrends(tags.top(size));
+    }
+
+    /**
+     * @param size the maximum number of logins
+     * @return the most mentioned lower-cased logins, by descending estimated count
+     */
+    public List<TrendDTO> findMostMentioned(int size) {
+        return toTrends(mentions.top(size));
+    }
+
+    private static void add(HeavyHitters heavyHitters, Collection<String> keys) {
+        Set<String> distinctKeys = new LinkedHashSet<>();
+        for (String key : keys) {
+            distinctKeys.add(key.toLowerCase());
+        }
+        for (String key : distinctKeys) {
+            heavyHitters.add(key, 1);
+        }
+    }
+
+    private static List<TrendDTO> toTrends(List<Estimate> estimates) {
+        List<TrendDTO> trends = new ArrayList<>(estimates.size());
+        for (Estimate estimate : estimates) {
+            trends.add(new TrendDTO(estimate.getKey(), estimate.getCount(), estimate.getError()));
+        }
+        return trends;
+    }
+}
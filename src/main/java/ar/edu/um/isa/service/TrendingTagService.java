@@ -0,0 +1,248 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.TagRepository.TagIdAndName;
+import ar.edu.um.isa.service.dto.TrendingTagDTO;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.service.util.SlidingWindowCounter;
+import ar.edu.um.isa.service.util.SlidingWindowCounter.Ranking;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Service class ranking the tags by their number of uses over the last days.
+ * <p>
+ * The uses are counted in memory by a {@link SlidingWindowCounter} of hourly buckets, fed by the created
+ * publications once they are committed, and loaded from the primary key of {@code publication_tag} when the
+ * application starts: the publication ids grow with time, so each hour of the window is an id range. The time of
+ * a use is the time of its publication id.
+ * <p>
+ * The load reads the publications up to a watermark id, fixed when the service is created, and the events of the
+ * publications up to the watermark are ignored, so that no publication is counted twice. The updates and the
+ * deletes of the publications add and remove the uses of their tags; those of the publications up to the
+ * watermark are ignored until the load ends, as the load reads the tags the publications have when it reads them.
+ * <p>
+ * The ranking of a window, with the names of its tags, is kept for a short while, so that the requests read it
+ * from memory; the tag publications are never loaded.
+ */
+@Service
+public class TrendingTagService {
+
+    static final long BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Logger log = LoggerFactory.getLogger(TrendingTagService.class);
+
+    private final TagRepository tagRepository;
+
+    private final SlidingWindowCounter counter;
+
+    private final int windowDays;
+
+    private final int limit;
+
+    private final long rankingMaxAge;
+
+    private final boolean loadOnStartup;
+
+    private final long startedMillis;
+
+    /**
+     * The highest publication id counted by the load.
+     */
+    private volatile long watermark;
+
+    private volatile boolean loaded;
+
+    private final Map<Integer, TimedRanking> rankings = new ConcurrentHashMap<>();
+
+    private final Timer loadTimer;
+
+    private final Timer rankTimer;
+
+    public TrendingTagService(TagRepository tagRepository, ApplicationProperties applicationProperties,
+                              MetricRegistry metricRegistry) {
+        ApplicationProperties.TrendingTags properties = applicationProperties.getTrendingTags();
+        this.tagRepository = tagRepository;
+        this.windowDays = properties.getWindowDays();
+        this.limit = properties.getLimit();
+        this.rankingMaxAge = properties.getRankingMaxAge();
+        this.loadOnStartup = properties.isLoadOnStartup();
+        this.counter = new SlidingWindowCounter((int) (TimeUnit.DAYS.toMillis(windowDays) / BUCKET_MILLIS), BUCKET_MILLIS);
+        this.startedMillis = System.currentTimeMillis();
+        this.watermark = loadOnStartup ? watermarkOf(startedMillis) : Long.MIN_VALUE;
+
+        this.loadTimer = metricRegistry.timer(name(TrendingTagService.class, "load"));
+        this.rankTimer = metricRegistry.timer(name(TrendingTagService.class, "rank"));
+        metricRegistry.register(name(TrendingTagService.class, "tags"), (Gauge<Integer>) counter::size);
+    }
+
+    /**
+     * @return the number of days of the window
+     */
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * Load the uses of the window once the application is started, without delaying the startup, up to the
+     * watermark fixed when the service was created.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (loadOnStartup) {
+            load(startedMillis);
+        }
+    }
+
+    /**
+     * Count the uses of the tags of a committed publication, unless the load counts them.
+     *
+     * @param event the creation of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        if (event.getPublicationId() == null || event.getPublicationId() <= watermark) {
+            return;
+        }
+        long timeMillis = SnowflakeIdGenerator.instantOf(event.getPublicationId()).toEpochMilli();
+        for (long tagId : event.getTagIds()) {
+            counter.add(tagId, timeMillis, 1);
+        }
+    }
+
+    /**
+     * Count the uses of the tags added to a committed publication, and uncount those of the tags removed from it
+     * or of its tags when it was deleted.
+     *
+     * @param event the update or the delete of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationChanged(PublicationChangedEvent event) {
+        if (event.getPublicationId() == null || event.getPublicationId() <= watermark && !loaded) {
+            return;
+        }
+        long timeMillis = SnowflakeIdGenerator.instantOf(event.getPublicationId()).toEpochMilli();
+        for (long tagId : event.getAddedTagIds()) {
+            counter.add(tagId, timeMillis, 1);
+        }
+        for (long tagId : event.getRemovedTagIds()) {
+            counter.add(tagId, timeMillis, -1);
+        }
+    }
+
+    /**
+     * Load the uses of the tags by the publications of the window, one hour at a time, up to the given time,
+     * which becomes the watermark. The publications created since then are counted by their events.
+     *
+     * @param nowMillis the end of the window, in milliseconds since the epoch
+     */
+    public void load(long nowMillis) {
+        watermark = watermarkOf(nowMillis);
+        long buckets = 0;
+        try (Timer.Context ignored = loadTimer.time()) {
+            long end = nowMillis;
+            for (int hour = 0; hour < counter.getBucketCount(); hour++) {
+                long start = (Math.floorDiv(end - 1, BUCKET_MILLIS)) * BUCKET_MILLIS;
+                long from = SnowflakeIdGenerator.lowerBoundOf(Instant.ofEpochMilli(start));
+                long to = SnowflakeIdGenerator.lowerBoundOf(Instant.ofEpochMilli(end));
+                for (Object[] row : tagRepository.countUsesBetween(from, to)) {
+                    counter.add(((Number) row[0]).longValue(), start, ((Number) row[1]).intValue());
+                }
+                buckets++;
+                end = start;
+                if (from == 0) {
+                    break;
+                }
+            }
+        }
+        loaded = true;
+        rankings.clear();
+        log.info("Loaded {} hours of tag uses, {} tags are used", buckets, counter.size());
+    }
+
+    /**
+     * @return the highest publication id created before the given time
+     */
+    private static long watermarkOf(long timeMillis) {
+        return SnowflakeIdGenerator.lowerBoundOf(Instant.ofEpochMilli(timeMillis)) - 1;
+    }
+
+    /**
+     * @param days the number of days of the window, from 1 to {@link #getWindowDays()}
+     * @param size the maximum number of tags
+     * @return the most used tags during the last days, by descending number of uses
+     */
+    public List<TrendingTagDTO> findTrendingTags(int days, int size) {
+        long now = System.currentTimeMillis();
+        TimedRanking ranking = rankings.get(days);
+        if (ranking == null || now - ranking.rankedAt >= rankingMaxAge) {
+            ranking = new TimedRanking(now, rank(days, now));
+            rankings.put(days, ranking);
+        }
+        List<TrendingTagDTO> tags = ranking.tags;
+        return tags.size() <= size ? tags : tags.subList(0, size);
+    }
+
+    private List<TrendingTagDTO> rank(int days, long now) {
+        try (Timer.Context ignored = rankTimer.time()) {
+            int windowBuckets = (int) (TimeUnit.DAYS.toMillis(days) / BUCKET_MILLIS);
+            Ranking ranking = counter.top(windowBuckets, now, limit);
+            if (ranking.size() == 0) {
+                return Collections.emptyList();
+            }
+            List<Long> ids = new ArrayList<>(ranking.size());
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                ids.add(ranking.getKey(rank));
+            }
+            Map<Long, String> names = new HashMap<>();
+            for (TagIdAndName tag : tagRepository.findByIdIn(ids)) {
+                names.put(tag.getId(), tag.getName());
+            }
+            List<TrendingTagDTO> tags = new ArrayList<>(ranking.size());
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                // a tag deleted since it was used is skipped, like a tag left without uses by the changes of
+                // its publications during the load
+                String name = names.get(ranking.getKey(rank));
+                if (name != null && ranking.getCount(rank) > 0) {
+                    tags.add(new TrendingTagDTO(ranking.getKey(rank), name, ranking.getCount(rank)));
+                }
+            }
+            return Collections.unmodifiableList(tags);
+        }
+    }
+
+    /**
+     * A ranking, with the time it was computed at.
+     */
+    private static final class TimedRanking {
+
+        private final long rankedAt;
+
+        private final List<TrendingTagDTO> tags;
+
+        TimedRanking(long rankedAt, List<TrendingTagDTO> tags) {
+            this.rankedAt = rankedAt;
+            this.tags = tags;
+        }
+    }
+}
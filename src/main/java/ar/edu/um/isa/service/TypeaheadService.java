@@ -0,0 +1,221 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.config.Constants;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.TagRepository.TagUsage;
+import ar.edu.um.isa.repository.UserRepository;
+import ar.edu.um.isa.service.dto.TypeaheadDTO;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.service.event.TagRenamedEvent;
+import ar.edu.um.isa.service.event.UserLoginChangedEvent;
+import ar.edu.um.isa.service.util.PrefixIndex;
+import ar.edu.um.isa.service.util.PrefixIndex.Suggestion;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Service class suggesting the tag names and the logins starting with what a publisher is typing.
+ * <p>
+ * The lower-cased tag names and the logins of the activated users are kept in memory, each in a
+ * {@link PrefixIndex}, ranked by their recent usage: a tag scores a point for each publication using it, and a
+ * login for each publication mentioning it. The scores are halved periodically, so that the older uses weigh
+ * less. The indexes are loaded when the application starts, the tags scored by their publications when they
+ * were used recently, and then follow the committed publications, tags and users.
+ */
+@Service
+public class TypeaheadService {
+
+    private static final Comparator<TypeaheadDTO> BY_DESCENDING_SCORE =
+        Comparator.comparingDouble(TypeaheadDTO::getScore).reversed().thenComparing(TypeaheadDTO::getName);
+
+    private final Logger log = LoggerFactory.getLogger(TypeaheadService.class);
+
+    private final TagRepository tagRepository;
+
+    private final UserRepository userRepository;
+
+    private final PrefixIndex tags;
+
+    private final PrefixIndex logins;
+
+    private final boolean loadOnStartup;
+
+    private final int recentDays;
+
+    private final Timer loadTimer;
+
+    public TypeaheadService(TagRepository tagRepository, UserRepository userRepository,
+                            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        ApplicationProperties.Typeahead properties = applicationProperties.getTypeahead();
+        this.tagRepository = tagRepository;
+        this.userRepository = userRepository;
+        this.tags = new PrefixIndex(properties.getLimit());
+        this.logins = new PrefixIndex(properties.getLimit());
+        this.loadOnStartup = properties.isLoadOnStartup();
+        this.recentDays = properties.getRecentDays();
+
+        this.loadTimer = metricRegistry.timer(name(TypeaheadService.class, "load"));
+        metricRegistry.register(name(TypeaheadService.class, "tags"), (Gauge<Integer>) tags::size);
+        metricRegistry.register(name(TypeaheadService.class, "logins"), (Gauge<Integer>) logins::size);
+    }
+
+    /**
+     * @return the maximum number of suggestions
+     */
+    public int getLimit() {
+        return tags.getLimit();
+    }
+
+    /**
+     * Load the tag names and the logins once the application is started, without delaying the startup.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Index all the tag names and the logins of the activated users.
+     */
+    public void load() {
+        try (Timer.Context ignored = loadTimer.time()) {
+            LocalDate recent = LocalDate.now().minusDays(recentDays);
+            for (TagUsage tag : tagRepository.findAllUsages()) {
+                if (tag.getName().isEmpty()) {
+                    continue;
+                }
+                boolean recentlyUsed = tag.getLastUse() != null && !tag.getLastUse().isBefore(recent);
+                tags.put(tag.getName().toLowerCase(), recentlyUsed ? tag.getPublicationCount() : 0);
+            }
+            for (String login : userRepository.findActivatedLoginsByLoginNot(Constants.ANONYMOUS_USER)) {
+                logins.put(login, 0);
+            }
+        }
+        log.info("Loaded {} tag names and {} logins for the typeahead", tags.size(), logins.size());
+    }
+
+    /**
+     * Score the tags and the known mentions of a committed publication.
+     *
+     * @param event the creation of the publication
+     */
+    @TransactionalEventListener
+    public void onPublicationCreated(PublicationCreatedEvent event) {
+        for (String tag : distinctLowerCase(event.getTags())) {
+            if (!tags.increment(tag, 1)) {
+                tags.put(tag, 1);
+            }
+        }
+        // the unknown mentions are not indexed
+        for (String login : distinctLowerCase(event.getMentions())) {
+            logins.increment(login, 1);
+        }
+    }
+
+    /**
+     * Index a committed tag name, keeping the score of a renamed tag.
+     *
+     * @param event the change of the tag
+     */
+    @TransactionalEventListener
+    public void onTagRenamed(TagRenamedEvent event) {
+        rename(tags, event.getPreviousName(), event.getName());
+    }
+
+    /**
+     * Index a committed login, keeping the score of a renamed login.
+     *
+     * @param event the change of the login
+     */
+    @TransactionalEventListener
+    public void onUserLoginChanged(UserLoginChangedEvent event) {
+        rename(logins, event.getPreviousLogin(), event.getLogin());
+    }
+
+    /**
+     * Halve the scores.
+     * <p>
+     * This is scheduled to get fired at a fixed rate, every day by default.
+     */
+    @Scheduled(initialDelayString = "${application.typeahead.half-life:86400000}",
+        fixedRateString = "${application.typeahead.half-life:86400000}")
+    public void decay() {
+        tags.scale(0.5);
+        logins.scale(0.5);
+    }
+
+    /**
+     * Suggest the names starting with a query: a query starting with "#" suggests tags only, and one starting
+     * with "@" logins only.
+     *
+     * @param query the query
+     * @param size the maximum number of suggestions, at most {@link #getLimit()}
+     * @return the suggested names, by descending score, then by name
+     */
+    public List<TypeaheadDTO> suggest(String query, int size) {
+        String prefix = query.toLowerCase();
+        if (prefix.startsWith("#")) {
+            return toSuggestions(TypeaheadDTO.TAG, tags.suggest(prefix.substring(1), size));
+        }
+        if (prefix.startsWith("@")) {
+            return toSuggestions(TypeaheadDTO.USER, logins.suggest(prefix.substring(1), size));
+        }
+        List<TypeaheadDTO> suggestions = toSuggestions(TypeaheadDTO.TAG, tags.suggest(prefix, size));
+        suggestions.addAll(toSuggestions(TypeaheadDTO.USER, logins.suggest(prefix, size)));
+        suggestions.sort(BY_DESCENDING_SCORE);
+        return suggestions.size() <= size ? suggestions : new ArrayList<>(suggestions.subList(0, size));
+    }
+
+    private static void rename(PrefixIndex index, String previousName, String name) {
+        double score = 0;
+        if (previousName != null) {
+            String previousKey = previousName.toLowerCase();
+            score = index.score(previousKey);
+            index.remove(previousKey);
+        }
+        if (name != null && !name.isEmpty()) {
+            String key = name.toLowerCase();
+            index.put(key, Math.max(score, index.score(key)));
+        }
+    }
+
+    private static Set<String> distinctLowerCase(Collection<String> names) {
+        Set<String> distinctNames = new LinkedHashSet<>();
+        for (String name : names) {
+            distinctNames.add(name.toLowerCase());
+        }
+        return distinctNames;
+    }
+
+    private static List<TypeaheadDTO> toSuggestions(String type, List<Suggestion> suggestions) {
+        List<TypeaheadDTO> dtos = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            dtos.add(new TypeaheadDTO(type, suggestion.getKey(), suggestion.getScore()));
+        }
+        return dtos;
+    }
+}
@@ -8,12 +8,14 @@ import ar.edu.um.isa.repository.UserRepository;
 import ar.edu.um.isa.security.AuthoritiesConstants;
 import ar.edu.um.isa.security.SecurityUtils;
 import ar.edu.um.isa.service.dto.UserDTO;
+import ar.edu.um.isa.service.event.UserLoginChangedEvent;
 import ar.edu.um.isa.service.util.RandomUtil;
 import ar.edu.um.isa.web.rest.errors.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -43,11 +45,15 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -58,6 +64,7 @@ public class UserService {
                 user.setActivated(true);
                 user.setActivationKey(null);
                 this.clearUserCaches(user);
+                eventPublisher.publishEvent(new UserLoginChangedEvent(null, user.getLogin()));
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -155,6 +162,7 @@ public class UserService {
         }
         userRepository.save(user);
         this.clearUserCaches(user);
+        eventPublisher.publishEvent(new UserLoginChangedEvent(null, user.getLogin()));
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -195,6 +203,7 @@ public class UserService {
             .map(Optional::get)
             .map(user -> {
                 this.clearUserCaches(user);
+                String previousLogin = user.getActivated() ? user.getLogin() : null;
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -210,6 +219,10 @@ public class UserService {
                     .map(Optional::get)
                     .forEach(managedAuthorities::add);
                 this.clearUserCaches(user);
+                String login = user.getActivated() ? user.getLogin() : null;
+                if (!Objects.equals(previousLogin, login)) {
+                    eventPublisher.publishEvent(new UserLoginChangedEvent(previousLogin, login));
+                }
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -220,6 +233,9 @@ public class UserService {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
             this.clearUserCaches(user);
+            if (user.getActivated()) {
+                eventPublisher.publishEvent(new UserLoginChangedEvent(user.getLogin(), null));
+            }
             log.debug("Deleted User: {}", user);
         });
     }
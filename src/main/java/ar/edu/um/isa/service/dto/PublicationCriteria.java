@@ -0,0 +1,122 @@
+package ar.edu.um.isa.service.dto;
+
+import io.github.jhipster.service.filter.BooleanFilter;
+import io.github.jhipster.service.filter.Filter;
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Criteria class for the Publication entity. This class is used in PublicationResource to
+ * receive all the possible filtering options from the Http GET request parameters.
+ * For example the following could be a valid request:
+ * <code> /publications/filter?publisherId.equals=5&amp;tagsId.in=1,2&amp;date.greaterOrEqualThan=2018-12-01</code>
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ * <p>
+ * Every filter is answered from an index on the filtered column and the id, so the country is only compared
+ * with {@code equals}, {@code in} and {@code specified}: its {@code contains} is ignored. The date filter selects
+ * the UTC days the publications were created on, as recorded in their time-ordered ids, which is their date unless
+ * it was set otherwise, as by a bulk import.
+ */
+public class PublicationCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter publisherId;
+
+    private LongFilter tagsId;
+
+    private LongFilter mentionsId;
+
+    private BooleanFilter visible;
+
+    private StringFilter country;
+
+    private LocalDateFilter date;
+
+    public LongFilter getPublisherId() {
+        return publisherId;
+    }
+
+    public void setPublisherId(LongFilter publisherId) {
+        this.publisherId = publisherId;
+    }
+
+    public LongFilter getTagsId() {
+        return tagsId;
+    }
+
+    public void setTagsId(LongFilter tagsId) {
+        this.tagsId = tagsId;
+    }
+
+    public LongFilter getMentionsId() {
+        return mentionsId;
+    }
+
+    public void setMentionsId(LongFilter mentionsId) {
+        this.mentionsId = mentionsId;
+    }
+
+    public BooleanFilter getVisible() {
+        return visible;
+    }
+
+    public void setVisible(BooleanFilter visible) {
+        this.visible = visible;
+    }
+
+    public StringFilter getCountry() {
+        return country;
+    }
+
+    public void setCountry(StringFilter country) {
+        this.country = country;
+    }
+
+    public LocalDateFilter getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateFilter date) {
+        this.date = date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PublicationCriteria that = (PublicationCriteria) o;
+        return Objects.equals(publisherId, that.publisherId) &&
+            Objects.equals(tagsId, that.tagsId) &&
+            Objects.equals(mentionsId, that.mentionsId) &&
+            Objects.equals(visible, that.visible) &&
+            Objects.equals(country, that.country) &&
+            Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(publisherId, tagsId, mentionsId, visible, country, date);
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationCriteria{" +
+            (publisherId != null ? "publisherId=" + publisherId + ", " : "") +
+            (tagsId != null ? "tagsId=" + tagsId + ", " : "") +
+            (mentionsId != null ? "mentionsId=" + mentionsId + ", " : "") +
+            (visible != null ? "visible=" + visible + ", " : "") +
+            (country != null ? "country=" + country + ", " : "") +
+            (date != null ? "date=" + date + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,84 @@
+package ar.edu.um.isa.service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing one line of a publication bulk import.
+ */
+public class PublicationImportDTO {
+
+    private String login;
+
+    private LocalDate date;
+
+    private String content;
+
+    private Boolean visible;
+
+    private String country;
+
+    private String city;
+
+    /**
+     * @return the login of the user publishing
+     */
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Boolean getVisible() {
+        return visible;
+    }
+
+    public void setVisible(Boolean visible) {
+        this.visible = visible;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationImportDTO{" +
+            "login='" + login + '\'' +
+            ", date=" + date +
+            ", content='" + content + '\'' +
+            ", visible=" + visible +
+            ", country='" + country + '\'' +
+            ", city='" + city + '\'' +
+            "}";
+    }
+}
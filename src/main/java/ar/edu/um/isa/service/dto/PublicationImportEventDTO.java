@@ -0,0 +1,112 @@
+package ar.edu.um.isa.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A DTO representing one line of a publication bulk import report: the failure of an imported line,
+ * the progress after a chunk, or the final summary.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PublicationImportEventDTO {
+
+    public static final String ERROR = "error";
+
+    public static final String PROGRESS = "progress";
+
+    public static final String SUMMARY = "summary";
+
+    private String type;
+
+    private Long line;
+
+    private String message;
+
+    private Long lines;
+
+    private Long imported;
+
+    private Long failed;
+
+    public static PublicationImportEventDTO error(long line, String message) {
+        PublicationImportEventDTO event = new PublicationImportEventDTO();
+        event.type = ERROR;
+        event.line = line;
+        event.message = message;
+        return event;
+    }
+
+    public static PublicationImportEventDTO counts(String type, long lines, long imported, long failed) {
+        PublicationImportEventDTO event = new PublicationImportEventDTO();
+        event.type = type;
+        event.lines = lines;
+        event.imported = imported;
+        event.failed = failed;
+        return event;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the number of the failed line, starting at 1
+     */
+    public Long getLine() {
+        return line;
+    }
+
+    public void setLine(Long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @return the number of lines read so far
+     */
+    public Long getLines() {
+        return lines;
+    }
+
+    public void setLines(Long lines) {
+        this.lines = lines;
+    }
+
+    public Long getImported() {
+        return imported;
+    }
+
+    public void setImported(Long imported) {
+        this.imported = imported;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationImportEventDTO{" +
+            "type='" + type + '\'' +
+            ", line=" + line +
+            ", message='" + message + '\'' +
+            ", lines=" + lines +
+            ", imported=" + imported +
+            ", failed=" + failed +
+            "}";
+    }
+}
@@ -0,0 +1,134 @@
+package ar.edu.um.isa.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing a publication in a feed, without its associations but the root publication it republishes.
+ */
+public class PublicationRowDTO {
+
+    private Long id;
+
+    private Long publisherId;
+
+    private LocalDate date;
+
+    private String content;
+
+    private Long republishId;
+
+    private Long republishCount;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private PublicationRowDTO republish;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer viewerState;
+
+    public PublicationRowDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PublicationRowDTO(Long id, Long publisherId, LocalDate date, String content, Long republishId,
+                             Long republishCount) {
+        this.id = id;
+        this.publisherId = publisherId;
+        this.date = date;
+        this.content = content;
+        this.republishId = republishId;
+        this.republishCount = republishCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPublisherId() {
+        return publisherId;
+    }
+
+    public void setPublisherId(Long publisherId) {
+        this.publisherId = publisherId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    /**
+     * @return the id of the root publication republished, or null if this is not a republish
+     */
+    public Long getRepublishId() {
+        return republishId;
+    }
+
+    public void setRepublishId(Long republishId) {
+        this.republishId = republishId;
+    }
+
+    /**
+     * @return the number of publications republishing this one, as of the last flush of the counters
+     */
+    public Long getRepublishCount() {
+        return republishCount;
+    }
+
+    public void setRepublishCount(Long republishCount) {
+        this.republishCount = republishCount;
+    }
+
+    /**
+     * @return the row of the root publication republished, shared with the other rows republishing it, or null
+     * when not hydrated
+     */
+    public PublicationRowDTO getRepublish() {
+        return republish;
+    }
+
+    public void setRepublish(PublicationRowDTO republish) {
+        this.republish = republish;
+    }
+
+    /**
+     * @return the state of the publication for the viewer, as a combination of the bits of
+     * {@code PublicationService}, or null when not hydrated
+     */
+    public Integer getViewerState() {
+        return viewerState;
+    }
+
+    public void setViewerState(Integer viewerState) {
+        this.viewerState = viewerState;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationRowDTO{" +
+            "id=" + id +
+            ", publisherId=" + publisherId +
+            ", date=" + date +
+            ", content='" + content + "'" +
+            ", republishId=" + republishId +
+            ", republishCount=" + republishCount +
+            ", viewerState=" + viewerState +
+            "}";
+    }
+}
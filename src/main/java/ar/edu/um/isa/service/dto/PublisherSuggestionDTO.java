@@ -0,0 +1,47 @@
+package ar.edu.um.isa.service.dto;
+
+/**
+ * A DTO representing a publisher suggested to follow, with the number of follows of the viewer following it.
+ */
+public class PublisherSuggestionDTO {
+
+    private PublisherSummaryDTO publisher;
+
+    private int mutualFollowCount;
+
+    public PublisherSuggestionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PublisherSuggestionDTO(PublisherSummaryDTO publisher, int mutualFollowCount) {
+        this.publisher = publisher;
+        this.mutualFollowCount = mutualFollowCount;
+    }
+
+    public PublisherSummaryDTO getPublisher() {
+        return publisher;
+    }
+
+    public void setPublisher(PublisherSummaryDTO publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @return the number of publishers followed by the viewer that follow the suggested publisher
+     */
+    public int getMutualFollowCount() {
+        return mutualFollowCount;
+    }
+
+    public void setMutualFollowCount(int mutualFollowCount) {
+        this.mutualFollowCount = mutualFollowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PublisherSuggestionDTO{" +
+            "publisher=" + publisher +
+            ", mutualFollowCount=" + mutualFollowCount +
+            "}";
+    }
+}
@@ -0,0 +1,86 @@
+package ar.edu.um.isa.service.dto;
+
+/**
+ * A DTO representing a publisher with the sizes of its associations, instead of the associations themselves.
+ */
+public class PublisherSummaryDTO {
+
+    private Long id;
+
+    private String login;
+
+    private long followerCount;
+
+    private long followingCount;
+
+    private long publicationCount;
+
+    public PublisherSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    /**
+     * Constructor used by the summary queries, which read the counters of the publisher.
+     */
+    public PublisherSummaryDTO(Long id, String login, Long followerCount, Long followingCount, Long publicationCount) {
+        this.id = id;
+        this.login = login;
+        this.followerCount = followerCount;
+        this.followingCount = followingCount;
+        this.publicationCount = publicationCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the login of the user of the publisher, null for a publisher without user
+     */
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public long getFollowerCount() {
+        return followerCount;
+    }
+
+    public void setFollowerCount(long followerCount) {
+        this.followerCount = followerCount;
+    }
+
+    public long getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(long followingCount) {
+        this.followingCount = followingCount;
+    }
+
+    public long getPublicationCount() {
+        return publicationCount;
+    }
+
+    public void setPublicationCount(long publicationCount) {
+        this.publicationCount = publicationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PublisherSummaryDTO{" +
+            "id=" + id +
+            ", login='" + login + "'" +
+            ", followerCount=" + followerCount +
+            ", followingCount=" + followingCount +
+            ", publicationCount=" + publicationCount +
+            "}";
+    }
+}
@@ -0,0 +1,62 @@
+package ar.edu.um.isa.service.dto;
+
+/**
+ * A DTO representing a trending tag or mentioned login, with its approximate number of uses.
+ */
+public class TrendDTO {
+
+    private String name;
+
+    private long count;
+
+    private long error;
+
+    public TrendDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TrendDTO(String name, long count, long error) {
+        this.name = name;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the estimated number of uses, never below the actual one
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return the maximum overestimation of the count
+     */
+    public long getError() {
+        return error;
+    }
+
+    public void setError(long error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "TrendDTO{" +
+            "name='" + name + "'" +
+            ", count=" + count +
+            ", error=" + error +
+            "}";
+    }
+}
@@ -0,0 +1,59 @@
+package ar.edu.um.isa.service.dto;
+
+/**
+ * A DTO representing a trending tag, with its number of uses over the requested window.
+ */
+public class TrendingTagDTO {
+
+    private Long id;
+
+    private String name;
+
+    private long count;
+
+    public TrendingTagDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TrendingTagDTO(Long id, String name, long count) {
+        this.id = id;
+        this.name = name;
+        this.count = count;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the number of publications using the tag during the window
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "TrendingTagDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", count=" + count +
+            "}";
+    }
+}
@@ -0,0 +1,66 @@
+package ar.edu.um.isa.service.dto;
+
+/**
+ * A DTO representing a suggested tag name or login, with its recent usage score.
+ */
+public class TypeaheadDTO {
+
+    public static final String TAG = "tag";
+
+    public static final String USER = "user";
+
+    private String type;
+
+    private String name;
+
+    private double score;
+
+    public TypeaheadDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TypeaheadDTO(String type, String name, double score) {
+        this.type = type;
+        this.name = name;
+        this.score = score;
+    }
+
+    /**
+     * @return {@link #TAG} or {@link #USER}
+     */
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the number of recent uses, the older uses weighing less
+     */
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    @Override
+    public String toString() {
+        return "TypeaheadDTO{" +
+            "type='" + type + "'" +
+            ", name='" + name + "'" +
+            ", score=" + score +
+            "}";
+    }
+}
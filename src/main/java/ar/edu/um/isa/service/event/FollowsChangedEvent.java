@@ -0,0 +1,48 @@
+package ar.edu.um.isa.service.event;
+
+import java.util.Arrays;
+
+/**
+ * Event published when a publisher follows or unfollows publishers, handled once the transaction commits.
+ */
+public class FollowsChangedEvent {
+
+    private final long followerId;
+
+    private final long[] followedIds;
+
+    private final boolean followed;
+
+    public FollowsChangedEvent(long followerId, long[] followedIds, boolean followed) {
+        this.followerId = followerId;
+        this.followedIds = followedIds;
+        this.followed = followed;
+    }
+
+    public long getFollowerId() {
+        return followerId;
+    }
+
+    /**
+     * @return the ids of the publishers whose follow was inserted or deleted
+     */
+    public long[] getFollowedIds() {
+        return followedIds;
+    }
+
+    /**
+     * @return true if the follows were inserted, false if they were deleted
+     */
+    public boolean isFollowed() {
+        return followed;
+    }
+
+    @Override
+    public String toString() {
+        return "FollowsChangedEvent{" +
+            "followerId=" + followerId +
+            ", followedIds=" + Arrays.toString(followedIds) +
+            ", followed=" + followed +
+            "}";
+    }
+}
@@ -0,0 +1,75 @@
+package ar.edu.um.isa.service.event;
+
+import java.util.Arrays;
+
+/**
+ * Event published when a publication is updated or deleted, handled once the transaction commits.
+ */
+public class PublicationChangedEvent {
+
+    private final Long publicationId;
+
+    private final Long publisherId;
+
+    private final boolean deleted;
+
+    private final long[] addedTagIds;
+
+    private final long[] removedTagIds;
+
+    public PublicationChangedEvent(Long publicationId, Long publisherId, boolean deleted) {
+        this(publicationId, publisherId, deleted, new long[0], new long[0]);
+    }
+
+    public PublicationChangedEvent(Long publicationId, Long publisherId, boolean deleted, long[] addedTagIds,
+                                   long[] removedTagIds) {
+        this.publicationId = publicationId;
+        this.publisherId = publisherId;
+        this.deleted = deleted;
+        this.addedTagIds = addedTagIds;
+        this.removedTagIds = removedTagIds;
+    }
+
+    public Long getPublicationId() {
+        return publicationId;
+    }
+
+    /**
+     * @return the id of the author of the publication, or null if it has none
+     */
+    public Long getPublisherId() {
+        return publisherId;
+    }
+
+    /**
+     * @return whether the publication was deleted, rather than updated
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return the ids of the tags added to the publication by an update
+     */
+    public long[] getAddedTagIds() {
+        return addedTagIds;
+    }
+
+    /**
+     * @return the ids of the tags removed from the publication by an update, or all its tags when it was deleted
+     */
+    public long[] getRemovedTagIds() {
+        return removedTagIds;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationChangedEvent{" +
+            "publicationId=" + publicationId +
+            ", publisherId=" + publisherId +
+            ", deleted=" + deleted +
+            ", addedTagIds=" + Arrays.toString(addedTagIds) +
+            ", removedTagIds=" + Arrays.toString(removedTagIds) +
+            "}";
+    }
+}
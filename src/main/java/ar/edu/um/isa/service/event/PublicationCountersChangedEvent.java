@@ -0,0 +1,57 @@
+package ar.edu.um.isa.service.event;
+
+/**
+ * Event published when publications are faved, unfaved, liked, unliked or republished, handled once the transaction commits.
+ */
+public class PublicationCountersChangedEvent {
+
+    private final long publicationId;
+
+    private final int faveDelta;
+
+    private final int likeDelta;
+
+    private final int republishDelta;
+
+    public PublicationCountersChangedEvent(long publicationId, int faveDelta, int likeDelta, int republishDelta) {
+        this.publicationId = publicationId;
+        this.faveDelta = faveDelta;
+        this.likeDelta = likeDelta;
+        this.republishDelta = republishDelta;
+    }
+
+    public long getPublicationId() {
+        return publicationId;
+    }
+
+    /**
+     * @return the change of the number of publishers who faved the publication
+     */
+    public int getFaveDelta() {
+        return faveDelta;
+    }
+
+    /**
+     * @return the change of the number of publishers who liked the publication
+     */
+    public int getLikeDelta() {
+        return likeDelta;
+    }
+
+    /**
+     * @return the change of the number of publications republishing the publication
+     */
+    public int getRepublishDelta() {
+        return republishDelta;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationCountersChangedEvent{" +
+            "publicationId=" + publicationId +
+            ", faveDelta=" + faveDelta +
+            ", likeDelta=" + likeDelta +
+            ", republishDelta=" + republishDelta +
+            "}";
+    }
+}
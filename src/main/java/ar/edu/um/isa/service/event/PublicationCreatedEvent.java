@@ -0,0 +1,88 @@
+package ar.edu.um.isa.service.event;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event published when a publication is created, handled once the creating transaction commits.
+ * <p>
+ * It only carries ids and values, as the publication entity belongs to the session of the creating transaction.
+ */
+public class PublicationCreatedEvent {
+
+    private final Long publicationId;
+
+    private final Long publisherId;
+
+    private final LocalDate date;
+
+    private final long[] tagIds;
+
+    private final List<String> tags;
+
+    private final List<String> mentions;
+
+    public PublicationCreatedEvent(Long publicationId, Long publisherId, LocalDate date, long... tagIds) {
+        this(publicationId, publisherId, date, tagIds, Collections.emptyList(), Collections.emptyList());
+    }
+
+    public PublicationCreatedEvent(Long publicationId, Long publisherId, LocalDate date, long[] tagIds,
+                                   List<String> tags, List<String> mentions) {
+        this.publicationId = publicationId;
+        this.publisherId = publisherId;
+        this.date = date;
+        this.tagIds = tagIds;
+        this.tags = tags;
+        this.mentions = mentions;
+    }
+
+    public Long getPublicationId() {
+        return publicationId;
+    }
+
+    /**
+     * @return the id of the author, null for a publication without publisher
+     */
+    public Long getPublisherId() {
+        return publisherId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return the ids of the tags of the publication
+     */
+    public long[] getTagIds() {
+        return tagIds;
+    }
+
+    /**
+     * @return the tags written in the content, without their sigil, duplicates included
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return the logins mentioned in the content, without their sigil, duplicates included
+     */
+    public List<String> getMentions() {
+        return mentions;
+    }
+
+    @Override
+    public String toString() {
+        return "PublicationCreatedEvent{" +
+            "publicationId=" + publicationId +
+            ", publisherId=" + publisherId +
+            ", date=" + date +
+            ", tagIds=" + Arrays.toString(tagIds) +
+            ", tags=" + tags +
+            ", mentions=" + mentions +
+            "}";
+    }
+}
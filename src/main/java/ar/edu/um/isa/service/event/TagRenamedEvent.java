@@ -0,0 +1,38 @@
+package ar.edu.um.isa.service.event;
+
+/**
+ * Event published when a tag is created, renamed or deleted, handled once the transaction commits.
+ */
+public class TagRenamedEvent {
+
+    private final String previousName;
+
+    private final String name;
+
+    public TagRenamedEvent(String previousName, String name) {
+        this.previousName = previousName;
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the tag before the change, null if the tag was created
+     */
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    /**
+     * @return the name of the tag after the change, null if the tag was deleted
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TagRenamedEvent{" +
+            "previousName='" + previousName + "'" +
+            ", name='" + name + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,39 @@
+package ar.edu.um.isa.service.event;
+
+/**
+ * Event published when the login of an activated user appears, changes or disappears, handled once the
+ * transaction commits. A user registers without being activated, so it appears on activation.
+ */
+public class UserLoginChangedEvent {
+
+    private final String previousLogin;
+
+    private final String login;
+
+    public UserLoginChangedEvent(String previousLogin, String login) {
+        this.previousLogin = previousLogin;
+        this.login = login;
+    }
+
+    /**
+     * @return the login before the change, null if the user was not activated
+     */
+    public String getPreviousLogin() {
+        return previousLogin;
+    }
+
+    /**
+     * @return the login after the change, null if the user was deleted or deactivated
+     */
+    public String getLogin() {
+        return login;
+    }
+
+    @Override
+    public String toString() {
+        return "UserLoginChangedEvent{" +
+            "previousLogin='" + previousLogin + "'" +
+            ", login='" + login + "'" +
+            "}";
+    }
+}
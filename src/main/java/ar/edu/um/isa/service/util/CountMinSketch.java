@@ -0,0 +1,124 @@
+package ar.edu.um.isa.service.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A count-min sketch, estimating the counts of string keys in a fixed memory.
+ * <p>
+ * Each key is counted in one cell of every row, chosen by a hash of the key; its estimate is the smallest of its
+ * cells, which never underestimates the count. With {@code width = ceil(e / epsilon)} cells per row and
+ * {@code depth = ceil(ln(1 / delta))} rows, an estimate exceeds the count by more than {@code epsilon} times the
+ * total of the counts with a probability of at most {@code delta}. The cells are increased conservatively, only up
+ * to the new estimate of the key, which keeps the bound and tightens the estimates of the other keys.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int width;
+
+    private final int depth;
+
+    private final long[][] cells;
+
+    private long total;
+
+    /**
+     * @param epsilon the error of the estimates, relative to the total of the counts
+     * @param delta the probability for an estimate to exceed the error
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("The error and its probability must be between 0 and 1");
+        }
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.cells = new long[depth][width];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the total of the counts added
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @param key the key
+     * @param count the number of occurrences to add, positive
+     * @return the new estimate of the count of the key
+     */
+    public long add(String key, long count) {
+        long hash = hash(key);
+        int[] columns = new int[depth];
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            columns[row] = column(hash, row);
+            estimate = Math.min(estimate, cells[row][columns[row]]);
+        }
+        estimate += count;
+        for (int row = 0; row < depth; row++) {
+            if (cells[row][columns[row]] < estimate) {
+                cells[row][columns[row]] = estimate;
+            }
+        }
+        total += count;
+        return estimate;
+    }
+
+    /**
+     * @param key the key
+     * @return the estimate of the count of the key, never below its count
+     */
+    public long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row][column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Halve all the counts, so that the older occurrences weigh less than the recent ones.
+     */
+    public void halve() {
+        for (long[] row : cells) {
+            for (int column = 0; column < width; column++) {
+                row[column] >>>= 1;
+            }
+        }
+        total >>>= 1;
+    }
+
+    /**
+     * The rows use the hashes {@code h1 + row * h2} of the two halves of a 64-bit hash.
+     */
+    private int column(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+
+    /**
+     * @return the 64-bit FNV-1a hash of the UTF-8 bytes of the key, with a final mix of the bits
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
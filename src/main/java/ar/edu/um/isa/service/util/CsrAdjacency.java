@@ -0,0 +1,267 @@
+package ar.edu.um.isa.service.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Immutable adjacency lists of a directed graph of long ids, in compressed sparse row layout.
+ * <p>
+ * The source ids are sorted in {@code sources}; the targets of {@code sources[i]} are
+ * {@code targets[offsets[i]]} to {@code targets[offsets[i + 1] - 1]}, sorted too. A lookup is a binary search,
+ * and the whole graph takes 12 bytes per source and 8 bytes per edge, without any object per edge.
+ */
+public final class CsrAdjacency {
+
+    public static final long[] EMPTY = new long[0];
+
+    private static final CsrAdjacency EMPTY_ADJACENCY = new CsrAdjacency(EMPTY, new int[]{0}, EMPTY);
+
+    private final long[] sources;
+
+    private final int[] offsets;
+
+    private final long[] targets;
+
+    /**
+     * @param sources the source ids, sorted and distinct
+     * @param offsets the start of the targets of each source, followed by the number of edges
+     * @param targets the targets, sorted and distinct for each source
+     */
+    public CsrAdjacency(long[] sources, int[] offsets, long[] targets) {
+        if (offsets.length != sources.length + 1 || offsets[sources.length] != targets.length) {
+            throw new IllegalArgumentException("The offsets do not match the sources and the targets");
+        }
+        this.sources = sources;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    public static CsrAdjacency empty() {
+        return EMPTY_ADJACENCY;
+    }
+
+    /**
+     * @return the adjacency of the reversed edges
+     */
+    public CsrAdjacency transpose() {
+        if (targets.length == 0) {
+            return empty();
+        }
+        long[] reversedSources = targets.clone();
+        Arrays.sort(reversedSources);
+        int distinct = 0;
+        for (int i = 0; i < reversedSources.length; i++) {
+            if (i == 0 || reversedSources[i] != reversedSources[i - 1]) {
+                reversedSources[distinct++] = reversedSources[i];
+            }
+        }
+        reversedSources = Arrays.copyOf(reversedSources, distinct);
+
+        // counting sort of the edges by target: the sources come in order, so each new row stays sorted
+        int[] reversedOffsets = new int[distinct + 1];
+        for (long target : targets) {
+            reversedOffsets[Arrays.binarySearch(reversedSources, target) + 1]++;
+        }
+        for (int i = 0; i < distinct; i++) {
+            reversedOffsets[i + 1] += reversedOffsets[i];
+        }
+        int[] next = Arrays.copyOf(reversedOffsets, distinct);
+        long[] reversedTargets = new long[targets.length];
+        for (int i = 0; i < sources.length; i++) {
+            for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+                reversedTargets[next[Arrays.binarySearch(reversedSources, targets[edge])]++] = sources[i];
+            }
+        }
+        return new CsrAdjacency(reversedSources, reversedOffsets, reversedTargets);
+    }
+
+    /**
+     * @param source a source id
+     * @return a copy of the sorted targets of the source, empty if it has none
+     */
+    public long[] targetsOf(long source) {
+        int row = Arrays.binarySearch(sources, source);
+        return row < 0 ? EMPTY : Arrays.copyOfRange(targets, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * @param source a source id
+     * @return the number of targets of the source
+     */
+    public int degreeOf(long source) {
+        int row = Arrays.binarySearch(sources, source);
+        return row < 0 ? 0 : offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * @param source a source id
+     * @param target a target id
+     * @return whether the edge exists
+     */
+    public boolean contains(long source, long target) {
+        int row = Arrays.binarySearch(sources, source);
+        return row >= 0 && Arrays.binarySearch(targets, offsets[row], offsets[row + 1], target) >= 0;
+    }
+
+    public int sourceCount() {
+        return sources.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @return the size of the arrays, in bytes
+     */
+    public long memoryUsage() {
+        return (long) sources.length * Long.BYTES + (long) offsets.length * Integer.BYTES + (long) targets.length * Long.BYTES;
+    }
+
+    /**
+     * @return the number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    public long byteSize() {
+        return 2L * Integer.BYTES + memoryUsage();
+    }
+
+    /**
+     * Write the arrays to a buffer, in the buffer's byte order.
+     *
+     * @param buffer the buffer, with {@link #byteSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(sources.length);
+        buffer.putInt(targets.length);
+        buffer.asLongBuffer().put(sources);
+        buffer.position(buffer.position() + sources.length * Long.BYTES);
+        buffer.asIntBuffer().put(offsets);
+        buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+        buffer.asLongBuffer().put(targets);
+        buffer.position(buffer.position() + targets.length * Long.BYTES);
+    }
+
+    /**
+     * Read the arrays written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer, in the byte order it was written with
+     * @return the adjacency
+     */
+    public static CsrAdjacency readFrom(ByteBuffer buffer) {
+        long[] sources = new long[buffer.getInt()];
+        long[] targets = new long[buffer.getInt()];
+        int[] offsets = new int[sources.length + 1];
+        buffer.asLongBuffer().get(sources);
+        buffer.position(buffer.position() + sources.length * Long.BYTES);
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+        buffer.asLongBuffer().get(targets);
+        buffer.position(buffer.position() + targets.length * Long.BYTES);
+        return new CsrAdjacency(sources, offsets, targets);
+    }
+
+    /**
+     * Build an adjacency with the given rows replacing the ones of this adjacency.
+     *
+     * @param rows the new sorted targets by source id, sorted by source id; an empty row removes the source
+     * @return the new adjacency
+     */
+    public CsrAdjacency withRows(SortedMap<Long, long[]> rows) {
+        if (rows.isEmpty()) {
+            return this;
+        }
+        int edges = targets.length;
+        for (Map.Entry<Long, long[]> row : rows.entrySet()) {
+            edges += row.getValue().length - degreeOf(row.getKey());
+        }
+        Builder builder = new Builder(edges);
+        int i = 0;
+        for (Map.Entry<Long, long[]> row : rows.entrySet()) {
+            long source = row.getKey();
+            for (; i < sources.length && sources[i] < source; i++) {
+                builder.addRow(sources[i], targets, offsets[i], offsets[i + 1]);
+            }
+            if (i < sources.length && sources[i] == source) {
+                i++;
+            }
+            builder.addRow(source, row.getValue(), 0, row.getValue().length);
+        }
+        for (; i < sources.length; i++) {
+            builder.addRow(sources[i], targets, offsets[i], offsets[i + 1]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builder of an adjacency from edges added in (source, target) order.
+     */
+    public static final class Builder {
+
+        private long[] sources;
+
+        private int[] offsets;
+
+        private long[] targets;
+
+        private int sourceCount;
+
+        private int edgeCount;
+
+        /**
+         * @param expectedEdges the expected number of edges, the arrays grow if needed
+         */
+        public Builder(int expectedEdges) {
+            int capacity = Math.max(16, expectedEdges);
+            this.sources = new long[capacity];
+            this.offsets = new int[capacity + 1];
+            this.targets = new long[capacity];
+        }
+
+        /**
+         * Add an edge; duplicates of the previous edge are ignored.
+         *
+         * @param source the source, not smaller than the previous one
+         * @param target the target, greater than the previous one of the same source
+         * @return this builder
+         */
+        public Builder add(long source, long target) {
+            boolean newSource = sourceCount == 0 || sources[sourceCount - 1] != source;
+            if (!newSource && targets[edgeCount - 1] == target) {
+                return this;
+            }
+            if (newSource) {
+                if (sourceCount > 0 && sources[sourceCount - 1] > source) {
+                    throw new IllegalArgumentException("The edges are not sorted by source: " + source);
+                }
+                if (sourceCount == sources.length) {
+                    sources = Arrays.copyOf(sources, sources.length * 2);
+                    offsets = Arrays.copyOf(offsets, sources.length + 1);
+                }
+                sources[sourceCount] = source;
+                offsets[sourceCount] = edgeCount;
+                sourceCount++;
+            } else if (targets[edgeCount - 1] > target) {
+                throw new IllegalArgumentException("The edges of " + source + " are not sorted by target: " + target);
+            }
+            if (edgeCount == targets.length) {
+                targets = Arrays.copyOf(targets, targets.length * 2);
+            }
+            targets[edgeCount++] = target;
+            return this;
+        }
+
+        private void addRow(long source, long[] rowTargets, int from, int to) {
+            for (int edge = from; edge < to; edge++) {
+                add(source, rowTargets[edge]);
+            }
+        }
+
+        public CsrAdjacency build() {
+            int[] builtOffsets = Arrays.copyOf(offsets, sourceCount + 1);
+            builtOffsets[sourceCount] = edgeCount;
+            return new CsrAdjacency(Arrays.copyOf(sources, sourceCount), builtOffsets, Arrays.copyOf(targets, edgeCount));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ar.edu.um.isa.service.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class finding the most frequent string keys of a stream in a fixed memory.
+ * <p>
+ * The keys are counted by a {@link CountMinSketch}, and the most frequent ones are monitored by a Space-Saving
+ * summary of a fixed capacity, kept in a min-heap by count. A key that is not monitored replaces the least counted
+ * monitored key only when its estimate exceeds that count, so that the many rare keys, like spam tags, do not
+ * evict each other. The count of a monitored key never underestimates its number of occurrences, and its count
+ * minus its error never overestimates it.
+ * <p>
+ * The counts can be halved periodically, so that the summary follows the recent trends.
+ */
+public final class HeavyHitters {
+
+    private static final Comparator<Estimate> BY_DESCENDING_COUNT =
+        Comparator.comparingLong(Estimate::getCount).reversed().thenComparing(Estimate::getKey);
+
+    private final CountMinSketch sketch;
+
+    private final int capacity;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * The monitored entries in a binary min-heap by count, whose root is the least counted one.
+     */
+    private final Entry[] heap;
+
+    private int size;
+
+    /**
+     * @param capacity the number of monitored keys
+     * @param epsilon the error of the sketch estimates, relative to the total of the counts
+     * @param delta the probability for a sketch estimate to exceed the error
+     */
+    public HeavyHitters(int capacity, double epsilon, double delta) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.heap = new Entry[capacity];
+    }
+
+    /**
+     * @param key the key
+     * @param count the number of occurrences, positive
+     */
+    public synchronized void add(String key, int count) {
+        long estimate = sketch.add(key, count);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.count = Math.min(entry.count + count, estimate);
+            siftDown(entry.position);
+        } else if (size < capacity) {
+            entry = new Entry(key, estimate, estimate - count);
+            entries.put(key, entry);
+            entry.position = size;
+            heap[size] = entry;
+            siftUp(size++);
+        } else if (estimate > heap[0].count) {
+            Entry evicted = heap[0];
+            entries.remove(evicted.key);
+            long replacedCount = Math.min(estimate, evicted.count + count);
+            entry = new Entry(key, replacedCount, replacedCount - count);
+            entries.put(key, entry);
+            entry.position = 0;
+            heap[0] = entry;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @param limit the maximum number of keys
+     * @return the most frequent monitored keys, by descending count, then by key
+     */
+    public synchronized List<Estimate> top(int limit) {
+        List<Estimate> estimates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            estimates.add(new Estimate(heap[i].key, heap[i].count, heap[i].error));
+        }
+        estimates.sort(BY_DESCENDING_COUNT);
+        return estimates.size() <= limit ? estimates : new ArrayList<>(estimates.subList(0, limit));
+    }
+
+    /**
+     * @param key the key
+     * @return the sketch estimate of the count of the key, monitored or not
+     */
+    public synchronized long estimate(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.count : sketch.estimate(key);
+    }
+
+    /**
+     * @return the total of the counts, halved with them
+     */
+    public synchronized long getTotal() {
+        return sketch.getTotal();
+    }
+
+    /**
+     * Halve all the counts; the keys whose count drops to zero stop being monitored.
+     */
+    public synchronized void halve() {
+        sketch.halve();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Entry entry = heap[i];
+            entry.count >>>= 1;
+            entry.error >>>= 1;
+            if (entry.count > 0) {
+                heap[kept++] = entry;
+            } else {
+                entries.remove(entry.key);
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            heap[i] = null;
+        }
+        size = kept;
+        // halving keeps the order of the counts, but the removals moved the entries
+        for (int i = 0; i < size; i++) {
+            heap[i].position = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int node) {
+        while (node > 0) {
+            int parent = (node - 1) / 2;
+            if (heap[parent].count <= heap[node].count) {
+                return;
+            }
+            swap(node, parent);
+            node = parent;
+        }
+    }
+
+    private void siftDown(int node) {
+        while (true) {
+            int child = 2 * node + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[node].count <= heap[child].count) {
+                return;
+            }
+            swap(node, child);
+            node = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Entry swapped = heap[i];
+        heap[i] = heap[j];
+        heap[j] = swapped;
+        heap[i].position = i;
+        heap[j].position = j;
+    }
+
+    private static final class Entry {
+
+        private final String key;
+
+        private long count;
+
+        private long error;
+
+        private int position;
+
+        Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The estimated count of a key.
+     */
+    public static final class Estimate {
+
+        private final String key;
+
+        private final long count;
+
+        private final long error;
+
+        public Estimate(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the estimated number of occurrences, never below the actual number
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the maximum overestimation of the count
+         */
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ar.edu.um.isa.service.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class for merging sorted arrays of primitive longs, and using them as sets.
+ */
+public final class LongMergeUtil {
+
+    private LongMergeUtil() {
+    }
+
+    /**
+     * Merge arrays sorted in descending order, with a binary heap over the heads of the arrays.
+     * <p>
+     * Merging takes O(k + n log k) for k arrays and n values taken, whatever the length of the arrays.
+     * Values present in several arrays are only taken once.
+     *
+     * @param arrays the arrays, each sorted in descending order
+     * @param before the exclusive upper bound of the values to take
+     * @param floor the inclusive lower bound of the values to take
+     * @param limit the maximum number of values to take
+     * @return the greatest values between the bounds, in descending order
+     */
+    public static long[] mergeDescending(List<long[]> arrays, long before, long floor, int limit) {
+        int[] heap = new int[arrays.size()];
+        int[] positions = new int[arrays.size()];
+        int heapSize = 0;
+        for (int i = 0; i < arrays.size(); i++) {
+            positions[i] = firstBelow(arrays.get(i), before);
+            if (positions[i] < arrays.get(i).length) {
+                heap[heapSize++] = i;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, arrays, positions);
+        }
+
+        long[] result = new long[limit];
+        int count = 0;
+        while (heapSize > 0 && count < limit) {
+            int top = heap[0];
+            long value = arrays.get(top)[positions[top]];
+            if (value < floor) {
+                break;
+            }
+            if (count == 0 || result[count - 1] != value) {
+                result[count++] = value;
+            }
+            if (++positions[top] == arrays.get(top).length) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, arrays, positions);
+        }
+        return count == limit ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersect arrays sorted in ascending order, by walking both at once.
+     *
+     * @param first an array sorted in ascending order, without duplicates
+     * @param second an array sorted in ascending order, without duplicates
+     * @return the values present in both arrays, in ascending order
+     */
+    public static long[] intersectAscending(long[] first, long[] second) {
+        long[] result = new long[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @param array an array sorted in ascending order, without duplicates
+     * @param values the values to add, in any order
+     * @return a new sorted array with the values added, or the given array if they were all present
+     */
+    public static long[] addAscending(long[] array, long... values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long[] result = new long[array.length + sorted.length];
+        int count = 0;
+        int i = 0;
+        for (int j = 0; j < sorted.length; j++) {
+            if (j > 0 && sorted[j] == sorted[j - 1]) {
+                continue;
+            }
+            while (i < array.length && array[i] < sorted[j]) {
+                result[count++] = array[i++];
+            }
+            if (i == array.length || array[i] != sorted[j]) {
+                result[count++] = sorted[j];
+            }
+        }
+        if (count == i) {
+            return array;
+        }
+        System.arraycopy(array, i, result, count, array.length - i);
+        return Arrays.copyOf(result, count + array.length - i);
+    }
+
+    /**
+     * @param array an array sorted in ascending order, without duplicates
+     * @param values the values to remove, in any order
+     * @return a new sorted array without the values, or the given array if none of them was present
+     */
+    public static long[] removeAscending(long[] array, long... values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long[] result = new long[array.length];
+        int count = 0;
+        for (long value : array) {
+            if (Arrays.binarySearch(sorted, value) < 0) {
+                result[count++] = value;
+            }
+        }
+        return count == array.length ? array : Arrays.copyOf(result, count);
+    }
+
+    private static int firstBelow(long[] array, long before) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (array[middle] >= before) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int index, List<long[]> arrays, int[] positions) {
+        int current = index;
+        while (true) {
+            int largest = current;
+            int left = 2 * current + 1;
+            int right = left + 1;
+            if (left < heapSize && head(heap[left], arrays, positions) > head(heap[largest], arrays, positions)) {
+                largest = left;
+            }
+            if (right < heapSize && head(heap[right], arrays, positions) > head(heap[largest], arrays, positions)) {
+                largest = right;
+            }
+            if (largest == current) {
+                return;
+            }
+            int swap = heap[current];
+            heap[current] = heap[largest];
+            heap[largest] = swap;
+            current = largest;
+        }
+    }
+
+    private static long head(int array, List<long[]> arrays, int[] positions) {
+        return arrays.get(array)[positions[array]];
+    }
+}
@@ -0,0 +1,81 @@
+package ar.edu.um.isa.service.util;
+
+/**
+ * A bounded buffer of primitive longs, overwriting its oldest value when full.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class LongRingBuffer {
+
+    private final long[] values;
+
+    private int next;
+
+    private int size;
+
+    public LongRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Add a value, dropping the oldest one when the buffer is full.
+     *
+     * @param value the value to add
+     * @return true if the oldest value was dropped
+     */
+    public boolean add(long value) {
+        boolean overwrite = size == values.length;
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (!overwrite) {
+            size++;
+        }
+        return overwrite;
+    }
+
+    /**
+     * Remove the most recently added occurrence of a value, keeping the order of the others.
+     *
+     * @param value the value to remove
+     * @return true if the value was found
+     */
+    public boolean remove(long value) {
+        for (int i = 0, index = next; i < size; i++) {
+            index = index == 0 ? values.length - 1 : index - 1;
+            if (values[index] == value) {
+                // shift the newer values back over the removed one
+                for (int from = (index + 1) % values.length; from != next; from = (from + 1) % values.length) {
+                    values[index] = values[from];
+                    index = from;
+                }
+                next = index;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the values, the most recently added first
+     */
+    public long[] toArrayNewestFirst() {
+        long[] result = new long[size];
+        for (int i = 0, index = next; i < size; i++) {
+            index = index == 0 ? values.length - 1 : index - 1;
+            result[i] = values[index];
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+}
@@ -0,0 +1,349 @@
+package ar.edu.um.isa.service.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class suggesting the best scored string keys starting with a prefix.
+ * <p>
+ * The keys are stored in a trie whose children are kept in sorted arrays, and every node keeps the best scored
+ * keys below it, up to a fixed limit. A suggestion walks the characters of the prefix and copies the list of
+ * the node reached, so it costs the length of the prefix whatever the number of keys. Changing the score of a
+ * key updates the lists along its path; only a key leaving a full list makes a node merge the lists of its
+ * children again.
+ * <p>
+ * Scaling all the scores keeps their order, so the lists are kept as they are. The methods are synchronized.
+ */
+public final class PrefixIndex {
+
+    private static final Comparator<Entry> BY_DESCENDING_SCORE =
+        Comparator.comparingDouble((Entry entry) -> entry.score).reversed().thenComparing(entry -> entry.key);
+
+    private static final char[] NO_LABELS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int limit;
+
+    private final Node root = new Node();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * @param limit the number of best keys kept for every prefix, and the maximum number of suggestions
+     */
+    public PrefixIndex(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param key the key
+     * @return whether the key is indexed
+     */
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @param key the key
+     * @return the score of the key, or 0 if it is not indexed
+     */
+    public synchronized double score(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.score : 0;
+    }
+
+    /**
+     * Index a key with a score, replacing its score if it is already indexed.
+     *
+     * @param key the key, not empty
+     * @param score the score, not negative
+     */
+    public synchronized void put(String key, double score) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("The key must not be empty");
+            }
+            entry = new Entry(key, score);
+            entries.put(key, entry);
+            Node[] path = path(key, true);
+            path[path.length - 1].terminal = entry;
+            for (Node node : path) {
+                offer(node, entry);
+            }
+        } else {
+            double previous = entry.score;
+            entry.score = score;
+            rescore(entry, score < previous);
+        }
+    }
+
+    /**
+     * Add to the score of an indexed key.
+     *
+     * @param key the key
+     * @param delta the score to add, not negative
+     * @return false if the key is not indexed
+     */
+    public synchronized boolean increment(String key, double delta) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.score += delta;
+        rescore(entry, false);
+        return true;
+    }
+
+    /**
+     * @param key the key
+     * @return false if the key was not indexed
+     */
+    public synchronized boolean remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        Node[] path = path(key, false);
+        Node leaf = path[path.length - 1];
+        leaf.terminal = null;
+        // the deepest nodes are rebuilt first, their parents merge them
+        for (int depth = path.length - 1; depth >= 0; depth--) {
+            Node node = path[depth];
+            if (indexOf(node, entry) >= 0) {
+                rebuild(node);
+            }
+            if (depth > 0 && node.terminal == null && node.labels.length == 0) {
+                removeChild(path[depth - 1], key.charAt(depth - 1));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Multiply all the scores, so that the older uses weigh less than the recent ones.
+     *
+     * @param factor the factor, between 0 and 1
+     */
+    public synchronized void scale(double factor) {
+        for (Entry entry : entries.values()) {
+            entry.score *= factor;
+        }
+    }
+
+    /**
+     * @param prefix the prefix, empty for the best keys of all
+     * @param size the maximum number of keys, at most the limit
+     * @return the best scored keys starting with the prefix, by descending score, then by key
+     */
+    public synchronized List<Suggestion> suggest(String prefix, int size) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        if (node == null) {
+            return new ArrayList<>();
+        }
+        int count = Math.min(size, node.size);
+        List<Suggestion> suggestions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            suggestions.add(new Suggestion(node.top[i].key, node.top[i].score));
+        }
+        return suggestions;
+    }
+
+    private void rescore(Entry entry, boolean decreased) {
+        Node[] path = path(entry.key, false);
+        for (int depth = path.length - 1; depth >= 0; depth--) {
+            Node node = path[depth];
+            int index = indexOf(node, entry);
+            if (index < 0) {
+                offer(node, entry);
+            } else if (decreased && node.size == limit) {
+                // a key below the node may now be better than the decreased one
+                rebuild(node);
+            } else {
+                sort(node);
+            }
+        }
+    }
+
+    /**
+     * Add an entry to the best ones of a node, if it is good enough.
+     */
+    private void offer(Node node, Entry entry) {
+        if (node.size < limit) {
+            if (node.top.length == node.size) {
+                node.top = Arrays.copyOf(node.top, Math.min(limit, Math.max(2, node.size * 2)));
+            }
+            node.top[node.size++] = entry;
+        } else if (BY_DESCENDING_SCORE.compare(entry, node.top[limit - 1]) < 0) {
+            node.top[limit - 1] = entry;
+        } else {
+            return;
+        }
+        sort(node);
+    }
+
+    private void sort(Node node) {
+        Arrays.sort(node.top, 0, node.size, BY_DESCENDING_SCORE);
+    }
+
+    /**
+     * Merge the best entries of the children of a node, and its own entry.
+     */
+    private void rebuild(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.terminal != null) {
+            candidates.add(node.terminal);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top).subList(0, child.size));
+        }
+        candidates.sort(BY_DESCENDING_SCORE);
+        int size = Math.min(limit, candidates.size());
+        node.top = candidates.subList(0, size).toArray(NO_ENTRIES);
+        node.size = size;
+    }
+
+    private static int indexOf(Node node, Entry entry) {
+        for (int i = 0; i < node.size; i++) {
+            if (node.top[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the nodes from the root to the node of the key
+     */
+    private Node[] path(String key, boolean create) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = child(node, key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    throw new IllegalStateException("No node for the key " + key);
+                }
+                child = addChild(node, key.charAt(i));
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+        return path;
+    }
+
+    private static Node child(Node node, char label) {
+        int index = Arrays.binarySearch(node.labels, label);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    private static Node addChild(Node node, char label) {
+        int insertion = -Arrays.binarySearch(node.labels, label) - 1;
+        char[] labels = new char[node.labels.length + 1];
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.labels, 0, labels, 0, insertion);
+        System.arraycopy(node.children, 0, children, 0, insertion);
+        System.arraycopy(node.labels, insertion, labels, insertion + 1, node.labels.length - insertion);
+        System.arraycopy(node.children, insertion, children, insertion + 1, node.children.length - insertion);
+        Node child = new Node();
+        labels[insertion] = label;
+        children[insertion] = child;
+        node.labels = labels;
+        node.children = children;
+        return child;
+    }
+
+    private static void removeChild(Node node, char label) {
+        int index = Arrays.binarySearch(node.labels, label);
+        if (index < 0) {
+            return;
+        }
+        char[] labels = new char[node.labels.length - 1];
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.labels, 0, labels, 0, index);
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.labels, index + 1, labels, index, labels.length - index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        node.labels = labels.length == 0 ? NO_LABELS : labels;
+        node.children = children.length == 0 ? NO_CHILDREN : children;
+    }
+
+    private static final class Node {
+
+        private char[] labels = NO_LABELS;
+
+        private Node[] children = NO_CHILDREN;
+
+        /**
+         * The entry of the key ending at this node, if any.
+         */
+        private Entry terminal;
+
+        /**
+         * The best entries below this node, sorted, in the first {@code size} slots.
+         */
+        private Entry[] top = NO_ENTRIES;
+
+        private int size;
+    }
+
+    private static final class Entry {
+
+        private final String key;
+
+        private double score;
+
+        Entry(String key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+    }
+
+    /**
+     * A suggested key, with its score.
+     */
+    public static final class Suggestion {
+
+        private final String key;
+
+        private final double score;
+
+        public Suggestion(String key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package ar.edu.um.isa.service.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility class counting the occurrences of keys over a sliding window of time.
+ * <p>
+ * The window is a ring of buckets of a fixed duration, each counting the occurrences of the keys during its
+ * time, and the totals of the keys over the whole window are kept alongside. When the time moves to a new bucket,
+ * the counts of the expired buckets are subtracted from the totals and the buckets are reused. Ranking the whole
+ * window reads the totals only; a shorter window sums its buckets. The best keys are selected with a bounded
+ * heap, see {@link TopK}, so ranking costs one pass over the counted keys whatever the number of results.
+ * <p>
+ * The methods are synchronized; the occurrences are few compared to a publication, and the rankings are meant
+ * to be kept for a while by the caller.
+ */
+public final class SlidingWindowCounter {
+
+    private final int bucketCount;
+
+    private final long bucketMillis;
+
+    /**
+     * The counts of the buckets, by key; the bucket of a time is at its bucket number modulo the bucket count.
+     */
+    private final Map<Long, int[]>[] buckets;
+
+    private final Map<Long, long[]> totals = new HashMap<>();
+
+    /**
+     * The number of the newest bucket, counted from the epoch.
+     */
+    private long newestBucket;
+
+    @SuppressWarnings("unchecked")
+    public SlidingWindowCounter(int bucketCount, long bucketMillis) {
+        if (bucketCount < 1 || bucketMillis < 1) {
+            throw new IllegalArgumentException("The window needs buckets of a positive duration");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+        this.buckets = new Map[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashMap<>();
+        }
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * Count occurrences of a key. Occurrences older than the window are ignored, and newer ones move the window.
+     * A negative count removes occurrences; a key whose count falls to zero is no longer counted.
+     *
+     * @param key the key
+     * @param timeMillis the time of the occurrences, in milliseconds since the epoch
+     * @param count the number of occurrences, negative to remove occurrences
+     */
+    public synchronized void add(long key, long timeMillis, int count) {
+        long bucket = Math.floorDiv(timeMillis, bucketMillis);
+        advance(bucket);
+        if (bucket <= newestBucket - bucketCount || count == 0) {
+            return;
+        }
+        Map<Long, int[]> counts = buckets[slotOf(bucket)];
+        int[] occurrences = counts.computeIfAbsent(key, k -> new int[1]);
+        occurrences[0] += count;
+        if (occurrences[0] == 0) {
+            counts.remove(key);
+        }
+        addToTotal(key, count);
+    }
+
+    /**
+     * @return the number of keys counted in the window
+     */
+    public synchronized int size() {
+        return totals.size();
+    }
+
+    /**
+     * @param windowBuckets the number of newest buckets to rank, at most the bucket count
+     * @param nowMillis the current time, in milliseconds since the epoch
+     * @param limit the maximum number of keys to rank
+     * @return the keys counted in the newest buckets, by descending count, then by ascending key
+     */
+    public synchronized Ranking top(int windowBuckets, long nowMillis, int limit) {
+        advance(Math.floorDiv(nowMillis, bucketMillis));
+        if (windowBuckets >= bucketCount) {
+            return top(totals, limit);
+        }
+        Map<Long, long[]> counts = new HashMap<>();
+        for (long bucket = newestBucket - windowBuckets + 1; bucket <= newestBucket; bucket++) {
+            for (Map.Entry<Long, int[]> entry : buckets[slotOf(bucket)].entrySet()) {
+                counts.computeIfAbsent(entry.getKey(), k -> new long[1])[0] += entry.getValue()[0];
+            }
+        }
+        return top(counts, limit);
+    }
+
+    /**
+     * Move the window so that its newest bucket is the given one, expiring the buckets left behind.
+     */
+    private void advance(long bucket) {
+        if (bucket <= newestBucket) {
+            return;
+        }
+        if (bucket - newestBucket >= bucketCount) {
+            for (Map<Long, int[]> expired : buckets) {
+                expired.clear();
+            }
+            totals.clear();
+        } else {
+            for (long expiring = newestBucket + 1; expiring <= bucket; expiring++) {
+                Map<Long, int[]> expired = buckets[slotOf(expiring)];
+                for (Map.Entry<Long, int[]> entry : expired.entrySet()) {
+                    addToTotal(entry.getKey(), -entry.getValue()[0]);
+                }
+                expired.clear();
+            }
+        }
+        newestBucket = bucket;
+    }
+
+    /**
+     * The occurrences removed from a bucket may leave a total at zero while other buckets count the key, so a
+     * missing total is zero.
+     */
+    private void addToTotal(long key, long count) {
+        long[] total = totals.computeIfAbsent(key, k -> new long[1]);
+        total[0] += count;
+        if (total[0] == 0) {
+            totals.remove(key);
+        }
+    }
+
+    private int slotOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+
+    private static Ranking top(Map<Long, long[]> counts, int limit) {
+        TopK topK = new TopK(Math.min(limit, counts.size()));
+        for (Map.Entry<Long, long[]> entry : counts.entrySet()) {
+            topK.offer(entry.getKey(), entry.getValue()[0]);
+        }
+        return topK.rank();
+    }
+
+    /**
+     * Ranked keys, with their counts.
+     */
+    public static final class Ranking {
+
+        public static final Ranking EMPTY = new Ranking(new long[0], new long[0]);
+
+        private final long[] keys;
+
+        private final long[] counts;
+
+        public Ranking(long[] keys, long[] counts) {
+            if (keys.length != counts.length) {
+                throw new IllegalArgumentException("The keys do not match the counts");
+            }
+            this.keys = keys;
+            this.counts = counts;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        public long getKey(int rank) {
+            return keys[rank];
+        }
+
+        public long getCount(int rank) {
+            return counts[rank];
+        }
+    }
+}
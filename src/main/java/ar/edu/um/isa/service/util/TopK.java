@@ -0,0 +1,109 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.SlidingWindowCounter.Ranking;
+
+/**
+ * Utility class selecting the best counted keys of a stream with a bounded heap, in one pass and without
+ * sorting the whole stream.
+ * <p>
+ * The keys are ranked by descending count, then by ascending key; the keys counted zero or less are skipped.
+ * This class is not thread-safe.
+ */
+public final class TopK {
+
+    /**
+     * The best keys offered so far, in a binary min-heap whose root is the worst one kept.
+     */
+    private final long[] heapKeys;
+
+    private final long[] heapCounts;
+
+    private int heapSize;
+
+    /**
+     * @param limit the maximum number of keys to rank
+     */
+    public TopK(int limit) {
+        this.heapKeys = new long[Math.max(0, limit)];
+        this.heapCounts = new long[Math.max(0, limit)];
+    }
+
+    /**
+     * @param key the key, offered once
+     * @param count its count
+     */
+    public void offer(long key, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (heapSize < heapKeys.length) {
+            heapKeys[heapSize] = key;
+            heapCounts[heapSize] = count;
+            siftUp(heapSize++);
+        } else if (heapSize > 0 && isBetter(key, count, heapKeys[0], heapCounts[0])) {
+            heapKeys[0] = key;
+            heapCounts[0] = count;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Rank the keys kept, emptying the heap.
+     *
+     * @return the best keys offered, by descending count, then by ascending key
+     */
+    public Ranking rank() {
+        long[] rankedKeys = new long[heapSize];
+        long[] rankedCounts = new long[heapSize];
+        while (heapSize > 0) {
+            rankedKeys[heapSize - 1] = heapKeys[0];
+            rankedCounts[heapSize - 1] = heapCounts[0];
+            heapSize--;
+            heapKeys[0] = heapKeys[heapSize];
+            heapCounts[0] = heapCounts[heapSize];
+            siftDown(0);
+        }
+        return new Ranking(rankedKeys, rankedCounts);
+    }
+
+    private static boolean isBetter(long key, long count, long otherKey, long otherCount) {
+        return count > otherCount || count == otherCount && key < otherKey;
+    }
+
+    private void siftUp(int node) {
+        while (node > 0) {
+            int parent = (node - 1) / 2;
+            if (!isBetter(heapKeys[parent], heapCounts[parent], heapKeys[node], heapCounts[node])) {
+                return;
+            }
+            swap(node, parent);
+            node = parent;
+        }
+    }
+
+    private void siftDown(int node) {
+        while (true) {
+            int child = 2 * node + 1;
+            if (child >= heapSize) {
+                return;
+            }
+            if (child + 1 < heapSize && isBetter(heapKeys[child], heapCounts[child], heapKeys[child + 1], heapCounts[child + 1])) {
+                child++;
+            }
+            if (!isBetter(heapKeys[node], heapCounts[node], heapKeys[child], heapCounts[child])) {
+                return;
+            }
+            swap(node, child);
+            node = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = heapKeys[i];
+        heapKeys[i] = heapKeys[j];
+        heapKeys[j] = key;
+        long count = heapCounts[i];
+        heapCounts[i] = heapCounts[j];
+        heapCounts[j] = count;
+    }
+}
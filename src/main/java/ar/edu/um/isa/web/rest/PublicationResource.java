@@ -1,29 +1,38 @@
 package ar.edu.um.isa.web.rest;
 
 import ar.edu.um.isa.domain.Publisher;
-import ar.edu.um.isa.domain.Tag;
-import ar.edu.um.isa.domain.User;
 import ar.edu.um.isa.repository.PublisherRepository;
-import ar.edu.um.isa.repository.TagRepository;
-import ar.edu.um.isa.repository.UserRepository;
 import com.codahale.metrics.annotation.Timed;
 import ar.edu.um.isa.domain.Publication;
 import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.security.AuthoritiesConstants;
+import ar.edu.um.isa.service.PublicationImportService;
+import ar.edu.um.isa.service.PublicationQueryService;
+import ar.edu.um.isa.service.PublicationSearchService;
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.dto.PublicationCriteria;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
 import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
 import ar.edu.um.isa.web.rest.util.HeaderUtil;
+import ar.edu.um.isa.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.time.LocalDate;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -37,19 +46,32 @@ public class PublicationResource {
 
     private static final String ENTITY_NAME = "publication";
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    static final int MAX_VIEWER_STATES = 500;
+
     private final PublicationRepository publicationRepository;
 
-    @Autowired
-    private UserRepository userRepository;
+    private final PublicationService publicationService;
 
-    @Autowired
-    private PublisherRepository publisherRepository;
+    private final PublicationImportService publicationImportService;
+
+    private final PublicationSearchService publicationSearchService;
+
+    private final PublicationQueryService publicationQueryService;
 
     @Autowired
-    private TagRepository tagRepository;
+    private PublisherRepository publisherRepository;
 
-    public PublicationResource(PublicationRepository publicationRepository) {
+    public PublicationResource(PublicationRepository publicationRepository, PublicationService publicationService,
+                               PublicationImportService publicationImportService,
+                               PublicationSearchService publicationSearchService,
+                               PublicationQueryService publicationQueryService) {
         this.publicationRepository = publicationRepository;
+        this.publicationService = publicationService;
+        this.publicationImportService = publicationImportService;
+        this.publicationSearchService = publicationSearchService;
+        this.publicationQueryService = publicationQueryService;
     }
 
     /**
@@ -67,45 +89,33 @@ public class PublicationResource {
             throw new BadRequestAlertException("A new publication cannot already have an ID", ENTITY_NAME, "idexists");
         }
 
-        List <String> mentions  = publication.analizeMentions();
-        if (!mentions.isEmpty()) {
-            Iterator<String> mentionsIt = mentions.iterator();
-            while (mentionsIt.hasNext()) {
-                User user = userRepository.findOneByLogin(mentionsIt.next()).orElse(null);
-                if (user != null) {
-                    log.debug("Mention found : {}", publication);
-                    publication.addMention(publisherRepository.findByUser_Id(user.getId()));
-                }
-            }
-        }
-
-        List<String> tags = publication.analizeTags();
-        if(!tags.isEmpty()){
-            Iterator<String> tagsIt = tags.iterator();
-            while (tagsIt.hasNext()){
-                String tagName = tagsIt.next();
-                Tag tag = tagRepository.findByName(tagName);
-                if (tag == null){
-                    Tag newtag = new Tag();
-                    newtag.setName(tagName);
-                    newtag.setLastUse(publication.getDate());
-                    tagRepository.save(newtag);
-                    log.debug("New tag found: {}", newtag);
-                }else {
-                    tag.setLastUse(publication.getDate());
-                    tagRepository.save(tag);
-                    log.debug("Tag updated: {}", tag);
-                }
-            }
-        }
-
-        Publication result = publicationRepository.save(publication);
-
+        Publication result = publicationService.createPublication(publication);
         return ResponseEntity.created(new URI("/api/publications/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /publications/import : Import publications in bulk.
+     * <p>
+     * The request body is read as a stream of publications, one JSON object per line, and the response body
+     * is streamed back as newline-delimited JSON events: the errors of the rejected lines, the progress after
+     * each chunk, and a final summary.
+     *
+     * @param request the request, whose body holds the publications to import
+     * @param response the response, whose body receives the import events
+     * @throws IOException if the request body cannot be read or the response body cannot be written
+     */
+    @PostMapping(path = "/publications/import", consumes = NDJSON_VALUE, produces = NDJSON_VALUE)
+    @Timed
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public void importPublications(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to import Publications");
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        publicationImportService.importPublications(request.getInputStream(), response.getOutputStream());
+    }
+
     /**
      * PUT  /publications : Updates an existing publication.
      *
@@ -122,7 +132,7 @@ public class PublicationResource {
         if (publication.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Publication result = publicationRepository.save(publication);
+        Publication result = publicationService.update(publication);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, publication.getId().toString()))
             .body(result);
@@ -141,6 +151,27 @@ public class PublicationResource {
         return publicationRepository.findAll();
     }
 
+    /**
+     * GET  /publications/filter : get a page of the publications matching all the given filters, newest first.
+     *
+     * @param criteria the publisher, tag, mention, visibility, country and date filters of the publications
+     * @param before the exclusive upper bound of the publication ids, from the X-Next-Cursor header of the previous page
+     * @param size the page size, at most {@link TimelineResource#MAX_PAGE_SIZE}
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body
+     */
+    @GetMapping("/publications/filter")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> getFilteredPublications(PublicationCriteria criteria,
+                                                                           @RequestParam(required = false) Long before,
+                                                                           @RequestParam(defaultValue = "" + TimelineResource.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get a page of Publications by criteria: {}", criteria);
+        int pageSize = Math.max(1, Math.min(size, TimelineResource.MAX_PAGE_SIZE));
+        List<PublicationRowDTO> rows = publicationQueryService.findByCriteria(criteria, before, pageSize);
+        Long nextCursor = rows.size() == pageSize ? rows.get(pageSize - 1).getId() : null;
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize, "/api/publications/filter");
+        return ResponseEntity.ok().headers(headers).body(rows);
+    }
+
     /**
      * GET  /publications/:id : get the "id" publication.
      *
@@ -166,7 +197,7 @@ public class PublicationResource {
     public ResponseEntity<Void> deletePublication(@PathVariable Long id) {
         log.debug("REST request to delete Publication : {}", id);
 
-        publicationRepository.deleteById(id);
+        publicationService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
@@ -182,17 +213,87 @@ public class PublicationResource {
 
     }
 
-    //Ver todas las publicaciones de un tag determinado
+    /**
+     * GET  /publications/tag/:id : get a page of the publications of the "id" tag.
+     * <p>
+     * Pages are requested by cursor, like the home timelines. A republish embeds the row of the publication it
+     * republishes. The number of publications of the tag is in the tag detail, GET /tags/:id.
+     *
+     * @param id the id of the tag
+     * @param before the exclusive upper bound of the publication ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body, newest first, or with
+     * status 404 (Not Found) if the tag does not exist
+     */
     @GetMapping("/publications/tag/{id}")
     @Timed
-    public List<Publication> getPublicationsByTag(@PathVariable Long id) {
-        log.debug("REST request to get Publication : {}", id);
-        Optional<Tag> tag = tagRepository.findById(id);
-        List<Publication> publications = publicationRepository.findPublicationsByTags(tag.get());
-        return publications;
+    public ResponseEntity<List<PublicationRowDTO>> getPublicationsByTag(@PathVariable Long id,
+                                                                        @RequestParam(required = false) Long before,
+                                                                        @RequestParam(defaultValue = "" + TimelineResource.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get the Publications of Tag : {}, before : {}", id, before);
+        int pageSize = Math.max(1, Math.min(size, TimelineResource.MAX_PAGE_SIZE));
+        return publicationService.findTagPublications(id, before, pageSize)
+            .map(rows -> {
+                Long nextCursor = rows.size() == pageSize ? rows.get(pageSize - 1).getId() : null;
+                HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize,
+                    "/api/publications/tag/" + id);
+                return ResponseEntity.ok().headers(headers).body(rows);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
 
+    /**
+     * GET  /_search/publications?q=:query : search the publications whose content matches the query.
+     * <p>
+     * The query words are all required; "quoted phrases", prefix* words, alternatives with "|" and exclusions
+     * with "-" are supported. Pages are requested by cursor, like the home timelines, and a republish embeds the
+     * row of the publication it republishes. The publications are searchable about a second after they are
+     * committed.
+     *
+     * @param q the query, absent to only filter the publications
+     * @param tag the name of a tag of the publications, absent for any tag
+     * @param publisherId the id of the publisher of the publications, absent for any publisher
+     * @param from the first date of the publications, absent for no lower bound
+     * @param to the last date of the publications, absent for no upper bound
+     * @param before the exclusive upper bound of the publication ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the matching publication rows in body, newest first
+     */
+    @GetMapping("/_search/publications")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> searchPublications(@RequestParam(required = false) String q,
+                                                                      @RequestParam(required = false) String tag,
+                                                                      @RequestParam(required = false) Long publisherId,
+                                                                      @RequestParam(required = false) LocalDate from,
+                                                                      @RequestParam(required = false) LocalDate to,
+                                                                      @RequestParam(required = false) Long before,
+                                                                      @RequestParam(defaultValue = "" + TimelineResource.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to search for a page of Publications for query {}", q);
+        int pageSize = Math.max(1, Math.min(size, TimelineResource.MAX_PAGE_SIZE));
+        List<PublicationRowDTO> rows = publicationSearchService.search(q, tag, publisherId, from, to, before, pageSize);
+        Long nextCursor = rows.size() == pageSize ? rows.get(pageSize - 1).getId() : null;
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize, "/api/_search/publications");
+        return ResponseEntity.ok().headers(headers).body(rows);
     }
 
+    /**
+     * POST  /_search/publications/rebuild : start rebuilding the search index from the database.
+     * <p>
+     * The index keeps serving the searches during the rebuild.
+     *
+     * @return the ResponseEntity with status 202 (Accepted), or with status 400 (Bad Request) if the index is
+     * already being rebuilt
+     */
+    @PostMapping("/_search/publications/rebuild")
+    @Timed
+    @PreAuthorize("hasRole(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        log.debug("REST request to rebuild the search index of the Publications");
+        if (!publicationSearchService.startRebuild()) {
+            throw new BadRequestAlertException("The search index is already being rebuilt", ENTITY_NAME, "rebuilding");
+        }
+        return ResponseEntity.accepted().build();
+    }
 
     //Ver todas las publicaciones de una mencion determinada
     @GetMapping("/publications/mentios/{id}")
@@ -207,42 +308,95 @@ public class PublicationResource {
     //Marcar como favorito publications
     @PutMapping("/publications/faved/{id_publications}/{id_publisher}")
     @Timed
-    public Publication favedPublication(@PathVariable Long id_publications, @PathVariable Long id_publisher) throws URISyntaxException {
-        Optional<Publication> publication = publicationRepository.findById(id_publications);
-        Optional<Publisher> publisher = publisherRepository.findById(id_publisher);
-
-        log.debug("REST request to faved Publication : {}", publication);
-
-        if (publicationRepository.findById(id_publications) == null) {
-            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
-        }
-        publication.get().addFavedBy(publisher.get());
-
-        Publication result = publicationRepository.save(publication.get());
-        return result;
-
-
+    public ResponseEntity<Publication> favedPublication(@PathVariable Long id_publications, @PathVariable Long id_publisher) {
+        log.debug("REST request to fave Publication {} by Publisher {}", id_publications, id_publisher);
+        Optional<Publication> result = publicationService.fave(id_publications, id_publisher);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id_publications.toString()));
     }
-  //Republicar
-  @PutMapping("/publications/republish/{id_publication}/{id_republish}")
-  @Timed
-  public Publication republishPublication(@PathVariable Long id_publication, @PathVariable Long id_republish) throws URISyntaxException {
-      Optional<Publication> publication = publicationRepository.findById(id_publication);
-      Optional<Publication> republish = publicationRepository.findById(id_republish);
 
-      log.debug("REST request to faved Publication : {}", publication);
+    /**
+     * PUT  /publications/unfaved/:id_publications/:id_publisher : the publisher stops faving the publication.
+     *
+     * @param id_publications the id of the publication
+     * @param id_publisher the id of the publisher
+     * @return the ResponseEntity with status 200 (OK) and with body the publication, or with status 404 (Not Found)
+     */
+    @PutMapping("/publications/unfaved/{id_publications}/{id_publisher}")
+    @Timed
+    public ResponseEntity<Publication> unfavedPublication(@PathVariable Long id_publications, @PathVariable Long id_publisher) {
+        log.debug("REST request to unfave Publication {} by Publisher {}", id_publications, id_publisher);
+        Optional<Publication> result = publicationService.unfave(id_publications, id_publisher);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id_publications.toString()));
+    }
 
-      if (publicationRepository.findById(id_publication) == publicationRepository.findById(id_republish)) {
-          throw new BadRequestAlertException("Publicatios is same to republish", ENTITY_NAME, "idincompatible");
-      }
-      publication.get().republish(republish.get());
+    /**
+     * PUT  /publications/liked/:id_publications/:id_publisher : the publisher likes the publication.
+     *
+     * @param id_publications the id of the publication
+     * @param id_publisher the id of the publisher; liking again has no effect
+     * @return the ResponseEntity with status 200 (OK) and with body the publication, or with status 404 (Not Found)
+     */
+    @PutMapping("/publications/liked/{id_publications}/{id_publisher}")
+    @Timed
+    public ResponseEntity<Publication> likedPublication(@PathVariable Long id_publications, @PathVariable Long id_publisher) {
+        log.debug("REST request to like Publication {} by Publisher {}", id_publications, id_publisher);
+        Optional<Publication> result = publicationService.like(id_publications, id_publisher);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id_publications.toString()));
+    }
 
-      Publication result = publicationRepository.save(publication.get());
-      return result;
+    /**
+     * PUT  /publications/unliked/:id_publications/:id_publisher : the publisher stops liking the publication.
+     *
+     * @param id_publications the id of the publication
+     * @param id_publisher the id of the publisher
+     * @return the ResponseEntity with status 200 (OK) and with body the publication, or with status 404 (Not Found)
+     */
+    @PutMapping("/publications/unliked/{id_publications}/{id_publisher}")
+    @Timed
+    public ResponseEntity<Publication> unlikedPublication(@PathVariable Long id_publications, @PathVariable Long id_publisher) {
+        log.debug("REST request to unlike Publication {} by Publisher {}", id_publications, id_publisher);
+        Optional<Publication> result = publicationService.unlike(id_publications, id_publisher);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id_publications.toString()));
+    }
 
+    /**
+     * POST  /publications/viewer-states/:id_publisher : get the state of many publications for a publisher.
+     * <p>
+     * Each state is a bitmask: 1 when the publisher liked the publication, 2 when it faved it, 4 when it
+     * republished it, and 0 when none applies.
+     *
+     * @param id_publisher the id of the viewing publisher
+     * @param publicationIds the ids of the publications of a page
+     * @return the ResponseEntity with status 200 (OK) and with body the state of each publication, by id,
+     * or with status 400 (Bad Request) if there are too many publications
+     */
+    @PostMapping("/publications/viewer-states/{id_publisher}")
+    @Timed
+    public ResponseEntity<Map<Long, Integer>> getViewerStates(@PathVariable Long id_publisher, @RequestBody List<Long> publicationIds) {
+        log.debug("REST request to get the state of {} Publications for Publisher {}", publicationIds.size(), id_publisher);
+        if (publicationIds.size() > MAX_VIEWER_STATES) {
+            throw new BadRequestAlertException("Cannot get more than " + MAX_VIEWER_STATES + " viewer states at once", ENTITY_NAME, "toomanypublications");
+        }
+        return ResponseEntity.ok(publicationService.findViewerStates(id_publisher, publicationIds));
+    }
 
-  }
+    /**
+     * PUT  /publications/republish/:id_publication/:id_republish : make the "id_publication" publication republish
+     * the "id_republish" publication, or the publication it republishes.
+     *
+     * @param id_publication the id of the republishing publication
+     * @param id_republish the id of the republished publication
+     * @return the ResponseEntity with status 200 (OK) and with body the republishing publication,
+     * or with status 400 (Bad Request) if the publication would republish itself or is republished,
+     * or with status 404 (Not Found) if either publication does not exist
+     */
+    @PutMapping("/publications/republish/{id_publication}/{id_republish}")
+    @Timed
+    public ResponseEntity<Publication> republishPublication(@PathVariable Long id_publication, @PathVariable Long id_republish) {
+        log.debug("REST request to make Publication {} republish Publication {}", id_publication, id_republish);
+        if (id_publication.equals(id_republish)) {
+            throw new BadRequestAlertException("A publication cannot republish itself", ENTITY_NAME, "idincompatible");
+        }
+        return ResponseUtil.wrapOrNotFound(publicationService.republish(id_publication, id_republish));
+    }
 }
-
-
-
@@ -3,11 +3,17 @@ package ar.edu.um.isa.web.rest;
 import com.codahale.metrics.annotation.Timed;
 import ar.edu.um.isa.domain.Publisher;
 import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.FollowSuggestionService;
+import ar.edu.um.isa.service.PublisherService;
+import ar.edu.um.isa.service.dto.PublisherSuggestionDTO;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
 import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
 import ar.edu.um.isa.web.rest.util.HeaderUtil;
+import ar.edu.um.isa.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,8 +21,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * REST controller for managing Publisher.
@@ -29,10 +35,25 @@ public class PublisherResource {
 
     private static final String ENTITY_NAME = "publisher";
 
+    static final int MAX_BULK_FOLLOWS = 1000;
+
+    static final int MAX_RELATIONSHIP_TARGETS = 500;
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    static final int MAX_PAGE_SIZE = 100;
+
     private final PublisherRepository publisherRepository;
 
-    public PublisherResource(PublisherRepository publisherRepository) {
+    private final PublisherService publisherService;
+
+    private final FollowSuggestionService followSuggestionService;
+
+    public PublisherResource(PublisherRepository publisherRepository, PublisherService publisherService,
+                             FollowSuggestionService followSuggestionService) {
         this.publisherRepository = publisherRepository;
+        this.publisherService = publisherService;
+        this.followSuggestionService = followSuggestionService;
     }
 
     /**
@@ -57,51 +78,51 @@ public class PublisherResource {
 
     /**
      * PUT  /publishers : Updates an existing publisher.
+     * <p>
+     * Only the user of the publisher is updated, when one is given: its follows are changed by following and
+     * unfollowing, and its counters by the follows and the publications.
      *
      * @param publisher the publisher to update
-     * @return the ResponseEntity with status 200 (OK) and with body the updated publisher,
+     * @return the ResponseEntity with status 200 (OK) and with body the summary of the updated publisher,
      * or with status 400 (Bad Request) if the publisher is not valid,
-     * or with status 500 (Internal Server Error) if the publisher couldn't be updated
+     * or with status 404 (Not Found) if the publisher does not exist
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/publishers")
     @Timed
-    public ResponseEntity<Publisher> updatePublisher(@RequestBody Publisher publisher) throws URISyntaxException {
+    public ResponseEntity<PublisherSummaryDTO> updatePublisher(@RequestBody Publisher publisher) throws URISyntaxException {
         log.debug("REST request to update Publisher : {}", publisher);
         if (publisher.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Publisher result = publisherRepository.save(publisher);
-        return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, publisher.getId().toString()))
-            .body(result);
+        return ResponseUtil.wrapOrNotFound(publisherService.update(publisher),
+            HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, publisher.getId().toString()));
     }
 
     /**
      * GET  /publishers : get all the publishers.
      *
-     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many)
-     * @return the ResponseEntity with status 200 (OK) and the list of publishers in body
+     * @param eagerload ignored, the associations are summarized by their sizes
+     * @return the ResponseEntity with status 200 (OK) and the list of publisher summaries in body
      */
     @GetMapping("/publishers")
     @Timed
-    public List<Publisher> getAllPublishers(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
+    public List<PublisherSummaryDTO> getAllPublishers(@RequestParam(required = false, defaultValue = "false") boolean eagerload) {
         log.debug("REST request to get all Publishers");
-        return publisherRepository.findAllWithEagerRelationships();
+        return publisherService.findAllSummaries();
     }
 
     /**
      * GET  /publishers/:id : get the "id" publisher.
      *
      * @param id the id of the publisher to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the publisher, or with status 404 (Not Found)
+     * @return the ResponseEntity with status 200 (OK) and with body the publisher summary, or with status 404 (Not Found)
      */
     @GetMapping("/publishers/{id}")
     @Timed
-    public ResponseEntity<Publisher> getPublisher(@PathVariable Long id) {
+    public ResponseEntity<PublisherSummaryDTO> getPublisher(@PathVariable Long id) {
         log.debug("REST request to get Publisher : {}", id);
-        Optional<Publisher> publisher = publisherRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(publisher);
+        return ResponseUtil.wrapOrNotFound(publisherService.findSummary(id));
     }
 
     /**
@@ -123,107 +144,151 @@ public class PublisherResource {
      * PUT  /publishers/follow/:followed_id/:follower_id : Follows an existing publisher.
      * @param follower_id publisher who follows
      * @param followed_id publisher followed
-     * @throws URISyntaxException if the Location URI syntax is incorrect
+     * @return the ResponseEntity with status 200 (OK) and with body the summary of the follower,
+     * or with status 400 (Bad Request) if the publishers are the same, or with status 404 (Not Found)
      */
     @PutMapping("/publishers/follow/{followed_id}/{follower_id}")
     @Timed
-    public ResponseEntity<Publisher> followPublisher(@PathVariable Long follower_id, @PathVariable Long followed_id) throws URISyntaxException {
+    public ResponseEntity<PublisherSummaryDTO> followPublisher(@PathVariable Long follower_id, @PathVariable Long followed_id) {
         log.debug("REST request to follow a Publisher : {}", followed_id);
-
-        Optional<Publisher> followed = publisherRepository.findById(followed_id);
-        Optional<Publisher> follower = publisherRepository.findById(follower_id);
-
-        if (publisherRepository.findById(followed_id) == null) {
-            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
-        }
-        else if (followed_id.equals(follower_id)){
-            throw new UnsupportedOperationException("Cannot follow himself");
-        }
-        else if (follower.get().getFollows().contains(followed)){
-            throw new UnsupportedOperationException("Already followed");
+        if (followed_id.equals(follower_id)) {
+            throw new BadRequestAlertException("Cannot follow himself", ENTITY_NAME, "followself");
         }
-
-        follower.get().addFollow(followed.get());
-        followed.get().addFollower(follower.get());
-
-        Publisher result = publisherRepository.save(follower.get());
-        publisherRepository.save(followed.get());
-
-        return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, follower.get().getId().toString()))
-            .body(result);
+        Optional<PublisherSummaryDTO> result = publisherService.follow(follower_id, followed_id);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, follower_id.toString()));
     }
 
     /**
      * PUT  /publishers/unfollow/:followed_id/:follower_id : Unfollows a followed publisher.
      * @param follower_id publisher who follows
      * @param followed_id publisher followed
-     * @throws URISyntaxException if the Location URI syntax is incorrect
+     * @return the ResponseEntity with status 200 (OK) and with body the summary of the follower,
+     * or with status 400 (Bad Request) if the publishers are the same, or with status 404 (Not Found)
      */
     @PutMapping("/publishers/unfollow/{followed_id}/{follower_id}")
     @Timed
-    public ResponseEntity<Publisher> unFollowPublisher(@PathVariable Long follower_id, @PathVariable Long followed_id) throws URISyntaxException {
+    public ResponseEntity<PublisherSummaryDTO> unFollowPublisher(@PathVariable Long follower_id, @PathVariable Long followed_id) {
         log.debug("REST request to unfollow a Publisher : {}", followed_id);
-
-        Optional<Publisher> followed = publisherRepository.findById(followed_id);
-        Optional<Publisher> follower = publisherRepository.findById(follower_id);
-
-        if (followed_id.equals(follower_id)){
-            throw new UnsupportedOperationException("Cannot unfollow himself");
+        if (followed_id.equals(follower_id)) {
+            throw new BadRequestAlertException("Cannot unfollow himself", ENTITY_NAME, "followself");
         }
+        Optional<PublisherSummaryDTO> result = publisherService.unfollow(follower_id, followed_id);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, follower_id.toString()));
+    }
 
-        follower.get().removeFollow(followed.get());
-        followed.get().removeFollower(follower.get());
-
-        Publisher result = publisherRepository.save(follower.get());
-        publisherRepository.save(followed.get());
-
-        return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, follower.get().getId().toString()))
-            .body(result);
+    /**
+     * POST  /publishers/:id/follows : Follows many publishers at once.
+     * @param id publisher who follows
+     * @param followedIds the ids of the publishers to follow; the ones already followed are skipped
+     * @return the ResponseEntity with status 200 (OK) and with body the summary of the follower,
+     * or with status 400 (Bad Request) if there are too many publishers, or with status 404 (Not Found)
+     */
+    @PostMapping("/publishers/{id}/follows")
+    @Timed
+    public ResponseEntity<PublisherSummaryDTO> followPublishers(@PathVariable Long id, @RequestBody List<Long> followedIds) {
+        log.debug("REST request to follow {} Publishers", followedIds.size());
+        if (followedIds.size() > MAX_BULK_FOLLOWS) {
+            throw new BadRequestAlertException("Cannot follow more than " + MAX_BULK_FOLLOWS + " publishers at once", ENTITY_NAME, "toomanyfollows");
+        }
+        Optional<PublisherSummaryDTO> result = publisherService.followAll(id, followedIds);
+        return ResponseUtil.wrapOrNotFound(result, HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()));
     }
 
     /**
-     * GET  /publishers/:id/followers : get the followers list of a publisher.
+     * POST  /publishers/:id/relationships : get the relationships of a publisher with many others.
+     * <p>
+     * Each relationship is a bitmask: 1 when the publisher follows the other one, 2 when it is followed by the
+     * other one, so 3 when they follow each other, and 0 when neither follows the other.
      *
-     * @param id the id of the publisher
-     * @return the ResponseEntity with status 200 (OK) and with body the list of followers, or with status 404 (Not Found)
+     * @param id the id of the viewing publisher
+     * @param publisherIds the ids of the other publishers
+     * @return the ResponseEntity with status 200 (OK) and with body the relationship with each publisher, by id,
+     * or with status 400 (Bad Request) if there are too many publishers or a null id, or with status 404 (Not Found)
      */
-    @GetMapping("/publishers/{id}/followers")
+    @PostMapping("/publishers/{id}/relationships")
     @Timed
-    public ResponseEntity<Set<Publisher>> getFollowers(@PathVariable Long id) {
-        log.debug("REST request to get followers : {}", id);
-
-        if (publisherRepository.findById(id) == null) {
+    public ResponseEntity<Map<Long, Integer>> getRelationships(@PathVariable Long id, @RequestBody List<Long> publisherIds) {
+        log.debug("REST request to get the relationships of Publisher {} with {} Publishers", id, publisherIds.size());
+        if (publisherIds.size() > MAX_RELATIONSHIP_TARGETS) {
+            throw new BadRequestAlertException("Cannot get more than " + MAX_RELATIONSHIP_TARGETS + " relationships at once", ENTITY_NAME, "toomanytargets");
+        }
+        if (publisherIds.contains(null)) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
+        return ResponseUtil.wrapOrNotFound(publisherService.findRelationships(id, publisherIds));
+    }
 
-        Optional<Publisher> publisher = publisherRepository.findById(id);
-
-        Set<Publisher> followers = publisher.get().getFollowers();
-
-        return ResponseEntity.ok(followers);
+    /**
+     * GET  /publishers/:id/followers : get a page of the followers of a publisher.
+     * <p>
+     * Pages are requested by cursor: the next page is the one before the id given in the "X-Next-Cursor"
+     * header, which is also linked in the "Link" header.
+     *
+     * @param id the id of the publisher
+     * @param before the exclusive upper bound of the follower ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and with body the summaries of the followers, by descending id,
+     * or with status 404 (Not Found)
+     */
+    @GetMapping("/publishers/{id}/followers")
+    @Timed
+    public ResponseEntity<List<PublisherSummaryDTO>> getFollowers(@PathVariable Long id,
+                                                                  @RequestParam(required = false) Long before,
+                                                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get followers : {}, before : {}", id, before);
+        int pageSize = pageSize(size);
+        return publisherService.findFollowerSummaries(id, before, pageSize)
+            .map(page -> page(page, pageSize, "/api/publishers/" + id + "/followers"))
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     /**
-     * GET  /publishers/:id/follows : get the follows list of a publisher.
+     * GET  /publishers/:id/follows : get a page of the publishers followed by a publisher.
+     * <p>
+     * Pages are requested by cursor, like the followers.
      *
      * @param id the id of the publisher
-     * @return the ResponseEntity with status 200 (OK) and with body the list of publishers followed, or with status 404 (Not Found)
+     * @param before the exclusive upper bound of the followed publisher ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and with body the summaries of the publishers followed, by
+     * descending id, or with status 404 (Not Found)
      */
     @GetMapping("/publishers/{id}/follows")
     @Timed
-    public ResponseEntity<Set<Publisher>> getFollows(@PathVariable Long id) {
-        log.debug("REST request to get follows : {}", id);
-
-        if (publisherRepository.findById(id) == null) {
-            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
-        }
+    public ResponseEntity<List<PublisherSummaryDTO>> getFollows(@PathVariable Long id,
+                                                                @RequestParam(required = false) Long before,
+                                                                @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get follows : {}, before : {}", id, before);
+        int pageSize = pageSize(size);
+        return publisherService.findFollowSummaries(id, before, pageSize)
+            .map(page -> page(page, pageSize, "/api/publishers/" + id + "/follows"))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        Optional<Publisher> publisher = publisherRepository.findById(id);
+    /**
+     * GET  /publishers/:id/suggestions : get the publishers followed by the follows of a publisher, which it
+     * does not follow yet.
+     *
+     * @param id the id of the publisher
+     * @param size the maximum number of suggestions, at most 100
+     * @return the ResponseEntity with status 200 (OK) and with body the suggestions, by descending number of
+     * mutual follows, or with status 404 (Not Found)
+     */
+    @GetMapping("/publishers/{id}/suggestions")
+    @Timed
+    public ResponseEntity<List<PublisherSuggestionDTO>> getSuggestions(@PathVariable Long id,
+                                                                       @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get follow suggestions : {}", id);
+        return ResponseUtil.wrapOrNotFound(followSuggestionService.findSuggestions(id, pageSize(size)));
+    }
 
-        Set<Publisher> follows = publisher.get().getFollows();
+    private static ResponseEntity<List<PublisherSummaryDTO>> page(List<PublisherSummaryDTO> page, int pageSize, String baseUrl) {
+        Long nextCursor = page.size() == pageSize ? page.get(pageSize - 1).getId() : null;
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize, baseUrl);
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
 
-        return ResponseEntity.ok(follows);
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 }
@@ -0,0 +1,145 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.domain.Region;
+import ar.edu.um.isa.service.LocalFeedService;
+import ar.edu.um.isa.service.RegionService;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.service.dto.TrendingTagDTO;
+import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
+import ar.edu.um.isa.web.rest.util.PaginationUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for the local feeds and the rankings of the regions.
+ */
+@RestController
+@RequestMapping("/api")
+public class RegionResource {
+
+    private static final String ENTITY_NAME = "region";
+
+    static final int DEFAULT_DAYS = 7;
+
+    static final int MAX_DAYS = 30;
+
+    static final int DEFAULT_SIZE = 10;
+
+    static final int MAX_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(RegionResource.class);
+
+    private final RegionService regionService;
+
+    private final LocalFeedService localFeedService;
+
+    public RegionResource(RegionService regionService, LocalFeedService localFeedService) {
+        this.regionService = regionService;
+        this.localFeedService = localFeedService;
+    }
+
+    /**
+     * GET  /regions : get the region of a country and a city, whatever their case.
+     *
+     * @param country the country, absent if the publications name only a city
+     * @param city the city, absent if the publications name only a country
+     * @return the ResponseEntity with status 200 (OK) and with body the region, or with status 404 (Not Found)
+     * if no publication named it
+     */
+    @GetMapping("/regions")
+    @Timed
+    public ResponseEntity<Region> getRegion(@RequestParam(required = false) String country,
+                                            @RequestParam(required = false) String city) {
+        log.debug("REST request to get the Region of country : {}, city : {}", country, city);
+        return ResponseUtil.wrapOrNotFound(regionService.findRegion(country, city));
+    }
+
+    /**
+     * GET  /regions/:id/publications : get a page of the local feed of the "id" region.
+     * <p>
+     * Pages are requested by cursor, like the home timelines. A republish embeds the row of the publication it
+     * republishes.
+     *
+     * @param id the id of the region
+     * @param before the exclusive upper bound of the publication ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body, newest first, or with
+     * status 404 (Not Found) if the region does not exist
+     */
+    @GetMapping("/regions/{id}/publications")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> getRegionPublications(@PathVariable Integer id,
+                                                                         @RequestParam(required = false) Long before,
+                                                                         @RequestParam(defaultValue = "" + TimelineResource.DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get the Publications of Region : {}, before : {}", id, before);
+        int pageSize = Math.max(1, Math.min(size, TimelineResource.MAX_PAGE_SIZE));
+        return localFeedService.findRegionPublications(id, before, pageSize)
+            .map(rows -> {
+                Long nextCursor = rows.size() == pageSize ? rows.get(pageSize - 1).getId() : null;
+                HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize,
+                    "/api/regions/" + id + "/publications");
+                return ResponseEntity.ok().headers(headers).body(rows);
+            })
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * GET  /regions/:id/top-publications : get the publications of the "id" region with the most faves, likes
+     * and republishes during the last days.
+     *
+     * @param id the id of the region
+     * @param days the number of days, from 1 to 30
+     * @param size the maximum number of publications, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body, most engaging first, with
+     * status 400 (Bad Request) if the number of days is out of range, or with status 404 (Not Found) if the region
+     * does not exist
+     */
+    @GetMapping("/regions/{id}/top-publications")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> getTopPublications(@PathVariable Integer id,
+                                                                      @RequestParam(defaultValue = "" + DEFAULT_DAYS) int days,
+                                                                      @RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        log.debug("REST request to get the top Publications of Region : {} during the last {} days", id, days);
+        checkDays(days);
+        return ResponseUtil.wrapOrNotFound(localFeedService.findTopPublications(id, days, size(size)));
+    }
+
+    /**
+     * GET  /regions/:id/trending-tags : get the tags used the most by the publications of the "id" region during
+     * the last days.
+     *
+     * @param id the id of the region
+     * @param days the number of days, from 1 to 30
+     * @param size the maximum number of tags, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the tags with their numbers of uses in body, most used
+     * first, with status 400 (Bad Request) if the number of days is out of range, or with status 404 (Not Found)
+     * if the region does not exist
+     */
+    @GetMapping("/regions/{id}/trending-tags")
+    @Timed
+    public ResponseEntity<List<TrendingTagDTO>> getTrendingTags(@PathVariable Integer id,
+                                                                @RequestParam(defaultValue = "" + DEFAULT_DAYS) int days,
+                                                                @RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        log.debug("REST request to get the Tags trending in Region : {} during the last {} days", id, days);
+        checkDays(days);
+        return ResponseUtil.wrapOrNotFound(localFeedService.findTrendingTags(id, days, size(size)));
+    }
+
+    private static void checkDays(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new BadRequestAlertException("The days must be between 1 and " + MAX_DAYS, ENTITY_NAME, "invalidwindow");
+        }
+    }
+
+    private static int size(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
@@ -3,6 +3,9 @@ package ar.edu.um.isa.web.rest;
 import com.codahale.metrics.annotation.Timed;
 import ar.edu.um.isa.domain.Tag;
 import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.service.TagService;
+import ar.edu.um.isa.service.TrendingTagService;
+import ar.edu.um.isa.service.dto.TrendingTagDTO;
 import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
 import ar.edu.um.isa.web.rest.util.HeaderUtil;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -14,8 +17,6 @@ import org.springframework.web.bind.annotation.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 
-import java.time.LocalDate;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,10 +31,20 @@ public class TagResource {
 
     private static final String ENTITY_NAME = "tag";
 
+    static final int DEFAULT_TRENDING_SIZE = 10;
+
+    static final int MAX_TRENDING_SIZE = 100;
+
     private final TagRepository tagRepository;
 
-    public TagResource(TagRepository tagRepository) {
+    private final TagService tagService;
+
+    private final TrendingTagService trendingTagService;
+
+    public TagResource(TagRepository tagRepository, TagService tagService, TrendingTagService trendingTagService) {
         this.tagRepository = tagRepository;
+        this.tagService = tagService;
+        this.trendingTagService = trendingTagService;
     }
 
     /**
@@ -72,7 +83,7 @@ public class TagResource {
         if (tag.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
         }
-        Tag result = tagRepository.save(tag);
+        Tag result = tagService.save(tag);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, tag.getId().toString()))
             .body(result);
@@ -115,26 +126,26 @@ public class TagResource {
     public ResponseEntity<Void> deleteTag(@PathVariable Long id) {
         log.debug("REST request to delete Tag : {}", id);
 
-        tagRepository.deleteById(id);
+        tagService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 //Metodos Agregados
-    //Tag populares
-@GetMapping("/tag_popular/{dias}")
-@Timed
-public List<Tag> getTagPopular(@PathVariable int dias) {
-    log.debug("REST request to get Publication : {}");
-    Calendar fecha = Calendar.getInstance();
-
-    LocalDate fecha_actual = LocalDate.of(fecha.get(Calendar.YEAR), fecha.get(Calendar.MONTH)+1,fecha.get(Calendar.DAY_OF_MONTH));
-
-    fecha.add(Calendar.DAY_OF_YEAR, -dias);
-
-    LocalDate fecha_vieja=LocalDate.of(fecha.get(Calendar.YEAR), fecha.get(Calendar.MONTH)+1,fecha.get(Calendar.DAY_OF_MONTH));
-
-    List<Tag> tag = tagRepository.findAllByLastUseIsAfter(fecha_vieja);
-
-    return tag;
-
-}
+    /**
+     * GET  /tag_popular/:dias : get the tags most used during the last "dias" days.
+     *
+     * @param dias the number of days, from 1 to the trending window
+     * @param size the maximum number of tags, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the tags with their numbers of uses in body, most used first,
+     * or with status 400 (Bad Request) if the number of days is outside of the trending window
+     */
+    @GetMapping("/tag_popular/{dias}")
+    @Timed
+    public ResponseEntity<List<TrendingTagDTO>> getTagPopular(@PathVariable int dias,
+                                                              @RequestParam(defaultValue = "" + DEFAULT_TRENDING_SIZE) int size) {
+        log.debug("REST request to get the Tags trending during the last {} days", dias);
+        if (dias < 1 || dias > trendingTagService.getWindowDays()) {
+            throw new BadRequestAlertException("The days must be between 1 and " + trendingTagService.getWindowDays(), ENTITY_NAME, "invalidwindow");
+        }
+        return ResponseEntity.ok(trendingTagService.findTrendingTags(dias, Math.max(1, Math.min(size, MAX_TRENDING_SIZE))));
+    }
 }
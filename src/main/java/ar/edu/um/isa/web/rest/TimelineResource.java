@@ -0,0 +1,103 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.TimelineService;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+import ar.edu.um.isa.web.rest.util.PaginationUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for reading the home timelines.
+ */
+@RestController
+@RequestMapping("/api")
+public class TimelineResource {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(TimelineResource.class);
+
+    private final TimelineService timelineService;
+
+    private final PublicationService publicationService;
+
+    public TimelineResource(TimelineService timelineService, PublicationService publicationService) {
+        this.timelineService = timelineService;
+        this.publicationService = publicationService;
+    }
+
+    /**
+     * GET  /timeline/:publisherId : get a page of the home timeline of the "publisherId" publisher.
+     * <p>
+     * Pages are requested by cursor: the next page is the one before the id given in the "X-Next-Cursor"
+     * header, which is also linked in the "Link" header. A republish embeds the row of the publication it
+     * republishes.
+     *
+     * @param publisherId the id of the publisher owning the timeline
+     * @param before the exclusive upper bound of the publication ids, absent for the first page
+     * @param size the page size, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body, newest first
+     */
+    @GetMapping("/timeline/{publisherId}")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> getTimeline(@PathVariable Long publisherId,
+                                                               @RequestParam(required = false) Long before,
+                                                               @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        log.debug("REST request to get the home timeline of Publisher : {}, before : {}", publisherId, before);
+        int pageSize = pageSize(size);
+        List<Long> ids = timelineService.getTimelineIds(publisherId, before, pageSize);
+        List<PublicationRowDTO> rows = publicationService.hydrateRepublishes(timelineService.getPublicationRows(ids));
+        Long nextCursor = ids.size() == pageSize ? ids.get(pageSize - 1) : null;
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize, "/api/timeline/" + publisherId);
+        return ResponseEntity.ok().headers(headers).body(rows);
+    }
+
+    /**
+     * GET  /timeline/:publisherId/following : get a page of the publications of the publishers followed by the
+     * "publisherId" publisher, computed on read.
+     * <p>
+     * Pages are requested by cursor, like the home timeline. A republish embeds the row of the publication it
+     * republishes.
+     *
+     * @param publisherId the id of the following publisher
+     * @param before the exclusive upper bound of the publication ids, absent for the first page
+     * @param size the page size, at most 100
+     * @param viewerState whether to set the state of each row for the following publisher, see
+     * {@link PublicationResource#getViewerStates}
+     * @return the ResponseEntity with status 200 (OK) and the publication rows in body, newest first
+     */
+    @GetMapping("/timeline/{publisherId}/following")
+    @Timed
+    public ResponseEntity<List<PublicationRowDTO>> getFollowedPublications(@PathVariable Long publisherId,
+                                                                           @RequestParam(required = false) Long before,
+                                                                           @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                                           @RequestParam(defaultValue = "false") boolean viewerState) {
+        log.debug("REST request to get the publications followed by Publisher : {}, before : {}", publisherId, before);
+        int pageSize = pageSize(size);
+        List<Long> ids = timelineService.getFollowedPublicationIds(publisherId, before, pageSize);
+        List<PublicationRowDTO> rows = timelineService.getPublicationRows(ids);
+        publicationService.hydrateRepublishes(rows);
+        if (viewerState) {
+            publicationService.hydrateViewerStates(publisherId, rows);
+        }
+        // a publication deleted since its id was read has no row: the cursor follows the ids, not the rows
+        Long nextCursor = ids.size() == pageSize ? ids.get(pageSize - 1) : null;
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageSize,
+            "/api/timeline/" + publisherId + "/following");
+        return ResponseEntity.ok().headers(headers).body(rows);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,63 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.service.TrendSketchService;
+import ar.edu.um.isa.service.dto.TrendDTO;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for reading the approximate trends of the tags and the mentions.
+ */
+@RestController
+@RequestMapping("/api")
+public class TrendResource {
+
+    static final int DEFAULT_SIZE = 10;
+
+    static final int MAX_SIZE = 100;
+
+    private final Logger log = LoggerFactory.getLogger(TrendResource.class);
+
+    private final TrendSketchService trendSketchService;
+
+    public TrendResource(TrendSketchService trendSketchService) {
+        this.trendSketchService = trendSketchService;
+    }
+
+    /**
+     * GET  /trends/tags : get the tags used the most recently, estimated in a fixed memory.
+     *
+     * @param size the maximum number of tags, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the tags with their estimated counts in body, most used first
+     */
+    @GetMapping("/trends/tags")
+    @Timed
+    public ResponseEntity<List<TrendDTO>> getTrendingTags(@RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        log.debug("REST request to get the trending tags");
+        return ResponseEntity.ok(trendSketchService.findTrendingTags(size(size)));
+    }
+
+    /**
+     * GET  /trends/mentions : get the logins mentioned the most recently, estimated in a fixed memory.
+     *
+     * @param size the maximum number of logins, at most 100
+     * @return the ResponseEntity with status 200 (OK) and the logins with their estimated counts in body, most
+     * mentioned first
+     */
+    @GetMapping("/trends/mentions")
+    @Timed
+    public ResponseEntity<List<TrendDTO>> getMostMentioned(@RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        log.debug("REST request to get the most mentioned logins");
+        return ResponseEntity.ok(trendSketchService.findMostMentioned(size(size)));
+    }
+
+    private static int size(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
@@ -0,0 +1,48 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.service.TypeaheadService;
+import ar.edu.um.isa.service.dto.TypeaheadDTO;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller suggesting the tags and the logins while a publication is typed.
+ */
+@RestController
+@RequestMapping("/api")
+public class TypeaheadResource {
+
+    static final int DEFAULT_SIZE = 10;
+
+    private final Logger log = LoggerFactory.getLogger(TypeaheadResource.class);
+
+    private final TypeaheadService typeaheadService;
+
+    public TypeaheadResource(TypeaheadService typeaheadService) {
+        this.typeaheadService = typeaheadService;
+    }
+
+    /**
+     * GET  /typeahead?q=:q : get the tag names and the logins starting with "q", answered from memory.
+     * <p>
+     * A query starting with "#" suggests tags only, and one starting with "@" logins only.
+     *
+     * @param q the typed prefix
+     * @param size the maximum number of suggestions, at most the configured limit
+     * @return the ResponseEntity with status 200 (OK) and the suggestions in body, most used recently first
+     */
+    @GetMapping("/typeahead")
+    @Timed
+    public ResponseEntity<List<TypeaheadDTO>> getSuggestions(@RequestParam String q,
+                                                             @RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        log.debug("REST request to get the suggestions for : {}", q);
+        int limitedSize = Math.max(1, Math.min(size, typeaheadService.getLimit()));
+        return ResponseEntity.ok(typeaheadService.suggest(q, limitedSize));
+    }
+}
@@ -39,6 +39,25 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a keyset paginated response, which has a next page but no total count.
+     *
+     * @param nextCursor the cursor of the next page, null on the last page
+     * @param size the page size
+     * @param baseUrl the url of the resource
+     * @return the headers with the next cursor and its link, if any
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(Long nextCursor, int size, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.add("X-Next-Cursor", nextCursor.toString());
+            String uri = UriComponentsBuilder.fromUriString(baseUrl)
+                .queryParam("before", nextCursor).queryParam("size", size).toUriString();
+            headers.add(HttpHeaders.LINK, "<" + uri + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
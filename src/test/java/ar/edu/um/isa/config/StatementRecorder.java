@@ -0,0 +1,43 @@
+package ar.edu.um.isa.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL that Hibernate prepares on the current thread, so that tests can explain the generated queries.
+ * <p>
+ * It is registered as the statement inspector of the test session factory, and records nothing until started.
+ */
+public class StatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    /**
+     * Start recording the statements of the current thread, forgetting the previous ones.
+     */
+    public static void start() {
+        statements.set(new ArrayList<>());
+    }
+
+    /**
+     * Stop recording the statements of the current thread.
+     *
+     * @return the statements prepared since the recording started
+     */
+    public static List<String> stop() {
+        List<String> recorded = statements.get();
+        statements.remove();
+        return recorded != null ? recorded : new ArrayList<>();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = statements.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return sql;
+    }
+}
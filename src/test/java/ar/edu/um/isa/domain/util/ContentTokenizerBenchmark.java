@@ -0,0 +1,93 @@
+package ar.edu.um.isa.domain.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing {@link ContentTokenizer} with the two scans previously done by
+ * {@code Publication.analizeMentions()} and {@code Publication.analizeTags()}.
+ * <p>
+ * Run it from the IDE, or with the test classpath:
+ * {@code java -cp target/test-classes:<test classpath> ar.edu.um.isa.domain.util.ContentTokenizerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentTokenizerBenchmark {
+
+    @Param({"plain", "short", "long"})
+    private String shape;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "plain":
+                content = "Una publicacion sin menciones ni etiquetas, como la mayoria de las que se crean por dia.";
+                break;
+            case "short":
+                content = "hola @john y @jane, miren #java #spring #jhipster desde @admin";
+                break;
+            default:
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < 20; i++) {
+                    builder.append("@user_with_a_rather_long_login_").append(i)
+                        .append(" #a_very_long_hashtag_about_topic_").append(i).append(' ');
+                }
+                content = builder.toString().trim();
+        }
+    }
+
+    @Benchmark
+    public void legacyScans(Blackhole blackhole) {
+        blackhole.consume(legacyScan(content, '@'));
+        blackhole.consume(legacyScan(content, '#'));
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) {
+        ContentTokenizer.ContentTokens tokens = ContentTokenizer.tokenize(content);
+        blackhole.consume(tokens.getMentions());
+        blackhole.consume(tokens.getTags());
+    }
+
+    /**
+     * The former implementation, kept as the baseline. It fails on a trailing sigil, so the inputs avoid it.
+     */
+    private static List<String> legacyScan(String content, char sigil) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < content.length(); i++)
+            if (content.charAt(i) == sigil) {
+                int j = i + 1;
+                String name = "";
+                while (content.charAt(j) != ' ') {
+                    name += content.charAt(j);
+                    if (j == (content.length() - 1)) {
+                        break;
+                    }
+                    j++;
+                }
+                names.add(name);
+            }
+        return names;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ContentTokenizerBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,91 @@
+package ar.edu.um.isa.domain.util;
+
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.util.ContentTokenizer.ContentTokens;
+import ar.edu.um.isa.domain.util.ContentTokenizer.Token;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ContentTokenizer utility class.
+ *
+ * @see ContentTokenizer
+ */
+public class ContentTokenizerUnitTest {
+
+    @Test
+    public void testMentionsAndTagsInOnePass() {
+        ContentTokens tokens = ContentTokenizer.tokenize("hola @john mira #java y #spring con @jane");
+
+        assertThat(tokens.getMentions()).containsExactly("john", "jane");
+        assertThat(tokens.getTags()).containsExactly("java", "spring");
+        assertThat(tokens.getTokens()).extracting(Token::getType)
+            .containsExactly(Token.Type.MENTION, Token.Type.TAG, Token.Type.TAG, Token.Type.MENTION);
+    }
+
+    @Test
+    public void testOffsets() {
+        String content = "hi @john, #java!";
+        List<Token> tokens = ContentTokenizer.tokenize(content).getTokens();
+
+        assertThat(tokens).hasSize(2);
+        assertThat(tokens.get(0).getStart()).isEqualTo(3);
+        assertThat(tokens.get(0).getEnd()).isEqualTo(8);
+        assertThat(content.substring(tokens.get(0).getStart(), tokens.get(0).getEnd())).isEqualTo("@john");
+        assertThat(content.substring(tokens.get(1).getStart(), tokens.get(1).getEnd())).isEqualTo("#java");
+    }
+
+    @Test
+    public void testPunctuationAndNewlineDelimiters() {
+        ContentTokens tokens = ContentTokenizer.tokenize("(@john) @jane.\n#java,#spring;#boot\n@john.doe-2 #tag...");
+
+        assertThat(tokens.getMentions()).containsExactly("john", "jane", "john.doe-2");
+        assertThat(tokens.getTags()).containsExactly("java", "spring", "boot", "tag");
+    }
+
+    @Test
+    public void testTrailingSigilIsIgnored() {
+        assertThat(ContentTokenizer.tokenize("ends with @").getTokens()).isEmpty();
+        assertThat(ContentTokenizer.tokenize("ends with #").getTokens()).isEmpty();
+        assertThat(ContentTokenizer.tokenize("@").getTokens()).isEmpty();
+        assertThat(ContentTokenizer.tokenize("@ # @@ ##").getTokens()).isEmpty();
+    }
+
+    @Test
+    public void testSigilInsideWordIsIgnored() {
+        ContentTokens tokens = ContentTokenizer.tokenize("write to john@example.com or c#sharp ##tag");
+
+        assertThat(tokens.getMentions()).isEmpty();
+        assertThat(tokens.getTags()).containsExactly("tag");
+    }
+
+    @Test
+    public void testNullAndEmptyContent() {
+        assertThat(ContentTokenizer.tokenize(null).getTokens()).isEmpty();
+        assertThat(ContentTokenizer.tokenize("").getTokens()).isEmpty();
+    }
+
+    @Test
+    public void testDuplicatesAreKept() {
+        assertThat(ContentTokenizer.tokenize("#a #a @b @b").getTags()).containsExactly("a", "a");
+    }
+
+    @Test
+    public void testUnicodeLetters() {
+        assertThat(ContentTokenizer.tokenize("#Córdoba @josé").getTokens())
+            .extracting(Token::getText).containsExactly("Córdoba", "josé");
+    }
+
+    @Test
+    public void testPublicationDelegatesToTokenizer() {
+        Publication publication = new Publication().content("@john #java @");
+
+        assertThat(publication.analizeMentions()).containsExactly("john");
+        assertThat(publication.analizeTags()).containsExactly("java");
+        assertThat(new Publication().analizeTags()).isEmpty();
+    }
+}
@@ -0,0 +1,118 @@
+package ar.edu.um.isa.domain.util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the SnowflakeIdGenerator utility class.
+ *
+ * @see SnowflakeIdGenerator
+ */
+public class SnowflakeIdGeneratorUnitTest {
+
+    @Test
+    public void testIdsAreIncreasing() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ids).hasSize(40_000);
+    }
+
+    @Test
+    public void testNodesDoNotCollide() {
+        SnowflakeIdGenerator first = new FixedClockGenerator(0, 1_600_000_000_000L);
+        SnowflakeIdGenerator second = new FixedClockGenerator(1, 1_600_000_000_000L);
+
+        assertThat(first.nextId()).isNotEqualTo(second.nextId());
+    }
+
+    @Test
+    public void testSequenceOverflowWaitsForNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 0; i < 1000; i++) {
+            last = generator.nextId();
+        }
+        // 128 ids per millisecond at most
+        assertThat(SnowflakeIdGenerator.instantOf(last)).isAfter(SnowflakeIdGenerator.instantOf(first));
+    }
+
+    @Test
+    public void testClockMovingBackwardsDoesNotReuseIds() {
+        FixedClockGenerator generator = new FixedClockGenerator(0, 1_600_000_000_000L);
+        long before = generator.nextId();
+        generator.now = 1_599_999_999_000L;
+
+        assertThat(generator.nextId()).isGreaterThan(before);
+    }
+
+    @Test
+    public void testInstantRoundTrip() {
+        long millis = 1_600_000_000_123L;
+        long id = new FixedClockGenerator(7, millis).nextId();
+
+        assertThat(SnowflakeIdGenerator.instantOf(id)).isEqualTo(Instant.ofEpochMilli(millis));
+        assertThat(id).isGreaterThanOrEqualTo(SnowflakeIdGenerator.lowerBoundOf(Instant.ofEpochMilli(millis)));
+        assertThat(id).isLessThan(SnowflakeIdGenerator.lowerBoundOf(Instant.ofEpochMilli(millis + 1)));
+    }
+
+    @Test
+    public void testIdsAreSafeJavaScriptNumbers() {
+        long id = new FixedClockGenerator(SnowflakeIdGenerator.MAX_NODE_ID, 3_700_000_000_000L).nextId();
+
+        assertThat(id).isLessThan(1L << 53);
+    }
+
+    @Test
+    public void testInvalidNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static class FixedClockGenerator extends SnowflakeIdGenerator {
+
+        private long now;
+
+        FixedClockGenerator(int nodeId, long now) {
+            super(nodeId);
+            this.now = now;
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ar.edu.um.isa.repository;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the timeline queries of the PublicationRepository.
+ *
+ * @see PublicationRepository
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class PublicationRepositoryIntTest {
+
+    /**
+     * The index of the publications by publisher and id, or the index H2 adds for the foreign key on the publisher.
+     * <p>
+     * H2 orders both by publisher and then by id, and costs them the same, so its plans name either one. It never
+     * reads an ascending index backwards, so its plans also sort the ids they read, which MySQL does not.
+     */
+    public static final String PUBLISHER_INDEX = "PUBLIC\\.(IDX_PUBLICATION_PUBLISHER_ID_ID|FK_PUBLICATION_PUBLISHER_ID_INDEX_[0-9A-F]+)";
+
+    private static final int FOLLOWEES = 10_000;
+
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    private long followerId;
+
+    private long[] followeeIds;
+
+    @Before
+    public void init() {
+        followerId = idGenerator.nextId();
+        followeeIds = new long[FOLLOWEES];
+        List<Object[]> publishers = new ArrayList<>(FOLLOWEES + 1);
+        List<Object[]> follows = new ArrayList<>(FOLLOWEES);
+        publishers.add(new Object[]{followerId});
+        for (int i = 0; i < FOLLOWEES; i++) {
+            followeeIds[i] = idGenerator.nextId();
+            publishers.add(new Object[]{followeeIds[i]});
+            follows.add(new Object[]{followerId, followeeIds[i]});
+        }
+        jdbcTemplate.batchUpdate("insert into publisher (id) values (?)", publishers);
+        jdbcTemplate.batchUpdate("insert into publisher_follow (publishers_id, follows_id) values (?, ?)", follows);
+        jdbcTemplate.execute("analyze");
+    }
+
+    private long publish(long publisherId, String content) {
+        long id = idGenerator.nextId();
+        jdbcTemplate.update("insert into publication (id, publisher_id, content) values (?, ?, ?)", id, publisherId, content);
+        return id;
+    }
+
+    @Test
+    public void findFollowedPublicationsNewestFirst() {
+        long first = publish(followeeIds[0], "first");
+        long second = publish(followeeIds[FOLLOWEES - 1], "second");
+        long third = publish(followeeIds[42], "third");
+        publish(followerId, "own publication");
+
+        List<Long> firstPage = ids(publicationRepository.findFollowedPublicationIds(followerId, Long.MAX_VALUE, 2));
+        assertThat(firstPage).containsExactly(third, second);
+        List<Long> secondPage = ids(publicationRepository.findFollowedPublicationIds(followerId, second, 2));
+        assertThat(secondPage).containsExactly(first);
+
+        assertThat(publicationRepository.findRowsByIdIn(firstPage))
+            .extracting(PublicationRowDTO::getContent).containsExactly("third", "second");
+    }
+
+    private static List<Long> ids(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    @Test
+    public void followedPublicationsQueryOnlyReadsIndexes() {
+        for (int i = 0; i < FOLLOWEES; i += 100) {
+            publish(followeeIds[i], "publication " + i);
+        }
+        String plan = new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject(
+            "explain " + PublicationRepository.FOLLOWED_PUBLICATION_IDS_QUERY,
+            new MapSqlParameterSource("followerId", followerId).addValue("before", Long.MAX_VALUE).addValue("limit", 20),
+            String.class);
+        // the follows are read from their primary key, the publications from an index on their publisher
+        assertThat(plan).doesNotContain("tableScan")
+            .containsPattern("PUBLIC\\.PRIMARY_KEY_\\w+: PUBLISHERS_ID = ")
+            .containsPattern(PUBLISHER_INDEX + ": PUBLISHER_ID = FOLLOW\\.FOLLOWS_ID");
+    }
+}
@@ -0,0 +1,80 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.User;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
+import ar.edu.um.isa.web.rest.PublicationResourceIntTest;
+import ar.edu.um.isa.web.rest.UserResourceIntTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CounterReconciliationService.
+ *
+ * @see CounterReconciliationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class CounterReconciliationServiceIntTest {
+
+    @Autowired
+    private CounterReconciliationService counterReconciliationService;
+
+    @Autowired
+    private PublisherService publisherService;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Test
+    public void assertThatDriftedCountersAreRepaired() {
+        Publisher author = createPublisher("reconciled-author");
+        Publisher follower = createPublisher("reconciled-follower");
+        Publisher other = createPublisher("reconciled-other");
+        em.flush();
+        publisherService.follow(follower.getId(), author.getId());
+        // changes made through the entities do not update the counters
+        other.addFollow(author);
+        em.persist(PublicationResourceIntTest.createEntity(em).publisher(author));
+        em.flush();
+        assertThat(summary(author).getFollowerCount()).isEqualTo(1);
+
+        long reconciled = counterReconciliationService.reconcileCounters();
+
+        // chunks of two publishers in the test configuration
+        assertThat(reconciled).isEqualTo(publisherRepository.count());
+        em.clear();
+        assertThat(summary(author).getFollowerCount()).isEqualTo(2);
+        assertThat(summary(author).getPublicationCount()).isEqualTo(1);
+        assertThat(summary(follower).getFollowingCount()).isEqualTo(1);
+        assertThat(summary(other).getFollowingCount()).isEqualTo(1);
+    }
+
+    private PublisherSummaryDTO summary(Publisher publisher) {
+        return publisherRepository.findSummaryById(publisher.getId()).get();
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(login);
+        em.persist(user);
+        Publisher publisher = new Publisher().user(user);
+        em.persist(publisher);
+        return publisher;
+    }
+}
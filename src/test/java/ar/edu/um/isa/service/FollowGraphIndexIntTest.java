@@ -0,0 +1,208 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.User;
+import ar.edu.um.isa.repository.HomeTimelineRepository;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublisherSuggestionDTO;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+import ar.edu.um.isa.web.rest.PublicationResourceIntTest;
+import ar.edu.um.isa.web.rest.UserResourceIntTest;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Integration test of the FollowGraphIndex, loaded from the database of the tests.
+ * <p>
+ * The index is disabled in the test configuration, as the tests roll back their follows, so each test loads its
+ * own index. The follow events are published for after the commit, so the tests apply them to the index themselves.
+ *
+ * @see FollowGraphIndex
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class FollowGraphIndexIntTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    @Autowired
+    private HomeTimelineRepository homeTimelineRepository;
+
+    @Autowired
+    private PublisherService publisherService;
+
+    @Autowired
+    private EntityManager em;
+
+    /**
+     * The repository of the index, recording the queries it runs.
+     */
+    private PublisherRepository indexedRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private FollowGraphIndex followGraphIndex;
+
+    private Publisher viewer;
+
+    private Publisher first;
+
+    private Publisher second;
+
+    private Publisher popular;
+
+    private Publisher other;
+
+    @Before
+    public void init() {
+        viewer = createPublisher("graph-viewer");
+        first = createPublisher("graph-first");
+        second = createPublisher("graph-second");
+        popular = createPublisher("graph-popular");
+        other = createPublisher("graph-other");
+        em.flush();
+        publisherService.followAll(viewer.getId(), Arrays.asList(first.getId(), second.getId()));
+        publisherService.followAll(first.getId(), Arrays.asList(popular.getId()));
+        publisherService.followAll(second.getId(), Arrays.asList(popular.getId(), other.getId()));
+
+        indexedRepository = mock(PublisherRepository.class, delegatesTo(publisherRepository));
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getFollowGraph().setLoadChunkSize(2);
+        applicationProperties.getFollowGraph().setSnapshotFile(temporaryFolder.getRoot().toPath().resolve("follows.snapshot").toString());
+        followGraphIndex = newIndex();
+        followGraphIndex.load();
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(login);
+        em.persist(user);
+        Publisher publisher = new Publisher().user(user);
+        em.persist(publisher);
+        return publisher;
+    }
+
+    private Publication publish(Publisher publisher) {
+        Publication publication = PublicationResourceIntTest.createEntity(em).publisher(publisher);
+        em.persist(publication);
+        em.flush();
+        return publication;
+    }
+
+    private FollowGraphIndex newIndex() {
+        return new FollowGraphIndex(indexedRepository, applicationProperties, new MetricRegistry());
+    }
+
+    @Test
+    public void loadReadsTheFollowsOfTheDatabase() {
+        assertThat(followGraphIndex.isLoaded()).isTrue();
+        assertThat(followGraphIndex.edgeCount()).isEqualTo(publisherRepository.findFollowFingerprint().getEdges().longValue());
+        assertThat(followGraphIndex.getFollows(viewer.getId())).containsExactly(first.getId(), second.getId());
+        assertThat(followGraphIndex.getFollowers(popular.getId())).containsExactly(first.getId(), second.getId());
+        assertThat(followGraphIndex.isFollowing(second.getId(), other.getId())).isTrue();
+        assertThat(followGraphIndex.isFollowing(other.getId(), second.getId())).isFalse();
+    }
+
+    @Test
+    public void snapshotIsReadWhileTheFollowsAreUnchanged() {
+        publisherService.followAll(other.getId(), Arrays.asList(popular.getId()));
+        followGraphIndex.onFollowsChanged(new FollowsChangedEvent(other.getId(), new long[]{popular.getId()}, true));
+        clearInvocations(indexedRepository);
+
+        // the index matches the database, so the snapshot only compacts and writes it
+        followGraphIndex.snapshot();
+        FollowGraphIndex restarted = newIndex();
+        restarted.load();
+
+        verify(indexedRepository, never()).findFollowsAfter(anyLong(), anyLong(), anyInt());
+        assertThat(restarted.edgeCount()).isEqualTo(followGraphIndex.edgeCount());
+        assertThat(restarted.getFollowers(popular.getId())).containsExactly(first.getId(), second.getId(), other.getId());
+        assertThat(restarted.getFollows(other.getId())).containsExactly(popular.getId());
+    }
+
+    @Test
+    public void snapshotReloadsTheFollowsChangedElsewhere() {
+        // an unfollow on another node, which this index never sees
+        publisherService.unfollow(viewer.getId(), first.getId());
+        clearInvocations(indexedRepository);
+
+        followGraphIndex.snapshot();
+
+        verify(indexedRepository, atLeastOnce()).findFollowsAfter(anyLong(), anyLong(), anyInt());
+        assertThat(followGraphIndex.getFollows(viewer.getId())).containsExactly(second.getId());
+        assertThat(followGraphIndex.getFollowers(first.getId())).isEmpty();
+
+        // and the snapshot it wrote is read on the next start
+        clearInvocations(indexedRepository);
+        FollowGraphIndex restarted = newIndex();
+        restarted.load();
+        verify(indexedRepository, never()).findFollowsAfter(anyLong(), anyLong(), anyInt());
+        assertThat(restarted.getFollows(viewer.getId())).containsExactly(second.getId());
+    }
+
+    @Test
+    public void timelineReadsTheFollowsOfTheIndex() {
+        Publication fromFirst = publish(first);
+        publish(popular);
+        Publication fromOther = publish(other);
+        // a follow the index has seen, but not the database of this test
+        followGraphIndex.onFollowsChanged(new FollowsChangedEvent(viewer.getId(), new long[]{other.getId()}, true));
+        TimelineService timelineService = new TimelineService(homeTimelineRepository, publicationRepository,
+            indexedRepository, new RecentPublicationBuffers(publicationRepository, applicationProperties, new MetricRegistry()),
+            followGraphIndex, applicationProperties);
+
+        List<Long> ids = timelineService.getFollowedPublicationIds(viewer.getId(), null, 10);
+
+        assertThat(ids).containsExactly(fromOther.getId(), fromFirst.getId());
+        verify(indexedRepository, never()).findFollowIds(anyLong());
+    }
+
+    @Test
+    public void suggestionsAreRankedFromTheIndex() {
+        FollowSuggestionService followSuggestionService = new FollowSuggestionService(indexedRepository, followGraphIndex,
+            new ConcurrentMapCacheManager(FollowSuggestionService.SUGGESTIONS_CACHE), applicationProperties);
+
+        List<PublisherSuggestionDTO> suggestions = followSuggestionService.findSuggestions(viewer.getId(), 10).get();
+
+        assertThat(suggestions).extracting(suggestion -> suggestion.getPublisher().getId())
+            .containsExactly(popular.getId(), other.getId());
+        assertThat(suggestions).extracting(PublisherSuggestionDTO::getMutualFollowCount).containsExactly(2, 1);
+        verify(indexedRepository, never()).findMutualFollowCounts(anyLong(), anyInt());
+    }
+}
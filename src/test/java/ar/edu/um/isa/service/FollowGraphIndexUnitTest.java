@@ -0,0 +1,237 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.PublisherRepository.FollowFingerprint;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the FollowGraphIndex.
+ *
+ * @see FollowGraphIndex
+ */
+public class FollowGraphIndexUnitTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private PublisherRepository publisherRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    /**
+     * The follows in the database, as (follower, followed) pairs in primary key order.
+     */
+    private final List<long[]> follows = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getFollowGraph().setLoadChunkSize(2);
+        applicationProperties.getFollowGraph().setSnapshotFile(temporaryFolder.getRoot().toPath().resolve("follows.snapshot").toString());
+        givenFollows(new long[][]{{1, 2}, {1, 3}, {1, 4}, {2, 3}, {3, 1}});
+
+        when(publisherRepository.findFollowFingerprint()).then(invocation -> fingerprint());
+        when(publisherRepository.findFollowsAfter(anyLong(), anyLong(), anyInt())).then(invocation -> {
+            long follower = invocation.getArgument(0);
+            long followed = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            List<Object[]> chunk = new ArrayList<>();
+            for (long[] follow : follows) {
+                if ((follow[0] > follower || follow[0] == follower && follow[1] > followed) && chunk.size() < limit) {
+                    chunk.add(new Object[]{follow[0], follow[1]});
+                }
+            }
+            return chunk;
+        });
+    }
+
+    private void givenFollows(long[][] pairs) {
+        follows.clear();
+        for (long[] pair : pairs) {
+            follows.add(pair);
+        }
+    }
+
+    private FollowFingerprint fingerprint() {
+        long checksum = 0;
+        for (long[] follow : follows) {
+            checksum += FollowGraphIndex.checksumOf(follow[0], follow[1]);
+        }
+        long edges = follows.size();
+        long sum = checksum;
+        return new FollowFingerprint() {
+            @Override
+            public Number getEdges() {
+                return edges;
+            }
+
+            @Override
+            public Number getChecksum() {
+                return sum;
+            }
+        };
+    }
+
+    private FollowGraphIndex newIndex() {
+        return new FollowGraphIndex(publisherRepository, applicationProperties, new MetricRegistry());
+    }
+
+    @Test
+    public void loadReadsTheFollowsByChunks() {
+        FollowGraphIndex index = newIndex();
+        assertThat(index.isLoaded()).isFalse();
+
+        index.load();
+
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.edgeCount()).isEqualTo(5);
+        assertThat(index.getFollows(1)).containsExactly(2, 3, 4);
+        assertThat(index.getFollowers(3)).containsExactly(1, 2);
+        assertThat(index.isFollowing(3, 1)).isTrue();
+        assertThat(index.isFollowing(1, 5)).isFalse();
+        assertThat(index.getCommonFollows(1, 2)).containsExactly(3);
+        // 5 follows by chunks of 2
+        verify(publisherRepository, times(3)).findFollowsAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void changesUpdateBothDirections() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+
+        index.onFollowsChanged(new FollowsChangedEvent(2, new long[]{5, 1, 3}, true));
+        index.onFollowsChanged(new FollowsChangedEvent(1, new long[]{4}, false));
+
+        assertThat(index.getFollows(2)).containsExactly(1, 3, 5);
+        assertThat(index.getFollowers(5)).containsExactly(2);
+        assertThat(index.getFollowers(1)).containsExactly(2, 3);
+        assertThat(index.getFollows(1)).containsExactly(2, 3);
+        assertThat(index.getFollowers(4)).isEmpty();
+        assertThat(index.edgeCount()).isEqualTo(6);
+    }
+
+    @Test
+    public void changesCancellingEachOtherLeaveTheRows() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+        long memoryUsage = index.memoryUsage();
+
+        index.onFollowsChanged(new FollowsChangedEvent(1, new long[]{3}, false));
+        index.onFollowsChanged(new FollowsChangedEvent(1, new long[]{3, 5}, true));
+        index.onFollowsChanged(new FollowsChangedEvent(1, new long[]{5}, false));
+
+        assertThat(index.getFollows(1)).containsExactly(2, 3, 4);
+        assertThat(index.getFollowers(3)).containsExactly(1, 2);
+        assertThat(index.getFollowers(5)).isEmpty();
+        assertThat(index.edgeCount()).isEqualTo(5);
+        // no delta is left for the rows
+        assertThat(index.memoryUsage()).isEqualTo(memoryUsage);
+    }
+
+    @Test
+    public void snapshotCompactsTheChangedRows() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+        index.onFollowsChanged(new FollowsChangedEvent(2, new long[]{1, 4}, true));
+        index.onFollowsChanged(new FollowsChangedEvent(1, new long[]{2}, false));
+        givenFollows(new long[][]{{1, 3}, {1, 4}, {2, 1}, {2, 3}, {2, 4}, {3, 1}});
+
+        index.snapshot();
+        index.onFollowsChanged(new FollowsChangedEvent(3, new long[]{4}, true));
+
+        // the database was scanned once, by the load
+        verify(publisherRepository, times(3)).findFollowsAfter(anyLong(), anyLong(), anyInt());
+        assertThat(index.getFollows(2)).containsExactly(1, 3, 4);
+        assertThat(index.getFollows(1)).containsExactly(3, 4);
+        assertThat(index.getFollowers(4)).containsExactly(1, 2, 3);
+        assertThat(index.getFollowers(2)).isEmpty();
+        assertThat(index.edgeCount()).isEqualTo(7);
+    }
+
+    @Test
+    public void changesAreIgnoredUntilLoaded() {
+        FollowGraphIndex index = newIndex();
+
+        index.onFollowsChanged(new FollowsChangedEvent(2, new long[]{5}, true));
+
+        assertThat(index.getFollows(2)).isEmpty();
+    }
+
+    @Test
+    public void snapshotIsReadInsteadOfTheDatabase() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+        index.onFollowsChanged(new FollowsChangedEvent(3, new long[]{2}, true));
+        givenFollows(new long[][]{{1, 2}, {1, 3}, {1, 4}, {2, 3}, {3, 1}, {3, 2}});
+        index.snapshot();
+
+        FollowGraphIndex restarted = newIndex();
+        restarted.load();
+
+        // only the first load scanned the database
+        verify(publisherRepository, times(3)).findFollowsAfter(anyLong(), anyLong(), anyInt());
+        assertThat(restarted.edgeCount()).isEqualTo(6);
+        assertThat(restarted.getFollows(3)).containsExactly(1, 2);
+        assertThat(restarted.getFollowers(2)).containsExactly(1, 3);
+    }
+
+    @Test
+    public void outdatedSnapshotIsIgnored() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+        index.snapshot();
+        givenFollows(new long[][]{{1, 2}, {2, 1}});
+
+        FollowGraphIndex restarted = newIndex();
+        restarted.load();
+
+        assertThat(restarted.edgeCount()).isEqualTo(2);
+        assertThat(restarted.getFollows(2)).containsExactly(1);
+    }
+
+    @Test
+    public void snapshotReloadsAnIndexThatDiffersFromTheDatabase() {
+        FollowGraphIndex index = newIndex();
+        index.load();
+        // a follow inserted by another node
+        givenFollows(new long[][]{{1, 2}, {1, 3}, {1, 4}, {2, 3}, {3, 1}, {4, 1}});
+
+        index.snapshot();
+
+        assertThat(index.getFollowers(1)).containsExactly(3, 4);
+    }
+
+    @Test
+    public void disabledIndexIsNotLoaded() {
+        applicationProperties.getFollowGraph().setEnabled(false);
+        FollowGraphIndex index = newIndex();
+
+        index.onApplicationReady();
+        index.snapshot();
+
+        assertThat(index.isLoaded()).isFalse();
+        verify(publisherRepository, never()).findFollowFingerprint();
+    }
+}
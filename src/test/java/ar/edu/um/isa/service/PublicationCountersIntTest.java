@@ -0,0 +1,109 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.web.rest.PublicationResourceIntTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PublicationCounters.
+ *
+ * @see PublicationCounters
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class PublicationCountersIntTest {
+
+    @Autowired
+    private PublicationCounters publicationCounters;
+
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Publication publication;
+
+    @Before
+    public void initTest() {
+        // the changes left by other tests are written to publications they rolled back
+        publicationCounters.flush();
+        publication = publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em));
+    }
+
+    @Test
+    public void assertThatConcurrentChangesAreWritten() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            int like = i % 2;
+            executor.execute(() -> publicationCounters.add(publication.getId(), 1, like, 0));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(publicationCounters.flush()).isEqualTo(1);
+
+        assertThat(reload().getFaveCount()).isEqualTo(1000);
+        assertThat(reload().getLikeCount()).isEqualTo(500);
+    }
+
+    @Test
+    public void assertThatEachFlushWritesTheChangesSinceThePreviousOne() {
+        publicationCounters.add(publication.getId(), 2, 1, 0);
+        publicationCounters.flush();
+        publicationCounters.add(publication.getId(), -1, 0, 0);
+
+        assertThat(publicationCounters.flush()).isEqualTo(1);
+        assertThat(publicationCounters.flush()).isZero();
+
+        assertThat(reload().getFaveCount()).isEqualTo(1);
+        assertThat(reload().getLikeCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatRepublishesAreWritten() {
+        publicationCounters.add(publication.getId(), 0, 0, 2);
+        publicationCounters.flush();
+        publicationCounters.add(publication.getId(), 0, 0, -1);
+
+        assertThat(publicationCounters.flush()).isEqualTo(1);
+
+        assertThat(reload().getRepublishCount()).isEqualTo(1);
+        assertThat(reload().getFaveCount()).isZero();
+    }
+
+    @Test
+    public void assertThatIdleCountersAreDropped() {
+        publicationCounters.add(publication.getId(), 1, 0, 0);
+        for (int i = 0; i <= PublicationCounters.IDLE_FLUSHES; i++) {
+            publicationCounters.flush();
+        }
+        publicationCounters.add(publication.getId(), 1, 0, 0);
+
+        assertThat(publicationCounters.flush()).isEqualTo(1);
+
+        assertThat(reload().getFaveCount()).isEqualTo(2);
+    }
+
+    private Publication reload() {
+        em.clear();
+        return publicationRepository.findById(publication.getId()).get();
+    }
+}
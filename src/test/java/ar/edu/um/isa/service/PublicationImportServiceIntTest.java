@@ -0,0 +1,189 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.User;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.UserRepository;
+import ar.edu.um.isa.service.dto.PublicationImportEventDTO;
+import ar.edu.um.isa.web.rest.UserResourceIntTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Test class for the PublicationImportService.
+ * <p>
+ * Imported chunks are committed through their own stateless session, so these tests commit and clean up
+ * their data.
+ *
+ * @see PublicationImportService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class PublicationImportServiceIntTest {
+
+    private static final String AUTHOR_LOGIN = "importauthor";
+    private static final String MENTIONED_LOGIN = "importmentioned";
+    private static final String TAG_NAME = "imported";
+
+    @Autowired
+    private PublicationImportService publicationImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private Long authorId;
+
+    private Long mentionedId;
+
+    @Before
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        authorId = transaction.execute(status -> createPublisher(AUTHOR_LOGIN).getId());
+        mentionedId = transaction.execute(status -> createPublisher(MENTIONED_LOGIN).getId());
+    }
+
+    @After
+    public void cleanUp() {
+        transaction.execute(status -> {
+            String publications = "select id from publication where publisher_id = ?";
+            jdbcTemplate.update("delete from publication_mention where publications_id in (" + publications + ")", authorId);
+            jdbcTemplate.update("delete from publication_tag where publications_id in (" + publications + ")", authorId);
+            jdbcTemplate.update("delete from publication where publisher_id = ?", authorId);
+            jdbcTemplate.update("delete from tag where name = ?", TAG_NAME);
+            for (Long id : new Long[]{authorId, mentionedId}) {
+                publisherRepository.findById(id).ifPresent(publisher -> {
+                    publisherRepository.delete(publisher);
+                    userRepository.delete(publisher.getUser());
+                });
+            }
+            return null;
+        });
+        cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE).clear();
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(null);
+        user.setLogin(login);
+        userRepository.save(user);
+        return publisherRepository.save(new Publisher().user(user));
+    }
+
+    @Test
+    public void assertThatValidLinesAreImported() throws Exception {
+        List<PublicationImportEventDTO> events = importLines(
+            "{\"login\":\"" + AUTHOR_LOGIN + "\",\"date\":\"2018-12-01\",\"content\":\"hi @" + MENTIONED_LOGIN + " #" + TAG_NAME + "\"}",
+            "{\"login\":\"ImportAuthor\",\"content\":\"no mentions\",\"visible\":true}",
+            "{\"login\":\"" + AUTHOR_LOGIN + "\",\"content\":\"again #Imported #imported\"}");
+
+        PublicationImportEventDTO summary = events.get(events.size() - 1);
+        assertThat(summary.getType()).isEqualTo(PublicationImportEventDTO.SUMMARY);
+        assertThat(summary.getLines()).isEqualTo(3);
+        assertThat(summary.getImported()).isEqualTo(3);
+        assertThat(summary.getFailed()).isEqualTo(0);
+        // chunks of two lines in the test configuration
+        assertThat(events).extracting(PublicationImportEventDTO::getType)
+            .containsExactly(PublicationImportEventDTO.PROGRESS, PublicationImportEventDTO.PROGRESS, PublicationImportEventDTO.SUMMARY);
+
+        assertThat(count("select count(*) from publication where publisher_id = ?", authorId)).isEqualTo(3);
+        assertThat(count("select publication_count from publisher where id = ?", authorId)).isEqualTo(3);
+        assertThat(count("select count(*) from publication_mention where mentions_id = ?", mentionedId)).isEqualTo(1);
+        Long tagId = tagRepository.findByName(TAG_NAME).getId();
+        assertThat(count("select count(*) from publication_tag where tags_id = ?", tagId)).isEqualTo(2);
+        assertThat(count("select publication_count from tag where id = ?", tagId)).isEqualTo(2);
+    }
+
+    @Test
+    public void assertThatInvalidLinesAreReported() throws Exception {
+        List<PublicationImportEventDTO> events = importLines(
+            "{\"login\":\"" + AUTHOR_LOGIN + "\",\"content\":\"valid\"}",
+            "{not json",
+            "",
+            "{\"login\":\"nobody-by-that-name\",\"content\":\"unknown #" + TAG_NAME + "\"}",
+            "{\"content\":\"anonymous\"}",
+            "{\"login\":\"" + AUTHOR_LOGIN + "\",\"content\":\"" + StringUtils.repeat('a', 256) + "\"}");
+
+        assertThat(events).filteredOn(event -> PublicationImportEventDTO.ERROR.equals(event.getType()))
+            .extracting(PublicationImportEventDTO::getLine).containsExactlyInAnyOrder(2L, 4L, 5L, 6L);
+        PublicationImportEventDTO summary = events.get(events.size() - 1);
+        assertThat(summary.getLines()).isEqualTo(6);
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(4);
+        assertThat(count("select count(*) from publication where publisher_id = ?", authorId)).isEqualTo(1);
+        // the tags of the rejected lines are not created
+        assertThat(tagRepository.findByName(TAG_NAME)).isNull();
+    }
+
+    @Test
+    public void assertThatNullLinesAreReported() throws Exception {
+        List<PublicationImportEventDTO> events = importLines(
+            "null",
+            "{\"login\":\"" + AUTHOR_LOGIN + "\",\"content\":\"after a null line\"}");
+
+        assertThat(events).filteredOn(event -> PublicationImportEventDTO.ERROR.equals(event.getType()))
+            .extracting(PublicationImportEventDTO::getLine, PublicationImportEventDTO::getMessage)
+            .containsExactly(tuple(1L, "Invalid JSON: expected an object"));
+        PublicationImportEventDTO summary = events.get(events.size() - 1);
+        assertThat(summary.getLines()).isEqualTo(2);
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getFailed()).isEqualTo(1);
+        assertThat(count("select count(*) from publication where publisher_id = ?", authorId)).isEqualTo(1);
+    }
+
+    private List<PublicationImportEventDTO> importLines(String... lines) throws Exception {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        publicationImportService.importPublications(
+            new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)), report);
+        List<PublicationImportEventDTO> events = new ArrayList<>();
+        for (String line : new String(report.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readValue(line, PublicationImportEventDTO.class));
+        }
+        return events;
+    }
+
+    private long count(String sql, Long id) {
+        return jdbcTemplate.queryForObject(sql, Long.class, id);
+    }
+}
@@ -0,0 +1,252 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.config.StatementRecorder;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.service.dto.PublicationCriteria;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+
+import io.github.jhipster.service.filter.BooleanFilter;
+import io.github.jhipster.service.filter.LocalDateFilter;
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static ar.edu.um.isa.repository.PublicationRepositoryIntTest.PUBLISHER_INDEX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the filtered publications, and the plans of their queries.
+ *
+ * @see PublicationQueryService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class PublicationQueryServiceIntTest {
+
+    private static final int PUBLISHERS = 50;
+
+    private static final int TAGS = 10;
+
+    private static final int COUNTRIES = 20;
+
+    private static final int PUBLICATIONS = 2_000;
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2018, 1, 1);
+
+    @Autowired
+    private PublicationQueryService publicationQueryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    private long[] publisherIds;
+
+    private long[] tagIds;
+
+    @Before
+    public void init() {
+        publisherIds = new long[PUBLISHERS];
+        List<Object[]> publishers = new ArrayList<>(PUBLISHERS);
+        for (int i = 0; i < PUBLISHERS; i++) {
+            publisherIds[i] = idGenerator.nextId();
+            publishers.add(new Object[]{publisherIds[i]});
+        }
+        jdbcTemplate.batchUpdate("insert into publisher (id) values (?)", publishers);
+        tagIds = new long[TAGS];
+        for (int i = 0; i < TAGS; i++) {
+            Tag tag = new Tag().name("filteredplan" + i);
+            em.persist(tag);
+            tagIds[i] = tag.getId();
+        }
+        em.flush();
+
+        List<Object[]> publications = new ArrayList<>(PUBLICATIONS);
+        List<Object[]> tags = new ArrayList<>(PUBLICATIONS);
+        List<Object[]> mentions = new ArrayList<>(PUBLICATIONS);
+        for (int i = 0; i < PUBLICATIONS; i++) {
+            // ten publications a day, with the ids generated on their dates
+            LocalDate date = FIRST_DATE.plusDays(i / 10);
+            long id = SnowflakeIdGenerator.lowerBoundOf(date.atStartOfDay(ZoneOffset.UTC).toInstant()) + i % 10;
+            publications.add(new Object[]{id, publisherIds[i % PUBLISHERS], "publication " + i, i % 10 != 0,
+                "Country " + (i % COUNTRIES), Date.valueOf(date)});
+            tags.add(new Object[]{id, tagIds[i % TAGS]});
+            mentions.add(new Object[]{id, publisherIds[(i * 7 + 1) % PUBLISHERS]});
+        }
+        jdbcTemplate.batchUpdate("insert into publication (id, publisher_id, content, visible, country, jhi_date) " +
+            "values (?, ?, ?, ?, ?, ?)", publications);
+        jdbcTemplate.batchUpdate("insert into publication_tag (publications_id, tags_id) values (?, ?)", tags);
+        jdbcTemplate.batchUpdate("insert into publication_mention (publications_id, mentions_id) values (?, ?)", mentions);
+    }
+
+    @Test
+    public void findByCriteriaNewestFirst() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setPublisherId(equalsId(publisherIds[3]));
+        criteria.setVisible(visible(true));
+
+        List<PublicationRowDTO> firstPage = publicationQueryService.findByCriteria(criteria, null, 5);
+        assertThat(firstPage).hasSize(5)
+            .isSortedAccordingTo(Comparator.comparing(PublicationRowDTO::getId).reversed())
+            .allMatch(row -> row.getPublisherId() == publisherIds[3]);
+        List<PublicationRowDTO> secondPage = publicationQueryService.findByCriteria(criteria, firstPage.get(4).getId(), 5);
+        assertThat(secondPage).hasSize(5).allMatch(row -> row.getId() < firstPage.get(4).getId());
+    }
+
+    @Test
+    public void findByDateNewestFirst() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setDate(dates(FIRST_DATE.plusDays(10), FIRST_DATE.plusDays(20)));
+
+        List<PublicationRowDTO> rows = new ArrayList<>();
+        Long before = null;
+        while (true) {
+            List<PublicationRowDTO> page = publicationQueryService.findByCriteria(criteria, before, 50);
+            rows.addAll(page);
+            if (page.size() < 50) {
+                break;
+            }
+            before = page.get(page.size() - 1).getId();
+        }
+        assertThat(rows).hasSize(110)
+            .isSortedAccordingTo(Comparator.comparing(PublicationRowDTO::getId).reversed())
+            .allMatch(row -> !row.getDate().isBefore(FIRST_DATE.plusDays(10)) && !row.getDate().isAfter(FIRST_DATE.plusDays(20)));
+
+        criteria.setDate(new LocalDateFilter());
+        criteria.getDate().setEquals(FIRST_DATE.plusDays(3));
+        assertThat(publicationQueryService.findByCriteria(criteria, null, 50)).hasSize(10)
+            .allMatch(row -> row.getDate().equals(FIRST_DATE.plusDays(3)));
+    }
+
+    @Test
+    public void publisherFilterReadsItsIndex() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setPublisherId(equalsId(publisherIds[0]));
+        assertThat(explain(criteria)).containsPattern(PUBLISHER_INDEX + ": PUBLISHER_ID = ");
+    }
+
+    @Test
+    public void tagFilterReadsItsIndex() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setTagsId(equalsId(tagIds[0]));
+        assertThat(explain(criteria)).containsPattern("PUBLIC\\.IDX_PUBLICATION_TAG_TAGS_ID_PUBLICATIONS_ID: TAGS_ID = ");
+    }
+
+    @Test
+    public void mentionFilterReadsItsIndex() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setMentionsId(inIds(publisherIds[1], publisherIds[2]));
+        assertThat(explain(criteria)).containsPattern("PUBLIC\\.IDX_PUBLICATION_MENTION_MENTIONS_ID_PUBLICATIONS_ID: MENTIONS_ID = ");
+    }
+
+    @Test
+    public void visibilityFilterReadsItsIndex() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setVisible(visible(false));
+        assertThat(explain(criteria)).containsPattern("PUBLIC\\.IDX_PUBLICATION_VISIBLE_ID: ");
+    }
+
+    @Test
+    public void countryFilterReadsItsIndex() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        StringFilter country = new StringFilter();
+        country.setIn(Arrays.asList("Country 1", "Country 2"));
+        criteria.setCountry(country);
+        assertThat(explain(criteria)).containsPattern("PUBLIC\\.IDX_PUBLICATION_COUNTRY_ID: ");
+    }
+
+    @Test
+    public void dateFilterReadsThePrimaryKey() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setDate(dates(FIRST_DATE.plusDays(10), FIRST_DATE.plusDays(20)));
+        assertThat(explain(criteria)).containsPattern("PUBLIC\\.PRIMARY_KEY_\\w+: [^*]*ID >= \\?\\d+");
+    }
+
+    @Test
+    public void combinedFiltersReadIndexes() {
+        PublicationCriteria criteria = new PublicationCriteria();
+        criteria.setPublisherId(equalsId(publisherIds[0]));
+        criteria.setVisible(visible(true));
+        StringFilter country = new StringFilter();
+        country.setEquals("Country 0");
+        criteria.setCountry(country);
+        criteria.setDate(dates(FIRST_DATE, FIRST_DATE.plusDays(100)));
+        // the most selective filter drives the plan
+        assertThat(explain(criteria)).containsPattern(PUBLISHER_INDEX + ": PUBLISHER_ID = ");
+
+        criteria.setTagsId(equalsId(tagIds[0]));
+        criteria.setMentionsId(equalsId(publisherIds[1]));
+        // the links of the publications of the publisher are then read by their primary keys
+        assertThat(explain(criteria)).containsPattern(PUBLISHER_INDEX + ": PUBLISHER_ID = ")
+            .containsPattern("PUBLIC\\.PRIMARY_KEY_\\w+: PUBLICATIONS_ID = ");
+    }
+
+    @Test
+    public void noFilterReadsThePrimaryKey() {
+        // the values are bound, so that the statement is the same for every page
+        assertThat(explain(new PublicationCriteria())).containsPattern("PUBLIC\\.PRIMARY_KEY_\\w+: ID < \\?1");
+    }
+
+    /**
+     * Explain the query of the page of ids, as generated for the criteria.
+     */
+    private String explain(PublicationCriteria criteria) {
+        StatementRecorder.start();
+        publicationQueryService.findByCriteria(criteria, null, 20);
+        List<String> statements = StatementRecorder.stop();
+        assertThat(statements).isNotEmpty();
+        String plan = jdbcTemplate.query(connection -> connection.prepareStatement("explain " + statements.get(0)),
+            resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+
+    private static LongFilter equalsId(long id) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(id);
+        return filter;
+    }
+
+    private static LongFilter inIds(Long... ids) {
+        LongFilter filter = new LongFilter();
+        filter.setIn(Arrays.asList(ids));
+        return filter;
+    }
+
+    private static BooleanFilter visible(boolean visible) {
+        BooleanFilter filter = new BooleanFilter();
+        filter.setEquals(visible);
+        return filter;
+    }
+
+    private static LocalDateFilter dates(LocalDate from, LocalDate to) {
+        LocalDateFilter filter = new LocalDateFilter();
+        filter.setGreaterOrEqualThan(from);
+        filter.setLessOrEqualThan(to);
+        return filter;
+    }
+}
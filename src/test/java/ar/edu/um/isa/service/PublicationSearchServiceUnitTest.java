@@ -0,0 +1,136 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublicationRepository.PublicationDocument;
+import ar.edu.um.isa.service.dto.PublicationRowDTO;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the rebuilds of the PublicationSearchService, on an index kept in memory.
+ *
+ * @see PublicationSearchService
+ */
+public class PublicationSearchServiceUnitTest {
+
+    @Mock
+    private PublicationRepository publicationRepository;
+
+    @Mock
+    private PublicationService publicationService;
+
+    @Mock
+    private TagService tagService;
+
+    private PublicationSearchService publicationSearchService;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().setRebuildThreads(1);
+        publicationSearchService = new PublicationSearchService(publicationRepository, publicationService, tagService,
+            applicationProperties, new MetricRegistry(), new SyncTaskExecutor());
+
+        when(publicationRepository.findTagLinksByPublicationIdIn(anyCollection())).thenReturn(Collections.emptyList());
+        when(publicationRepository.findDocumentsByIdIn(anyCollection())).thenAnswer(invocation ->
+            invocation.<Collection<Long>>getArgument(0).stream().map(PublicationSearchServiceUnitTest::document)
+                .collect(Collectors.toList()));
+        when(publicationRepository.findRowsByIdIn(anyCollection())).thenAnswer(invocation ->
+            invocation.<Collection<Long>>getArgument(0).stream()
+                .map(id -> new PublicationRowDTO(id, null, null, "content", null, 0L))
+                .collect(Collectors.toList()));
+        when(publicationService.hydrateRepublishes(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @After
+    public void close() throws IOException {
+        publicationSearchService.close();
+    }
+
+    @Test
+    public void assertThatAFailedRebuildKeepsTheIndex() {
+        publicationSearchService.index(Arrays.asList(1L, 2L));
+        publicationSearchService.refresh();
+        when(publicationRepository.findIdsAfter(anyLong(), anyInt()))
+            .thenThrow(new DataAccessResourceFailureException("Connection lost"));
+
+        assertThatThrownBy(() -> publicationSearchService.rebuild()).isInstanceOf(DataAccessResourceFailureException.class);
+        publicationSearchService.commit();
+        publicationSearchService.refresh();
+
+        assertThat(searchedIds()).containsExactly(2L, 1L);
+        assertThat(publicationSearchService.isStale()).isTrue();
+        assertThat(publicationSearchService.isRebuilding()).isFalse();
+    }
+
+    @Test
+    public void assertThatARebuildRemovesTheDeletedPublications() {
+        publicationSearchService.index(Arrays.asList(1L, 2L, 3L));
+        publicationSearchService.refresh();
+        // the second publication was deleted without its event
+        when(publicationRepository.findIdsAfter(eq(Long.MIN_VALUE), anyInt())).thenReturn(Arrays.asList(1L, 3L));
+        when(publicationRepository.findIdsAfter(eq(3L), anyInt())).thenReturn(Collections.emptyList());
+
+        assertThat(publicationSearchService.startRebuild()).isTrue();
+
+        assertThat(searchedIds()).containsExactly(3L, 1L);
+        assertThat(publicationSearchService.isStale()).isFalse();
+        assertThat(publicationSearchService.isRebuilding()).isFalse();
+    }
+
+    private List<Long> searchedIds() {
+        return publicationSearchService.search(null, null, null, null, null, null, 10).stream()
+            .map(PublicationRowDTO::getId).collect(Collectors.toList());
+    }
+
+    private static PublicationDocument document(Long id) {
+        return new PublicationDocument() {
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getPublisherId() {
+                return null;
+            }
+
+            @Override
+            public LocalDate getDate() {
+                return null;
+            }
+
+            @Override
+            public String getContent() {
+                return "content";
+            }
+        };
+    }
+}
@@ -0,0 +1,250 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCountersChangedEvent;
+import ar.edu.um.isa.web.rest.PublicationResourceIntTest;
+import ar.edu.um.isa.web.rest.errors.BadRequestAlertException;
+
+import org.assertj.core.groups.Tuple;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Test class for the PublicationService.
+ * <p>
+ * The counter changes are published for after the commit, which these tests roll back, so the service records
+ * its events instead.
+ *
+ * @see PublicationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+@Transactional
+public class PublicationServiceIntTest {
+
+    @Autowired
+    private PublicationRepository publicationRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private PublicationService publicationService;
+
+    private Publication original;
+
+    private Publication other;
+
+    @Before
+    public void init() {
+        publicationService = new PublicationService(publicationRepository, publisherRepository, tagService, regionService,
+            events::add, cacheManager);
+        original = publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em));
+        other = publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em));
+    }
+
+    @Test
+    public void assertThatUpdateLinksTheRootOfTheRepublishedPublication() {
+        Publication republish = publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original));
+        Publication publication = detached(publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em)));
+
+        publicationService.update(publication.republish(reference(republish)));
+        em.flush();
+        em.clear();
+
+        assertThat(publicationRepository.findById(publication.getId()).get().getRepublish()).isEqualTo(original);
+        assertThat(republishDeltas()).containsExactly(tuple(original.getId(), 1));
+    }
+
+    @Test
+    public void assertThatUpdateMovesTheRepublishCounter() {
+        Publication republish = detached(publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original)));
+
+        publicationService.update(republish.republish(reference(other)));
+
+        assertThat(republishDeltas()).containsExactly(tuple(original.getId(), -1), tuple(other.getId(), 1));
+    }
+
+    @Test
+    public void assertThatUpdateKeepingTheRepublishDoesNotCountIt() {
+        Publication republish = detached(publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original)));
+
+        publicationService.update(republish.content("updated").republish(reference(original)));
+
+        assertThat(republishDeltas()).isEmpty();
+    }
+
+    @Test
+    public void assertThatUpdateRemovingTheRepublishUncountsIt() {
+        Publication republish = detached(publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original)));
+
+        publicationService.update(republish.republish(null));
+        em.flush();
+        em.clear();
+
+        assertThat(publicationRepository.findById(republish.getId()).get().getRepublish()).isNull();
+        assertThat(republishDeltas()).containsExactly(tuple(original.getId(), -1));
+    }
+
+    @Test
+    public void assertThatUpdateCannotRepublishItself() {
+        Publication publication = detached(original);
+
+        assertThatThrownBy(() -> publicationService.update(publication.republish(reference(original))))
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThat(republishDeltas()).isEmpty();
+    }
+
+    @Test
+    public void assertThatUpdateCannotRepublishItsOwnRepublish() {
+        Publication republish = publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original));
+        Publication publication = detached(original);
+
+        // the republish links to the root, which is the publication itself
+        assertThatThrownBy(() -> publicationService.update(publication.republish(reference(republish))))
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThat(republishDeltas()).isEmpty();
+    }
+
+    @Test
+    public void assertThatARepublishedPublicationCannotRepublishOnUpdate() {
+        publicationRepository.saveAndFlush(PublicationResourceIntTest.createEntity(em).republish(original));
+        Publication publication = detached(original);
+
+        assertThatThrownBy(() -> publicationService.update(publication.republish(reference(other))))
+            .isInstanceOf(BadRequestAlertException.class);
+        assertThat(republishDeltas()).isEmpty();
+    }
+
+    @Test
+    public void assertThatUpdateCannotRepublishAnUnknownPublication() {
+        Publication publication = detached(other);
+        Publication unknown = new Publication();
+        unknown.setId(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> publicationService.update(publication.republish(unknown)))
+            .isInstanceOf(BadRequestAlertException.class);
+    }
+
+    @Test
+    public void assertThatUpdateCountsTheAddedAndRemovedTags() {
+        Tag removed = persistTag("removed-on-update");
+        Tag kept = persistTag("kept-on-update");
+        Tag added = persistTag("added-on-update");
+        Publication publication = PublicationResourceIntTest.createEntity(em);
+        publication.getTags().addAll(Arrays.asList(removed, kept));
+        publication = detached(publicationRepository.saveAndFlush(publication));
+
+        publication.getTags().clear();
+        publication.getTags().addAll(Arrays.asList(kept, added));
+        publicationService.update(publication);
+        em.flush();
+        em.clear();
+
+        assertThat(tagRepository.findById(removed.getId()).get().getPublicationCount()).isEqualTo(-1);
+        assertThat(tagRepository.findById(kept.getId()).get().getPublicationCount()).isZero();
+        assertThat(tagRepository.findById(added.getId()).get().getPublicationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatTheChangeEventsCarryTheChangedTags() {
+        Tag removed = persistTag("removed-on-change");
+        Tag kept = persistTag("kept-on-change");
+        Tag added = persistTag("added-on-change");
+        Publication publication = PublicationResourceIntTest.createEntity(em);
+        publication.getTags().addAll(Arrays.asList(removed, kept));
+        publication = detached(publicationRepository.saveAndFlush(publication));
+
+        publication.getTags().clear();
+        publication.getTags().addAll(Arrays.asList(kept, added));
+        publicationService.update(publication);
+        em.flush();
+        em.clear();
+        publicationService.delete(publication.getId());
+
+        List<PublicationChangedEvent> changes = new ArrayList<>();
+        for (Object event : events) {
+            if (event instanceof PublicationChangedEvent) {
+                changes.add((PublicationChangedEvent) event);
+            }
+        }
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0).getAddedTagIds()).containsExactly(added.getId());
+        assertThat(changes.get(0).getRemovedTagIds()).containsExactly(removed.getId());
+        assertThat(changes.get(1).isDeleted()).isTrue();
+        assertThat(changes.get(1).getAddedTagIds()).isEmpty();
+        assertThat(changes.get(1).getRemovedTagIds()).containsExactlyInAnyOrder(kept.getId(), added.getId());
+    }
+
+    private Tag persistTag(String name) {
+        Tag tag = new Tag().name(name);
+        em.persist(tag);
+        return tag;
+    }
+
+    /**
+     * @return the publication as sent back by a client, detached from the persistence context
+     */
+    private Publication detached(Publication publication) {
+        em.flush();
+        em.detach(publication);
+        return publication;
+    }
+
+    /**
+     * @return a publication with only the id of another one, as sent by a client
+     */
+    private static Publication reference(Publication publication) {
+        Publication reference = new Publication();
+        reference.setId(publication.getId());
+        return reference;
+    }
+
+    private List<Tuple> republishDeltas() {
+        List<Tuple> deltas = new ArrayList<>();
+        for (Object event : events) {
+            if (event instanceof PublicationCountersChangedEvent) {
+                PublicationCountersChangedEvent counters = (PublicationCountersChangedEvent) event;
+                deltas.add(tuple(counters.getPublicationId(), counters.getRepublishDelta()));
+            }
+        }
+        return deltas;
+    }
+}
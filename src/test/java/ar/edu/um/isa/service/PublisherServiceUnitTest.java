@@ -0,0 +1,90 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.dto.PublisherSummaryDTO;
+import ar.edu.um.isa.service.event.FollowsChangedEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the follows of the PublisherService, when they race with concurrent follows.
+ *
+ * @see PublisherService
+ */
+public class PublisherServiceUnitTest {
+
+    private static final long FOLLOWER_ID = 1L;
+
+    @Mock
+    private PublisherRepository publisherRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private PublisherService publisherService;
+
+    private final PublisherSummaryDTO summary = new PublisherSummaryDTO(FOLLOWER_ID, "follower", 0L, 1L, 0L);
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        publisherService = new PublisherService(publisherRepository, jdbcTemplate, eventPublisher);
+        when(publisherRepository.findSummaryById(FOLLOWER_ID)).thenReturn(Optional.of(summary));
+        when(publisherRepository.existsById(any())).thenReturn(true);
+    }
+
+    @Test
+    public void followRejectedByAConcurrentFollowSucceedsWithoutCounting() {
+        // the concurrent follow commits first: the insert is rejected, then skips it
+        when(jdbcTemplate.update(eq(PublisherRepository.INSERT_FOLLOWS_STATEMENT), any(SqlParameterSource.class)))
+            .thenThrow(new DuplicateKeyException("publisher_follow")).thenReturn(0);
+
+        assertThat(publisherService.follow(FOLLOWER_ID, 2L)).contains(summary);
+
+        verify(jdbcTemplate, times(2)).update(eq(PublisherRepository.INSERT_FOLLOWS_STATEMENT), any(SqlParameterSource.class));
+        verify(publisherRepository, never()).updateFollowCounters(anyLong(), anyCollection(), anyLong(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void followAllCountsOnlyTheInsertedFollows() {
+        when(publisherRepository.findFollowIdsIn(eq(FOLLOWER_ID), anyCollection()))
+            .thenReturn(Collections.<Number>emptyList()).thenReturn(Collections.<Number>singletonList(3L));
+        // publisher 2 is followed concurrently: the second insert skips it
+        when(jdbcTemplate.update(eq(PublisherRepository.INSERT_FOLLOWS_STATEMENT), any(SqlParameterSource.class)))
+            .thenThrow(new DuplicateKeyException("publisher_follow")).thenReturn(1);
+        when(publisherRepository.updateFollowCounters(FOLLOWER_ID, Collections.singletonList(3L), 1, 1)).thenReturn(2);
+
+        assertThat(publisherService.followAll(FOLLOWER_ID, Arrays.asList(2L, 3L))).contains(summary);
+
+        verify(publisherRepository).updateFollowCounters(FOLLOWER_ID, Collections.singletonList(3L), 1, 1);
+        ArgumentCaptor<FollowsChangedEvent> event = ArgumentCaptor.forClass(FollowsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getFollowedIds()).containsExactly(3L);
+    }
+}
@@ -0,0 +1,160 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.config.ApplicationProperties;
+import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the RecentPublicationBuffers.
+ *
+ * @see RecentPublicationBuffers
+ */
+public class RecentPublicationBuffersUnitTest {
+
+    private static final int CAPACITY = 3;
+
+    @Mock
+    private PublicationRepository publicationRepository;
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    private RecentPublicationBuffers buffers;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getTimeline().setBufferCapacity(CAPACITY);
+        applicationProperties.getTimeline().setBufferLoadsPerRequest(2);
+        metricRegistry = new MetricRegistry();
+        buffers = new RecentPublicationBuffers(publicationRepository, applicationProperties, metricRegistry);
+    }
+
+    private void givenPublications(long publisherId, Long... newestFirst) {
+        when(publicationRepository.findIdsByPublisherId(eq(publisherId), any(Pageable.class)))
+            .thenReturn(Arrays.asList(newestFirst));
+    }
+
+    @Test
+    public void assembleMergesTheBuffersOfThePublishers() {
+        givenPublications(1L, 90L, 50L);
+        givenPublications(2L, 80L, 70L);
+
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L), Long.MAX_VALUE, 3)).containsExactly(90, 80, 70);
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L), 70L, 3)).containsExactly(50);
+        // loaded once, then answered from memory
+        verify(publicationRepository, times(1)).findIdsByPublisherId(eq(1L), any(Pageable.class));
+        assertThat(metricRegistry.counter(MetricRegistry.name(RecentPublicationBuffers.class, "hits")).getCount()).isEqualTo(2);
+        assertThat(metricRegistry.counter(MetricRegistry.name(RecentPublicationBuffers.class, "misses")).getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void createdPublicationsAreAddedToLoadedBuffers() {
+        givenPublications(1L, 50L);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+
+        buffers.onPublicationCreated(new PublicationCreatedEvent(60L, 1L, null));
+        buffers.onPublicationCreated(new PublicationCreatedEvent(70L, 2L, null));
+
+        assertThat(buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 5)).containsExactly(60, 50);
+    }
+
+    @Test
+    public void deletedPublicationsAreRemovedFromLoadedBuffers() {
+        givenPublications(1L, 60L, 50L);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+
+        buffers.onPublicationChanged(new PublicationChangedEvent(60L, 1L, true));
+        buffers.onPublicationChanged(new PublicationChangedEvent(50L, 1L, false));
+        buffers.onPublicationChanged(new PublicationChangedEvent(50L, 2L, true));
+
+        assertThat(buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 5)).containsExactly(50);
+    }
+
+    @Test
+    public void incompleteBufferFallsBackBelowItsOldestId() {
+        // a full buffer may miss older publications
+        givenPublications(1L, 90L, 80L, 70L);
+        givenPublications(2L, 75L, 5L);
+
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L), Long.MAX_VALUE, 3)).containsExactly(90, 80, 75);
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L), Long.MAX_VALUE, 5)).isNull();
+    }
+
+    @Test
+    public void tooManyMissingBuffersFallBack() {
+        givenPublications(1L, 10L);
+        givenPublications(2L, 20L);
+        givenPublications(3L, 30L);
+
+        // more buffers are missing than a request loads: none is loaded
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L, 3L), Long.MAX_VALUE, 3)).isNull();
+        verify(publicationRepository, never()).findIdsByPublisherId(anyLong(), any());
+
+        // the buffers loaded by smaller requests answer the next one
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L), Long.MAX_VALUE, 3)).containsExactly(20, 10);
+        assertThat(buffers.assemble(Arrays.asList(1L, 2L, 3L), Long.MAX_VALUE, 3)).containsExactly(30, 20, 10);
+        verify(publicationRepository, times(3)).findIdsByPublisherId(anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void leastRecentlyUsedBuffersAreEvictedUnderTheMemoryBudget() {
+        long bytesPerBuffer = CAPACITY * Long.BYTES + RecentPublicationBuffers.BUFFER_OVERHEAD_BYTES;
+        applicationProperties.getTimeline().setBufferMemory(2 * bytesPerBuffer);
+        buffers = new RecentPublicationBuffers(publicationRepository, applicationProperties, new MetricRegistry());
+        givenPublications(1L, 10L);
+        givenPublications(2L, 20L);
+        givenPublications(3L, 30L);
+
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+        buffers.assemble(Collections.singleton(2L), Long.MAX_VALUE, 1);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+        buffers.assemble(Collections.singleton(3L), Long.MAX_VALUE, 1);
+
+        assertThat(buffers.size()).isEqualTo(2);
+        assertThat(buffers.memoryUsage()).isEqualTo(2 * bytesPerBuffer);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+        verify(publicationRepository, times(1)).findIdsByPublisherId(eq(1L), any(Pageable.class));
+        buffers.assemble(Collections.singleton(2L), Long.MAX_VALUE, 1);
+        verify(publicationRepository, times(2)).findIdsByPublisherId(eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void metricsAreRegistered() {
+        givenPublications(1L, 10L);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+        buffers.assemble(Collections.singleton(1L), Long.MAX_VALUE, 1);
+
+        assertThat(metricRegistry.getGauges().get(MetricRegistry.name(RecentPublicationBuffers.class, "hit-ratio")).getValue())
+            .isEqualTo(0.5);
+        Gauge<Integer> count = metricRegistry.getGauges().get(MetricRegistry.name(RecentPublicationBuffers.class, "buffers"));
+        assertThat(count.getValue()).isEqualTo(1);
+        assertThat(metricRegistry.getTimers().get(MetricRegistry.name(RecentPublicationBuffers.class, "merge")).getCount())
+            .isEqualTo(2);
+    }
+}
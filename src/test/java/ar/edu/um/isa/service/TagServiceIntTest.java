@@ -0,0 +1,152 @@
+package ar.edu.um.isa.service;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.repository.TagRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the TagService.
+ * <p>
+ * New tags are committed in their own transaction, so these tests commit and clean up their data.
+ *
+ * @see TagService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class TagServiceIntTest {
+
+    private static final LocalDate FIRST_USE = LocalDate.of(2018, 11, 1);
+    private static final LocalDate SECOND_USE = LocalDate.of(2018, 11, 2);
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @Before
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE).clear();
+    }
+
+    @After
+    public void cleanUp() {
+        transaction.execute(status -> {
+            tagRepository.findByNameIn(Arrays.asList("java", "spring", "race", "fresh"))
+                .forEach(tag -> tagRepository.deleteById(tag.getId()));
+            return null;
+        });
+        cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE).clear();
+    }
+
+    @Test
+    public void assertThatMissingTagsAreCreatedOnce() {
+        Set<Long> ids = transaction.execute(status ->
+            ids(tagService.resolveTags(Arrays.asList("java", "Spring", "JAVA"), FIRST_USE)));
+
+        assertThat(ids).hasSize(2);
+        assertThat(tagRepository.findByNameIn(Arrays.asList("java", "spring")))
+            .extracting(TagRepository.TagIdAndName::getId).containsExactlyInAnyOrderElementsOf(ids);
+
+        Set<Long> sameIds = transaction.execute(status ->
+            ids(tagService.resolveTags(Arrays.asList("spring", "java"), SECOND_USE)));
+
+        assertThat(sameIds).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(tagRepository.findByName("java").getLastUse()).isEqualTo(SECOND_USE);
+    }
+
+    @Test
+    public void assertThatLastUseIsNotMovedBack() {
+        transaction.execute(status -> tagService.resolveTags(Collections.singleton("java"), SECOND_USE));
+        transaction.execute(status -> tagService.resolveTags(Collections.singleton("java"), FIRST_USE));
+
+        assertThat(tagRepository.findByName("java").getLastUse()).isEqualTo(SECOND_USE);
+    }
+
+    @Test
+    public void assertThatKnownTagsAreAnsweredFromTheCache() {
+        Long id = transaction.execute(status ->
+            tagService.resolveTags(Collections.singleton("java"), FIRST_USE).iterator().next().getId());
+
+        assertThat(cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE).get("java", Long.class)).isEqualTo(id);
+    }
+
+    @Test
+    public void assertThatConcurrentlyInsertedTagsAreReused() {
+        // Another publication inserted "race" after our lookup missed it
+        Long raceId = transaction.execute(status -> tagRepository.saveAndFlush(new Tag().name("race")).getId());
+
+        Map<String, Long> ids = tagService.insertMissingTags(new LinkedHashSet<>(Arrays.asList("race", "fresh")), FIRST_USE);
+
+        assertThat(ids).containsEntry("race", raceId).containsKey("fresh");
+        assertThat(tagRepository.findByNameIn(Arrays.asList("race", "fresh"))).hasSize(2);
+    }
+
+    @Test
+    public void assertThatTagNameIsUnique() {
+        transaction.execute(status -> tagRepository.saveAndFlush(new Tag().name("java")));
+
+        assertThatThrownBy(() -> transaction.execute(status -> tagRepository.saveAndFlush(new Tag().name("java"))))
+            .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void assertThatSavedTagNameIsLowerCased() {
+        transaction.execute(status -> tagService.resolveTags(Collections.singleton("java"), FIRST_USE));
+
+        // a tag differing only by case would not be found by the publications
+        assertThatThrownBy(() -> transaction.execute(status -> tagService.save(new Tag().name("Java"))))
+            .isInstanceOf(DataIntegrityViolationException.class);
+        Tag tag = transaction.execute(status -> tagService.save(new Tag().name("Spring")));
+        assertThat(tag.getName()).isEqualTo("spring");
+    }
+
+    @Test
+    public void assertThatDeletedTagIsEvictedFromTheCache() {
+        Long id = transaction.execute(status ->
+            tagService.resolveTags(Collections.singleton("java"), FIRST_USE).iterator().next().getId());
+
+        transaction.execute(status -> {
+            tagService.delete(id);
+            return null;
+        });
+
+        assertThat(cacheManager.getCache(TagRepository.TAG_ID_BY_NAME_CACHE).get("java")).isNull();
+    }
+
+    private static Set<Long> ids(Set<Tag> tags) {
+        return tags.stream().map(Tag::getId).collect(Collectors.toSet());
+    }
+}
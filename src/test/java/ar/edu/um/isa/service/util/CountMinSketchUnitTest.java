@@ -0,0 +1,64 @@
+package ar.edu.um.isa.service.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CountMinSketch utility class.
+ *
+ * @see CountMinSketch
+ */
+public class CountMinSketchUnitTest {
+
+    @Test
+    public void testDimensions() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+
+        assertThat(sketch.getWidth()).isEqualTo(272);
+        assertThat(sketch.getDepth()).isEqualTo(5);
+    }
+
+    @Test
+    public void testEstimatesAgainstExactCounts() {
+        double epsilon = 0.001;
+        double delta = 0.01;
+        CountMinSketch sketch = new CountMinSketch(epsilon, delta);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String key = "tag" + random.nextInt(20_000);
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        long bound = (long) Math.ceil(epsilon * sketch.getTotal());
+        int exceeding = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                exceeding++;
+            }
+        }
+        assertThat(sketch.getTotal()).isEqualTo(200_000);
+        assertThat((double) exceeding / exact.size()).isLessThanOrEqualTo(delta);
+    }
+
+    @Test
+    public void testHalve() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        sketch.add("java", 10);
+        sketch.add("spring", 3);
+
+        sketch.halve();
+
+        assertThat(sketch.estimate("java")).isEqualTo(5);
+        assertThat(sketch.estimate("spring")).isEqualTo(1);
+        assertThat(sketch.getTotal()).isEqualTo(6);
+    }
+}
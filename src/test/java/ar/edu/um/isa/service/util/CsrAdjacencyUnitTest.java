@@ -0,0 +1,94 @@
+package ar.edu.um.isa.service.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CsrAdjacency utility class.
+ *
+ * @see CsrAdjacency
+ */
+public class CsrAdjacencyUnitTest {
+
+    private static CsrAdjacency sample() {
+        return new CsrAdjacency.Builder(0)
+            .add(1, 2).add(1, 3).add(1, 3)
+            .add(2, 3)
+            .add(5, 1).add(5, 2)
+            .build();
+    }
+
+    @Test
+    public void testLookups() {
+        CsrAdjacency adjacency = sample();
+
+        assertThat(adjacency.sourceCount()).isEqualTo(3);
+        assertThat(adjacency.edgeCount()).isEqualTo(5);
+        assertThat(adjacency.targetsOf(1)).containsExactly(2, 3);
+        assertThat(adjacency.targetsOf(4)).isEmpty();
+        assertThat(adjacency.degreeOf(5)).isEqualTo(2);
+        assertThat(adjacency.contains(2, 3)).isTrue();
+        assertThat(adjacency.contains(3, 2)).isFalse();
+    }
+
+    @Test
+    public void testTranspose() {
+        CsrAdjacency reversed = sample().transpose();
+
+        assertThat(reversed.edgeCount()).isEqualTo(5);
+        assertThat(reversed.targetsOf(1)).containsExactly(5);
+        assertThat(reversed.targetsOf(2)).containsExactly(1, 5);
+        assertThat(reversed.targetsOf(3)).containsExactly(1, 2);
+        assertThat(reversed.targetsOf(5)).isEmpty();
+    }
+
+    @Test
+    public void testWithRows() {
+        SortedMap<Long, long[]> rows = new TreeMap<>();
+        rows.put(0L, new long[]{9});
+        rows.put(2L, new long[0]);
+        rows.put(5L, new long[]{1, 2, 4});
+        rows.put(6L, new long[]{1});
+
+        CsrAdjacency adjacency = sample().withRows(rows);
+
+        assertThat(adjacency.sourceCount()).isEqualTo(4);
+        assertThat(adjacency.edgeCount()).isEqualTo(7);
+        assertThat(adjacency.targetsOf(0)).containsExactly(9);
+        assertThat(adjacency.targetsOf(1)).containsExactly(2, 3);
+        assertThat(adjacency.targetsOf(2)).isEmpty();
+        assertThat(adjacency.targetsOf(5)).containsExactly(1, 2, 4);
+        assertThat(adjacency.targetsOf(6)).containsExactly(1);
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        CsrAdjacency adjacency = sample();
+        ByteBuffer buffer = ByteBuffer.allocate((int) adjacency.byteSize() + 4);
+        buffer.putInt(42);
+        adjacency.writeTo(buffer);
+        assertThat(buffer.remaining()).isZero();
+
+        buffer.flip();
+        assertThat(buffer.getInt()).isEqualTo(42);
+        CsrAdjacency read = CsrAdjacency.readFrom(buffer);
+
+        assertThat(read.edgeCount()).isEqualTo(5);
+        assertThat(read.targetsOf(1)).containsExactly(2, 3);
+        assertThat(read.targetsOf(5)).containsExactly(1, 2);
+    }
+
+    @Test
+    public void testUnsortedEdgesAreRejected() {
+        assertThatThrownBy(() -> new CsrAdjacency.Builder(0).add(2, 1).add(1, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CsrAdjacency.Builder(0).add(1, 2).add(1, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
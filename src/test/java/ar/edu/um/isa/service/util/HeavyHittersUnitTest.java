@@ -0,0 +1,128 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.HeavyHitters.Estimate;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the HeavyHitters utility class, against exact counts.
+ *
+ * @see HeavyHitters
+ */
+public class HeavyHittersUnitTest {
+
+    private static final double EPSILON = 0.001;
+
+    private static final double DELTA = 0.001;
+
+    @Test
+    public void testTopAgainstExactCountsOfAZipfStream() {
+        HeavyHitters heavyHitters = new HeavyHitters(100, EPSILON, DELTA);
+        Map<String, Long> exact = new HashMap<>();
+        double[] cumulative = zipfCumulative(50_000, 1.1);
+        Random random = new Random(42);
+        int total = 300_000;
+        for (int i = 0; i < total; i++) {
+            String key = "tag" + sample(cumulative, random);
+            heavyHitters.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<Estimate> top = heavyHitters.top(20);
+        List<String> exactTop = exactTop(exact, 20);
+        assertThat(keys(top)).containsExactlyElementsOf(exactTop);
+        long bound = (long) Math.ceil(EPSILON * total);
+        for (Estimate estimate : top) {
+            long count = exact.get(estimate.getKey());
+            assertThat(estimate.getCount()).isBetween(count, count + bound);
+            assertThat(estimate.getCount() - estimate.getError()).isLessThanOrEqualTo(count);
+        }
+    }
+
+    @Test
+    public void testRareKeysDoNotEvictTheHeavyHitters() {
+        HeavyHitters heavyHitters = new HeavyHitters(10, EPSILON, DELTA);
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.add("popular" + i, 50 + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            heavyHitters.add("spam" + i, 1);
+        }
+
+        List<Estimate> top = heavyHitters.top(10);
+        assertThat(keys(top)).containsExactly("popular9", "popular8", "popular7", "popular6", "popular5",
+            "popular4", "popular3", "popular2", "popular1", "popular0");
+        assertThat(top.get(0).getCount()).isEqualTo(59);
+        assertThat(top.get(0).getError()).isZero();
+    }
+
+    @Test
+    public void testNewHeavyHittersReplaceTheLeastCounted() {
+        HeavyHitters heavyHitters = new HeavyHitters(2, EPSILON, DELTA);
+        heavyHitters.add("old", 5);
+        heavyHitters.add("older", 3);
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.add("new", 1);
+        }
+
+        List<Estimate> top = heavyHitters.top(10);
+        assertThat(keys(top)).containsExactly("new", "old");
+        assertThat(top.get(0).getCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void testHalve() {
+        HeavyHitters heavyHitters = new HeavyHitters(10, EPSILON, DELTA);
+        heavyHitters.add("java", 10);
+        heavyHitters.add("spring", 4);
+        heavyHitters.add("once", 1);
+
+        heavyHitters.halve();
+        heavyHitters.add("spring", 4);
+
+        List<Estimate> top = heavyHitters.top(10);
+        assertThat(keys(top)).containsExactly("spring", "java");
+        assertThat(top.get(0).getCount()).isEqualTo(6);
+        assertThat(top.get(1).getCount()).isEqualTo(5);
+    }
+
+    private static double[] zipfCumulative(int keys, double exponent) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int rank = 0; rank < keys; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < keys; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    private static List<String> exactTop(Map<String, Long> exact, int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(exact.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, limit)) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private static List<String> keys(List<Estimate> estimates) {
+        List<String> keys = new ArrayList<>();
+        for (Estimate estimate : estimates) {
+            keys.add(estimate.getKey());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,79 @@
+package ar.edu.um.isa.service.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the LongMergeUtil utility class.
+ *
+ * @see LongMergeUtil
+ */
+public class LongMergeUtilUnitTest {
+
+    @Test
+    public void testMergeDescending() {
+        List<long[]> arrays = Arrays.asList(new long[]{9, 5, 1}, new long[]{8, 7, 2}, new long[0], new long[]{6});
+
+        assertThat(LongMergeUtil.mergeDescending(arrays, Long.MAX_VALUE, Long.MIN_VALUE, 5)).containsExactly(9, 8, 7, 6, 5);
+        assertThat(LongMergeUtil.mergeDescending(arrays, 6, Long.MIN_VALUE, 5)).containsExactly(5, 2, 1);
+        assertThat(LongMergeUtil.mergeDescending(arrays, 9, 6, 5)).containsExactly(8, 7, 6);
+    }
+
+    @Test
+    public void testDuplicatesAreTakenOnce() {
+        List<long[]> arrays = Arrays.asList(new long[]{5, 3}, new long[]{5, 4, 3});
+
+        assertThat(LongMergeUtil.mergeDescending(arrays, Long.MAX_VALUE, Long.MIN_VALUE, 10)).containsExactly(5, 4, 3);
+    }
+
+    @Test
+    public void testMergeMatchesSortedUnion() {
+        Random random = new Random(42);
+        List<long[]> arrays = new ArrayList<>();
+        TreeSet<Long> union = new TreeSet<>(Collections.reverseOrder());
+        for (int i = 0; i < 200; i++) {
+            long[] array = random.longs(random.nextInt(20), 0, 10_000).sorted().toArray();
+            for (int j = 0; j < array.length / 2; j++) {
+                long swap = array[j];
+                array[j] = array[array.length - 1 - j];
+                array[array.length - 1 - j] = swap;
+            }
+            Arrays.stream(array).forEach(union::add);
+            arrays.add(array);
+        }
+
+        long[] expected = union.tailSet(5_000L, false).stream().limit(100).mapToLong(Long::longValue).toArray();
+        assertThat(LongMergeUtil.mergeDescending(arrays, 5_000, Long.MIN_VALUE, 100)).containsExactly(expected);
+    }
+
+    @Test
+    public void testIntersectAscending() {
+        assertThat(LongMergeUtil.intersectAscending(new long[]{1, 3, 5, 7}, new long[]{2, 3, 4, 7, 9})).containsExactly(3, 7);
+        assertThat(LongMergeUtil.intersectAscending(new long[]{1, 2}, new long[0])).isEmpty();
+    }
+
+    @Test
+    public void testAddAscending() {
+        long[] array = {2, 4, 6};
+
+        assertThat(LongMergeUtil.addAscending(array, 5, 1, 7, 5)).containsExactly(1, 2, 4, 5, 6, 7);
+        assertThat(LongMergeUtil.addAscending(array, 4, 2)).isSameAs(array);
+        assertThat(LongMergeUtil.addAscending(new long[0], 3)).containsExactly(3);
+    }
+
+    @Test
+    public void testRemoveAscending() {
+        long[] array = {2, 4, 6};
+
+        assertThat(LongMergeUtil.removeAscending(array, 6, 2, 3)).containsExactly(4);
+        assertThat(LongMergeUtil.removeAscending(array, 5)).isSameAs(array);
+    }
+}
@@ -0,0 +1,62 @@
+package ar.edu.um.isa.service.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the LongRingBuffer utility class.
+ *
+ * @see LongRingBuffer
+ */
+public class LongRingBufferUnitTest {
+
+    @Test
+    public void testNewestFirst() {
+        LongRingBuffer buffer = new LongRingBuffer(4);
+        buffer.add(1);
+        buffer.add(2);
+        buffer.add(3);
+
+        assertThat(buffer.toArrayNewestFirst()).containsExactly(3, 2, 1);
+        assertThat(buffer.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testOldestValuesAreOverwritten() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        assertThat(buffer.add(1)).isFalse();
+        assertThat(buffer.add(2)).isFalse();
+        assertThat(buffer.add(3)).isFalse();
+        assertThat(buffer.add(4)).isTrue();
+        assertThat(buffer.add(5)).isTrue();
+
+        assertThat(buffer.toArrayNewestFirst()).containsExactly(5, 4, 3);
+        assertThat(buffer.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRemove() {
+        LongRingBuffer buffer = new LongRingBuffer(3);
+        for (long value = 1; value <= 5; value++) {
+            buffer.add(value);
+        }
+
+        // the buffer wrapped around: the removed value is in the middle of the array
+        assertThat(buffer.remove(4)).isTrue();
+        assertThat(buffer.remove(2)).isFalse();
+        assertThat(buffer.toArrayNewestFirst()).containsExactly(5, 3);
+        assertThat(buffer.add(6)).isFalse();
+        assertThat(buffer.toArrayNewestFirst()).containsExactly(6, 5, 3);
+        assertThat(buffer.remove(3)).isTrue();
+        assertThat(buffer.remove(6)).isTrue();
+        assertThat(buffer.toArrayNewestFirst()).containsExactly(5);
+    }
+
+    @Test
+    public void testEmptyBuffer() {
+        assertThat(new LongRingBuffer(2).toArrayNewestFirst()).isEmpty();
+        assertThatThrownBy(() -> new LongRingBuffer(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.MutualFollowCounter.Ranking;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the MutualFollowCounter utility class.
+ *
+ * @see MutualFollowCounter
+ */
+public class MutualFollowCounterUnitTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRank() {
+        Map<Long, long[]> follows = new HashMap<>();
+        follows.put(1L, new long[]{2, 3, 4});
+        follows.put(2L, new long[]{5, 7});
+        follows.put(3L, new long[]{1, 2, 5});
+        follows.put(4L, new long[]{5, 6});
+
+        Ranking ranking = MutualFollowCounter.rank(pool, 1, follows.get(1L), followsOf(follows), 10);
+
+        assertThat(ids(ranking)).containsExactly(5L, 6L, 7L);
+        assertThat(ranking.getMutualCount(0)).isEqualTo(3);
+        assertThat(ranking.getMutualCount(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void testRankWithoutFollows() {
+        Ranking ranking = MutualFollowCounter.rank(pool, 1, new long[0], id -> new long[0], 10);
+
+        assertThat(ranking.size()).isZero();
+    }
+
+    @Test
+    public void testRankSplitsTheFollows() {
+        Random random = new Random(42);
+        Map<Long, long[]> follows = new HashMap<>();
+        for (long id = 0; id < 1000; id++) {
+            follows.put(id, randomIds(random, 1000, random.nextInt(50)));
+        }
+        long[] viewerFollows = randomIds(random, 1000, 10 * MutualFollowCounter.FOLLOWS_PER_TASK);
+        follows.put(0L, viewerFollows);
+
+        Ranking ranking = MutualFollowCounter.rank(pool, 0, viewerFollows, followsOf(follows), 50);
+
+        // count the mutual follows one candidate at a time
+        Map<Long, Integer> expected = new TreeMap<>();
+        for (long followed : viewerFollows) {
+            for (long candidate : follows.get(followed)) {
+                if (candidate != 0 && Arrays.binarySearch(viewerFollows, candidate) < 0) {
+                    expected.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<Long, Integer>> best = new ArrayList<>(expected.entrySet());
+        best.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        assertThat(ranking.size()).isEqualTo(50);
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            assertThat(ranking.getId(rank)).isEqualTo(best.get(rank).getKey());
+            assertThat(ranking.getMutualCount(rank)).isEqualTo(best.get(rank).getValue());
+        }
+    }
+
+    private static LongFunction<long[]> followsOf(Map<Long, long[]> follows) {
+        return id -> follows.getOrDefault(id, new long[0]);
+    }
+
+    private static long[] randomIds(Random random, int bound, int count) {
+        return random.longs(count, 0, bound).distinct().sorted().toArray();
+    }
+
+    private static List<Long> ids(Ranking ranking) {
+        List<Long> ids = new ArrayList<>();
+        for (int rank = 0; rank < ranking.size(); rank++) {
+            ids.add(ranking.getId(rank));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,139 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.PrefixIndex.Suggestion;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PrefixIndex utility class.
+ *
+ * @see PrefixIndex
+ */
+public class PrefixIndexUnitTest {
+
+    @Test
+    public void testSuggest() {
+        PrefixIndex index = new PrefixIndex(10);
+        index.put("java", 3);
+        index.put("javascript", 5);
+        index.put("jazz", 1);
+        index.put("kotlin", 8);
+
+        assertThat(index.suggest("ja", 10)).extracting(Suggestion::getKey).containsExactly("javascript", "java", "jazz");
+        assertThat(index.suggest("java", 10)).extracting(Suggestion::getKey).containsExactly("javascript", "java");
+        assertThat(index.suggest("javas", 10)).extracting(Suggestion::getKey).containsExactly("javascript");
+        assertThat(index.suggest("", 2)).extracting(Suggestion::getKey).containsExactly("kotlin", "javascript");
+        assertThat(index.suggest("python", 10)).isEmpty();
+    }
+
+    @Test
+    public void testIncrementReordersTheSuggestions() {
+        PrefixIndex index = new PrefixIndex(2);
+        index.put("aa", 3);
+        index.put("ab", 2);
+        index.put("ac", 1);
+
+        assertThat(index.increment("ac", 5)).isTrue();
+        assertThat(index.increment("ad", 5)).isFalse();
+
+        assertThat(index.suggest("a", 2)).extracting(Suggestion::getKey).containsExactly("ac", "aa");
+        assertThat(index.score("ac")).isEqualTo(6);
+    }
+
+    @Test
+    public void testDecreasedKeyIsReplaced() {
+        PrefixIndex index = new PrefixIndex(2);
+        index.put("aa", 3);
+        index.put("ab", 2);
+        index.put("ac", 1);
+
+        index.put("aa", 0);
+
+        // ties are broken by ascending key
+        assertThat(index.suggest("a", 2)).extracting(Suggestion::getKey).containsExactly("ab", "ac");
+    }
+
+    @Test
+    public void testRemove() {
+        PrefixIndex index = new PrefixIndex(2);
+        index.put("ab", 3);
+        index.put("abc", 2);
+        index.put("abd", 1);
+
+        assertThat(index.remove("ab")).isTrue();
+        assertThat(index.remove("ab")).isFalse();
+        assertThat(index.remove("abc")).isTrue();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.suggest("a", 2)).extracting(Suggestion::getKey).containsExactly("abd");
+        assertThat(index.suggest("abc", 2)).isEmpty();
+    }
+
+    @Test
+    public void testScaleKeepsTheOrder() {
+        PrefixIndex index = new PrefixIndex(10);
+        index.put("one", 1);
+        index.put("two", 2);
+
+        index.scale(0.5);
+
+        List<Suggestion> suggestions = index.suggest("", 10);
+        assertThat(suggestions).extracting(Suggestion::getKey).containsExactly("two", "one");
+        assertThat(suggestions).extracting(Suggestion::getScore).containsExactly(1.0, 0.5);
+    }
+
+    @Test
+    public void testRandomOperationsMatchAnExhaustiveSearch() {
+        Random random = new Random(42);
+        PrefixIndex index = new PrefixIndex(5);
+        Map<String, Double> scores = new HashMap<>();
+        for (int operation = 0; operation < 20_000; operation++) {
+            String key = randomKey(random);
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                double score = random.nextInt(50);
+                index.put(key, score);
+                scores.put(key, score);
+            } else if (kind < 8) {
+                assertThat(index.increment(key, 1)).isEqualTo(scores.containsKey(key));
+                scores.computeIfPresent(key, (k, score) -> score + 1);
+            } else {
+                assertThat(index.remove(key)).isEqualTo(scores.remove(key) != null);
+            }
+            if (operation % 10 == 0) {
+                String prefix = key.substring(0, random.nextInt(key.length() + 1));
+                assertThat(index.suggest(prefix, 5)).extracting(Suggestion::getKey)
+                    .containsExactlyElementsOf(exhaustiveSuggestions(scores, prefix, 5));
+            }
+        }
+        assertThat(index.size()).isEqualTo(scores.size());
+    }
+
+    private static String randomKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            key.append((char) ('a' + random.nextInt(4)));
+        }
+        return key.toString();
+    }
+
+    private static List<String> exhaustiveSuggestions(Map<String, Double> scores, String prefix, int size) {
+        return scores.entrySet().stream()
+            .filter(entry -> entry.getKey().startsWith(prefix))
+            .sorted(Comparator.comparing((Map.Entry<String, Double> entry) -> entry.getValue()).reversed()
+                .thenComparing(Map.Entry::getKey))
+            .limit(size)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.SlidingWindowCounter.Ranking;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SlidingWindowCounter utility class.
+ *
+ * @see SlidingWindowCounter
+ */
+public class SlidingWindowCounterUnitTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testTop() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        counter.add(1, 0, 2);
+        counter.add(2, HOUR, 5);
+        counter.add(3, 2 * HOUR, 2);
+        counter.add(1, 3 * HOUR, 1);
+
+        Ranking ranking = counter.top(24, 3 * HOUR, 10);
+
+        assertThat(ranking.size()).isEqualTo(3);
+        assertThat(ranking.getKey(0)).isEqualTo(2);
+        assertThat(ranking.getCount(0)).isEqualTo(5);
+        assertThat(ranking.getKey(1)).isEqualTo(1);
+        assertThat(ranking.getCount(1)).isEqualTo(3);
+        assertThat(ranking.getKey(2)).isEqualTo(3);
+    }
+
+    @Test
+    public void testTopIsLimited() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        for (long key = 1; key <= 100; key++) {
+            counter.add(key, 0, (int) key % 10);
+        }
+
+        Ranking ranking = counter.top(24, 0, 5);
+
+        // ties are broken by ascending key
+        assertThat(ranking.size()).isEqualTo(5);
+        assertThat(ranking.getKey(0)).isEqualTo(9);
+        assertThat(ranking.getKey(1)).isEqualTo(19);
+        assertThat(ranking.getKey(4)).isEqualTo(49);
+        assertThat(ranking.getCount(4)).isEqualTo(9);
+    }
+
+    @Test
+    public void testTopOfTheNewestBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        counter.add(1, 0, 5);
+        counter.add(2, 10 * HOUR, 1);
+        counter.add(2, 11 * HOUR, 1);
+
+        Ranking ranking = counter.top(2, 11 * HOUR + 1, 10);
+
+        assertThat(ranking.size()).isEqualTo(1);
+        assertThat(ranking.getKey(0)).isEqualTo(2);
+        assertThat(ranking.getCount(0)).isEqualTo(2);
+    }
+
+    @Test
+    public void testExpiredBucketsAreSubtracted() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        counter.add(1, 0, 5);
+        counter.add(2, HOUR, 1);
+
+        Ranking ranking = counter.top(24, 24 * HOUR, 10);
+
+        assertThat(ranking.size()).isEqualTo(1);
+        assertThat(ranking.getKey(0)).isEqualTo(2);
+        assertThat(counter.size()).isEqualTo(1);
+
+        assertThat(counter.top(24, 100 * HOUR, 10).size()).isZero();
+        assertThat(counter.size()).isZero();
+    }
+
+    @Test
+    public void testOccurrencesOlderThanTheWindowAreIgnored() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        counter.add(1, 30 * HOUR, 1);
+        counter.add(2, 6 * HOUR, 1);
+        counter.add(3, 7 * HOUR, 1);
+
+        Ranking ranking = counter.top(24, 30 * HOUR, 10);
+
+        assertThat(ranking.size()).isEqualTo(2);
+        assertThat(ranking.getKey(0)).isEqualTo(1);
+        assertThat(ranking.getKey(1)).isEqualTo(3);
+    }
+
+    @Test
+    public void testRemovedOccurrences() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(24, HOUR);
+        counter.add(1, 0, 2);
+        counter.add(2, HOUR, 1);
+        counter.add(1, 0, -1);
+        counter.add(2, HOUR, -1);
+
+        Ranking ranking = counter.top(24, HOUR, 10);
+
+        assertThat(ranking.size()).isEqualTo(1);
+        assertThat(ranking.getKey(0)).isEqualTo(1);
+        assertThat(ranking.getCount(0)).isEqualTo(1);
+        assertThat(counter.size()).isEqualTo(1);
+
+        // occurrences removed from another bucket
+        counter.add(1, HOUR, -1);
+        assertThat(counter.size()).isZero();
+        assertThat(counter.top(24, 25 * HOUR, 10).size()).isZero();
+        assertThat(counter.size()).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package ar.edu.um.isa.service.util;
+
+import ar.edu.um.isa.service.util.SlidingWindowCounter.Ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TopK utility class.
+ *
+ * @see TopK
+ */
+public class TopKUnitTest {
+
+    @Test
+    public void testRank() {
+        TopK top = new TopK(3);
+        top.offer(1, 2);
+        top.offer(2, 5);
+        top.offer(3, 0);
+        top.offer(4, 2);
+        top.offer(5, 1);
+
+        Ranking ranking = top.rank();
+
+        // ties are broken by ascending key, and the keys counted zero are skipped
+        assertThat(ranking.size()).isEqualTo(3);
+        assertThat(ranking.getKey(0)).isEqualTo(2);
+        assertThat(ranking.getKey(1)).isEqualTo(1);
+        assertThat(ranking.getKey(2)).isEqualTo(4);
+        assertThat(ranking.getCount(2)).isEqualTo(2);
+        assertThat(top.rank().size()).isZero();
+    }
+
+    @Test
+    public void testRandomCountsMatchASort() {
+        Random random = new Random(42);
+        TopK top = new TopK(10);
+        List<long[]> offered = new ArrayList<>();
+        for (long key = 0; key < 1_000; key++) {
+            long count = 1 + random.nextInt(50);
+            top.offer(key, count);
+            offered.add(new long[]{key, count});
+        }
+        offered.sort(Comparator.comparingLong((long[] entry) -> -entry[1]).thenComparingLong(entry -> entry[0]));
+
+        Ranking ranking = top.rank();
+
+        assertThat(ranking.size()).isEqualTo(10);
+        for (int rank = 0; rank < 10; rank++) {
+            assertThat(ranking.getKey(rank)).isEqualTo(offered.get(rank)[0]);
+            assertThat(ranking.getCount(rank)).isEqualTo(offered.get(rank)[1]);
+        }
+    }
+}
@@ -3,9 +3,23 @@ package ar.edu.um.isa.web.rest;
 import ar.edu.um.isa.MicrobloggingIsaApp;
 
 import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.User;
 import ar.edu.um.isa.repository.PublicationRepository;
+import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.repository.UserRepository;
+import ar.edu.um.isa.service.PublicationImportService;
+import ar.edu.um.isa.service.PublicationQueryService;
+import ar.edu.um.isa.service.PublicationSearchService;
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.RegionService;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
 import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,13 +40,17 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
 import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -67,6 +85,30 @@ public class PublicationResourceIntTest {
     @Mock
     private PublicationRepository publicationRepositoryMock;
 
+    @Autowired
+    private PublicationService publicationService;
+
+    @Autowired
+    private PublicationImportService publicationImportService;
+
+    @Autowired
+    private PublicationSearchService publicationSearchService;
+
+    @Autowired
+    private PublicationQueryService publicationQueryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PublisherRepository publisherRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private RegionService regionService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -86,7 +128,8 @@ public class PublicationResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final PublicationResource publicationResource = new PublicationResource(publicationRepository);
+        final PublicationResource publicationResource = new PublicationResource(publicationRepository, publicationService, publicationImportService, publicationSearchService,
+            publicationQueryService);
         this.restPublicationMockMvc = MockMvcBuilders.standaloneSetup(publicationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -137,6 +180,266 @@ public class PublicationResourceIntTest {
         assertThat(testPublication.getCity()).isEqualTo(DEFAULT_CITY);
     }
 
+    @Test
+    @Transactional
+    public void createPublicationResolvesMentionsInOneQuery() throws Exception {
+        Publisher first = createPublisher("first");
+        Publisher second = createPublisher("second");
+        createPublisher("third");
+        // the region of the publication is then read from the cache
+        regionService.resolveRegionId(DEFAULT_COUNTRY, DEFAULT_CITY);
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        publication.setContent("hola @first @second @first @SECOND @unknown");
+        restPublicationMockMvc.perform(post("/api/publications")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(publication)))
+            .andExpect(status().isCreated());
+        em.flush();
+
+        // One query to resolve the mentions, one insert for the publication and one batched insert for the mention rows
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 1 + 1);
+
+        em.clear();
+        List<Publication> publicationList = publicationRepository.findAll();
+        Publication testPublication = publicationList.get(publicationList.size() - 1);
+        assertThat(testPublication.getMentions()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    @Transactional
+    public void createPublicationLinksTags() throws Exception {
+        publication.setContent("hola #publicationtag #PublicationTag, #publicationtag!");
+        restPublicationMockMvc.perform(post("/api/publications")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(publication)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.tags.length()").value(1));
+        em.flush();
+        em.clear();
+
+        List<Publication> publicationList = publicationRepository.findAll();
+        Publication testPublication = publicationList.get(publicationList.size() - 1);
+        assertThat(testPublication.getTags()).extracting(Tag::getName).containsExactly("publicationtag");
+        assertThat(tagRepository.findByName("publicationtag").getPublicationCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void deletePublicationUncountsTags() throws Exception {
+        publication.setContent("hola #deletedtag");
+        restPublicationMockMvc.perform(post("/api/publications")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(publication)))
+            .andExpect(status().isCreated());
+        em.flush();
+        em.clear();
+        Tag tag = tagRepository.findByName("deletedtag");
+        assertThat(tag.getPublicationCount()).isEqualTo(1);
+        Long publicationId = publicationRepository.findIdsByTagId(tag.getId(), Long.MAX_VALUE, 1).get(0).longValue();
+
+        restPublicationMockMvc.perform(delete("/api/publications/{id}", publicationId))
+            .andExpect(status().isOk());
+        em.flush();
+        em.clear();
+
+        assertThat(tagRepository.findByName("deletedtag").getPublicationCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void getPublicationsByTag() throws Exception {
+        Tag tag = new Tag().name("pagedtag");
+        em.persist(tag);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Publication tagged = createEntity(em);
+            tagged.getTags().add(tag);
+            em.persist(tagged);
+            ids.add(tagged.getId());
+        }
+        em.persist(createEntity(em));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restPublicationMockMvc.perform(get("/api/publications/tag/{id}?size=2", tag.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", ids.get(1).toString()))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(ids.get(2).longValue()))
+            .andExpect(jsonPath("$.[1].id").value(ids.get(1).longValue()));
+
+        // one query for the page of ids from the tag links and one for the rows; the tag is not loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        restPublicationMockMvc.perform(get("/api/publications/tag/{id}?size=2&before={before}", tag.getId(), ids.get(1)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(ids.get(0).longValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getPublicationsByTagWithoutPublications() throws Exception {
+        Tag tag = new Tag().name("unusedtag");
+        em.persist(tag);
+        em.flush();
+
+        restPublicationMockMvc.perform(get("/api/publications/tag/{id}", tag.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restPublicationMockMvc.perform(get("/api/publications/tag/{id}", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void favePublication() throws Exception {
+        Publisher author = createPublisher("faved-author");
+        Publisher fan = createPublisher("fan");
+        publication.setPublisher(author);
+        publicationRepository.saveAndFlush(publication);
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublicationMockMvc.perform(put("/api/publications/faved/{id_publications}/{id_publisher}", publication.getId(), fan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(publication.getId()))
+            .andExpect(jsonPath("$.faveCount").value(0))
+            .andExpect(jsonPath("$.favedBies").doesNotExist());
+
+        // the insert of the favourite and the publication; neither the favourites nor the publisher are loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+
+        // faving again does not insert another favourite
+        restPublicationMockMvc.perform(put("/api/publications/faved/{id_publications}/{id_publisher}", publication.getId(), fan.getId()))
+            .andExpect(status().isOk());
+        em.clear();
+        assertThat(publicationRepository.findById(publication.getId()).get().getFavedBies()).containsExactly(fan);
+    }
+
+    @Test
+    @Transactional
+    public void faveNonExistingPublication() throws Exception {
+        Publisher fan = createPublisher("fan");
+        em.flush();
+
+        restPublicationMockMvc.perform(put("/api/publications/faved/{id_publications}/{id_publisher}", Long.MAX_VALUE, fan.getId()))
+            .andExpect(status().isNotFound());
+        restPublicationMockMvc.perform(put("/api/publications/faved/{id_publications}/{id_publisher}", publicationRepository.saveAndFlush(publication).getId(), Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void likeAndUnlikePublication() throws Exception {
+        Publisher fan = createPublisher("fan");
+        publicationRepository.saveAndFlush(publication);
+
+        restPublicationMockMvc.perform(put("/api/publications/liked/{id_publications}/{id_publisher}", publication.getId(), fan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.likedBies").doesNotExist());
+        em.clear();
+        assertThat(publicationRepository.findById(publication.getId()).get().getLikedBies()).containsExactly(fan);
+
+        restPublicationMockMvc.perform(put("/api/publications/unliked/{id_publications}/{id_publisher}", publication.getId(), fan.getId()))
+            .andExpect(status().isOk());
+        em.clear();
+        assertThat(publicationRepository.findById(publication.getId()).get().getLikedBies()).isEmpty();
+
+        restPublicationMockMvc.perform(put("/api/publications/liked/{id_publications}/{id_publisher}", publication.getId(), Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getViewerStates() throws Exception {
+        Publisher viewer = createPublisher("viewer");
+        Publication liked = publicationRepository.saveAndFlush(createEntity(em));
+        Publication faved = publicationRepository.saveAndFlush(createEntity(em));
+        Publication republished = publicationRepository.saveAndFlush(createEntity(em));
+        Publication unseen = publicationRepository.saveAndFlush(createEntity(em));
+        publicationService.like(liked.getId(), viewer.getId());
+        publicationService.fave(faved.getId(), viewer.getId());
+        publicationService.like(faved.getId(), viewer.getId());
+        publicationRepository.saveAndFlush(createEntity(em).publisher(viewer).republish(republished));
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublicationMockMvc.perform(post("/api/publications/viewer-states/{id_publisher}", viewer.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(liked.getId(), faved.getId(), republished.getId(), unseen.getId()))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$." + liked.getId()).value(PublicationService.LIKED))
+            .andExpect(jsonPath("$." + faved.getId()).value(PublicationService.LIKED | PublicationService.FAVED))
+            .andExpect(jsonPath("$." + republished.getId()).value(PublicationService.REPUBLISHED))
+            .andExpect(jsonPath("$." + unseen.getId()).value(0));
+
+        // one query per relation, without loading any publication
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void republishPublication() throws Exception {
+        Publication original = publicationRepository.saveAndFlush(publication);
+        Publication republish = publicationRepository.saveAndFlush(createEntity(em));
+        Publication republishOfRepublish = publicationRepository.saveAndFlush(createEntity(em));
+
+        restPublicationMockMvc.perform(put("/api/publications/republish/{id_publication}/{id_republish}", republish.getId(), original.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.republish.id").value(original.getId().longValue()));
+
+        // republishing a republish links to the original publication
+        restPublicationMockMvc.perform(put("/api/publications/republish/{id_publication}/{id_republish}", republishOfRepublish.getId(), republish.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.republish.id").value(original.getId().longValue()))
+            .andExpect(jsonPath("$.republish.republish").doesNotExist());
+        em.flush();
+        em.clear();
+
+        assertThat(publicationRepository.findById(republishOfRepublish.getId()).get().getRepublish()).isEqualTo(original);
+        assertThat(publicationRepository.existsByRepublishId(original.getId())).isTrue();
+        assertThat(publicationRepository.existsByRepublishId(republish.getId())).isFalse();
+    }
+
+    @Test
+    @Transactional
+    public void republishItself() throws Exception {
+        Publication original = publicationRepository.saveAndFlush(publication);
+        Publication republish = publicationRepository.saveAndFlush(createEntity(em).republish(original));
+
+        restPublicationMockMvc.perform(put("/api/publications/republish/{id_publication}/{id_republish}", original.getId(), original.getId()))
+            .andExpect(status().isBadRequest());
+        restPublicationMockMvc.perform(put("/api/publications/republish/{id_publication}/{id_republish}", original.getId(), republish.getId()))
+            .andExpect(status().isBadRequest());
+        restPublicationMockMvc.perform(put("/api/publications/republish/{id_publication}/{id_republish}", original.getId(), Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(login);
+        em.persist(user);
+        Publisher publisher = new Publisher().user(user);
+        em.persist(publisher);
+        return publisher;
+    }
+
     @Test
     @Transactional
     public void createPublicationWithExistingId() throws Exception {
@@ -166,7 +469,7 @@ public class PublicationResourceIntTest {
         restPublicationMockMvc.perform(get("/api/publications?sort=id,desc"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.[*].id").value(hasItem(publication.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(publication.getId().longValue())))
             .andExpect(jsonPath("$.[*].date").value(hasItem(DEFAULT_DATE.toString())))
             .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())))
             .andExpect(jsonPath("$.[*].visible").value(hasItem(DEFAULT_VISIBLE.booleanValue())))
@@ -175,7 +478,8 @@ public class PublicationResourceIntTest {
     }
     
     public void getAllPublicationsWithEagerRelationshipsIsEnabled() throws Exception {
-        PublicationResource publicationResource = new PublicationResource(publicationRepositoryMock);
+        PublicationResource publicationResource = new PublicationResource(publicationRepositoryMock, publicationService, publicationImportService, publicationSearchService,
+            publicationQueryService);
         when(publicationRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
 
         MockMvc restPublicationMockMvc = MockMvcBuilders.standaloneSetup(publicationResource)
@@ -191,7 +495,8 @@ public class PublicationResourceIntTest {
     }
 
     public void getAllPublicationsWithEagerRelationshipsIsNotEnabled() throws Exception {
-        PublicationResource publicationResource = new PublicationResource(publicationRepositoryMock);
+        PublicationResource publicationResource = new PublicationResource(publicationRepositoryMock, publicationService, publicationImportService, publicationSearchService,
+            publicationQueryService);
             when(publicationRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
             MockMvc restPublicationMockMvc = MockMvcBuilders.standaloneSetup(publicationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
@@ -215,7 +520,7 @@ public class PublicationResourceIntTest {
         restPublicationMockMvc.perform(get("/api/publications/{id}", publication.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.id").value(publication.getId().intValue()))
+            .andExpect(jsonPath("$.id").value(publication.getId().longValue()))
             .andExpect(jsonPath("$.date").value(DEFAULT_DATE.toString()))
             .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT.toString()))
             .andExpect(jsonPath("$.visible").value(DEFAULT_VISIBLE.booleanValue()))
@@ -302,6 +607,203 @@ public class PublicationResourceIntTest {
         assertThat(publicationList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    @Transactional
+    public void searchPublication() throws Exception {
+        Publication first = publicationService.createPublication(createEntity(em).content("Searched quokka at the zoo"));
+        Publication second = publicationService.createPublication(createEntity(em).content("Two QUOKKAS, one quokka"));
+        Publication other = publicationService.createPublication(createEntity(em).content("A zoo without marsupials"));
+        em.flush();
+        publicationSearchService.index(Arrays.asList(first.getId(), second.getId(), other.getId()));
+        publicationSearchService.refresh();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}&size=1", "Quokka"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Next-Cursor", second.getId().toString()))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(jsonPath("$.[0].content").value("Two QUOKKAS, one quokka"));
+
+        // the matches are read from the index, their rows by their primary key; the content is never scanned
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}&size=1&before={before}", "quokka", second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", first.getId().toString()))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().longValue()));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}", "\"quokka at the zoo\""))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().longValue()));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}", "zoo -quokka"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(other.getId().longValue()));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}", "marsup*"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q={q}", "kangaroo"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void searchPublicationWithFilters() throws Exception {
+        Publisher author = createPublisher("searched-author");
+        Publication tagged = publicationService.createPublication(createEntity(em)
+            .content("Filtered wombat #searchedtag").date(LocalDate.of(2018, 12, 1)).publisher(author));
+        Publication untagged = publicationService.createPublication(createEntity(em)
+            .content("Filtered wombat").date(LocalDate.of(2018, 12, 20)).publisher(author));
+        Publication anonymous = publicationService.createPublication(createEntity(em)
+            .content("Filtered wombat #searchedtag").date(LocalDate.of(2018, 12, 20)));
+        em.flush();
+        publicationSearchService.index(Arrays.asList(tagged.getId(), untagged.getId(), anonymous.getId()));
+        publicationSearchService.refresh();
+
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=wombat&tag={tag}", "SearchedTag"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(anonymous.getId(), tagged.getId())));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=wombat&publisherId={id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(untagged.getId(), tagged.getId())));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=wombat&from=2018-12-10&to=2018-12-31&publisherId={id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(untagged.getId())));
+        restPublicationMockMvc.perform(get("/api/_search/publications?tag={tag}&to=2018-12-10", "searchedtag"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(tagged.getId())));
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=wombat&tag={tag}", "unknownsearchedtag"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void searchUpdatedAndDeletedPublications() throws Exception {
+        Publication updated = publicationService.createPublication(createEntity(em).content("Changing platypus"));
+        Publication deleted = publicationService.createPublication(createEntity(em).content("Deleted platypus"));
+        em.flush();
+        publicationSearchService.index(Arrays.asList(updated.getId(), deleted.getId()));
+
+        publicationService.update(updated.content("Changed echidna"));
+        publicationService.delete(deleted.getId());
+        em.flush();
+        publicationSearchService.onPublicationChanged(new PublicationChangedEvent(updated.getId(), null, false));
+        publicationSearchService.onPublicationChanged(new PublicationChangedEvent(deleted.getId(), null, true));
+        publicationSearchService.refresh();
+
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=platypus"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restPublicationMockMvc.perform(get("/api/_search/publications?q=echidna"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(updated.getId())));
+    }
+
+    @Test
+    @Transactional
+    public void getFilteredPublications() throws Exception {
+        Publisher author = createPublisher("filtered-author");
+        Publisher mentioned = createPublisher("filtered-mentioned");
+        Tag tag = new Tag().name("filteredtag");
+        em.persist(tag);
+        Publication first = createEntity(em).country("Filterland").date(LocalDate.of(2018, 12, 1)).publisher(author)
+            .visible(true);
+        first.getTags().add(tag);
+        first.getMentions().add(mentioned);
+        em.persist(first);
+        Publication hidden = createEntity(em).country("Filterland").date(LocalDate.of(2018, 12, 10)).publisher(author)
+            .visible(false);
+        hidden.getTags().add(tag);
+        em.persist(hidden);
+        Publication second = createEntity(em).country("Filterland").date(LocalDate.of(2018, 12, 20)).publisher(author)
+            .visible(true);
+        second.getTags().add(tag);
+        second.getMentions().add(mentioned);
+        second.getMentions().add(author);
+        em.persist(second);
+        Publication elsewhere = createEntity(em).country("Otherland").date(LocalDate.of(2018, 12, 20)).publisher(author);
+        elsewhere.getTags().add(tag);
+        em.persist(elsewhere);
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restPublicationMockMvc.perform(get("/api/publications/filter?publisherId.equals={publisherId}&tagsId.equals={tagId}" +
+            "&visible.equals=true&country.equals=Filterland&size=1", author.getId(), tag.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Next-Cursor", second.getId().toString()))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(jsonPath("$.[0].publisherId").value(author.getId().longValue()));
+
+        // one query for the page of ids and one for the rows; no publication, tag or publisher is loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        restPublicationMockMvc.perform(get("/api/publications/filter?publisherId.equals={publisherId}&tagsId.equals={tagId}" +
+            "&visible.equals=true&country.equals=Filterland&size=1&before={before}", author.getId(), tag.getId(), second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId())));
+        restPublicationMockMvc.perform(get("/api/publications/filter?mentionsId.in={mentionedId},{authorId}",
+            mentioned.getId(), author.getId()))
+            .andExpect(status().isOk())
+            // once each, even when several of the mentions match
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId(), first.getId())));
+        // the dates are the days the publications were created, read from their ids
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        restPublicationMockMvc.perform(get("/api/publications/filter?tagsId.equals={tagId}&visible.equals=false&country.equals=Filterland" +
+            "&date.greaterOrEqualThan={from}&date.lessOrEqualThan={to}", tag.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(hidden.getId())));
+        restPublicationMockMvc.perform(get("/api/publications/filter?country.in=Filterland,Otherland&date.equals={today}", today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(elsewhere.getId(), second.getId(), hidden.getId(), first.getId())));
+        restPublicationMockMvc.perform(get("/api/publications/filter?tagsId.equals={tagId}&date.lessThan={today}", tag.getId(), today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restPublicationMockMvc.perform(get("/api/publications/filter?publisherId.equals={publisherId}&country.equals=Nowhere",
+            author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void rebuildSearchIndex() throws Exception {
+        // the rebuild reads the committed publications from its own threads
+        List<Publication> rebuilt = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                rebuilt.add(publicationRepository.saveAndFlush(createEntity(em).content("Rebuilt numbat " + i)));
+            }
+
+            restPublicationMockMvc.perform(post("/api/_search/publications/rebuild"))
+                .andExpect(status().isAccepted());
+            for (int i = 0; i < 100 && publicationSearchService.isRebuilding(); i++) {
+                Thread.sleep(100);
+            }
+            assertThat(publicationSearchService.isRebuilding()).isFalse();
+
+            restPublicationMockMvc.perform(get("/api/_search/publications?q=numbat"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$.[0].id").value(rebuilt.get(4).getId().longValue()));
+        } finally {
+            publicationRepository.deleteAll(rebuilt);
+        }
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
@@ -3,9 +3,16 @@ package ar.edu.um.isa.web.rest;
 import ar.edu.um.isa.MicrobloggingIsaApp;
 
 import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.User;
 import ar.edu.um.isa.repository.PublisherRepository;
+import ar.edu.um.isa.service.FollowSuggestionService;
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.PublisherService;
 import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -25,12 +32,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 
 import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -50,6 +61,15 @@ public class PublisherResourceIntTest {
     @Mock
     private PublisherRepository publisherRepositoryMock;
 
+    @Autowired
+    private PublisherService publisherService;
+
+    @Autowired
+    private PublicationService publicationService;
+
+    @Autowired
+    private FollowSuggestionService followSuggestionService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -69,7 +89,7 @@ public class PublisherResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final PublisherResource publisherResource = new PublisherResource(publisherRepository);
+        final PublisherResource publisherResource = new PublisherResource(publisherRepository, publisherService, followSuggestionService);
         this.restPublisherMockMvc = MockMvcBuilders.standaloneSetup(publisherResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -102,12 +122,18 @@ public class PublisherResourceIntTest {
         restPublisherMockMvc.perform(post("/api/publishers")
             .contentType(TestUtil.APPLICATION_JSON_UTF8)
             .content(TestUtil.convertObjectToJsonBytes(publisher)))
-            .andExpect(status().isCreated());
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.followerCount").value(0))
+            .andExpect(jsonPath("$.followingCount").value(0))
+            .andExpect(jsonPath("$.publicationCount").value(0));
 
         // Validate the Publisher in the database
         List<Publisher> publisherList = publisherRepository.findAll();
         assertThat(publisherList).hasSize(databaseSizeBeforeCreate + 1);
         Publisher testPublisher = publisherList.get(publisherList.size() - 1);
+        assertThat(testPublisher.getFollowerCount()).isZero();
+        assertThat(testPublisher.getFollowingCount()).isZero();
+        assertThat(testPublisher.getPublicationCount()).isZero();
     }
 
     @Test
@@ -139,11 +165,11 @@ public class PublisherResourceIntTest {
         restPublisherMockMvc.perform(get("/api/publishers?sort=id,desc"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.[*].id").value(hasItem(publisher.getId().intValue())));
+            .andExpect(jsonPath("$.[*].id").value(hasItem(publisher.getId().longValue())));
     }
     
     public void getAllPublishersWithEagerRelationshipsIsEnabled() throws Exception {
-        PublisherResource publisherResource = new PublisherResource(publisherRepositoryMock);
+        PublisherResource publisherResource = new PublisherResource(publisherRepositoryMock, publisherService, followSuggestionService);
         when(publisherRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
 
         MockMvc restPublisherMockMvc = MockMvcBuilders.standaloneSetup(publisherResource)
@@ -159,7 +185,7 @@ public class PublisherResourceIntTest {
     }
 
     public void getAllPublishersWithEagerRelationshipsIsNotEnabled() throws Exception {
-        PublisherResource publisherResource = new PublisherResource(publisherRepositoryMock);
+        PublisherResource publisherResource = new PublisherResource(publisherRepositoryMock, publisherService, followSuggestionService);
             when(publisherRepositoryMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
             MockMvc restPublisherMockMvc = MockMvcBuilders.standaloneSetup(publisherResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
@@ -183,7 +209,338 @@ public class PublisherResourceIntTest {
         restPublisherMockMvc.perform(get("/api/publishers/{id}", publisher.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.id").value(publisher.getId().intValue()));
+            .andExpect(jsonPath("$.id").value(publisher.getId().longValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getPublisherSummary() throws Exception {
+        Publisher author = createPublisher("summarized");
+        Publisher firstFollower = createPublisher("first-follower");
+        Publisher secondFollower = createPublisher("second-follower");
+        em.flush();
+        publisherService.follow(firstFollower.getId(), author.getId());
+        publisherService.follow(secondFollower.getId(), author.getId());
+        publicationService.createPublication(PublicationResourceIntTest.createEntity(em).publisher(author));
+        em.flush();
+        em.clear();
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(author.getId().longValue()))
+            .andExpect(jsonPath("$.login").value("summarized"))
+            .andExpect(jsonPath("$.followerCount").value(2))
+            .andExpect(jsonPath("$.followingCount").value(0))
+            .andExpect(jsonPath("$.publicationCount").value(1));
+    }
+
+    @Test
+    @Transactional
+    public void getPublisherDoesNotLoadTheGraph() throws Exception {
+        Publisher author = createPublisher("popular");
+        List<Long> followerIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            followerIds.add(createPublisher("follower" + i).getId());
+        }
+        em.flush();
+        for (Long followerId : followerIds) {
+            publisherService.follow(followerId, author.getId());
+        }
+        publisherService.followAll(author.getId(), followerIds);
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublisherMockMvc.perform(get("/api/publishers/{id}", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.followerCount").value(20))
+            .andExpect(jsonPath("$.followingCount").value(20));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void followAndUnfollowPublisher() throws Exception {
+        Publisher follower = createPublisher("follower");
+        Publisher followed = createPublisher("followed");
+        em.flush();
+        em.clear();
+
+        for (int i = 0; i < 2; i++) {
+            restPublisherMockMvc.perform(put("/api/publishers/follow/{followed_id}/{follower_id}", followed.getId(), follower.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(follower.getId().longValue()))
+                .andExpect(jsonPath("$.followingCount").value(1));
+        }
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers", followed.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login", contains("follower")));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/follows", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login", contains("followed")));
+
+        restPublisherMockMvc.perform(put("/api/publishers/unfollow/{followed_id}/{follower_id}", followed.getId(), follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.followingCount").value(0));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers", followed.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void followDoesNotLoadThePublishers() throws Exception {
+        Publisher follower = createPublisher("follower");
+        Publisher followed = createPublisher("followed");
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublisherMockMvc.perform(put("/api/publishers/follow/{followed_id}/{follower_id}", followed.getId(), follower.getId()))
+            .andExpect(status().isOk());
+
+        // the update of both counters and the summary of the follower, besides the insert, run through JDBC
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void followNonExistingPublisher() throws Exception {
+        Publisher follower = createPublisher("follower");
+        em.flush();
+
+        restPublisherMockMvc.perform(put("/api/publishers/follow/{followed_id}/{follower_id}", Long.MAX_VALUE, follower.getId()))
+            .andExpect(status().isNotFound());
+        restPublisherMockMvc.perform(put("/api/publishers/follow/{followed_id}/{follower_id}", follower.getId(), Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void followManyPublishers() throws Exception {
+        Publisher follower = createPublisher("follower");
+        List<Long> followedIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followedIds.add(createPublisher("followed" + i).getId());
+        }
+        em.flush();
+        publisherService.follow(follower.getId(), followedIds.get(0));
+        em.clear();
+        // the follower itself, an unknown publisher and the publishers already followed are skipped
+        followedIds.add(follower.getId());
+        followedIds.add(Long.MAX_VALUE);
+        followedIds.add(followedIds.get(1));
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/follows", follower.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(followedIds)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.followingCount").value(5));
+
+        // the follows among the publishers, the update of the counters, the follows actually inserted, since
+        // some publishers were skipped, and the summary of the follower, besides the insert, run through JDBC
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(publisherRepository.findFollowIds(follower.getId())).hasSize(5);
+        assertThat(publisherRepository.findSummaryById(followedIds.get(1)).get().getFollowerCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void followTooManyPublishers() throws Exception {
+        Publisher follower = createPublisher("follower");
+        em.flush();
+        List<Long> followedIds = new ArrayList<>();
+        for (long id = 1; id <= PublisherResource.MAX_BULK_FOLLOWS + 1; id++) {
+            followedIds.add(id);
+        }
+
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/follows", follower.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(followedIds)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void followHimself() throws Exception {
+        Publisher follower = createPublisher("narcissus");
+        em.flush();
+
+        restPublisherMockMvc.perform(put("/api/publishers/follow/{followed_id}/{follower_id}", follower.getId(), follower.getId()))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getFollowersByCursor() throws Exception {
+        Publisher author = createPublisher("followed-by-many");
+        List<Long> followerIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followerIds.add(createPublisher("cursor-follower" + i).getId());
+        }
+        em.flush();
+        for (Long followerId : followerIds) {
+            publisherService.follow(followerId, author.getId());
+        }
+        followerIds.sort(Collections.reverseOrder());
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers?size=2", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", followerIds.get(1).toString()))
+            .andExpect(jsonPath("$.[*].id", contains(followerIds.get(0).longValue(), followerIds.get(1).longValue())));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers?size=2&before={before}", author.getId(), followerIds.get(3)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[*].id", contains(followerIds.get(4).longValue())));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/follows?size=2", followerIds.get(0)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$.[*].id", contains(author.getId().longValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getFollowersOfPublisherWithoutFollowers() throws Exception {
+        Publisher author = createPublisher("lonely");
+        em.flush();
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void getFollowersOfNonExistingPublisher() throws Exception {
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/followers", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getSuggestions() throws Exception {
+        Publisher viewer = createPublisher("viewer");
+        Publisher first = createPublisher("first-follow");
+        Publisher second = createPublisher("second-follow");
+        Publisher third = createPublisher("third-follow");
+        Publisher popular = createPublisher("popular");
+        Publisher older = createPublisher("older");
+        Publisher newer = createPublisher("newer");
+        em.flush();
+        publisherService.followAll(viewer.getId(), Arrays.asList(first.getId(), second.getId(), third.getId()));
+        publisherService.followAll(first.getId(), Arrays.asList(popular.getId(), newer.getId()));
+        // the viewer itself and the publishers it already follows are not suggested
+        publisherService.followAll(second.getId(), Arrays.asList(popular.getId(), viewer.getId(), first.getId()));
+        publisherService.followAll(third.getId(), Arrays.asList(popular.getId(), older.getId()));
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/suggestions", viewer.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].publisher.login", contains("popular", "older", "newer")))
+            .andExpect(jsonPath("$.[*].mutualFollowCount", contains(3, 1, 1)))
+            .andExpect(jsonPath("$.[0].publisher.followerCount").value(3));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/suggestions?size=1", viewer.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].publisher.login", contains("popular")));
+    }
+
+    @Test
+    @Transactional
+    public void getSuggestionsOfPublisherWithoutFollows() throws Exception {
+        Publisher author = createPublisher("lonely");
+        em.flush();
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/suggestions", author.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void getSuggestionsOfNonExistingPublisher() throws Exception {
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/suggestions", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getRelationships() throws Exception {
+        Publisher viewer = createPublisher("viewer");
+        Publisher followed = createPublisher("followed");
+        Publisher friend = createPublisher("friend");
+        Publisher follower = createPublisher("follower");
+        Publisher stranger = createPublisher("stranger");
+        em.flush();
+        publisherService.followAll(viewer.getId(), Arrays.asList(followed.getId(), friend.getId()));
+        publisherService.follow(friend.getId(), viewer.getId());
+        publisherService.follow(follower.getId(), viewer.getId());
+        // follows between the other publishers do not matter
+        publisherService.follow(followed.getId(), stranger.getId());
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/relationships", viewer.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(followed.getId(), friend.getId(), follower.getId(),
+                stranger.getId(), Long.MAX_VALUE))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$." + followed.getId()).value(PublisherService.FOLLOWING))
+            .andExpect(jsonPath("$." + friend.getId()).value(PublisherService.MUTUAL))
+            .andExpect(jsonPath("$." + follower.getId()).value(PublisherService.FOLLOWED_BY))
+            .andExpect(jsonPath("$." + stranger.getId()).value(0))
+            .andExpect(jsonPath("$." + Long.MAX_VALUE).value(0));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void getTooManyRelationships() throws Exception {
+        List<Long> publisherIds = new ArrayList<>();
+        for (long id = 0; id <= PublisherResource.MAX_RELATIONSHIP_TARGETS; id++) {
+            publisherIds.add(id);
+        }
+
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/relationships", Long.MAX_VALUE)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(publisherIds)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getRelationshipsWithNullId() throws Exception {
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/relationships", Long.MAX_VALUE)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content("[1, null]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getRelationshipsOfNonExistingPublisher() throws Exception {
+        restPublisherMockMvc.perform(post("/api/publishers/{id}/relationships", Long.MAX_VALUE)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList(1L))))
+            .andExpect(status().isNotFound());
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(login);
+        em.persist(user);
+        Publisher publisher = new Publisher().user(user);
+        em.persist(publisher);
+        return publisher;
     }
 
     @Test
@@ -218,6 +575,47 @@ public class PublisherResourceIntTest {
         Publisher testPublisher = publisherList.get(publisherList.size() - 1);
     }
 
+    @Test
+    @Transactional
+    public void updatePublisherFromItsSummaryKeepsTheFollows() throws Exception {
+        Publisher follower = createPublisher("follower");
+        Publisher followed = createPublisher("followed");
+        em.flush();
+        publisherService.follow(follower.getId(), followed.getId());
+        em.clear();
+
+        // the update form sends back the summary it loaded, without the user and the follows
+        byte[] summary = restPublisherMockMvc.perform(get("/api/publishers/{id}", follower.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        restPublisherMockMvc.perform(put("/api/publishers")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(summary))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.login").value("follower"))
+            .andExpect(jsonPath("$.followingCount").value(1));
+        em.clear();
+
+        restPublisherMockMvc.perform(get("/api/publishers/{id}/follows", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].login", contains("followed")));
+        restPublisherMockMvc.perform(get("/api/publishers/{id}", followed.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.followerCount").value(1));
+        assertThat(publisherRepository.findById(follower.getId()).get().getUser().getLogin()).isEqualTo("follower");
+    }
+
+    @Test
+    @Transactional
+    public void updateUnknownPublisher() throws Exception {
+        publisher.setId(Long.MAX_VALUE);
+
+        restPublisherMockMvc.perform(put("/api/publishers")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(publisher)))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void updateNonExistingPublisher() throws Exception {
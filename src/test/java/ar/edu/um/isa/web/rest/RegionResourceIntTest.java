@@ -0,0 +1,234 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
+import ar.edu.um.isa.service.LocalFeedService;
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.RegionService;
+import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the RegionResource REST controller.
+ *
+ * @see RegionResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class RegionResourceIntTest {
+
+    @Autowired
+    private RegionService regionService;
+
+    @Autowired
+    private LocalFeedService localFeedService;
+
+    @Autowired
+    private PublicationService publicationService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restRegionMockMvc;
+
+    @Before
+    public void setup() {
+        RegionResource regionResource = new RegionResource(regionService, localFeedService);
+        this.restRegionMockMvc = MockMvcBuilders.standaloneSetup(regionResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    public void createPublicationResolvesItsRegion() throws Exception {
+        Publication publication = PublicationResourceIntTest.createEntity(em).country(" Argentina ").city("Mendoza");
+        publicationService.createPublication(publication);
+        Publication other = PublicationResourceIntTest.createEntity(em).country("ARGENTINA").city("mendoza");
+        publicationService.createPublication(other);
+        Publication nowhere = PublicationResourceIntTest.createEntity(em).country(" ").city(null);
+        publicationService.createPublication(nowhere);
+
+        assertThat(publication.getRegionId()).isNotNull().isEqualTo(other.getRegionId());
+        assertThat(nowhere.getRegionId()).isNull();
+
+        restRegionMockMvc.perform(get("/api/regions?country={country}&city={city}", "argentina", "MENDOZA"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.id").value(publication.getRegionId()))
+            .andExpect(jsonPath("$.country").value("Argentina"))
+            .andExpect(jsonPath("$.city").value("Mendoza"))
+            .andExpect(jsonPath("$.code").doesNotExist());
+        restRegionMockMvc.perform(get("/api/regions?country={country}&city={city}", "Argentina", "Nowhere"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getRegionPublications() throws Exception {
+        Integer regionId = regionService.resolveRegionId("Argentina", "Local Feed City");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(persistPublication(regionId, 0).getId());
+        }
+        persistPublication(regionService.resolveRegionId("Argentina", "Other Local Feed City"), 0);
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restRegionMockMvc.perform(get("/api/regions/{id}/publications?size=2", regionId))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", ids.get(1).toString()))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(ids.get(2).longValue()))
+            .andExpect(jsonPath("$.[1].id").value(ids.get(1).longValue()));
+
+        // one range of the region index for the page of ids and one query for the rows; the region is not loaded
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        restRegionMockMvc.perform(get("/api/regions/{id}/publications?size=2&before={before}", regionId, ids.get(1)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(ids.get(0).longValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getRegionPublicationsWithoutPublications() throws Exception {
+        Integer regionId = regionService.resolveRegionId("Argentina", "Empty Local Feed City");
+
+        restRegionMockMvc.perform(get("/api/regions/{id}/publications", regionId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+        restRegionMockMvc.perform(get("/api/regions/{id}/publications", Integer.MAX_VALUE))
+            .andExpect(status().isNotFound());
+        restRegionMockMvc.perform(get("/api/regions/{id}/trending-tags", Integer.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getTopPublications() throws Exception {
+        Integer regionId = regionService.resolveRegionId("Argentina", "Top Publications City");
+        Publication quiet = persistPublication(regionId, 1);
+        Publication popular = persistPublication(regionId, 5);
+        Publication tied = persistPublication(regionId, 1);
+        Publication old = persistPublication(regionId, 10);
+        persistPublication(regionId, 0);
+        em.flush();
+        // a publication of last month is out of the window
+        em.createNativeQuery("update publication set id = :id where id = :previousId")
+            .setParameter("id", SnowflakeIdGenerator.lowerBoundOf(Instant.now().minus(30, ChronoUnit.DAYS)))
+            .setParameter("previousId", old.getId())
+            .executeUpdate();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restRegionMockMvc.perform(get("/api/regions/{id}/top-publications?days=7&size=3", regionId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[0].id").value(popular.getId().longValue()))
+            .andExpect(jsonPath("$.[1].id").value(tied.getId().longValue()))
+            .andExpect(jsonPath("$.[2].id").value(quiet.getId().longValue()));
+
+        // one range of the region index, read by chunks of 2 ids and ranked in memory, and one query for the rows
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3 + 1);
+    }
+
+    @Test
+    @Transactional
+    public void getTrendingTags() throws Exception {
+        Integer regionId = regionService.resolveRegionId("Argentina", "Trending Tags City");
+        Tag local = new Tag().name("regionaltrend");
+        em.persist(local);
+        Tag rare = new Tag().name("regionalrare");
+        em.persist(rare);
+        Tag elsewhere = new Tag().name("regionalelsewhere");
+        em.persist(elsewhere);
+        for (int i = 0; i < 3; i++) {
+            Publication publication = persistPublication(regionId, 0);
+            publication.getTags().add(local);
+            if (i == 0) {
+                publication.getTags().add(rare);
+            }
+        }
+        Publication other = persistPublication(regionService.resolveRegionId("Argentina", "Other Trending Tags City"), 0);
+        other.getTags().add(elsewhere);
+        em.flush();
+        em.clear();
+
+        restRegionMockMvc.perform(get("/api/regions/{id}/trending-tags", regionId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].name").value("regionaltrend"))
+            .andExpect(jsonPath("$.[0].count").value(3))
+            .andExpect(jsonPath("$.[1].name").value("regionalrare"))
+            .andExpect(jsonPath("$.[1].count").value(1));
+        restRegionMockMvc.perform(get("/api/regions/{id}/trending-tags?size=1", regionId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void getRankingsOutsideOfTheWindow() throws Exception {
+        restRegionMockMvc.perform(get("/api/regions/{id}/trending-tags?days=0", 1))
+            .andExpect(status().isBadRequest());
+        restRegionMockMvc.perform(get("/api/regions/{id}/top-publications?days={days}", 1, RegionResource.MAX_DAYS + 1))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Publication persistPublication(Integer regionId, long likeCount) {
+        Publication publication = PublicationResourceIntTest.createEntity(em);
+        publication.setRegionId(regionId);
+        em.persist(publication);
+        if (likeCount > 0) {
+            em.flush();
+            // the counters are not insertable
+            em.createNativeQuery("update publication set like_count = :likeCount where id = :id")
+                .setParameter("likeCount", likeCount)
+                .setParameter("id", publication.getId())
+                .executeUpdate();
+        }
+        return publication;
+    }
+}
@@ -2,10 +2,18 @@ package ar.edu.um.isa.web.rest;
 
 import ar.edu.um.isa.MicrobloggingIsaApp;
 
+import ar.edu.um.isa.domain.Publication;
 import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.util.SnowflakeIdGenerator;
 import ar.edu.um.isa.repository.TagRepository;
+import ar.edu.um.isa.service.TagService;
+import ar.edu.um.isa.service.TrendingTagService;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
 import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,12 +31,14 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Collections;
 import java.util.List;
 
 
 import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -41,8 +51,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest(classes = MicrobloggingIsaApp.class)
 public class TagResourceIntTest {
 
-    private static final String DEFAULT_NAME = "AAAAAAAAAA";
-    private static final String UPDATED_NAME = "BBBBBBBBBB";
+    private static final String DEFAULT_NAME = "aaaaaaaaaa";
+    private static final String UPDATED_NAME = "bbbbbbbbbb";
 
     private static final LocalDate DEFAULT_LAST_USE = LocalDate.ofEpochDay(0L);
     private static final LocalDate UPDATED_LAST_USE = LocalDate.now(ZoneId.systemDefault());
@@ -50,6 +60,15 @@ public class TagResourceIntTest {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private TrendingTagService trendingTagService;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -69,7 +88,7 @@ public class TagResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final TagResource tagResource = new TagResource(tagRepository);
+        final TagResource tagResource = new TagResource(tagRepository, tagService, trendingTagService);
         this.restTagMockMvc = MockMvcBuilders.standaloneSetup(tagResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -143,7 +162,7 @@ public class TagResourceIntTest {
         restTagMockMvc.perform(get("/api/tags?sort=id,desc"))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.[*].id").value(hasItem(tag.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(tag.getId().longValue())))
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME.toString())))
             .andExpect(jsonPath("$.[*].lastUse").value(hasItem(DEFAULT_LAST_USE.toString())));
     }
@@ -158,11 +177,34 @@ public class TagResourceIntTest {
         restTagMockMvc.perform(get("/api/tags/{id}", tag.getId()))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
-            .andExpect(jsonPath("$.id").value(tag.getId().intValue()))
+            .andExpect(jsonPath("$.id").value(tag.getId().longValue()))
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME.toString()))
             .andExpect(jsonPath("$.lastUse").value(DEFAULT_LAST_USE.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getTagWithPublicationCount() throws Exception {
+        tagRepository.saveAndFlush(tag);
+        for (int i = 0; i < 3; i++) {
+            em.persist(PublicationResourceIntTest.createEntity(em).addTag(tag));
+        }
+        tagService.countPublications(Collections.singletonList(tag.getId()), 3);
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restTagMockMvc.perform(get("/api/tags/{id}", tag.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.publicationCount").value(3));
+
+        // the count is read from the tag row, without loading its publications
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
     @Test
     @Transactional
     public void getNonExistingTag() throws Exception {
@@ -218,6 +260,97 @@ public class TagResourceIntTest {
         assertThat(tagList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    public void getTagPopular() throws Exception {
+        Tag first = tagRepository.saveAndFlush(new Tag().name("trendingfirst"));
+        Tag second = tagRepository.saveAndFlush(new Tag().name("trendingsecond"));
+        Tag third = tagRepository.saveAndFlush(new Tag().name("trendingthird"));
+        for (int i = 0; i < 3; i++) {
+            use(second);
+        }
+        use(first);
+        use(first);
+        use(third);
+
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}?size=2", 1))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].name").value("trendingsecond"))
+            .andExpect(jsonPath("$.[0].count").value(3))
+            .andExpect(jsonPath("$.[1].name").value("trendingfirst"))
+            .andExpect(jsonPath("$.[1].count").value(2));
+    }
+
+    @Test
+    @Transactional
+    public void getTagPopularLoadedFromThePublications() throws Exception {
+        Tag loaded = tagRepository.saveAndFlush(new Tag().name("trendingloaded"));
+        Publication publication = PublicationResourceIntTest.createEntity(em).addTag(loaded);
+        em.persist(publication);
+        em.flush();
+
+        trendingTagService.load(System.currentTimeMillis() + 1);
+
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}?size=100", 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.name == 'trendingloaded')].count").value(hasItem(1)));
+    }
+
+    @Test
+    @Transactional
+    public void getTagPopularCountsTheLoadedPublicationsOnce() throws Exception {
+        Tag loaded = tagRepository.saveAndFlush(new Tag().name("trendingloadedonce"));
+        Publication publication = PublicationResourceIntTest.createEntity(em).addTag(loaded);
+        em.persist(publication);
+        em.flush();
+
+        trendingTagService.load(System.currentTimeMillis() + 1);
+        // the creation committed while loading is below the watermark
+        trendingTagService.onPublicationCreated(new PublicationCreatedEvent(publication.getId(), null, null, loaded.getId()));
+
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}?size=100", 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.name == 'trendingloadedonce')].count").value(hasItem(1)));
+    }
+
+    @Test
+    @Transactional
+    public void getTagPopularWithoutTheDeletedPublications() throws Exception {
+        Tag kept = tagRepository.saveAndFlush(new Tag().name("trendingkept"));
+        Tag removed = tagRepository.saveAndFlush(new Tag().name("trendingremoved"));
+        use(kept);
+        use(kept);
+        long deletedId = use(kept);
+        long updatedId = use(removed);
+
+        trendingTagService.onPublicationChanged(new PublicationChangedEvent(deletedId, null, true,
+            new long[0], new long[]{kept.getId()}));
+        trendingTagService.onPublicationChanged(new PublicationChangedEvent(updatedId, null, false,
+            new long[]{kept.getId()}, new long[]{removed.getId()}));
+
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}?size=100", 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[?(@.name == 'trendingkept')].count").value(hasItem(3)))
+            .andExpect(jsonPath("$.[?(@.name == 'trendingremoved')]").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void getTagPopularOutsideOfTheWindow() throws Exception {
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}", 0))
+            .andExpect(status().isBadRequest());
+        restTagMockMvc.perform(get("/api/tag_popular/{dias}", trendingTagService.getWindowDays() + 1))
+            .andExpect(status().isBadRequest());
+    }
+
+    private long use(Tag tag) {
+        long publicationId = idGenerator.nextId();
+        trendingTagService.onPublicationCreated(new PublicationCreatedEvent(publicationId, null, null, tag.getId()));
+        return publicationId;
+    }
+
     @Test
     @Transactional
     public void deleteTag() throws Exception {
@@ -236,6 +369,25 @@ public class TagResourceIntTest {
         assertThat(tagList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    @Transactional
+    public void deleteTagKeepsItsPublications() throws Exception {
+        tagRepository.saveAndFlush(tag);
+        Publication publication = PublicationResourceIntTest.createEntity(em).addTag(tag);
+        em.persist(publication);
+        em.flush();
+        em.clear();
+
+        restTagMockMvc.perform(delete("/api/tags/{id}", tag.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+        em.flush();
+        em.clear();
+
+        assertThat(tagRepository.findById(tag.getId())).isEmpty();
+        assertThat(em.find(Publication.class, publication.getId()).getTags()).isEmpty();
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
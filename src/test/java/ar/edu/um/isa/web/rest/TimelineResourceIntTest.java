@@ -0,0 +1,320 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.HomeTimeline;
+import ar.edu.um.isa.domain.Publication;
+import ar.edu.um.isa.domain.Publisher;
+import ar.edu.um.isa.domain.User;
+import ar.edu.um.isa.repository.HomeTimelineRepository;
+import ar.edu.um.isa.service.PublicationService;
+import ar.edu.um.isa.service.RecentPublicationBuffers;
+import ar.edu.um.isa.service.TimelineService;
+import ar.edu.um.isa.service.event.PublicationChangedEvent;
+import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TimelineResource REST controller.
+ *
+ * @see TimelineResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class TimelineResourceIntTest {
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private PublicationService publicationService;
+
+    @Autowired
+    private RecentPublicationBuffers recentPublicationBuffers;
+
+    @Autowired
+    private HomeTimelineRepository homeTimelineRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restTimelineMockMvc;
+
+    private Publisher author;
+
+    private Publisher follower;
+
+    private Publisher stranger;
+
+    @Before
+    public void setup() {
+        TimelineResource timelineResource = new TimelineResource(timelineService, publicationService);
+        this.restTimelineMockMvc = MockMvcBuilders.standaloneSetup(timelineResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void initTest() {
+        author = createPublisher("timelineauthor");
+        follower = createPublisher("timelinefollower");
+        stranger = createPublisher("timelinestranger");
+    }
+
+    private Publisher createPublisher(String login) {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(login);
+        em.persist(user);
+        Publisher publisher = new Publisher().user(user);
+        em.persist(publisher);
+        return publisher;
+    }
+
+    private Publication publish(Publisher publisher) {
+        Publication publication = PublicationResourceIntTest.createEntity(em).publisher(publisher);
+        em.persist(publication);
+        em.flush();
+        timelineService.fanOut(publication.getId());
+        return publication;
+    }
+
+    @Test
+    @Transactional
+    public void fanOutReachesAuthorAndFollowers() {
+        follower.addFollow(author);
+        em.flush();
+
+        Publication publication = publish(author);
+
+        assertThat(homeTimelineRepository.findAll()).contains(
+            new HomeTimeline(author.getId(), publication.getId()),
+            new HomeTimeline(follower.getId(), publication.getId()))
+            .doesNotContain(new HomeTimeline(stranger.getId(), publication.getId()));
+    }
+
+    @Test
+    @Transactional
+    public void getTimelinePages() throws Exception {
+        follower.addFollow(author);
+        em.flush();
+        Publication first = publish(author);
+        Publication second = publish(author);
+        Publication third = publish(author);
+        publish(stranger);
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}?size=2", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().longValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().longValue()))
+            .andExpect(header().string("X-Next-Cursor", second.getId().toString()))
+            .andExpect(header().string(HttpHeaders.LINK,
+                "</api/timeline/" + follower.getId() + "?before=" + second.getId() + "&size=2>; rel=\"next\""));
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}?size=2&before={before}", follower.getId(), second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().longValue()))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @Transactional
+    public void followBackfillsAndUnfollowPrunesTheTimeline() throws Exception {
+        publish(author);
+        Publication second = publish(author);
+        Publication third = publish(author);
+        Publication own = publish(follower);
+
+        // the test transaction does not commit, so the work of the follow listener is run directly
+        assertThat(timelineService.backfill(follower.getId(), Collections.singletonList(author.getId()))).isEqualTo(2);
+        assertThat(timelineService.backfill(follower.getId(), Collections.singletonList(author.getId()))).isZero();
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(own.getId(), third.getId(), second.getId())))
+            .andExpect(jsonPath("$.[1].publisherId").value(author.getId().longValue()))
+            .andExpect(jsonPath("$.[1].content").value(third.getContent()));
+
+        assertThat(timelineService.prune(follower.getId(), Collections.singletonList(author.getId()))).isEqualTo(2);
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(own.getId())));
+        assertThat(homeTimelineRepository.findAll()).contains(new HomeTimeline(author.getId(), third.getId()));
+    }
+
+    @Test
+    @Transactional
+    public void getFollowedPublicationPages() throws Exception {
+        follower.addFollow(author).addFollow(stranger);
+        em.flush();
+        Publication first = publish(author);
+        Publication second = publish(stranger);
+        publish(follower);
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=1", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(jsonPath("$.[0].publisherId").value(stranger.getId().longValue()))
+            .andExpect(jsonPath("$.[0].content").value(second.getContent()))
+            .andExpect(header().string("X-Next-Cursor", second.getId().toString()));
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=2&before={before}", follower.getId(), second.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().longValue()))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @Transactional
+    public void getFollowedPublicationsPastDeletedPublications() throws Exception {
+        follower.addFollow(author);
+        em.flush();
+        Publication first = publish(author);
+        Publication second = publish(author);
+        Publication third = publish(author);
+
+        // the first page loads the buffer of the author
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=2", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)));
+
+        publicationService.delete(third.getId());
+        em.flush();
+
+        // still buffered: the page is short of the deleted row, but goes on past it
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=2", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(header().string("X-Next-Cursor", second.getId().toString()));
+
+        // the test transaction does not commit, so the listener is called directly
+        recentPublicationBuffers.onPublicationChanged(new PublicationChangedEvent(third.getId(), author.getId(), true));
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=2", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(jsonPath("$.[1].id").value(first.getId().longValue()))
+            .andExpect(header().string("X-Next-Cursor", first.getId().toString()));
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?size=2&before={before}", follower.getId(), first.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty())
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @Transactional
+    public void getFollowedPublicationsWithViewerState() throws Exception {
+        follower.addFollow(author);
+        em.flush();
+        Publication first = publish(author);
+        Publication second = publish(author);
+        publicationService.like(first.getId(), follower.getId());
+        publicationService.fave(first.getId(), follower.getId());
+        publicationService.like(second.getId(), stranger.getId());
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following?viewerState=true", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(second.getId().longValue()))
+            .andExpect(jsonPath("$.[0].viewerState").value(0))
+            .andExpect(jsonPath("$.[1].viewerState").value(PublicationService.LIKED | PublicationService.FAVED));
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].viewerState").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void getFollowedPublicationsWithRepublishes() throws Exception {
+        follower.addFollow(author);
+        em.flush();
+        Publication original = publish(stranger);
+        Publication first = publish(author);
+        Publication second = publish(author);
+        publicationService.republish(first.getId(), original.getId());
+        publicationService.republish(second.getId(), first.getId());
+        em.flush();
+        cacheManager.getCache(PublicationService.REPUBLISH_ROOTS_CACHE).evict(original.getId());
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].republishId").value(original.getId().longValue()))
+            .andExpect(jsonPath("$.[0].republish.id").value(original.getId().longValue()))
+            .andExpect(jsonPath("$.[0].republish.content").value(original.getContent()))
+            .andExpect(jsonPath("$.[1].republish.id").value(original.getId().longValue()));
+
+        // the republished publication is then read from the cache
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}/following", follower.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].republish.id").value(original.getId().longValue()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    public void getEmptyTimeline() throws Exception {
+        publish(author);
+
+        restTimelineMockMvc.perform(get("/api/timeline/{publisherId}", stranger.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    public void deletedPublicationLeavesTheTimelines() {
+        follower.addFollow(author);
+        em.flush();
+        Publication publication = publish(author);
+
+        em.remove(publication);
+        em.flush();
+        em.clear();
+
+        assertThat(homeTimelineRepository.findAll())
+            .extracting(HomeTimeline::getPublicationId).doesNotContain(publication.getId());
+    }
+}
@@ -0,0 +1,87 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.service.TrendSketchService;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TrendResource REST controller.
+ *
+ * @see TrendResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class TrendResourceIntTest {
+
+    @Autowired
+    private TrendSketchService trendSketchService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restTrendMockMvc;
+
+    @Before
+    public void setup() {
+        TrendResource trendResource = new TrendResource(trendSketchService);
+        this.restTrendMockMvc = MockMvcBuilders.standaloneSetup(trendResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void getTrendingTags() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            // a tag repeated in a publication is counted once
+            publish(Arrays.asList("TrendingSketch", "trendingsketch"), Collections.emptyList());
+        }
+
+        restTrendMockMvc.perform(get("/api/trends/tags?size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].name").value("trendingsketch"))
+            .andExpect(jsonPath("$.[0].count").value(1000));
+    }
+
+    @Test
+    public void getMostMentioned() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            publish(Collections.emptyList(), Collections.singletonList("mentionedsketch"));
+        }
+
+        restTrendMockMvc.perform(get("/api/trends/mentions?size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].name").value("mentionedsketch"))
+            .andExpect(jsonPath("$.[0].count").value(1000));
+    }
+
+    private void publish(List<String> tags, List<String> mentions) {
+        trendSketchService.onPublicationCreated(new PublicationCreatedEvent(1L, null, null, new long[0], tags, mentions));
+    }
+}
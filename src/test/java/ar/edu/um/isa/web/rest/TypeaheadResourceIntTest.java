@@ -0,0 +1,147 @@
+package ar.edu.um.isa.web.rest;
+
+import ar.edu.um.isa.MicrobloggingIsaApp;
+import ar.edu.um.isa.domain.Tag;
+import ar.edu.um.isa.domain.User;
+import ar.edu.um.isa.service.TagService;
+import ar.edu.um.isa.service.TypeaheadService;
+import ar.edu.um.isa.service.event.PublicationCreatedEvent;
+import ar.edu.um.isa.service.event.TagRenamedEvent;
+import ar.edu.um.isa.service.event.UserLoginChangedEvent;
+import ar.edu.um.isa.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static ar.edu.um.isa.web.rest.TestUtil.createFormattingConversionService;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TypeaheadResource REST controller.
+ *
+ * @see TypeaheadResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = MicrobloggingIsaApp.class)
+public class TypeaheadResourceIntTest {
+
+    @Autowired
+    private TypeaheadService typeaheadService;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restTypeaheadMockMvc;
+
+    @Before
+    public void setup() {
+        TypeaheadResource typeaheadResource = new TypeaheadResource(typeaheadService);
+        this.restTypeaheadMockMvc = MockMvcBuilders.standaloneSetup(typeaheadResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    public void getSuggestionsLoadedFromTheDatabase() throws Exception {
+        Tag tag = new Tag().name("LoadedTypeahead").lastUse(LocalDate.now());
+        em.persist(tag);
+        tagService.countPublications(Collections.singletonList(tag.getId()), 2);
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin("loadedtypeaheaduser");
+        em.persist(user);
+        User inactiveUser = UserResourceIntTest.createEntity(em);
+        inactiveUser.setLogin("loadedtypeaheadinactive");
+        inactiveUser.setActivated(false);
+        em.persist(inactiveUser);
+        em.flush();
+        em.clear();
+
+        typeaheadService.load();
+
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}", "LoadedType"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].type").value("tag"))
+            .andExpect(jsonPath("$.[0].name").value("loadedtypeahead"))
+            .andExpect(jsonPath("$.[0].score").value(2.0))
+            .andExpect(jsonPath("$.[1].type").value("user"))
+            .andExpect(jsonPath("$.[1].name").value("loadedtypeaheaduser"));
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}", "#loadedtype"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].name").value("loadedtypeahead"));
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}", "@loadedtype"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].name").value("loadedtypeaheaduser"));
+    }
+
+    @Test
+    public void getSuggestionsRankedByUsage() throws Exception {
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent(null, "rankedtypeaheadfirst"));
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent(null, "rankedtypeaheadsecond"));
+        typeaheadService.onTagRenamed(new TagRenamedEvent(null, "rankedtypeaheadtag"));
+        publish(Collections.singletonList("RankedTypeaheadTag"), Collections.singletonList("rankedtypeaheadsecond"));
+        publish(Collections.emptyList(), Collections.singletonList("RankedTypeaheadSecond"));
+
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}", "rankedtypeahead"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[0].name").value("rankedtypeaheadsecond"))
+            .andExpect(jsonPath("$.[0].score").value(2.0))
+            .andExpect(jsonPath("$.[1].name").value("rankedtypeaheadtag"))
+            .andExpect(jsonPath("$.[2].name").value("rankedtypeaheadfirst"));
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}&size=1", "rankedtypeahead"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void getSuggestionsAfterRenames() throws Exception {
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent(null, "renamedtypeaheadold"));
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent(null, "renamedtypeaheaddeleted"));
+        publish(Collections.emptyList(), Collections.singletonList("renamedtypeaheadold"));
+
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent("renamedtypeaheadold", "renamedtypeaheadnew"));
+        typeaheadService.onUserLoginChanged(new UserLoginChangedEvent("renamedtypeaheaddeleted", null));
+
+        // the renamed login keeps its score
+        restTypeaheadMockMvc.perform(get("/api/typeahead?q={q}", "@renamedtypeahead"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].name").value("renamedtypeaheadnew"))
+            .andExpect(jsonPath("$.[0].score").value(1.0));
+    }
+
+    private void publish(List<String> tags, List<String> mentions) {
+        typeaheadService.onPublicationCreated(new PublicationCreatedEvent(1L, null, null, new long[0], tags, mentions));
+    }
+}
@@ -41,4 +41,14 @@ public class PaginationUtilUnitTest {
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(400L));
     }
 
+    @Test
+    public void generateCursorPaginationHttpHeadersTest() {
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(1234L, 20, "/api/timeline/1");
+        assertEquals("</api/timeline/1?before=1234&size=20>; rel=\"next\"", headers.getFirst(HttpHeaders.LINK));
+        assertEquals("1234", headers.getFirst("X-Next-Cursor"));
+
+        HttpHeaders lastPageHeaders = PaginationUtil.generateCursorPaginationHttpHeaders(null, 20, "/api/timeline/1");
+        assertTrue(lastPageHeaders.isEmpty());
+    }
+
 }